@@ -0,0 +1,141 @@
+package gov.nasa.jpl.aerie.constraints.model;
+
+import gov.nasa.jpl.aerie.constraints.time.Interval;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * An index over a set of activity instances, by type and by time.
+ *
+ * <p>
+ * Activities of each type are kept in a static interval tree: they are sorted by start time,
+ * and each node of an implicit balanced tree over that order records the latest end time within its subtree.
+ * A query for the activities overlapping an interval can then skip any subtree that ends before the interval starts
+ * or that starts after the interval ends, visiting only O(log n + k) nodes for k matches.
+ * </p>
+ *
+ * <p>
+ * Every query returns activities in the order they were given to the index, so switching from a scan of
+ * {@link SimulationResults#activities} to a query does not change the order of anything derived from the result.
+ * </p>
+ */
+public final class ActivityIndex {
+  private final Map<String, TypeIndex> byType;
+
+  public ActivityIndex(final List<ActivityInstance> activities) {
+    final var activitiesByType = new HashMap<String, List<ActivityInstance>>();
+    for (final var activity : activities) {
+      activitiesByType.computeIfAbsent(activity.type, $ -> new ArrayList<>()).add(activity);
+    }
+
+    this.byType = new HashMap<>(activitiesByType.size());
+    for (final var entry : activitiesByType.entrySet()) {
+      this.byType.put(entry.getKey(), new TypeIndex(entry.getValue()));
+    }
+  }
+
+  /** All activities of the given type. */
+  public List<ActivityInstance> ofType(final String type) {
+    final var index = this.byType.get(type);
+    return (index == null) ? List.of() : index.activities;
+  }
+
+  /**
+   * All activities of the given type that overlap the given interval.
+   *
+   * <p>
+   * Endpoints are treated as included on both sides, so an activity that merely touches the interval is also returned.
+   * This makes the result a safe superset for callers that go on to test each activity's start or end exactly.
+   * </p>
+   */
+  public List<ActivityInstance> overlapping(final String type, final Interval interval) {
+    final var index = this.byType.get(type);
+    return (index == null) ? List.of() : index.overlapping(micros(interval.start), micros(interval.end));
+  }
+
+  private static long micros(final Duration duration) {
+    return duration.in(Duration.MICROSECOND);
+  }
+
+  private static final class TypeIndex {
+    /** The activities of this type, in their original order. */
+    private final List<ActivityInstance> activities;
+    /** Positions into {@link #activities}, sorted by start time. */
+    private final int[] order;
+    /** Start times (in microseconds) of the activities in {@link #order}. */
+    private final long[] starts;
+    /** For the tree node rooted at each position of {@link #order}, the latest end time (in microseconds) in its subtree. */
+    private final long[] maxEnds;
+
+    TypeIndex(final List<ActivityInstance> activities) {
+      this.activities = List.copyOf(activities);
+      this.order = IntStream.range(0, activities.size())
+          .boxed()
+          .sorted(Comparator.comparing(i -> activities.get(i).interval.start))
+          .mapToInt($ -> $)
+          .toArray();
+
+      this.starts = new long[this.order.length];
+      for (var i = 0; i < this.order.length; i += 1) {
+        this.starts[i] = micros(this.activities.get(this.order[i]).interval.start);
+      }
+
+      this.maxEnds = new long[this.order.length];
+      this.buildMaxEnds(0, this.order.length);
+    }
+
+    private long buildMaxEnds(final int lo, final int hi) {
+      if (lo >= hi) return Long.MIN_VALUE;
+
+      final var mid = (lo + hi) >>> 1;
+      var maxEnd = micros(this.activities.get(this.order[mid]).interval.end);
+      maxEnd = Math.max(maxEnd, this.buildMaxEnds(lo, mid));
+      maxEnd = Math.max(maxEnd, this.buildMaxEnds(mid + 1, hi));
+      this.maxEnds[mid] = maxEnd;
+      return maxEnd;
+    }
+
+    List<ActivityInstance> overlapping(final long start, final long end) {
+      final var positions = new ArrayList<Integer>();
+      this.collectOverlapping(0, this.order.length, start, end, positions);
+
+      final var matches = positions.stream().mapToInt($ -> $).toArray();
+      Arrays.sort(matches);
+
+      final var result = new ArrayList<ActivityInstance>(matches.length);
+      for (final var position : matches) result.add(this.activities.get(position));
+      return result;
+    }
+
+    private void collectOverlapping(
+        final int lo,
+        final int hi,
+        final long start,
+        final long end,
+        final List<Integer> positions
+    ) {
+      if (lo >= hi) return;
+
+      // No activity in this subtree ends late enough to overlap.
+      final var mid = (lo + hi) >>> 1;
+      if (this.maxEnds[mid] < start) return;
+
+      this.collectOverlapping(lo, mid, start, end, positions);
+
+      // Neither this activity nor any later in start order begins early enough to overlap.
+      if (this.starts[mid] > end) return;
+
+      final var position = this.order[mid];
+      if (micros(this.activities.get(position).interval.end) >= start) positions.add(position);
+
+      this.collectOverlapping(mid + 1, hi, start, end, positions);
+    }
+  }
+}
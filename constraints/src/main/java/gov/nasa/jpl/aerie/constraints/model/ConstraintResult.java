@@ -63,6 +63,22 @@ public final class ConstraintResult {
     return new ConstraintResult(violations, gaps);
   }
 
+  /**
+   * Merges any number of results, in order, into a single result.
+   *
+   * As with {@link #merge(ConstraintResult, ConstraintResult)}, only violations and gaps are kept.
+   */
+  public static ConstraintResult mergeAll(final List<ConstraintResult> results) {
+    final var violations = new ArrayList<Violation>();
+    final var gaps = new ArrayList<Interval>();
+    for (final var result : results) {
+      violations.addAll(result.violations);
+      gaps.addAll(result.gaps);
+    }
+
+    return new ConstraintResult(violations, gaps);
+  }
+
   @Override
   public boolean equals(final Object o) {
     if (this == o) return true;
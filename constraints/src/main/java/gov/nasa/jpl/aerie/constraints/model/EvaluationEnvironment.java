@@ -3,6 +3,7 @@ package gov.nasa.jpl.aerie.constraints.model;
 import gov.nasa.jpl.aerie.constraints.time.Interval;
 import gov.nasa.jpl.aerie.constraints.time.Spans;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /** A container for additional context needed for Constraints AST evaluation. */
@@ -20,4 +21,17 @@ public record EvaluationEnvironment(
   public EvaluationEnvironment(Map<String, LinearProfile> realExternalProfiles, Map<String, DiscreteProfile> discreteExternalProfiles) {
     this(Map.of(), Map.of(), Map.of(), realExternalProfiles, discreteExternalProfiles);
   }
+
+  /** Produce a copy of this environment in which the given alias refers to the given activity instance. */
+  public EvaluationEnvironment withActivityInstance(final String alias, final ActivityInstance activityInstance) {
+    final var activityInstances = new HashMap<>(this.activityInstances);
+    activityInstances.put(alias, activityInstance);
+
+    return new EvaluationEnvironment(
+        activityInstances,
+        this.spansInstances,
+        this.intervals,
+        this.realExternalProfiles,
+        this.discreteExternalProfiles);
+  }
 }
@@ -14,6 +14,8 @@ public final class SimulationResults {
   public final Map<String, LinearProfile> realProfiles;
   public final Map<String, DiscreteProfile> discreteProfiles;
 
+  private volatile ActivityIndex activityIndex = null;
+
   public SimulationResults(
       final Instant planStart, final Interval bounds,
       final List<ActivityInstance> activities,
@@ -27,6 +29,18 @@ public final class SimulationResults {
     this.discreteProfiles = discreteProfiles;
   }
 
+  /** An index over {@link #activities}, built on first use. */
+  public ActivityIndex activityIndex() {
+    var index = this.activityIndex;
+    if (index == null) {
+      synchronized (this) {
+        index = this.activityIndex;
+        if (index == null) this.activityIndex = index = new ActivityIndex(this.activities);
+      }
+    }
+    return index;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (!(obj instanceof final SimulationResults o)) return false;
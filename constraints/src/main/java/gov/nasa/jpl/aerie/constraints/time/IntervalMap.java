@@ -3,6 +3,7 @@ package gov.nasa.jpl.aerie.constraints.time;
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
 import org.apache.commons.lang3.function.TriFunction;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -10,6 +11,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.RandomAccess;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -41,6 +43,15 @@ public final class IntervalMap<V> implements Iterable<Segment<V>> {
     this.segments = Collections.unmodifiableList(segments);
   }
 
+  /**
+   * Wraps a list of segments that already meets the invariants of this class, without checking or copying it.
+   *
+   * For use by specialized operations that produce canonical segments directly (see {@link WindowsSweep}).
+   */
+  /*package-local*/ static <V> IntervalMap<V> ofCanonicalSegments(final List<Segment<V>> segments) {
+    return new IntervalMap<>(segments);
+  }
+
   /** Creates an IntervalMap builder */
   public static <V> Builder<V> builder() {
     return new Builder<>();
@@ -469,9 +480,17 @@ public final class IntervalMap<V> implements Iterable<Segment<V>> {
 
       // <> is `interval`, the interval to apply; [] is the currently-indexed interval in the map.
       // Cases: --[---]---<--->--
+      // The segments ending strictly before `interval` form a prefix of the (ordered, disjoint) list,
+      // so search for its end rather than walking it; segments are most often set in ascending order.
       int index = 0;
-      while (index < this.segments.size() && IntervalAlgebra.endsStrictlyBefore(this.getInterval(index), interval)) {
-        index += 1;
+      int end = this.segments.size();
+      while (index < end) {
+        final int middle = (index + end) >>> 1;
+        if (IntervalAlgebra.endsStrictlyBefore(this.getInterval(middle), interval)) {
+          index = middle + 1;
+        } else {
+          end = middle;
+        }
       }
 
       // Cases: --[---<---]--->-- and --[---<--->---]--
@@ -582,4 +601,87 @@ public final class IntervalMap<V> implements Iterable<Segment<V>> {
       return this.segments.get(index).value();
     }
   }
+
+  /**
+   * A builder for IntervalMaps whose segments are given in ascending order,
+   * which can build a map at any point and carry on appending afterward.
+   *
+   * Each map built shares the segments appended before it rather than copying them,
+   * so a map which only ever grows at its end can be built over and over for the cost of what was appended since.
+   */
+  public static final class Appender<V> {
+    // INVARIANT: `segments` followed by `last` meets the invariants of `IntervalMap`.
+    // INVARIANT: `segments` only ever grows at its end, so that maps built from a prefix of it never change.
+    private final List<Segment<V>> segments = new ArrayList<>();
+    // The last segment is held back, since it may yet be unified with the next one appended.
+    private Segment<V> last = null;
+
+    /** Append a segment, which must start after every segment already appended. */
+    public Appender<V> append(final Interval interval, final V value) {
+      if (interval.isEmpty()) return this;
+
+      final var tail = this.tailWith(interval, value);
+      if (tail.size() > 1) this.segments.add(tail.get(0));
+      this.last = tail.get(tail.size() - 1);
+
+      return this;
+    }
+
+    /** Build a map of the segments appended so far. */
+    public IntervalMap<V> build() {
+      return this.share((this.last == null) ? List.of() : List.of(this.last));
+    }
+
+    /** Build a map of the segments appended so far followed by one more, without appending it. */
+    public IntervalMap<V> buildWith(final Interval interval, final V value) {
+      if (interval.isEmpty()) return this.build();
+
+      return this.share(this.tailWith(interval, value));
+    }
+
+    // The segments which follow `segments` once the given one is appended after `last`.
+    private List<Segment<V>> tailWith(final Interval interval, final V value) {
+      if (this.last == null) return List.of(Segment.of(interval, value));
+
+      final var lastInterval = this.last.interval();
+      if (IntervalAlgebra.meets(lastInterval, interval)) {
+        if (Objects.equals(this.last.value(), value)) {
+          return List.of(Segment.of(IntervalAlgebra.unify(lastInterval, interval), value));
+        }
+      } else if (!IntervalAlgebra.endsStrictlyBefore(lastInterval, interval)) {
+        throw new IllegalArgumentException(
+            "Segment on %s does not start after the last segment, on %s".formatted(interval, lastInterval));
+      }
+
+      return List.of(this.last, Segment.of(interval, value));
+    }
+
+    private IntervalMap<V> share(final List<Segment<V>> tail) {
+      // SAFETY: `segments` followed by `tail` meets the same invariants as required by `IntervalMap`.
+      return new IntervalMap<>(new PrefixAndTail<>(this.segments, this.segments.size(), tail));
+    }
+
+    /** The first elements of a list which only ever grows at its end, followed by some others. */
+    private static final class PrefixAndTail<E> extends AbstractList<E> implements RandomAccess {
+      private final List<E> list;
+      private final int prefixSize;
+      private final List<E> tail;
+
+      PrefixAndTail(final List<E> list, final int prefixSize, final List<E> tail) {
+        this.list = list;
+        this.prefixSize = prefixSize;
+        this.tail = tail;
+      }
+
+      @Override
+      public E get(final int index) {
+        return (index < this.prefixSize) ? this.list.get(index) : this.tail.get(index - this.prefixSize);
+      }
+
+      @Override
+      public int size() {
+        return this.prefixSize + this.tail.size();
+      }
+    }
+  }
 }
@@ -8,6 +8,7 @@ import gov.nasa.jpl.aerie.constraints.time.Interval.Inclusivity;
 import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +22,29 @@ import java.util.stream.StreamSupport;
  * which are only valid on bools.
  */
 public final class Windows implements Iterable<Segment<Boolean>>, IntervalContainer<Windows>, Profile<Windows> {
+  // Truth tables for the binary operations below. Each row is a left operand (gap, false, true),
+  //   and each column is a right operand in the same order; null is a gap.
+  private static final WindowsSweep.TruthTable AND = WindowsSweep.TruthTable.of(
+      null,  false, null,
+      false, false, false,
+      null,  false, true);
+  private static final WindowsSweep.TruthTable OR = WindowsSweep.TruthTable.of(
+      null,  null,  true,
+      null,  false, true,
+      true,  true,  true);
+  private static final WindowsSweep.TruthTable ADD = WindowsSweep.TruthTable.of(
+      null,  false, true,
+      false, false, true,
+      true,  true,  true);
+  private static final WindowsSweep.TruthTable EQUAL_TO = WindowsSweep.TruthTable.of(
+      null,  null,  null,
+      null,  true,  false,
+      null,  false, true);
+  private static final WindowsSweep.TruthTable ASSIGN_GAPS = WindowsSweep.TruthTable.of(
+      null,  false, true,
+      false, false, false,
+      true,  true,  true);
+
   private final IntervalMap<Boolean> segments;
 
   /** Creates an empty Windows */
@@ -74,20 +98,7 @@ public final class Windows implements Iterable<Segment<Boolean>>, IntervalContai
    * @return a new Windows
    */
   public Windows and(final Windows other) {
-    return new Windows(IntervalMap.map2(
-        this.segments, other.segments,
-        (l, r) -> {
-          if (l.isPresent() && r.isPresent()) {
-            return Optional.of(l.get() && r.get());
-          } else if (l.isPresent()) {
-            return l.get() ? Optional.empty() : Optional.of(Boolean.FALSE);
-          } else if (r.isPresent()) {
-            return r.get() ? Optional.empty() : Optional.of(Boolean.FALSE);
-          } else {
-            return Optional.empty();
-          }
-        }
-    ));
+    return new Windows(WindowsSweep.combine(this.segments, other.segments, AND));
   }
 
   /**
@@ -110,20 +121,7 @@ public final class Windows implements Iterable<Segment<Boolean>>, IntervalContai
    * @return a new Windows
    */
   public Windows or(final Windows other) {
-    return new Windows(IntervalMap.map2(
-        this.segments, other.segments,
-        (l, r) -> {
-          if (l.isPresent() && r.isPresent()) {
-            return Optional.of(l.get() || r.get());
-          } else if (l.isPresent()) {
-            return l.get() ? Optional.of(true) : Optional.empty();
-          } else if (r.isPresent()) {
-            return r.get() ? Optional.of(true) : Optional.empty();
-          } else {
-            return Optional.empty();
-          }
-        }
-    ));
+    return new Windows(WindowsSweep.combine(this.segments, other.segments, OR));
   }
 
   /**
@@ -146,16 +144,7 @@ public final class Windows implements Iterable<Segment<Boolean>>, IntervalContai
    * @return a new Windows
    */
   public Windows add(final Windows other) {
-    return new Windows(IntervalMap.map2(
-        this.segments, other.segments,
-        (l, r) -> {
-          if (l.isPresent() && r.isPresent()) {
-            return Optional.of(l.get() || r.get());
-          } else if (l.isPresent()) {
-            return l;
-          } else return r;
-        }
-    ));
+    return new Windows(WindowsSweep.combine(this.segments, other.segments, ADD));
   }
 
   /**
@@ -169,7 +158,10 @@ public final class Windows implements Iterable<Segment<Boolean>>, IntervalContai
     //should not be a subtraction because then if it was null originally, then subtracting original from forever
     //  yields true where once was null, which isn't good. we want a simple inversion of true and false here, without
     //  filling nulls.
-    return new Windows(this.segments.map(b -> !b));
+    // Inverting every value keeps adjacent values distinct, so the segments need no re-normalization.
+    final var inverted = new ArrayList<Segment<Boolean>>(this.segments.size());
+    for (final var segment : this.segments) inverted.add(Segment.of(segment.interval(), !segment.value()));
+    return new Windows(IntervalMap.ofCanonicalSegments(inverted));
   }
 
   /** Gets the time and inclusivity of the leading edge of the first true segment */
@@ -536,12 +528,7 @@ public final class Windows implements Iterable<Segment<Boolean>>, IntervalContai
   /** Assigns a default value to all gaps in the profile. */
   @Override
   public Windows assignGaps(final Windows def) {
-    return new Windows(
-        IntervalMap.map2(
-            this.segments, def.segments,
-            (original, defaultSegment) -> original.isPresent() ? original : defaultSegment
-        )
-    );
+    return new Windows(WindowsSweep.combine(this.segments, def.segments, ASSIGN_GAPS));
   }
 
   @Override
@@ -556,14 +543,7 @@ public final class Windows implements Iterable<Segment<Boolean>>, IntervalContai
 
   @Override
   public Windows equalTo(final Windows other) {
-    return new Windows(
-        IntervalMap.map2(
-            this.segments, other.segments,
-            (left, right) -> left.isPresent() && right.isPresent()
-                ? Optional.of(left.get() == right.get())
-                : Optional.empty()
-        )
-    );
+    return new Windows(WindowsSweep.combine(this.segments, other.segments, EQUAL_TO));
   }
 
   @Override
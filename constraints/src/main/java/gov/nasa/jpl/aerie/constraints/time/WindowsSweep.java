@@ -0,0 +1,220 @@
+package gov.nasa.jpl.aerie.constraints.time;
+
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+
+import java.util.ArrayList;
+
+import static gov.nasa.jpl.aerie.constraints.time.Interval.Inclusivity.Exclusive;
+import static gov.nasa.jpl.aerie.constraints.time.Interval.Inclusivity.Inclusive;
+
+/**
+ * A specialization of {@link IntervalMap#map2} for boolean profiles whose result depends only on the two operands' values.
+ *
+ * <p>
+ * The generic sweep allocates an interval, two optionals, and a segment for every step, and boxes each value it sees.
+ * This sweep instead reads each operand once into primitive columns, and compares boundaries as pairs of
+ * a time (in microseconds) and a bit that orders "just before" and "just after" each instant:
+ * an inclusive start or exclusive end at {@code t} sorts as {@code (t, 0)}, and an exclusive start or
+ * inclusive end at {@code t} sorts as {@code (t, 1)}. Every segment then covers a half-open range of these boundaries,
+ * and the values of both operands and the result are small integers looked up in a {@link TruthTable}.
+ * Only the segments of the result are allocated.
+ * </p>
+ *
+ * <p>
+ * The result is identical to that of {@link IntervalMap#map2} with the equivalent transform, down to which of the
+ * operands' {@link Duration}s each boundary reuses.
+ * </p>
+ */
+/*package-local*/ final class WindowsSweep {
+  private static final byte GAP = 0;
+  private static final byte FALSE = 1;
+  private static final byte TRUE = 2;
+
+  private static final int START_EXCLUSIVE = 1;
+  private static final int END_INCLUSIVE = 2;
+
+  private WindowsSweep() {}
+
+  /**
+   * The result of a binary operation for each combination of operands, indexed by the operands' values
+   * in the order gap, false, true.
+   */
+  public record TruthTable(byte[] results) {
+    static TruthTable of(
+        final Boolean gapGap, final Boolean gapFalse, final Boolean gapTrue,
+        final Boolean falseGap, final Boolean falseFalse, final Boolean falseTrue,
+        final Boolean trueGap, final Boolean trueFalse, final Boolean trueTrue
+    ) {
+      return new TruthTable(new byte[] {
+          encode(gapGap), encode(gapFalse), encode(gapTrue),
+          encode(falseGap), encode(falseFalse), encode(falseTrue),
+          encode(trueGap), encode(trueFalse), encode(trueTrue),
+      });
+    }
+
+    byte apply(final byte left, final byte right) {
+      return this.results[3 * left + right];
+    }
+  }
+
+  public static IntervalMap<Boolean> combine(
+      final IntervalMap<Boolean> left,
+      final IntervalMap<Boolean> right,
+      final TruthTable table
+  ) {
+    final var l = Columns.of(left);
+    final var r = Columns.of(right);
+    final var result = new ArrayList<Segment<Boolean>>();
+
+    // The boundary at which the current piece starts.
+    var time = Long.MIN_VALUE;
+    var bit = 0;
+    var duration = Duration.MIN_VALUE;
+
+    // The run of equal values that the current piece may extend.
+    var runValue = GAP;
+    var runTime = 0L;
+    var runBit = 0;
+    Duration runDuration = null;
+
+    var i = 0;
+    var j = 0;
+    while (true) {
+      final byte leftValue;
+      final long leftNextTime;
+      final int leftNextBit;
+      final Duration leftNextDuration;
+      if (i < l.size && compare(l.startTimes[i], l.startBit(i), time, bit) <= 0) {
+        leftValue = l.values[i];
+        leftNextTime = l.endTimes[i];
+        leftNextBit = l.endBit(i);
+        leftNextDuration = l.intervals[i].end;
+      } else if (i < l.size) {
+        leftValue = GAP;
+        leftNextTime = l.startTimes[i];
+        leftNextBit = l.startBit(i);
+        leftNextDuration = l.intervals[i].start;
+      } else {
+        leftValue = GAP;
+        leftNextTime = Long.MAX_VALUE;
+        leftNextBit = 1;
+        leftNextDuration = Duration.MAX_VALUE;
+      }
+
+      final byte rightValue;
+      final long rightNextTime;
+      final int rightNextBit;
+      final Duration rightNextDuration;
+      if (j < r.size && compare(r.startTimes[j], r.startBit(j), time, bit) <= 0) {
+        rightValue = r.values[j];
+        rightNextTime = r.endTimes[j];
+        rightNextBit = r.endBit(j);
+        rightNextDuration = r.intervals[j].end;
+      } else if (j < r.size) {
+        rightValue = GAP;
+        rightNextTime = r.startTimes[j];
+        rightNextBit = r.startBit(j);
+        rightNextDuration = r.intervals[j].start;
+      } else {
+        rightValue = GAP;
+        rightNextTime = Long.MAX_VALUE;
+        rightNextBit = 1;
+        rightNextDuration = Duration.MAX_VALUE;
+      }
+
+      final var value = table.apply(leftValue, rightValue);
+      if (value != runValue) {
+        if (runValue != GAP) result.add(segment(runTime, runBit, runDuration, time, bit, duration, runValue));
+        runValue = value;
+        runTime = time;
+        runBit = bit;
+        runDuration = duration;
+      }
+
+      // Advance to whichever boundary comes first. Like `map2`, prefer the left operand's Duration on a tie in time.
+      if (compare(leftNextTime, leftNextBit, rightNextTime, rightNextBit) <= 0) {
+        time = leftNextTime;
+        bit = leftNextBit;
+      } else {
+        time = rightNextTime;
+        bit = rightNextBit;
+      }
+      duration = (leftNextTime <= rightNextTime) ? leftNextDuration : rightNextDuration;
+
+      if (time == Long.MAX_VALUE && bit == 1) break;
+
+      if (i < l.size && compare(time, bit, l.endTimes[i], l.endBit(i)) >= 0) i += 1;
+      if (j < r.size && compare(time, bit, r.endTimes[j], r.endBit(j)) >= 0) j += 1;
+    }
+
+    if (runValue != GAP) result.add(segment(runTime, runBit, runDuration, time, bit, duration, runValue));
+
+    // SAFETY: Each segment is non-empty, and adjacent segments have distinct values, because each run is maximal.
+    return IntervalMap.ofCanonicalSegments(result);
+  }
+
+  private static int compare(final long leftTime, final int leftBit, final long rightTime, final int rightBit) {
+    final var timeComparison = Long.compare(leftTime, rightTime);
+    return (timeComparison != 0) ? timeComparison : Integer.compare(leftBit, rightBit);
+  }
+
+  private static Segment<Boolean> segment(
+      final long startTime, final int startBit, final Duration start,
+      final long endTime, final int endBit, final Duration end,
+      final byte value
+  ) {
+    return Segment.of(
+        Interval.between(start, (startBit == 0) ? Inclusive : Exclusive, end, (endBit == 1) ? Inclusive : Exclusive),
+        value == TRUE);
+  }
+
+  private static byte encode(final Boolean value) {
+    if (value == null) return GAP;
+    return value ? TRUE : FALSE;
+  }
+
+  /** The segments of a boolean profile, stored column-wise. */
+  private static final class Columns {
+    final int size;
+    final Interval[] intervals;
+    final long[] startTimes;
+    final long[] endTimes;
+    final byte[] inclusivities;
+    final byte[] values;
+
+    private Columns(final int size) {
+      this.size = size;
+      this.intervals = new Interval[size];
+      this.startTimes = new long[size];
+      this.endTimes = new long[size];
+      this.inclusivities = new byte[size];
+      this.values = new byte[size];
+    }
+
+    static Columns of(final IntervalMap<Boolean> map) {
+      final var columns = new Columns(map.size());
+
+      var index = 0;
+      for (final var segment : map) {
+        final var interval = segment.interval();
+        columns.intervals[index] = interval;
+        columns.startTimes[index] = interval.start.in(Duration.MICROSECOND);
+        columns.endTimes[index] = interval.end.in(Duration.MICROSECOND);
+        columns.inclusivities[index] = (byte) (
+            (interval.includesStart() ? 0 : START_EXCLUSIVE) | (interval.includesEnd() ? END_INCLUSIVE : 0));
+        columns.values[index] = segment.value() ? TRUE : FALSE;
+        index += 1;
+      }
+
+      return columns;
+    }
+
+    int startBit(final int index) {
+      return ((this.inclusivities[index] & START_EXCLUSIVE) != 0) ? 1 : 0;
+    }
+
+    int endBit(final int index) {
+      return ((this.inclusivities[index] & END_INCLUSIVE) != 0) ? 1 : 0;
+    }
+  }
+}
@@ -40,6 +40,9 @@ public record AbsoluteInterval(
   @Override
   public void extractResources(final Set<String> names) {}
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {}
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
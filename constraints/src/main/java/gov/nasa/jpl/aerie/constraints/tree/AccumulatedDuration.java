@@ -26,6 +26,11 @@ public record AccumulatedDuration<I extends IntervalContainer<?>>(
     this.intervals.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.intervals.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
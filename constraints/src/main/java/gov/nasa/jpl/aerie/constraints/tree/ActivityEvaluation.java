@@ -0,0 +1,38 @@
+package gov.nasa.jpl.aerie.constraints.tree;
+
+import gov.nasa.jpl.aerie.constraints.model.ActivityInstance;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Evaluates a sub-expression once for each activity instance.
+ *
+ * <p>
+ * When evaluation is already running on a {@link java.util.concurrent.ForkJoinPool}, the per-activity evaluations
+ * are split across that pool. Callers that evaluate constraints on their own thread are unaffected, so parallelism
+ * is opted into by whoever owns the pool (see {@code ConstraintAction}).
+ * Either way, results are returned in the order of the given activities, so merging them is deterministic.
+ * </p>
+ */
+/*package-local*/ final class ActivityEvaluation {
+  /** Below this many activities, the cost of forking outweighs the work being split. */
+  static final int PARALLEL_THRESHOLD = 64;
+
+  private ActivityEvaluation() {}
+
+  /**
+   * Apply an evaluation to each activity, keeping the non-null results in activity order.
+   *
+   * @param evaluation Evaluates a single activity, or returns null if the activity is not of interest.
+   */
+  public static <T> List<T> forEach(final List<ActivityInstance> activities, final Function<ActivityInstance, T> evaluation) {
+    final var stream = (activities.size() >= PARALLEL_THRESHOLD && ForkJoinTask.inForkJoinPool())
+        ? activities.parallelStream()
+        : activities.stream();
+
+    return stream.map(evaluation).filter(Objects::nonNull).toList();
+  }
+}
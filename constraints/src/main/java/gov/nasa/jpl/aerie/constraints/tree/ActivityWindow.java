@@ -28,6 +28,9 @@ public final class ActivityWindow implements Expression<Windows> {
   @Override
   public void extractResources(final Set<String> names) { }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) { }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
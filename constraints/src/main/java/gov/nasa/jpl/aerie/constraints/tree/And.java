@@ -35,6 +35,11 @@ public final class And implements Expression<Windows> {
     this.expressions.forEach(expression -> expression.extractResources(names));
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.expressions.forEach(expression -> expression.extractActivityTypes(types));
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     final var builder = new StringBuilder();
@@ -26,6 +26,12 @@ public record AssignGaps<P extends Profile<P>>(
     this.defaultProfile.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.originalProfile.extractActivityTypes(types);
+    this.defaultProfile.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
@@ -26,6 +26,11 @@ public final class Changes<P extends Profile<P>> implements Expression<Windows>
     this.expression.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.expression.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
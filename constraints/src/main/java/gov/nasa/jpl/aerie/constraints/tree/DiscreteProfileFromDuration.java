@@ -24,6 +24,9 @@ public record DiscreteProfileFromDuration(
   @Override
   public void extractResources(final Set<String> names) {}
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {}
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
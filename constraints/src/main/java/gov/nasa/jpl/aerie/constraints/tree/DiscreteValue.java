@@ -28,6 +28,9 @@ public record DiscreteValue(
   @Override
   public void extractResources(final Set<String> names) {}
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {}
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
@@ -19,6 +19,9 @@ public record DurationLiteral(
   @Override
   public void extractResources(final Set<String> names) {}
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {}
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
@@ -26,6 +26,11 @@ public final class Ends<I extends IntervalContainer<I>> implements Expression<I>
     this.expression.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.expression.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
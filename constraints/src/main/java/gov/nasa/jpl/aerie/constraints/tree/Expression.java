@@ -14,6 +14,17 @@ public interface Expression<T> {
   /** Add the resources referenced by this expression to the given set. **/
   void extractResources(Set<String> names);
 
+  /** Stands for every activity type, for expressions that may read activities regardless of their type. */
+  String ANY_ACTIVITY_TYPE = "*";
+
+  /**
+   * Add the types of activities read by this expression to the given set,
+   * or {@link #ANY_ACTIVITY_TYPE} if it may read activities of any type.
+   **/
+  default void extractActivityTypes(Set<String> types) {
+    types.add(ANY_ACTIVITY_TYPE);
+  }
+
   default T evaluate(final SimulationResults results, final EvaluationEnvironment environment){
     return this.evaluate(results, results.bounds, environment);
   }
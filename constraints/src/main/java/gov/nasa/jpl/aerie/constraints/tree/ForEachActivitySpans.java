@@ -7,7 +7,6 @@ import gov.nasa.jpl.aerie.constraints.time.Interval;
 import gov.nasa.jpl.aerie.constraints.time.Spans;
 import org.apache.commons.lang3.function.TriFunction;
 
-import java.util.HashMap;
 import java.util.Objects;
 import java.util.Set;
 
@@ -27,22 +26,20 @@ public record ForEachActivitySpans(
 
   @Override
   public Spans evaluate(final SimulationResults results, final Interval bounds, final EvaluationEnvironment environment) {
-    final var spans = new Spans();
-    for (final var activity : results.activities) {
-      if (this.activityPredicate.apply(activity, results, environment)) {
-        final var newEnvironment = new EvaluationEnvironment(
-            new HashMap<>(environment.activityInstances()),
-            environment.spansInstances(),
-            environment.intervals(),
-            environment.realExternalProfiles(),
-            environment.discreteExternalProfiles()
-        );
-        newEnvironment.activityInstances().put(this.alias, activity);
+    // Predicates that only match on type can be answered by the index; any other predicate must see every activity.
+    final var activities = (this.activityPredicate instanceof MatchType matchType)
+        ? results.activityIndex().ofType(matchType.type())
+        : results.activities;
 
-        final var expressionSpans = this.expression.evaluate(results, bounds, newEnvironment);
-        spans.addAll(expressionSpans);
-      }
-    }
+    final var activitySpans = ActivityEvaluation.forEach(activities, activity -> {
+      if (!this.activityPredicate.apply(activity, results, environment)) return null;
+
+      final var newEnvironment = environment.withActivityInstance(this.alias, activity);
+      return this.expression.evaluate(results, bounds, newEnvironment);
+    });
+
+    final var spans = new Spans();
+    for (final var expressionSpans : activitySpans) spans.addAll(expressionSpans);
     return spans;
   }
 
@@ -51,6 +48,12 @@ public record ForEachActivitySpans(
     this.expression.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    types.add((this.activityPredicate instanceof MatchType matchType) ? matchType.type() : ANY_ACTIVITY_TYPE);
+    this.expression.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
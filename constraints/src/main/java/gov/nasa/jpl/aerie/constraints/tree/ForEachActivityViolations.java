@@ -5,7 +5,6 @@ import gov.nasa.jpl.aerie.constraints.model.SimulationResults;
 import gov.nasa.jpl.aerie.constraints.model.ConstraintResult;
 import gov.nasa.jpl.aerie.constraints.time.Interval;
 
-import java.util.HashMap;
 import java.util.Set;
 
 public record ForEachActivityViolations(
@@ -14,26 +13,17 @@ public record ForEachActivityViolations(
 
   @Override
   public ConstraintResult evaluate(final SimulationResults results, final Interval bounds, final EvaluationEnvironment environment) {
-    var violations = new ConstraintResult();
-    for (final var activity : results.activities) {
-      if (activity.type.equals(this.activityType)) {
-        final var newEnvironment = new EvaluationEnvironment(
-            new HashMap<>(environment.activityInstances()),
-            environment.spansInstances(),
-            environment.intervals(),
-            environment.realExternalProfiles(),
-            environment.discreteExternalProfiles()
-        );
-        newEnvironment.activityInstances().put(this.alias, activity);
-
-        final var newViolations = this.expression.evaluate(results, bounds, newEnvironment);
-        for (final var violation: newViolations.violations) {
-          violation.addActivityId(activity.id);
-        }
-        violations = ConstraintResult.merge(violations, newViolations);
+    final var activities = results.activityIndex().ofType(this.activityType);
+    final var activityResults = ActivityEvaluation.forEach(activities, activity -> {
+      final var newEnvironment = environment.withActivityInstance(this.alias, activity);
+      final var newViolations = this.expression.evaluate(results, bounds, newEnvironment);
+      for (final var violation: newViolations.violations) {
+        violation.addActivityId(activity.id);
       }
-    }
-    return violations;
+      return newViolations;
+    });
+
+    return ConstraintResult.mergeAll(activityResults);
   }
 
   @Override
@@ -41,6 +31,12 @@ public record ForEachActivityViolations(
     this.expression.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    types.add(this.activityType);
+    this.expression.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
@@ -32,6 +32,12 @@ public final class GreaterThanOrEqual implements Expression<Windows> {
     this.right.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.left.extractActivityTypes(types);
+    this.right.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
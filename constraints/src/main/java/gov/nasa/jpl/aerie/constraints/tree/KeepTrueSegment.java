@@ -37,6 +37,11 @@ public class KeepTrueSegment implements Expression<Windows> {
     this.expression.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.expression.extractActivityTypes(types);
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (!(obj instanceof final KeepTrueSegment o)) return false;
@@ -43,6 +43,13 @@ public record ListExpressionAt(
     }
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    for (final var field: elements) {
+      field.extractActivityTypes(types);
+    }
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     StringBuilder fieldString = new StringBuilder();
@@ -37,6 +37,11 @@ public final class Or implements Expression<Windows> {
     this.expressions.forEach(expression -> expression.extractResources(names));
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.expressions.forEach(expression -> expression.extractActivityTypes(types));
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     final var builder = new StringBuilder();
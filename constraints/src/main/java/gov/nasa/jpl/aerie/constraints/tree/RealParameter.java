@@ -39,6 +39,9 @@ public final class RealParameter implements Expression<LinearProfile> {
   @Override
   public void extractResources(final Set<String> names) { }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) { }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
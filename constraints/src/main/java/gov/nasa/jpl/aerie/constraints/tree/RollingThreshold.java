@@ -108,6 +108,13 @@ public record RollingThreshold(Expression<Spans> spans, Expression<Duration> wid
     this.threshold.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.spans.extractActivityTypes(types);
+    this.width.extractActivityTypes(types);
+    this.threshold.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
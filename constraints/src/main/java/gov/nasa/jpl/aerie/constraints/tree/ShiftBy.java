@@ -29,6 +29,12 @@ public record ShiftBy<P extends Profile<P>>(
     this.duration.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.expression.extractActivityTypes(types);
+    this.duration.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
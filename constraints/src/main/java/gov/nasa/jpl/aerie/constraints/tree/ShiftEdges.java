@@ -41,6 +41,11 @@ public final class ShiftEdges<I extends IntervalContainer<I>> implements Express
     this.expression.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.expression.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
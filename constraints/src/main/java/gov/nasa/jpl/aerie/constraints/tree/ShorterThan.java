@@ -29,6 +29,11 @@ public final class ShorterThan implements Expression<Windows> {
     this.windows.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.windows.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
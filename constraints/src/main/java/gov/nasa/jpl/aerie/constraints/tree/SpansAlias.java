@@ -20,6 +20,9 @@ public record SpansAlias(String spansAlias) implements Expression<Spans> {
   @Override
   public void extractResources(final Set<String> names) {}
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {}
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
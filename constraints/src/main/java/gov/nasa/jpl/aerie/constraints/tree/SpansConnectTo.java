@@ -53,6 +53,12 @@ public record SpansConnectTo(Expression<Spans> from, Expression<Spans> to) imple
     this.to.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.from.extractActivityTypes(types);
+    this.to.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
@@ -116,6 +116,12 @@ public record SpansContains(Expression<Spans> parents, Expression<Spans> childre
     this.children.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.parents.extractActivityTypes(types);
+    this.children.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
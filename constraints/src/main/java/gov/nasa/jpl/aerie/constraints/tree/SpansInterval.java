@@ -18,6 +18,9 @@ public record SpansInterval(Expression<Interval> interval) implements Expression
   @Override
   public void extractResources(final Set<String> names) {}
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {}
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
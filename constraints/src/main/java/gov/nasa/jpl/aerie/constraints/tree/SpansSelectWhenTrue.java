@@ -26,6 +26,12 @@ public record SpansSelectWhenTrue(Expression<Spans> spans, Expression<Windows> w
     this.windows.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.spans.extractActivityTypes(types);
+    this.windows.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
@@ -26,4 +26,7 @@ public record SpansWrapperExpression(Spans spans) implements Expression<Spans> {
 
   @Override
   public void extractResources(final Set<String> names) { }
+
+  @Override
+  public void extractActivityTypes(final Set<String> types) { }
 }
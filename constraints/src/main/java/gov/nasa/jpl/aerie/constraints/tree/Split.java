@@ -37,6 +37,11 @@ public final class Split<I extends IntervalContainer<?>> implements Expression<S
     this.intervals.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.intervals.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
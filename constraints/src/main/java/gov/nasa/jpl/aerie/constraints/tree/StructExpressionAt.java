@@ -52,6 +52,13 @@ public record StructExpressionAt(
     }
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    for (final var field: fields.entrySet()) {
+      field.getValue().extractActivityTypes(types);
+    }
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     StringBuilder fieldString = new StringBuilder();
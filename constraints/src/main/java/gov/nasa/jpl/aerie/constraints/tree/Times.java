@@ -27,6 +27,11 @@ public final class Times implements Expression<LinearProfile> {
     this.profile.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.profile.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
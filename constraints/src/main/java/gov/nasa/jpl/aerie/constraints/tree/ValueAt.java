@@ -54,4 +54,10 @@ public record ValueAt<P extends Profile<P>>(
     this.profile.extractResources(names);
     this.timepoint.extractResources(names);
   }
+
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.profile.extractActivityTypes(types);
+    this.timepoint.extractActivityTypes(types);
+  }
 }
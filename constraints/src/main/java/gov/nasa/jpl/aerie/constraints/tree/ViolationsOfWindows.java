@@ -39,6 +39,11 @@ public final class ViolationsOfWindows implements Expression<ConstraintResult> {
     this.expression.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.expression.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return this.expression.prettyPrint(prefix);
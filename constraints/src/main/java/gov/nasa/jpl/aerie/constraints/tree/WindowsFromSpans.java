@@ -21,6 +21,11 @@ public record WindowsFromSpans(Expression<Spans> expression) implements Expressi
     this.expression.extractResources(names);
   }
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {
+    this.expression.extractActivityTypes(types);
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
@@ -23,6 +23,9 @@ public record WindowsValue(boolean value, Optional<Expression<Interval>> interva
   @Override
   public void extractResources(final Set<String> names) {}
 
+  @Override
+  public void extractActivityTypes(final Set<String> types) {}
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
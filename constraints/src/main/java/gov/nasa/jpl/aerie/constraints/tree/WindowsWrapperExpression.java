@@ -26,4 +26,7 @@ public class WindowsWrapperExpression implements Expression<Windows> {
   }
   /** Add the resources referenced by this expression to the given set. **/
   public void extractResources(Set<String> names) { }
+
+  @Override
+  public void extractActivityTypes(Set<String> types) { }
 }
@@ -0,0 +1,69 @@
+package gov.nasa.jpl.aerie.constraints.model;
+
+import gov.nasa.jpl.aerie.constraints.time.Interval;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ActivityIndexTest {
+  @Test
+  public void testOfTypeKeepsOriginalOrder() {
+    final var activities = List.of(
+        new ActivityInstance(1, "TypeA", Map.of(), Interval.between(9, 10, SECONDS)),
+        new ActivityInstance(2, "TypeB", Map.of(), Interval.between(5, 7, SECONDS)),
+        new ActivityInstance(3, "TypeA", Map.of(), Interval.between(4, 6, SECONDS))
+    );
+
+    final var index = new ActivityIndex(activities);
+
+    assertEquals(List.of(activities.get(0), activities.get(2)), index.ofType("TypeA"));
+    assertEquals(List.of(activities.get(1)), index.ofType("TypeB"));
+    assertEquals(List.of(), index.ofType("TypeC"));
+  }
+
+  @Test
+  public void testOverlappingIncludesTouchingActivities() {
+    final var activities = List.of(
+        new ActivityInstance(1, "TypeA", Map.of(), Interval.between(0, 2, SECONDS)),
+        new ActivityInstance(2, "TypeA", Map.of(), Interval.between(2, 4, SECONDS)),
+        new ActivityInstance(3, "TypeA", Map.of(), Interval.between(5, 6, SECONDS))
+    );
+
+    final var index = new ActivityIndex(activities);
+
+    assertEquals(List.of(activities.get(0), activities.get(1)), index.overlapping("TypeA", Interval.at(2, SECONDS)));
+    assertEquals(List.of(activities.get(1), activities.get(2)), index.overlapping("TypeA", Interval.between(3, 5, SECONDS)));
+    assertEquals(List.of(), index.overlapping("TypeA", Interval.between(7, 9, SECONDS)));
+  }
+
+  @Test
+  public void testOverlappingAgreesWithScan() {
+    final var random = new Random(0);
+    final var activities = new ArrayList<ActivityInstance>();
+    for (var i = 0; i < 1000; i += 1) {
+      final var start = random.nextInt(10_000);
+      final var duration = (random.nextInt(10) == 0) ? random.nextInt(5_000) : random.nextInt(50);
+      activities.add(new ActivityInstance(i, (i % 2 == 0) ? "TypeA" : "TypeB", Map.of(), Interval.between(start, start + duration, SECONDS)));
+    }
+
+    final var index = new ActivityIndex(activities);
+
+    for (var i = 0; i < 100; i += 1) {
+      final var start = random.nextInt(10_000);
+      final var query = Interval.between(start, start + random.nextInt(500), SECONDS);
+
+      final var expected = activities.stream()
+          .filter($ -> $.type.equals("TypeA"))
+          .filter($ -> !$.interval.end.shorterThan(query.start) && !$.interval.start.longerThan(query.end))
+          .toList();
+
+      assertEquals(expected, index.overlapping("TypeA", query));
+    }
+  }
+}
@@ -9,6 +9,8 @@ import static gov.nasa.jpl.aerie.constraints.time.Interval.interval;
 import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.SECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class IntervalMapTest {
 
@@ -274,4 +276,40 @@ public class IntervalMapTest {
 
     assertIterableEquals(expected, left);
   }
+
+  @Test
+  public void appenderSharesWhatWasAppended() {
+    final var appender = new IntervalMap.Appender<String>()
+        .append(Interval.between(0, Inclusive, 2, Exclusive, SECONDS), "a")
+        .append(Interval.between(2, Inclusive, 4, Exclusive, SECONDS), "a") // coalesces with the previous segment
+        .append(Interval.between(4, Inclusive, 5, Exclusive, SECONDS), "b");
+
+    final var first = appender.buildWith(Interval.between(5, Inclusive, 6, Exclusive, SECONDS), "b");
+    assertIterableEquals(
+        IntervalMap.of(
+            Segment.of(Interval.between(0, Inclusive, 4, Exclusive, SECONDS), "a"),
+            Segment.of(Interval.between(4, Inclusive, 6, Exclusive, SECONDS), "b")),
+        first);
+
+    appender
+        .append(Interval.between(5, Inclusive, 7, Exclusive, SECONDS), "c")
+        .append(Interval.between(8, Inclusive, 9, Exclusive, SECONDS), "c");
+    final var second = appender.build();
+
+    // Carrying on appending leaves maps already built as they were.
+    assertEquals(2, first.size());
+    assertEquals(Segment.of(Interval.between(4, Inclusive, 6, Exclusive, SECONDS), "b"), first.get(1));
+    assertIterableEquals(
+        IntervalMap.of(
+            Segment.of(Interval.between(0, Inclusive, 4, Exclusive, SECONDS), "a"),
+            Segment.of(Interval.between(4, Inclusive, 5, Exclusive, SECONDS), "b"),
+            Segment.of(Interval.between(5, Inclusive, 7, Exclusive, SECONDS), "c"),
+            Segment.of(Interval.between(8, Inclusive, 9, Exclusive, SECONDS), "c")),
+        second);
+    assertSame(first.get(0), second.get(0));
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> appender.append(Interval.between(8, Inclusive, 10, Exclusive, SECONDS), "d"));
+  }
 }
@@ -0,0 +1,100 @@
+package gov.nasa.jpl.aerie.constraints.time;
+
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+import static gov.nasa.jpl.aerie.constraints.time.Interval.Inclusivity.Exclusive;
+import static gov.nasa.jpl.aerie.constraints.time.Interval.Inclusivity.Inclusive;
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class WindowsSweepTest {
+  private static final Map<String, BiFunction<Windows, Windows, Windows>> OPERATIONS = Map.of(
+      "and", Windows::and,
+      "or", Windows::or,
+      "add", Windows::add,
+      "equalTo", Windows::equalTo,
+      "assignGaps", Windows::assignGaps);
+
+  private static final Map<String, BiFunction<Optional<Boolean>, Optional<Boolean>, Optional<Boolean>>> REFERENCES = Map.of(
+      "and", (l, r) -> {
+        if (l.isPresent() && r.isPresent()) return Optional.of(l.get() && r.get());
+        else if (l.isPresent()) return l.get() ? Optional.empty() : Optional.of(false);
+        else if (r.isPresent()) return r.get() ? Optional.empty() : Optional.of(false);
+        else return Optional.empty();
+      },
+      "or", (l, r) -> {
+        if (l.isPresent() && r.isPresent()) return Optional.of(l.get() || r.get());
+        else if (l.isPresent()) return l.get() ? Optional.of(true) : Optional.empty();
+        else if (r.isPresent()) return r.get() ? Optional.of(true) : Optional.empty();
+        else return Optional.empty();
+      },
+      "add", (l, r) -> {
+        if (l.isPresent() && r.isPresent()) return Optional.of(l.get() || r.get());
+        else if (l.isPresent()) return l;
+        else return r;
+      },
+      "equalTo", (l, r) -> (l.isPresent() && r.isPresent()) ? Optional.of(l.get() == r.get()) : Optional.empty(),
+      "assignGaps", (l, r) -> l.isPresent() ? l : r);
+
+  @Test
+  public void agreesWithGenericSweep() {
+    final var random = new Random(0);
+
+    for (var trial = 0; trial < 500; trial += 1) {
+      final var left = randomWindows(random);
+      final var right = randomWindows(random);
+
+      for (final var name : OPERATIONS.keySet()) {
+        final var expected = IntervalMap.map2(IntervalMap.of(left.stream().toList()), IntervalMap.of(right.stream().toList()), REFERENCES.get(name));
+        final var actual = OPERATIONS.get(name).apply(left, right);
+
+        assertEquals(new Windows(expected), actual, name + " of " + left + " and " + right);
+        assertEquals(points(expected), points(actual), name + " of " + left + " and " + right);
+      }
+
+      assertEquals(new Windows(IntervalMap.of(left.stream().toList()).map($ -> !$)), left.not());
+    }
+  }
+
+  @Test
+  public void coversTheWholeTimeline() {
+    final var left = new Windows(Interval.FOREVER, true);
+    final var right = new Windows(
+        Segment.of(Interval.between(Duration.MIN_VALUE, Inclusive, Duration.ZERO, Exclusive), false),
+        Segment.of(Interval.at(Duration.MAX_VALUE), false));
+
+    // True and a gap is a gap, so only the extremes of the timeline remain defined.
+    assertEquals(right, left.and(right));
+    assertEquals(new Windows(Interval.FOREVER, true), left.or(right));
+  }
+
+  private static Windows randomWindows(final Random random) {
+    final var segments = new ArrayList<Segment<Boolean>>();
+    for (var i = random.nextInt(6); i > 0; i -= 1) {
+      final var start = random.nextInt(10);
+      final var end = start + random.nextInt(4);
+      segments.add(Segment.of(
+          Interval.between(
+              Duration.of(start, SECONDS), random.nextBoolean() ? Inclusive : Exclusive,
+              Duration.of(end, SECONDS), random.nextBoolean() ? Inclusive : Exclusive),
+          random.nextBoolean()));
+    }
+    return new Windows(segments);
+  }
+
+  private static List<Interval> points(final Windows windows) {
+    return windows.stream().map(Segment::interval).filter(Interval::isPoint).toList();
+  }
+
+  private static List<Interval> points(final IntervalMap<Boolean> map) {
+    return map.stream().map(Segment::interval).filter(Interval::isPoint).toList();
+  }
+}
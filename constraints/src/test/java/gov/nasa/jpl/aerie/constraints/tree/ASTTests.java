@@ -21,10 +21,12 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import static gov.nasa.jpl.aerie.constraints.Assertions.assertEquivalent;
 import static gov.nasa.jpl.aerie.constraints.time.Interval.FOREVER;
@@ -729,6 +731,55 @@ public class ASTTests {
     assertEquals(expected, result);
   }
 
+  @Test
+  public void testForEachActivityViolationsOnForkJoinPool() {
+    final var activities = new ArrayList<ActivityInstance>();
+    for (var i = 0; i < 10 * ActivityEvaluation.PARALLEL_THRESHOLD; i += 1) {
+      activities.add(new ActivityInstance(i, (i % 3 == 0) ? "TypeB" : "TypeA", Map.of(), Interval.between(i, i + 1, SECONDS)));
+    }
+    final var simResults = new SimulationResults(
+        Instant.EPOCH, Interval.between(0, 1000, SECONDS),
+        activities,
+        Map.of(),
+        Map.of()
+    );
+
+    final var expression = new ForEachActivityViolations(
+        "TypeA",
+        "act",
+        new ViolationsOfWindows(new ActivityWindow("act"))
+    );
+
+    final var sequential = expression.evaluate(simResults, new EvaluationEnvironment());
+    final var parallel = ForkJoinPool.commonPool()
+        .submit(() -> expression.evaluate(simResults, new EvaluationEnvironment()))
+        .join();
+
+    // Results are merged in activity order regardless of how the evaluation was split.
+    assertEquals(sequential, parallel);
+    // Each activity is bracketed by one violation before it and one after it.
+    assertEquals(2 * activities.stream().filter($ -> $.type.equals("TypeA")).count(), parallel.violations.size());
+  }
+
+  @Test
+  public void testExtractActivityTypes() {
+    final var expression = new Or(
+        new LessThan(new RealResource("real"), new RealValue(1)),
+        new WindowsFromSpans(new ForEachActivitySpans("TypeA", "a", new ActivitySpan("a"))));
+
+    final var resourceTypes = new HashSet<String>();
+    new ViolationsOfWindows(new LessThan(new RealResource("real"), new RealValue(1))).extractActivityTypes(resourceTypes);
+    assertEquals(Set.of(), resourceTypes);
+
+    final var types = new HashSet<String>();
+    new ForEachActivityViolations("TypeB", "b", new ViolationsOfWindows(expression)).extractActivityTypes(types);
+    assertEquals(Set.of("TypeA", "TypeB"), types);
+
+    final var anyTypes = new HashSet<String>();
+    new ForEachActivitySpans(($, results, environment) -> true, "a", new ActivitySpan("a")).extractActivityTypes(anyTypes);
+    assertEquals(Set.of(Expression.ANY_ACTIVITY_TYPE), anyTypes);
+  }
+
   @Test
   public void testNestedForEachActivitySpans() {
     final var simResults = new SimulationResults(
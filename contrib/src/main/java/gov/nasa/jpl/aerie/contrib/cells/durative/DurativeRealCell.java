@@ -101,5 +101,11 @@ public final class DurativeRealCell {
 
       return Optional.of(cell.activeEffects.peek().getLeft().minus(cell.elapsedTime));
     }
+
+    @Override
+    public boolean isStepAdditive() {
+      // Durations add exactly, and an effect expires at the same time however the time is divided.
+      return true;
+    }
   }
 }
@@ -0,0 +1,87 @@
+package gov.nasa.jpl.aerie.contrib.cells.linear;
+
+import gov.nasa.jpl.aerie.merlin.framework.CellRef;
+import gov.nasa.jpl.aerie.merlin.protocol.model.EffectTrait;
+import gov.nasa.jpl.aerie.merlin.protocol.model.PersistentCellType;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.RealDynamics;
+
+import java.util.function.Function;
+
+/**
+ * A {@link LinearIntegrationCell} whose states are immutable, so that reading or branching the cell never copies it.
+ */
+public final class ImmutableLinearIntegrationCell {
+  // We split `initialVolume` from `accumulatedVolume` to avoid loss of floating-point precision.
+  // See `LinearIntegrationCell`.
+  private final double initialVolume;
+  private final double accumulatedVolume;
+  private final double rate;
+
+  public ImmutableLinearIntegrationCell(final double initialVolume, final double rate, final double accumulatedVolume) {
+    this.initialVolume = initialVolume;
+    this.accumulatedVolume = accumulatedVolume;
+    this.rate = rate;
+  }
+
+  public ImmutableLinearIntegrationCell(final double initialVolume, final double rate) {
+    this(initialVolume, rate, 0.0);
+  }
+
+  public static <Event> CellRef<Event, ImmutableLinearIntegrationCell>
+  allocate(final double initialVolume, final double rate, final Function<Event, LinearAccumulationEffect> interpreter) {
+    return CellRef.allocate(
+        new ImmutableLinearIntegrationCell(initialVolume, rate),
+        new ImmutableLinearIntegrationCellType(),
+        interpreter);
+  }
+
+  public RealDynamics getVolume() {
+    return RealDynamics.linear(this.initialVolume + this.accumulatedVolume, this.rate);
+  }
+
+  public RealDynamics getRate() {
+    return RealDynamics.constant(this.rate);
+  }
+
+  @Override
+  public String toString() {
+    return "{volume=%s, rate=%s}".formatted(this.initialVolume + this.accumulatedVolume, this.rate);
+  }
+
+  public static final class ImmutableLinearIntegrationCellType
+      implements PersistentCellType<LinearAccumulationEffect, ImmutableLinearIntegrationCell>
+  {
+    @Override
+    public EffectTrait<LinearAccumulationEffect> getEffectType() {
+      return LinearAccumulationEffect.TRAIT;
+    }
+
+    @Override
+    public ImmutableLinearIntegrationCell applied(
+        final ImmutableLinearIntegrationCell cell,
+        final LinearAccumulationEffect effect
+    ) {
+      if (effect.clearVolume) return new ImmutableLinearIntegrationCell(0, cell.rate + effect.deltaRate, 0);
+
+      return new ImmutableLinearIntegrationCell(
+          cell.initialVolume,
+          cell.rate + effect.deltaRate,
+          cell.accumulatedVolume + effect.deltaVolume);
+    }
+
+    @Override
+    public ImmutableLinearIntegrationCell stepped(
+        final ImmutableLinearIntegrationCell cell,
+        final Duration elapsedTime
+    ) {
+      // Law: The passage of time shall not alter a valid dynamics.
+      if (cell.rate == 0) return cell;
+
+      return new ImmutableLinearIntegrationCell(
+          cell.initialVolume,
+          cell.rate,
+          cell.accumulatedVolume + cell.rate * elapsedTime.ratioOver(Duration.SECOND));
+    }
+  }
+}
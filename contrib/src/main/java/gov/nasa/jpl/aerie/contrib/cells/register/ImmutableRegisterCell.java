@@ -0,0 +1,70 @@
+package gov.nasa.jpl.aerie.contrib.cells.register;
+
+import gov.nasa.jpl.aerie.merlin.framework.CellRef;
+import gov.nasa.jpl.aerie.merlin.protocol.model.EffectTrait;
+import gov.nasa.jpl.aerie.merlin.protocol.model.PersistentCellType;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A {@link RegisterCell} for values of an <b>immutable</b> type, such as an enum or a record of primitives.
+ *
+ * Neither the cell nor its value is ever copied: each write produces a new cell, and reads share the current one.
+ */
+public final class ImmutableRegisterCell<T> {
+  private final T value;
+  private final boolean conflicted;
+
+  public ImmutableRegisterCell(final T value, final boolean conflicted) {
+    this.value = Objects.requireNonNull(value);
+    this.conflicted = conflicted;
+  }
+
+  public static <Event, T> CellRef<Event, ImmutableRegisterCell<T>>
+  allocate(final T initialValue, final Function<Event, RegisterEffect<T>> interpreter) {
+    return CellRef.allocate(
+        new ImmutableRegisterCell<>(initialValue, false),
+        new ImmutableRegisterCellType<>(),
+        interpreter);
+  }
+
+  public T getValue() {
+    return this.value;
+  }
+
+  public boolean isConflicted() {
+    return this.conflicted;
+  }
+
+  @Override
+  public String toString() {
+    return "{value=%s, conflicted=%s}".formatted(this.getValue(), this.isConflicted());
+  }
+
+  public static final class ImmutableRegisterCellType<T>
+      implements PersistentCellType<RegisterEffect<T>, ImmutableRegisterCell<T>>
+  {
+    @Override
+    public EffectTrait<RegisterEffect<T>> getEffectType() {
+      return new RegisterEffect.Trait<>();
+    }
+
+    @Override
+    public ImmutableRegisterCell<T> applied(final ImmutableRegisterCell<T> cell, final RegisterEffect<T> effect) {
+      if (effect.newValue != null) {
+        return new ImmutableRegisterCell<>(effect.newValue, effect.conflicted);
+      } else if (effect.conflicted && !cell.conflicted) {
+        return new ImmutableRegisterCell<>(cell.value, true);
+      } else {
+        return cell;
+      }
+    }
+
+    @Override
+    public boolean isStepAdditive() {
+      // A register is unaffected by the passage of time.
+      return true;
+    }
+  }
+}
@@ -1,14 +1,14 @@
 package gov.nasa.jpl.aerie.contrib.models;
 
+import gov.nasa.jpl.aerie.contrib.cells.linear.ImmutableLinearIntegrationCell;
 import gov.nasa.jpl.aerie.contrib.cells.linear.LinearAccumulationEffect;
 import gov.nasa.jpl.aerie.contrib.cells.linear.LinearAccumulationEvent;
-import gov.nasa.jpl.aerie.contrib.cells.linear.LinearIntegrationCell;
 import gov.nasa.jpl.aerie.merlin.framework.CellRef;
 import gov.nasa.jpl.aerie.merlin.framework.resources.real.RealResource;
 import gov.nasa.jpl.aerie.merlin.protocol.types.RealDynamics;
 
 public final class Accumulator implements RealResource {
-  private final CellRef<LinearAccumulationEvent, LinearIntegrationCell> ref;
+  private final CellRef<LinearAccumulationEvent, ImmutableLinearIntegrationCell> ref;
 
   public final Rate rate = new Rate();
 
@@ -17,7 +17,7 @@ public final class Accumulator implements RealResource {
   }
 
   public Accumulator(final double initialVolume, final double initialRate) {
-    this.ref = LinearIntegrationCell.allocate(initialVolume, initialRate, LinearAccumulationEffect::of);
+    this.ref = ImmutableLinearIntegrationCell.allocate(initialVolume, initialRate, LinearAccumulationEffect::of);
   }
 
   public void add(final double deltaVolume) {
@@ -0,0 +1,51 @@
+package gov.nasa.jpl.aerie.contrib.cells.register;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class ImmutableRegisterCellTest {
+  private final ImmutableRegisterCell.ImmutableRegisterCellType<Integer> cellType =
+      new ImmutableRegisterCell.ImmutableRegisterCellType<>();
+
+  @Test
+  @DisplayName("Writes should produce a new cell and leave the original unchanged")
+  public void writesDoNotMutate() {
+    final var cell = new ImmutableRegisterCell<>(0, false);
+    final var next = this.cellType.applied(cell, RegisterEffect.set(1));
+
+    assertAll(List.of(
+        () -> assertEquals(0, cell.getValue()),
+        () -> assertEquals(1, next.getValue()),
+        () -> assertFalse(next.isConflicted())));
+  }
+
+  @Test
+  @DisplayName("Conflicting writes should mark the conflict flag and keep the current value")
+  public void conflictsKeepValue() {
+    final var cell = new ImmutableRegisterCell<>(0, false);
+    final var next = this.cellType.applied(cell, this.cellType.getEffectType().concurrently(
+        RegisterEffect.set(1),
+        RegisterEffect.set(2)));
+
+    assertAll(List.of(
+        () -> assertTrue(next.isConflicted()),
+        () -> assertEquals(0, next.getValue()),
+        () -> assertFalse(cell.isConflicted())));
+  }
+
+  @Test
+  @DisplayName("Empty effects should share the cell rather than copy it")
+  public void statesAreShared() {
+    final var cell = new ImmutableRegisterCell<>(0, false);
+
+    assertSame(cell, this.cellType.applied(cell, RegisterEffect.doNothing()));
+  }
+}
@@ -0,0 +1,43 @@
+package gov.nasa.jpl.aerie.foomissionmodel.activities;
+
+import gov.nasa.jpl.aerie.foomissionmodel.Mission;
+import gov.nasa.jpl.aerie.foomissionmodel.models.ImagerMode;
+import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType;
+import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.Executor;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+
+import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.*;
+import static gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.EffectModel;
+import static gov.nasa.jpl.aerie.merlin.framework.annotations.Export.Parameter;
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.SECOND;
+
+/**
+ * Images for a while, in the style a resumable effect model needs: every delay at the top level of the effect model,
+ * and the locals used after a delay declared at the top level and never reassigned.
+ */
+@ActivityType("ResumableFoo")
+public final class ResumableFooActivity {
+  @Parameter
+  public double rate = 1.0;
+
+  @Parameter
+  public Duration duration = Duration.of(10, SECOND);
+
+  @EffectModel(Executor.Resumable)
+  public int run(final Mission mission) {
+    final var data = mission.data;
+    final var imager = mission.complexData;
+
+    data.rate.add(rate);
+    imager.beginImaging(ImagerMode.HI_RES, 60);
+    delay(1, SECOND);
+
+    data.rate.add(rate);
+    delay(duration);
+
+    imager.endImaging();
+    data.rate.add(-2 * rate);
+    mission.activitiesExecuted.add(1);
+    return mission.activitiesExecuted.get();
+  }
+}
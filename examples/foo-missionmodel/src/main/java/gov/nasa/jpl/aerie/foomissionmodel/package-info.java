@@ -19,6 +19,7 @@
 @WithActivityType(DecompositionTestActivities.ParentActivity.class)
 @WithActivityType(DecompositionTestActivities.ChildActivity.class)
 @WithActivityType(LateRiserActivity.class)
+@WithActivityType(ResumableFooActivity.class)
 
 package gov.nasa.jpl.aerie.foomissionmodel;
 
@@ -32,6 +33,7 @@ import gov.nasa.jpl.aerie.foomissionmodel.activities.DecompositionTestActivities
 import gov.nasa.jpl.aerie.foomissionmodel.activities.FooActivity;
 import gov.nasa.jpl.aerie.foomissionmodel.activities.LateRiserActivity;
 import gov.nasa.jpl.aerie.foomissionmodel.activities.OtherControllableDurationActivity;
+import gov.nasa.jpl.aerie.foomissionmodel.activities.ResumableFooActivity;
 import gov.nasa.jpl.aerie.foomissionmodel.activities.SolarPanelNonLinear;
 import gov.nasa.jpl.aerie.foomissionmodel.activities.SolarPanelNonLinearTimeDependent;
 import gov.nasa.jpl.aerie.foomissionmodel.activities.ZeroDurationUncontrollableActivity;
@@ -1,8 +1,11 @@
 package gov.nasa.jpl.aerie.foomissionmodel;
 
 import gov.nasa.jpl.aerie.foomissionmodel.activities.FooActivity;
+import gov.nasa.jpl.aerie.foomissionmodel.activities.ResumableFooActivity;
 import gov.nasa.jpl.aerie.foomissionmodel.generated.activities.FooActivityMapper;
+import gov.nasa.jpl.aerie.foomissionmodel.generated.activities.ResumableFooActivityMapper;
 import gov.nasa.jpl.aerie.merlin.framework.Registrar;
+import gov.nasa.jpl.aerie.merlin.framework.ResumableTask;
 import gov.nasa.jpl.aerie.merlin.framework.junit.MerlinExtension;
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
 import gov.nasa.jpl.aerie.merlin.protocol.types.InstantiationException;
@@ -49,6 +52,26 @@ public final class FooActivityTest {
     assertThat(model.simpleData.totalVolume.get()).isCloseTo(147.558135, within(1e-9));
   }
 
+  @Test
+  public void testResumableActivity() {
+    final var activity = new ResumableFooActivity();
+
+    // The effect model keeps to the resumable style, so it is compiled into a state machine instead of running on a thread.
+    assertThat(new ResumableFooActivityMapper().getTaskFactory(model, activity).create(Runnable::run))
+        .isInstanceOf(ResumableTask.class);
+
+    final var rate = model.data.rate.get();
+    spawn(model, activity);
+    delay(500, Duration.MILLISECONDS);
+    assertThat(model.data.rate.get()).isCloseTo(rate + 1.0, within(1e-9));
+    assertThat(model.complexData.isImaging()).isTrue();
+    delay(1, Duration.SECOND);
+    assertThat(model.data.rate.get()).isCloseTo(rate + 2.0, within(1e-9));
+    delay(10, Duration.SECOND);
+    assertThat(model.data.rate.get()).isCloseTo(rate, within(1e-9));
+    assertThat(model.complexData.isImaging()).isFalse();
+  }
+
   @Test
   public void testActivityInstantiate() {
 
@@ -0,0 +1,69 @@
+package gov.nasa.jpl.aerie.merlin.driver.benchmarks;
+
+import gov.nasa.jpl.aerie.merlin.driver.ActivityDirective;
+import gov.nasa.jpl.aerie.merlin.driver.ActivityDirectiveId;
+import gov.nasa.jpl.aerie.merlin.driver.MissionModel;
+import gov.nasa.jpl.aerie.merlin.driver.SimulationDriver;
+import gov.nasa.jpl.aerie.merlin.driver.SimulationResults;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures an end-to-end simulation through {@link SimulationDriver#simulate}, including result extraction.
+ *
+ * <p> Run with {@code ./gradlew :merlin-driver:jmh}. The GC profiler is enabled by default,
+ * so {@code gc.alloc.rate.norm} reports the bytes allocated per simulation. </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SimulationDriverBenchmark {
+  private static final Instant START_TIME = Instant.parse("2023-01-01T00:00:00Z");
+
+  @Param({"100", "1000", "10000"})
+  public int activityCount;
+
+  @Param({"10", "100"})
+  public int resourceCount;
+
+  @Param({"0", "10", "100"})
+  public int conditionCount;
+
+  private MissionModel<SyntheticMissionModel> missionModel;
+  private Map<ActivityDirectiveId, ActivityDirective> schedule;
+  private Duration planDuration;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    // The mission model's initial cells are never mutated by simulation, so one model can serve every invocation.
+    this.missionModel = SyntheticMissionModel.build(this.resourceCount, this.conditionCount);
+    this.schedule = SyntheticMissionModel.plan(this.activityCount);
+    this.planDuration = SyntheticMissionModel.planDuration(this.activityCount);
+  }
+
+  @Benchmark
+  public SimulationResults simulate() {
+    return SimulationDriver.simulate(
+        this.missionModel,
+        this.schedule,
+        START_TIME,
+        this.planDuration,
+        START_TIME,
+        this.planDuration,
+        () -> false);
+  }
+}
@@ -0,0 +1,96 @@
+package gov.nasa.jpl.aerie.merlin.driver.benchmarks;
+
+import gov.nasa.jpl.aerie.merlin.driver.ActivityDirective;
+import gov.nasa.jpl.aerie.merlin.driver.ActivityDirectiveId;
+import gov.nasa.jpl.aerie.merlin.driver.MissionModel;
+import gov.nasa.jpl.aerie.merlin.driver.engine.SimulationEngine;
+import gov.nasa.jpl.aerie.merlin.driver.timeline.LiveCells;
+import gov.nasa.jpl.aerie.merlin.driver.timeline.TemporalEventSource;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.InstantiationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link SimulationEngine#extractNextJobs} / {@link SimulationEngine#performJobs} loop in isolation,
+ * without the plan-resolution and result-extraction work performed by
+ * {@link gov.nasa.jpl.aerie.merlin.driver.SimulationDriver}.
+ *
+ * <p> This is the loop whose cost is dominated by {@code JobSchedule}, {@code Subscriptions}, {@code LiveCells},
+ * and {@code TemporalEventSource}, so regressions in any of those should show up here first. </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SimulationEngineBenchmark {
+  @Param({"100", "1000", "10000"})
+  public int activityCount;
+
+  @Param({"10", "100", "1000"})
+  public int resourceCount;
+
+  @Param({"0", "10", "100"})
+  public int conditionCount;
+
+  @Param({"Sequential", "Parallel"})
+  public SimulationEngine.BatchMode batchMode;
+
+  private MissionModel<SyntheticMissionModel> missionModel;
+  private Map<ActivityDirectiveId, ActivityDirective> schedule;
+  private Duration planDuration;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.missionModel = SyntheticMissionModel.build(this.resourceCount, this.conditionCount);
+    this.schedule = SyntheticMissionModel.plan(this.activityCount);
+    this.planDuration = SyntheticMissionModel.planDuration(this.activityCount);
+  }
+
+  @Benchmark
+  public void simulate(final Blackhole blackhole) throws InstantiationException {
+    try (final var engine = new SimulationEngine(this.batchMode)) {
+      final var timeline = new TemporalEventSource();
+      final var cells = new LiveCells(timeline, this.missionModel.getInitialCells());
+      var elapsedTime = Duration.ZERO;
+
+      for (final var entry : this.missionModel.getResources().entrySet()) {
+        engine.trackResource(entry.getKey(), entry.getValue(), elapsedTime);
+      }
+
+      engine.scheduleTask(Duration.ZERO, this.missionModel.getDaemon());
+      for (final var directive : this.schedule.values()) {
+        engine.scheduleTask(
+            directive.startOffset(),
+            this.missionModel.getTaskFactory(directive.serializedActivity()));
+      }
+
+      while (true) {
+        final var batch = engine.extractNextJobs(this.planDuration);
+
+        final var delta = batch.offsetFromStart().minus(elapsedTime);
+        elapsedTime = batch.offsetFromStart();
+        timeline.add(delta);
+
+        if (batch.jobs().isEmpty() && batch.offsetFromStart().isEqualTo(this.planDuration)) break;
+
+        final var commit = engine.performJobs(batch.jobs(), cells, elapsedTime, this.planDuration);
+        timeline.add(commit);
+      }
+
+      blackhole.consume(timeline);
+    }
+  }
+}
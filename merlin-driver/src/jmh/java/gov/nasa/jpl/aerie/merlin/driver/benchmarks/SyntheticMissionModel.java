@@ -0,0 +1,226 @@
+package gov.nasa.jpl.aerie.merlin.driver.benchmarks;
+
+import gov.nasa.jpl.aerie.contrib.models.Accumulator;
+import gov.nasa.jpl.aerie.contrib.models.Register;
+import gov.nasa.jpl.aerie.contrib.models.counters.Counter;
+import gov.nasa.jpl.aerie.contrib.serialization.mappers.IntegerValueMapper;
+import gov.nasa.jpl.aerie.merlin.driver.ActivityDirective;
+import gov.nasa.jpl.aerie.merlin.driver.ActivityDirectiveId;
+import gov.nasa.jpl.aerie.merlin.driver.DirectiveTypeRegistry;
+import gov.nasa.jpl.aerie.merlin.driver.MissionModel;
+import gov.nasa.jpl.aerie.merlin.driver.MissionModelBuilder;
+import gov.nasa.jpl.aerie.merlin.driver.SerializedActivity;
+import gov.nasa.jpl.aerie.merlin.framework.InitializationContext;
+import gov.nasa.jpl.aerie.merlin.framework.ModelActions;
+import gov.nasa.jpl.aerie.merlin.framework.Registrar;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
+import gov.nasa.jpl.aerie.merlin.protocol.model.DirectiveType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.InputType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.OutputType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.TaskFactory;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.InstantiationException;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Unit;
+import gov.nasa.jpl.aerie.merlin.protocol.types.ValueSchema;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.delay;
+import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.emit;
+import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.waitUntil;
+
+/**
+ * A mission model built entirely from {@code contrib} cells, whose size can be scaled along each axis
+ * that stresses a different part of the simulation engine.
+ *
+ * <ul>
+ *   <li> Every resource "slot" allocates a {@link Register}, an {@link Accumulator}, and a {@link Counter},
+ *        each registered as a resource. More slots means more profiling jobs and more topic subscriptions. </li>
+ *   <li> Every condition allocates a daemon that repeatedly waits for an accumulator to cross a rising threshold.
+ *        More conditions means more condition jobs and more condition invalidations. </li>
+ *   <li> Every activity is a {@code Pulse} directive that writes to one slot, waits, and writes again.
+ *        More activities means more task jobs and a longer timeline. </li>
+ * </ul>
+ */
+public final class SyntheticMissionModel {
+  public static final String PULSE = "Pulse";
+  public static final Duration PULSE_DURATION = Duration.of(1, Duration.MINUTES);
+  public static final Duration PULSE_SPACING = Duration.of(5, Duration.MINUTES);
+
+  private final List<Register<Integer>> registers = new ArrayList<>();
+  private final List<Accumulator> accumulators = new ArrayList<>();
+  private final List<Counter<Integer>> counters = new ArrayList<>();
+
+  private SyntheticMissionModel(final Registrar registrar, final int resourceCount, final int conditionCount) {
+    for (var i = 0; i < resourceCount; i += 1) {
+      final var register = Register.forImmutable(0);
+      final var accumulator = new Accumulator();
+      final var counter = Counter.ofInteger();
+
+      registrar.discrete("/register/" + i, register, new IntegerValueMapper());
+      registrar.real("/accumulator/" + i, accumulator);
+      registrar.real("/accumulator/" + i + "/rate", accumulator.rate);
+      registrar.discrete("/counter/" + i, counter, new IntegerValueMapper());
+
+      this.registers.add(register);
+      this.accumulators.add(accumulator);
+      this.counters.add(counter);
+    }
+
+    for (var i = 0; i < conditionCount; i += 1) {
+      final var slot = i % resourceCount;
+      final var offset = (double) i / conditionCount;
+      final var accumulator = this.accumulators.get(slot);
+      final var counter = this.counters.get(slot);
+
+      // Each pulse raises the accumulator by exactly one unit (one minute at 1/60 unit per second),
+      //   so this daemon wakes up once per pulse delivered to its slot.
+      ModelActions.spawn(() -> {
+        var threshold = 1.0 + offset;
+        while (true) {
+          waitUntil(accumulator.isBetween(threshold, Double.POSITIVE_INFINITY));
+          counter.add(1);
+          threshold += 1.0;
+        }
+      });
+    }
+  }
+
+  public int resourceCount() {
+    return this.registers.size();
+  }
+
+  private void pulse(final int slot) {
+    final var index = slot % this.registers.size();
+    final var register = this.registers.get(index);
+    final var accumulator = this.accumulators.get(index);
+    final var counter = this.counters.get(index);
+
+    register.set(register.get() + 1);
+    accumulator.rate.add(1.0 / 60.0);
+    delay(PULSE_DURATION);
+    accumulator.rate.add(-1.0 / 60.0);
+    counter.add(1);
+  }
+
+  /** Build a mission model with the given number of resource slots and condition daemons. */
+  public static MissionModel<SyntheticMissionModel> build(final int resourceCount, final int conditionCount) {
+    if (resourceCount <= 0) throw new IllegalArgumentException("A synthetic model needs at least one resource slot");
+
+    final var builder = new MissionModelBuilder();
+    final var registrar = new Registrar(builder);
+
+    final var model = InitializationContext.initializing(
+        builder,
+        () -> new SyntheticMissionModel(registrar, resourceCount, conditionCount));
+
+    final var inputTopic = new Topic<Integer>();
+    final var outputTopic = new Topic<Unit>();
+    builder.topic("ActivityType.Input." + PULSE, inputTopic, PulseDirectiveType.ARGUMENTS_TYPE);
+    builder.topic("ActivityType.Output." + PULSE, outputTopic, PulseDirectiveType.OUTPUT_TYPE);
+
+    return builder.build(model, new DirectiveTypeRegistry<>(Map.of(PULSE, new PulseDirectiveType(inputTopic, outputTopic))));
+  }
+
+  /** Build a plan of evenly-spaced {@code Pulse} activities, distributed round-robin over all resource slots. */
+  public static Map<ActivityDirectiveId, ActivityDirective> plan(final int activityCount) {
+    final var schedule = new HashMap<ActivityDirectiveId, ActivityDirective>(activityCount);
+    for (var i = 0; i < activityCount; i += 1) {
+      schedule.put(
+          new ActivityDirectiveId(i),
+          new ActivityDirective(
+              PULSE_SPACING.times(i),
+              new SerializedActivity(PULSE, Map.of("slot", SerializedValue.of(i))),
+              null,
+              true));
+    }
+    return schedule;
+  }
+
+  /** The span of simulation time needed for every activity in a plan of the given size to complete. */
+  public static Duration planDuration(final int activityCount) {
+    return PULSE_SPACING.times(activityCount).plus(PULSE_DURATION);
+  }
+
+  private record PulseDirectiveType(Topic<Integer> inputTopic, Topic<Unit> outputTopic)
+      implements DirectiveType<SyntheticMissionModel, Integer, Unit>
+  {
+    static final InputType<Integer> INPUT_TYPE = new InputType<>() {
+      @Override
+      public List<Parameter> getParameters() {
+        return List.of(new Parameter("slot", ValueSchema.INT));
+      }
+
+      @Override
+      public List<String> getRequiredParameters() {
+        return List.of("slot");
+      }
+
+      @Override
+      public Integer instantiate(final Map<String, SerializedValue> arguments) throws InstantiationException {
+        final var slot = arguments.get("slot");
+        if (slot == null || slot.asInt().isEmpty()) {
+          throw new InstantiationException.Builder(PULSE).withMissingArgument("slot", ValueSchema.INT).build();
+        }
+        return slot.asInt().get().intValue();
+      }
+
+      @Override
+      public Map<String, SerializedValue> getArguments(final Integer slot) {
+        return Map.of("slot", SerializedValue.of(slot));
+      }
+
+      @Override
+      public List<ValidationNotice> getValidationFailures(final Integer slot) {
+        return List.of();
+      }
+    };
+
+    static final OutputType<Integer> ARGUMENTS_TYPE = new OutputType<>() {
+      @Override
+      public ValueSchema getSchema() {
+        return ValueSchema.ofStruct(Map.of("slot", ValueSchema.INT));
+      }
+
+      @Override
+      public SerializedValue serialize(final Integer slot) {
+        return SerializedValue.of(INPUT_TYPE.getArguments(slot));
+      }
+    };
+
+    static final OutputType<Unit> OUTPUT_TYPE = new OutputType<>() {
+      @Override
+      public ValueSchema getSchema() {
+        return ValueSchema.ofStruct(Map.of());
+      }
+
+      @Override
+      public SerializedValue serialize(final Unit value) {
+        return SerializedValue.of(Map.of());
+      }
+    };
+
+    @Override
+    public InputType<Integer> getInputType() {
+      return INPUT_TYPE;
+    }
+
+    @Override
+    public OutputType<Unit> getOutputType() {
+      return OUTPUT_TYPE;
+    }
+
+    @Override
+    public TaskFactory<Unit> getTaskFactory(final SyntheticMissionModel model, final Integer slot) {
+      return ModelActions.threaded(() -> {
+        emit(slot, this.inputTopic);
+        model.pulse(slot);
+        emit(Unit.UNIT, this.outputTopic);
+      });
+    }
+  }
+}
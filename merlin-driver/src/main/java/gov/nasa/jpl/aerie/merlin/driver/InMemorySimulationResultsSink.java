@@ -0,0 +1,178 @@
+package gov.nasa.jpl.aerie.merlin.driver;
+
+import gov.nasa.jpl.aerie.merlin.driver.engine.ProfileSegment;
+import gov.nasa.jpl.aerie.merlin.driver.engine.SimulationEngine;
+import gov.nasa.jpl.aerie.merlin.driver.timeline.EventGraph;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.RealDynamics;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
+import gov.nasa.jpl.aerie.merlin.protocol.types.ValueSchema;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+
+/** A {@link SimulationResultsSink} which accumulates everything it receives into a {@link SimulationResults}. */
+public final class InMemorySimulationResultsSink implements SimulationResultsSink {
+  private final Map<String, Pair<ValueSchema, List<ProfileSegment<RealDynamics>>>> realProfiles = new HashMap<>();
+  private final Map<String, Pair<ValueSchema, List<ProfileSegment<SerializedValue>>>> discreteProfiles = new HashMap<>();
+  private final TreeMap<Duration, List<EventGraph<Pair<Integer, SerializedValue>>>> events = new TreeMap<>();
+  private List<Triple<Integer, String, ValueSchema>> topics = List.of();
+
+  private Optional<SimulationResults> results = Optional.empty();
+
+  @Override
+  public void topics(final List<Triple<Integer, String, ValueSchema>> topics) {
+    this.topics = topics;
+  }
+
+  @Override
+  public void realProfileSegments(
+      final String resource,
+      final ValueSchema schema,
+      final List<ProfileSegment<RealDynamics>> segments
+  ) {
+    this.realProfiles
+        .computeIfAbsent(resource, $ -> Pair.of(schema, new ArrayList<>()))
+        .getRight()
+        .addAll(segments);
+  }
+
+  @Override
+  public void discreteProfileSegments(
+      final String resource,
+      final ValueSchema schema,
+      final List<ProfileSegment<SerializedValue>> segments
+  ) {
+    this.discreteProfiles
+        .computeIfAbsent(resource, $ -> Pair.of(schema, new ArrayList<>()))
+        .getRight()
+        .addAll(segments);
+  }
+
+  @Override
+  public void events(final Duration time, final EventGraph<Pair<Integer, SerializedValue>> events) {
+    this.events.computeIfAbsent(time, $ -> new ArrayList<>()).add(events);
+  }
+
+  @Override
+  public void finish(
+      final Instant startTime,
+      final Duration duration,
+      final Map<SimulatedActivityId, SimulatedActivity> simulatedActivities,
+      final Map<SimulatedActivityId, UnfinishedActivity> unfinishedActivities
+  ) {
+    this.results = Optional.of(new SimulationResults(
+        this.realProfiles,
+        this.discreteProfiles,
+        simulatedActivities,
+        unfinishedActivities,
+        startTime,
+        duration,
+        this.topics,
+        this.events));
+  }
+
+  /**
+   * Copy everything this sink has received so far, so that the copy can go on receiving results independently.
+   *
+   * @see SimulationEngine.ResultsStream#duplicate
+   */
+  public InMemorySimulationResultsSink duplicate() {
+    final var copy = new InMemorySimulationResultsSink();
+    this.realProfiles.forEach((name, profile) ->
+        copy.realProfiles.put(name, Pair.of(profile.getLeft(), new ArrayList<>(profile.getRight()))));
+    this.discreteProfiles.forEach((name, profile) ->
+        copy.discreteProfiles.put(name, Pair.of(profile.getLeft(), new ArrayList<>(profile.getRight()))));
+    this.events.forEach((time, graphs) -> copy.events.put(time, new ArrayList<>(graphs)));
+    copy.topics = this.topics;
+    copy.results = this.results;
+    return copy;
+  }
+
+  /** Get the accumulated results. Only available once the sink has been {@linkplain #finish finished}. */
+  public SimulationResults results() {
+    return this.results.orElseThrow(() -> new IllegalStateException("Simulation results are not yet finished"));
+  }
+
+  /**
+   * Get the results so far of a simulation still streaming to this sink, as though it had ended at the given time.
+   *
+   * <p>
+   * This sink keeps receiving results afterward, and may be asked for results again once simulation has gone on.
+   * Each set of results shares the profile segments this sink had received when they were asked for,
+   * rather than copying them, so asking again only costs as much as what has been simulated since.
+   * </p>
+   *
+   * @param stream the stream reporting to this sink
+   */
+  public SimulationResults resultsSoFar(
+      final SimulationEngine.ResultsStream stream,
+      final Instant startTime,
+      final Duration elapsedTime
+  ) {
+    final var rest = new InMemorySimulationResultsSink();
+    stream.reportSoFar(startTime, elapsedTime, rest);
+    final var restResults = rest.results();
+
+    return new SimulationResults(
+        withSettledSegments(this.realProfiles, restResults.realProfiles),
+        withSettledSegments(this.discreteProfiles, restResults.discreteProfiles),
+        restResults.simulatedActivities,
+        restResults.unfinishedActivities,
+        startTime,
+        elapsedTime,
+        this.topics,
+        Collections.unmodifiableSortedMap(this.events.headMap(elapsedTime, true)));
+  }
+
+  private static <Dynamics> Map<String, Pair<ValueSchema, List<ProfileSegment<Dynamics>>>> withSettledSegments(
+      final Map<String, Pair<ValueSchema, List<ProfileSegment<Dynamics>>>> settledProfiles,
+      final Map<String, Pair<ValueSchema, List<ProfileSegment<Dynamics>>>> restProfiles
+  ) {
+    final var profiles = new HashMap<String, Pair<ValueSchema, List<ProfileSegment<Dynamics>>>>(restProfiles.size());
+    for (final var entry : restProfiles.entrySet()) {
+      final var settled = settledProfiles.get(entry.getKey());
+      final var rest = entry.getValue().getRight();
+      profiles.put(entry.getKey(), Pair.of(
+          entry.getValue().getLeft(),
+          (settled == null) ? rest : new PrefixAndTail<>(settled.getRight(), settled.getRight().size(), rest)));
+    }
+    return profiles;
+  }
+
+  /**
+   * The first elements of a list which only ever grows at its end, followed by some others.
+   * Later additions to the list are not seen, so this never changes.
+   */
+  private static final class PrefixAndTail<E> extends AbstractList<E> implements RandomAccess {
+    private final List<E> list;
+    private final int prefixSize;
+    private final List<E> tail;
+
+    public PrefixAndTail(final List<E> list, final int prefixSize, final List<E> tail) {
+      this.list = list;
+      this.prefixSize = prefixSize;
+      this.tail = tail;
+    }
+
+    @Override
+    public E get(final int index) {
+      return (index < this.prefixSize) ? this.list.get(index) : this.tail.get(index - this.prefixSize);
+    }
+
+    @Override
+    public int size() {
+      return this.prefixSize + this.tail.size();
+    }
+  }
+}
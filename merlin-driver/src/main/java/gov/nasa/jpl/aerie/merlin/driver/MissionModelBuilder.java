@@ -10,7 +10,7 @@ import gov.nasa.jpl.aerie.merlin.driver.timeline.Selector;
 import gov.nasa.jpl.aerie.merlin.protocol.driver.CellId;
 import gov.nasa.jpl.aerie.merlin.protocol.driver.Initializer;
 import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
-import gov.nasa.jpl.aerie.merlin.protocol.model.CellType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.CellBehavior;
 import gov.nasa.jpl.aerie.merlin.protocol.model.OutputType;
 import gov.nasa.jpl.aerie.merlin.protocol.model.Resource;
 import gov.nasa.jpl.aerie.merlin.protocol.model.TaskFactory;
@@ -35,7 +35,7 @@ public final class MissionModelBuilder implements Initializer {
   public <EventType, Effect, State>
   CellId<State> allocate(
       final State initialState,
-      final CellType<Effect, State> cellType,
+      final CellBehavior<Effect, State> cellType,
       final Function<EventType, Effect> interpretation,
       final Topic<EventType> topic
   ) {
@@ -97,7 +97,7 @@ public final class MissionModelBuilder implements Initializer {
     public <EventType, Effect, State>
     CellId<State> allocate(
         final State initialState,
-        final CellType<Effect, State> cellType,
+        final CellBehavior<Effect, State> cellType,
         final Function<EventType, Effect> interpretation,
         final Topic<EventType> topic
     ) {
@@ -164,7 +164,7 @@ public final class MissionModelBuilder implements Initializer {
     public <EventType, Effect, State>
     CellId<State> allocate(
         final State initialState,
-        final CellType<Effect, State> cellType,
+        final CellBehavior<Effect, State> cellType,
         final Function<EventType, Effect> interpretation,
         final Topic<EventType> topic
     ) {
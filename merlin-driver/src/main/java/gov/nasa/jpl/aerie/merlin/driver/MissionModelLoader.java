@@ -38,11 +38,32 @@ public final class MissionModelLoader {
         return loadMissionModel(planStart, missionModelConfig, modelType, builder);
     }
 
+    /** Instantiate a mission model from a model type that has already been loaded, along with its directive types. */
+    public static <Model> MissionModel<Model> loadMissionModel(
+        final Instant planStart,
+        final SerializedValue missionModelConfig,
+        final ModelType<?, Model> modelType,
+        final DirectiveTypeRegistry<Model> registry)
+    {
+        return loadMissionModel(planStart, missionModelConfig, modelType, registry, new MissionModelBuilder());
+    }
+
+    private static <Config, Model>
+    MissionModel<Model> loadMissionModel(
+        final Instant planStart,
+        final SerializedValue missionModelConfig,
+        final ModelType<Config, Model> modelType,
+        final MissionModelBuilder builder)
+    {
+        return loadMissionModel(planStart, missionModelConfig, modelType, DirectiveTypeRegistry.extract(modelType), builder);
+    }
+
     private static <Config, Model>
     MissionModel<Model> loadMissionModel(
         final Instant planStart,
         final SerializedValue missionModelConfig,
         final ModelType<Config, Model> modelType,
+        final DirectiveTypeRegistry<Model> registry,
         final MissionModelBuilder builder)
     {
         try {
@@ -50,7 +71,6 @@ public final class MissionModelLoader {
                 new InstantiationException.Builder("Configuration").build());
 
             final var config = modelType.getConfigurationType().instantiate(serializedConfigMap);
-            final var registry = DirectiveTypeRegistry.extract(modelType);
             final var model = modelType.instantiate(planStart, config, builder);
             return builder.build(model, registry);
         } catch (final InstantiationException ex) {
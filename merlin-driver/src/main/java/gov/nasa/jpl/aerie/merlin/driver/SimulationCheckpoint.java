@@ -0,0 +1,386 @@
+package gov.nasa.jpl.aerie.merlin.driver;
+
+import gov.nasa.jpl.aerie.merlin.driver.engine.SimulationEngine;
+import gov.nasa.jpl.aerie.merlin.driver.engine.TaskId;
+import gov.nasa.jpl.aerie.merlin.driver.timeline.FlatEventGraph;
+import gov.nasa.jpl.aerie.merlin.driver.timeline.LiveCells;
+import gov.nasa.jpl.aerie.merlin.driver.timeline.TemporalEventSource;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
+import gov.nasa.jpl.aerie.merlin.protocol.model.TaskFactory;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.InstantiationException;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A simulation paused part-way through, which can be resumed with a revised plan.
+ *
+ * <p>
+ * Tasks hold their in-progress state on the stacks of running threads, so a simulation can only be copied
+ * by replaying its tasks, which its engine must have been made to allow (see {@link SimulationEngine#duplicate}).
+ * A checkpoint instead holds on to the paused simulation itself -- its cells, job schedule, task table,
+ * and timeline -- and so can be resumed at most once. Callers wanting to keep a checkpoint after resuming it
+ * should create a new one.
+ * </p>
+ *
+ * <p>
+ * A revised plan can be resumed from a checkpoint only if every directive it adds, removes, or changes
+ * is unanchored, starts strictly after the checkpoint, and has no other directives anchored to it.
+ * (See {@link #canResume}.) The caller is responsible for ensuring that the mission model and its configuration
+ * are unchanged.
+ * </p>
+ */
+public final class SimulationCheckpoint implements AutoCloseable {
+  private final MissionModel<?> missionModel;
+  private final Map<ActivityDirectiveId, ActivityDirective> schedule;
+  private final Instant simulationStartTime;
+  private final Instant planStartTime;
+  private final Duration planDuration;
+
+  private final SimulationEngine engine;
+  private final TemporalEventSource timeline;
+  private final LiveCells cells;
+  private final Topic<ActivityDirectiveId> activityTopic;
+
+  /** The task scheduled for each unanchored directive. */
+  private final Map<ActivityDirectiveId, TaskId> directiveTasks;
+
+  private Duration elapsedTime;
+  private boolean resumed = false;
+
+  private SimulationCheckpoint(
+      final MissionModel<?> missionModel,
+      final Map<ActivityDirectiveId, ActivityDirective> schedule,
+      final Instant simulationStartTime,
+      final Instant planStartTime,
+      final Duration planDuration,
+      final SimulationEngine engine,
+      final TemporalEventSource timeline,
+      final LiveCells cells,
+      final Topic<ActivityDirectiveId> activityTopic,
+      final Map<ActivityDirectiveId, TaskId> directiveTasks,
+      final Duration elapsedTime
+  ) {
+    this.missionModel = missionModel;
+    this.schedule = schedule;
+    this.simulationStartTime = simulationStartTime;
+    this.planStartTime = planStartTime;
+    this.planDuration = planDuration;
+    this.engine = engine;
+    this.timeline = timeline;
+    this.cells = cells;
+    this.activityTopic = activityTopic;
+    this.directiveTasks = directiveTasks;
+    this.elapsedTime = elapsedTime;
+  }
+
+  /** Simulate a plan up to (and including) the given time, and pause there. */
+  public static <Model>
+  SimulationCheckpoint create(
+      final MissionModel<Model> missionModel,
+      final Map<ActivityDirectiveId, ActivityDirective> schedule,
+      final Instant simulationStartTime,
+      final Instant planStartTime,
+      final Duration planDuration,
+      final Duration checkpointTime,
+      final Supplier<Boolean> simulationCanceled
+  ) {
+    return create(
+        missionModel,
+        schedule,
+        simulationStartTime,
+        planStartTime,
+        planDuration,
+        checkpointTime,
+        simulationCanceled,
+        SimulationEngine.BatchMode.Sequential);
+  }
+
+  /**
+   * Simulate a plan up to the given time as above, performing the jobs in each batch according to the given mode.
+   * The resumed simulation continues in the same mode.
+   */
+  public static <Model>
+  SimulationCheckpoint create(
+      final MissionModel<Model> missionModel,
+      final Map<ActivityDirectiveId, ActivityDirective> schedule,
+      final Instant simulationStartTime,
+      final Instant planStartTime,
+      final Duration planDuration,
+      final Duration checkpointTime,
+      final Supplier<Boolean> simulationCanceled,
+      final SimulationEngine.BatchMode batchMode
+  ) {
+    final var engine = new SimulationEngine(batchMode);
+    try {
+      /* The top-level simulation timeline. */
+      final var timeline = new TemporalEventSource();
+      final var cells = new LiveCells(timeline, missionModel.getInitialCells());
+      /* The current real time. */
+      var elapsedTime = Duration.ZERO;
+
+      // Begin tracking all resources.
+      for (final var entry : missionModel.getResources().entrySet()) {
+        engine.trackResource(entry.getKey(), entry.getValue(), elapsedTime);
+      }
+
+      // Specify a topic on which tasks can log the activity they're associated with.
+      final var activityTopic = new Topic<ActivityDirectiveId>();
+
+      final Map<ActivityDirectiveId, TaskId> directiveTasks;
+      try {
+        // Start daemon task(s) immediately, before anything else happens.
+        engine.scheduleTask(Duration.ZERO, missionModel.getDaemon());
+        {
+          final var batch = engine.extractNextJobs(Duration.MAX_VALUE);
+          final var commit = FlatEventGraph.of(engine.performJobs(batch.jobs(), cells, elapsedTime, Duration.MAX_VALUE));
+          timeline.add(commit);
+        }
+
+        directiveTasks = SimulationDriver.scheduleActivities(
+            schedule,
+            resolve(schedule, simulationStartTime, planStartTime, planDuration),
+            missionModel,
+            engine,
+            activityTopic);
+      } catch (Throwable ex) {
+        throw new SimulationException(elapsedTime, simulationStartTime, ex);
+      }
+
+      final var checkpoint = new SimulationCheckpoint(
+          missionModel,
+          Map.copyOf(schedule),
+          simulationStartTime,
+          planStartTime,
+          planDuration,
+          engine,
+          timeline,
+          cells,
+          activityTopic,
+          new HashMap<>(directiveTasks),
+          elapsedTime);
+
+      checkpoint.simulateUntil(checkpointTime, simulationCanceled, $ -> {}, Optional.empty());
+      return checkpoint;
+    } catch (final Throwable ex) {
+      engine.close();
+      throw ex;
+    }
+  }
+
+  /** The time up to which this checkpoint has been simulated, relative to the start of simulation. */
+  public Duration time() {
+    return this.elapsedTime;
+  }
+
+  /** The number of threads this checkpoint's suspended tasks are holding on to until it is resumed or closed. */
+  public int threadsInUse() {
+    return this.engine.threadsInUse();
+  }
+
+  /** Determine whether a revised plan can be simulated by resuming from this checkpoint. */
+  public boolean canResume(final Map<ActivityDirectiveId, ActivityDirective> revisedSchedule) {
+    if (this.resumed) return false;
+
+    final var changed = changedDirectives(revisedSchedule);
+    for (final var id : changed) {
+      for (final var directive : new ActivityDirective[] {this.schedule.get(id), revisedSchedule.get(id)}) {
+        if (directive == null) continue;
+        if (directive.anchorId() != null) return false;
+        if (!this.offsetFromSimulationStart(directive).longerThan(this.elapsedTime)) return false;
+      }
+    }
+
+    // Directives anchored to a changed directive are spawned by the changed directive's task,
+    //   which would have been created from the original plan.
+    for (final var schedule : List.of(this.schedule, revisedSchedule)) {
+      for (final var directive : schedule.values()) {
+        if (directive.anchorId() != null && changed.contains(directive.anchorId())) return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Finish simulating a revised plan, continuing from this checkpoint.
+   *
+   * <p> The revised plan must be {@linkplain #canResume resumable} from this checkpoint. </p>
+   */
+  public SimulationResults resume(
+      final Map<ActivityDirectiveId, ActivityDirective> revisedSchedule,
+      final Duration simulationDuration,
+      final Supplier<Boolean> simulationCanceled,
+      final Consumer<Duration> simulationExtentConsumer
+  ) {
+    final var results = new InMemorySimulationResultsSink();
+    this.resume(revisedSchedule, simulationDuration, simulationCanceled, simulationExtentConsumer, results);
+    return results.results();
+  }
+
+  /**
+   * Finish simulating a revised plan as above, handing results to the given sink while simulation is still running.
+   *
+   * <p>
+   * The results simulated before this checkpoint are handed over first, followed by the rest as they are simulated,
+   * just as {@link SimulationDriver#simulate} would.
+   * </p>
+   */
+  public void resume(
+      final Map<ActivityDirectiveId, ActivityDirective> revisedSchedule,
+      final Duration simulationDuration,
+      final Supplier<Boolean> simulationCanceled,
+      final Consumer<Duration> simulationExtentConsumer,
+      final SimulationResultsSink resultsSink
+  ) {
+    if (this.resumed) throw new IllegalStateException("A simulation checkpoint can only be resumed once");
+    if (!this.canResume(revisedSchedule)) {
+      throw new IllegalArgumentException("The revised plan differs from the checkpointed plan before %s"
+                                             .formatted(this.elapsedTime));
+    }
+    this.resumed = true;
+
+    final var changed = this.changedDirectives(revisedSchedule);
+    final var resolved = resolve(revisedSchedule, this.simulationStartTime, this.planStartTime, this.planDuration);
+
+    try {
+      // Withdraw the original versions of any changed directives, none of which can have started yet.
+      for (final var id : changed) {
+        final var task = this.directiveTasks.remove(id);
+        if (task != null) this.engine.unscheduleTask(task);
+      }
+
+      // Schedule the revised versions of any changed directives.
+      for (final var entry : resolved.getOrDefault(null, List.of())) {
+        final var directiveId = entry.getLeft();
+        if (!changed.contains(directiveId)) continue;
+
+        final var serializedDirective = revisedSchedule.get(directiveId).serializedActivity();
+        final TaskFactory<?> task;
+        try {
+          task = this.missionModel.getTaskFactory(serializedDirective);
+        } catch (final InstantiationException ex) {
+          // All activity instantiations are assumed to be validated by this point
+          throw new Error("Unexpected state: activity instantiation %s failed with: %s"
+                              .formatted(serializedDirective.getTypeName(), ex.toString()));
+        }
+
+        this.directiveTasks.put(directiveId, this.engine.scheduleTask(entry.getRight(), SimulationDriver.makeTaskFactory(
+            directiveId,
+            task,
+            revisedSchedule,
+            resolved,
+            this.missionModel,
+            this.activityTopic)));
+      }
+    } catch (Throwable ex) {
+      throw new SimulationException(this.elapsedTime, this.simulationStartTime, ex);
+    }
+
+    // Catch the sink up on everything committed before this checkpoint, then stream the rest as it is simulated.
+    final var results = this.engine.streamResults(this.activityTopic, this.missionModel.getTopics(), resultsSink);
+    var time = Duration.ZERO;
+    for (final var point : this.timeline.points()) {
+      if (point instanceof TemporalEventSource.TimePoint.Delta delta) {
+        time = time.plus(delta.delta());
+      } else if (point instanceof TemporalEventSource.TimePoint.Commit commit) {
+        results.commit(time, commit.events());
+      }
+    }
+
+    this.simulateUntil(simulationDuration, simulationCanceled, simulationExtentConsumer, Optional.of(results));
+
+    results.finish(this.simulationStartTime, this.elapsedTime);
+  }
+
+  @Override
+  public void close() {
+    this.engine.close();
+  }
+
+  // Drive the engine until we're out of time or until simulation is canceled.
+  // TERMINATION: Actually, we might never break if real time never progresses forward.
+  private void simulateUntil(
+      final Duration endTime,
+      final Supplier<Boolean> simulationCanceled,
+      final Consumer<Duration> simulationExtentConsumer,
+      final Optional<SimulationEngine.ResultsStream> results
+  ) {
+    try {
+      while (!simulationCanceled.get()) {
+        final var batch = this.engine.extractNextJobs(endTime);
+
+        // Increment real time, if necessary.
+        final var delta = batch.offsetFromStart().minus(this.elapsedTime);
+        this.elapsedTime = batch.offsetFromStart();
+        this.timeline.add(delta);
+
+        simulationExtentConsumer.accept(this.elapsedTime);
+
+        if (simulationCanceled.get() ||
+            (batch.jobs().isEmpty() && batch.offsetFromStart().isEqualTo(endTime))) {
+          break;
+        }
+
+        // Run the jobs in this batch.
+        final var commit = FlatEventGraph.of(this.engine.performJobs(batch.jobs(), this.cells, this.elapsedTime, endTime));
+        this.timeline.add(commit);
+        if (results.isPresent()) {
+          results.get().commit(this.elapsedTime, commit);
+          results.get().flushProfiles();
+        }
+      }
+    } catch (Throwable ex) {
+      throw new SimulationException(this.elapsedTime, this.simulationStartTime, ex);
+    }
+  }
+
+  private Set<ActivityDirectiveId> changedDirectives(final Map<ActivityDirectiveId, ActivityDirective> revisedSchedule) {
+    final var changed = new HashSet<ActivityDirectiveId>();
+    for (final var id : this.schedule.keySet()) {
+      if (!Objects.equals(this.schedule.get(id), revisedSchedule.get(id))) changed.add(id);
+    }
+    for (final var id : revisedSchedule.keySet()) {
+      if (!Objects.equals(this.schedule.get(id), revisedSchedule.get(id))) changed.add(id);
+    }
+    return changed;
+  }
+
+  private Duration offsetFromSimulationStart(final ActivityDirective directive) {
+    return directive.startOffset().minus(Duration.of(
+        this.planStartTime.until(this.simulationStartTime, ChronoUnit.MICROS),
+        Duration.MICROSECONDS));
+  }
+
+  // Resolve start times exactly as `SimulationDriver.simulate` does.
+  private static HashMap<ActivityDirectiveId, List<Pair<ActivityDirectiveId, Duration>>> resolve(
+      final Map<ActivityDirectiveId, ActivityDirective> schedule,
+      final Instant simulationStartTime,
+      final Instant planStartTime,
+      final Duration planDuration
+  ) {
+    HashMap<ActivityDirectiveId, List<Pair<ActivityDirectiveId, Duration>>> resolved = new StartOffsetReducer(planDuration, schedule).compute();
+    if (!resolved.isEmpty()) {
+      resolved.put(
+          null,
+          StartOffsetReducer.adjustStartOffset(
+              resolved.get(null),
+              Duration.of(
+                  planStartTime.until(simulationStartTime, ChronoUnit.MICROS),
+                  Duration.MICROSECONDS)));
+    }
+    // Filter out activities that are before simulationStartTime
+    return StartOffsetReducer.filterOutNegativeStartOffset(resolved);
+  }
+}
@@ -1,6 +1,8 @@
 package gov.nasa.jpl.aerie.merlin.driver;
 
 import gov.nasa.jpl.aerie.merlin.driver.engine.SimulationEngine;
+import gov.nasa.jpl.aerie.merlin.driver.engine.TaskId;
+import gov.nasa.jpl.aerie.merlin.driver.timeline.FlatEventGraph;
 import gov.nasa.jpl.aerie.merlin.driver.timeline.LiveCells;
 import gov.nasa.jpl.aerie.merlin.driver.timeline.TemporalEventSource;
 import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
@@ -53,7 +55,69 @@ public final class SimulationDriver {
       final Supplier<Boolean> simulationCanceled,
       final Consumer<Duration> simulationExtentConsumer
   ) {
-    try (final var engine = new SimulationEngine()) {
+    final var results = new InMemorySimulationResultsSink();
+    simulate(
+        missionModel,
+        schedule,
+        simulationStartTime,
+        simulationDuration,
+        planStartTime,
+        planDuration,
+        simulationCanceled,
+        simulationExtentConsumer,
+        results);
+    return results.results();
+  }
+
+  /**
+   * Simulate a plan, handing results to the given sink while simulation is still running.
+   *
+   * <p> Profile segments are reported in bounded batches, so they need not all be held in memory at once. </p>
+   */
+  public static <Model>
+  void simulate(
+      final MissionModel<Model> missionModel,
+      final Map<ActivityDirectiveId, ActivityDirective> schedule,
+      final Instant simulationStartTime,
+      final Duration simulationDuration,
+      final Instant planStartTime,
+      final Duration planDuration,
+      final Supplier<Boolean> simulationCanceled,
+      final Consumer<Duration> simulationExtentConsumer,
+      final SimulationResultsSink resultsSink
+  ) {
+    simulate(
+        missionModel,
+        schedule,
+        simulationStartTime,
+        simulationDuration,
+        planStartTime,
+        planDuration,
+        simulationCanceled,
+        simulationExtentConsumer,
+        resultsSink,
+        SimulationEngine.BatchMode.Sequential);
+  }
+
+  /**
+   * Simulate a plan as above, performing the jobs in each batch according to the given mode.
+   *
+   * @see SimulationEngine.BatchMode
+   */
+  public static <Model>
+  void simulate(
+      final MissionModel<Model> missionModel,
+      final Map<ActivityDirectiveId, ActivityDirective> schedule,
+      final Instant simulationStartTime,
+      final Duration simulationDuration,
+      final Instant planStartTime,
+      final Duration planDuration,
+      final Supplier<Boolean> simulationCanceled,
+      final Consumer<Duration> simulationExtentConsumer,
+      final SimulationResultsSink resultsSink,
+      final SimulationEngine.BatchMode batchMode
+  ) {
+    try (final var engine = new SimulationEngine(batchMode)) {
       /* The top-level simulation timeline. */
       var timeline = new TemporalEventSource();
       var cells = new LiveCells(timeline, missionModel.getInitialCells());
@@ -72,14 +136,16 @@ public final class SimulationDriver {
 
       // Specify a topic on which tasks can log the activity they're associated with.
       final var activityTopic = new Topic<ActivityDirectiveId>();
+      final var results = engine.streamResults(activityTopic, missionModel.getTopics(), resultsSink);
 
       try {
         // Start daemon task(s) immediately, before anything else happens.
         engine.scheduleTask(Duration.ZERO, missionModel.getDaemon());
         {
           final var batch = engine.extractNextJobs(Duration.MAX_VALUE);
-          final var commit = engine.performJobs(batch.jobs(), cells, elapsedTime, Duration.MAX_VALUE);
+          final var commit = FlatEventGraph.of(engine.performJobs(batch.jobs(), cells, elapsedTime, Duration.MAX_VALUE));
           timeline.add(commit);
+          results.commit(elapsedTime, commit);
         }
 
         // Get all activities as close as possible to absolute time
@@ -127,15 +193,16 @@ public final class SimulationDriver {
           }
 
           // Run the jobs in this batch.
-          final var commit = engine.performJobs(batch.jobs(), cells, elapsedTime, simulationDuration);
+          final var commit = FlatEventGraph.of(engine.performJobs(batch.jobs(), cells, elapsedTime, simulationDuration));
           timeline.add(commit);
+          results.commit(elapsedTime, commit);
+          results.flushProfiles();
         }
       } catch (Throwable ex) {
         throw new SimulationException(elapsedTime, simulationStartTime, ex);
       }
 
-      final var topics = missionModel.getTopics();
-      return SimulationEngine.computeResults(engine, simulationStartTime, elapsedTime, activityTopic, timeline, topics);
+      results.finish(simulationStartTime, elapsedTime);
     }
   }
 
@@ -187,7 +254,8 @@ public final class SimulationDriver {
   }
 
 
-  private static <Model> void scheduleActivities(
+  /** Schedule every unanchored directive, returning the task created for each. */
+  /*package-private*/ static <Model> Map<ActivityDirectiveId, TaskId> scheduleActivities(
       final Map<ActivityDirectiveId, ActivityDirective> schedule,
       final HashMap<ActivityDirectiveId, List<Pair<ActivityDirectiveId, Duration>>> resolved,
       final MissionModel<Model> missionModel,
@@ -195,7 +263,8 @@ public final class SimulationDriver {
       final Topic<ActivityDirectiveId> activityTopic
   )
   {
-    if(resolved.get(null) == null) { return; } // Nothing to simulate
+    final var tasks = new HashMap<ActivityDirectiveId, TaskId>();
+    if(resolved.get(null) == null) { return tasks; } // Nothing to simulate
 
     for (final Pair<ActivityDirectiveId, Duration> directivePair : resolved.get(null)) {
       final var directiveId = directivePair.getLeft();
@@ -211,18 +280,20 @@ public final class SimulationDriver {
                             .formatted(serializedDirective.getTypeName(), ex.toString()));
       }
 
-      engine.scheduleTask(startOffset, makeTaskFactory(
+      tasks.put(directiveId, engine.scheduleTask(startOffset, makeTaskFactory(
           directiveId,
           task,
           schedule,
           resolved,
           missionModel,
           activityTopic
-      ));
+      )));
     }
+
+    return tasks;
   }
 
-  private static <Model, Output> TaskFactory<Unit> makeTaskFactory(
+  /*package-private*/ static <Model, Output> TaskFactory<Unit> makeTaskFactory(
       final ActivityDirectiveId directiveId,
       final TaskFactory<Output> task,
       final Map<ActivityDirectiveId, ActivityDirective> schedule,
@@ -0,0 +1,60 @@
+package gov.nasa.jpl.aerie.merlin.driver;
+
+import gov.nasa.jpl.aerie.merlin.driver.engine.ProfileSegment;
+import gov.nasa.jpl.aerie.merlin.driver.timeline.EventGraph;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.RealDynamics;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
+import gov.nasa.jpl.aerie.merlin.protocol.types.ValueSchema;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A consumer of simulation results, which receives them incrementally while simulation is still running.
+ *
+ * <p>
+ * Profile segments and events are received in order of simulation time, and are never revised once received.
+ * Activities are only received once simulation has finished, since the identity and parentage of child activities
+ * depends on the full tree of tasks.
+ * </p>
+ */
+public interface SimulationResultsSink {
+  /** Receive the topics on which events will be reported. This is received once, before any events. */
+  void topics(List<Triple<Integer, String, ValueSchema>> topics);
+
+  /** Receive the next segments of a real resource's profile, continuing from any segments already received. */
+  void realProfileSegments(String resource, ValueSchema schema, List<ProfileSegment<RealDynamics>> segments);
+
+  /** Receive the next segments of a discrete resource's profile, continuing from any segments already received. */
+  void discreteProfileSegments(String resource, ValueSchema schema, List<ProfileSegment<SerializedValue>> segments);
+
+  /** Receive the events committed by one batch of jobs at the given time. Empty batches are not received. */
+  void events(Duration time, EventGraph<Pair<Integer, SerializedValue>> events);
+
+  /** Receive the simulated activities. No further results will be received after this. */
+  void finish(
+      Instant startTime,
+      Duration duration,
+      Map<SimulatedActivityId, SimulatedActivity> simulatedActivities,
+      Map<SimulatedActivityId, UnfinishedActivity> unfinishedActivities);
+
+  /** Deliver a complete set of results to a sink, as though they had been streamed. */
+  static void replay(final SimulationResults results, final SimulationResultsSink sink) {
+    sink.topics(results.topics);
+
+    results.realProfiles.forEach((name, profile) ->
+        sink.realProfileSegments(name, profile.getLeft(), profile.getRight()));
+    results.discreteProfiles.forEach((name, profile) ->
+        sink.discreteProfileSegments(name, profile.getLeft(), profile.getRight()));
+
+    results.events.forEach((time, commits) -> {
+      for (final var commit : commits) sink.events(time, commit);
+    });
+
+    sink.finish(results.startTime, results.duration, results.simulatedActivities, results.unfinishedActivities);
+  }
+}
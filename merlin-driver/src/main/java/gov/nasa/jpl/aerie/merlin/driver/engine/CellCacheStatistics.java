@@ -0,0 +1,14 @@
+package gov.nasa.jpl.aerie.merlin.driver.engine;
+
+/** Counts of the cell reads made by modeled tasks, conditions, and resources over the life of an engine. */
+public record CellCacheStatistics(long hits, long misses) {
+  public long reads() {
+    return this.hits + this.misses;
+  }
+
+  /** The fraction of reads served without consulting the timeline, or zero if no cells were read. */
+  public double hitRate() {
+    final var reads = this.reads();
+    return (reads == 0) ? 0.0 : (double) this.hits / reads;
+  }
+}
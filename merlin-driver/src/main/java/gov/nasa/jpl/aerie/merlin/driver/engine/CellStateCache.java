@@ -0,0 +1,58 @@
+package gov.nasa.jpl.aerie.merlin.driver.engine;
+
+import gov.nasa.jpl.aerie.merlin.driver.timeline.Query;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The cell states read by a single step of a task, condition, or resource.
+ *
+ * <p>
+ * Reading a cell walks its cursor up the timeline and duplicates its state, which adds up quickly
+ * for models that read the same cells many times per step. A cell's state can only change within a step
+ * if the step emits an event the cell is interested in, so a cached state remains valid until then.
+ * </p>
+ *
+ * <p>
+ * Repeated reads share an instance, which relies on the contract of {@link gov.nasa.jpl.aerie.merlin.protocol.driver.Scheduler#get}
+ * and {@link gov.nasa.jpl.aerie.merlin.protocol.driver.Querier#getState} that states handed out are never mutated.
+ * </p>
+ */
+/*package-local*/ final class CellStateCache {
+  private final Map<EngineCellId<?, ?>, Object> states = new HashMap<>();
+  private long hits = 0;
+  private long misses = 0;
+
+  public <State> State get(final EngineCellId<?, State> cell, final Function<Query<State>, State> read) {
+    // SAFETY: Every entry is keyed by the cell whose state it holds.
+    @SuppressWarnings("unchecked")
+    final var cached = (State) this.states.get(cell);
+
+    if (cached != null) {
+      this.hits += 1;
+      return cached;
+    }
+
+    this.misses += 1;
+    final var state = read.apply(cell.query());
+    this.states.put(cell, state);
+    return state;
+  }
+
+  /** Forget the states of all cells that an event on the given topic may affect. */
+  public void invalidate(final Topic<?> topic) {
+    if (this.states.isEmpty()) return;
+    this.states.keySet().removeIf($ -> $.topic().equals(topic));
+  }
+
+  public long hits() {
+    return this.hits;
+  }
+
+  public long misses() {
+    return this.misses;
+  }
+}
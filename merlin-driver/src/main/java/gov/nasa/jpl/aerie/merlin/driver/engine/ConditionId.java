@@ -1,10 +1,8 @@
 package gov.nasa.jpl.aerie.merlin.driver.engine;
 
-import java.util.UUID;
-
-/** A typed wrapper for condition IDs. */
-public record ConditionId(String id) {
-  public static ConditionId generate() {
-    return new ConditionId(UUID.randomUUID().toString());
-  }
-}
+/**
+ * A typed wrapper for condition IDs.
+ *
+ * <p> Condition IDs are allocated densely by each {@link SimulationEngine}, and are only meaningful within that engine. </p>
+ */
+public record ConditionId(long id) {}
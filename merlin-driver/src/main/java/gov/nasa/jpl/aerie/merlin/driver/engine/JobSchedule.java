@@ -1,64 +1,169 @@
 package gov.nasa.jpl.aerie.merlin.driver.engine;
 
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
-import org.apache.commons.lang3.tuple.Pair;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Set;
 
+/**
+ * A time-ordered schedule of upcoming jobs.
+ *
+ * <p>
+ * Jobs are held in an indexed binary min-heap, so that rescheduling or unscheduling a job
+ * costs <code>O(log n)</code> rather than the linear scan needed to find it in a plain priority queue.
+ * </p>
+ */
 public final class JobSchedule<JobRef, TimeRef extends SchedulingInstant> {
-  /** The scheduled time for each upcoming job. */
-  private final Map<JobRef, TimeRef> scheduledJobs = new HashMap<>();
+  private static final int INITIAL_CAPACITY = 64;
 
-  /** A time-ordered queue of all tasks whose resumption time is concretely known. */
-  @DerivedFrom("scheduledJobs")
-  private final PriorityQueue<Pair<TimeRef, JobRef>> queue = new PriorityQueue<>(Comparator.comparing(Pair::getLeft));
+  /** The position in the heap of each upcoming job. */
+  private final Object2IntOpenHashMap<JobRef> positions = new Object2IntOpenHashMap<>();
 
-  public void schedule(final JobRef job, final TimeRef time) {
-    final var oldTime = this.scheduledJobs.put(job, time);
+  /** A time-ordered heap of all jobs whose resumption time is concretely known. */
+  @DerivedFrom("positions")
+  private Object[] jobs = new Object[INITIAL_CAPACITY];
+  /** The scheduled time for the job at the same position in {@link #jobs}. */
+  @DerivedFrom("positions")
+  private SchedulingInstant[] times = new SchedulingInstant[INITIAL_CAPACITY];
+  private int size = 0;
+
+  public JobSchedule() {
+    this.positions.defaultReturnValue(-1);
+  }
 
-    if (oldTime != null) this.queue.remove(Pair.of(oldTime, job));
-    this.queue.add(Pair.of(time, job));
+  public void schedule(final JobRef job, final TimeRef time) {
+    final var position = this.positions.getInt(job);
+
+    if (position < 0) {
+      if (this.size == this.jobs.length) {
+        this.jobs = Arrays.copyOf(this.jobs, 2 * this.size);
+        this.times = Arrays.copyOf(this.times, 2 * this.size);
+      }
+
+      this.place(this.size, job, time);
+      this.size += 1;
+      this.siftUp(this.size - 1);
+    } else {
+      final var oldTime = this.times[position];
+      this.times[position] = time;
+
+      if (time.compareTo(oldTime) < 0) {
+        this.siftUp(position);
+      } else {
+        this.siftDown(position);
+      }
+    }
   }
 
   public void unschedule(final JobRef job) {
-    final var oldTime = this.scheduledJobs.remove(job);
+    final var position = this.positions.removeInt(job);
 
-    if (oldTime != null) this.queue.remove(Pair.of(oldTime, job));
+    if (position >= 0) this.removeAt(position);
+  }
+
+  /** Schedule every job in another schedule, at the time it is scheduled there. */
+  public void scheduleAll(final JobSchedule<JobRef, TimeRef> other) {
+    for (var i = 0; i < other.size; i += 1) {
+      // SAFETY: Only `TimeRef`s are ever placed into `times`.
+      @SuppressWarnings("unchecked")
+      final var time = (TimeRef) other.times[i];
+
+      this.schedule(other.jobAt(i), time);
+    }
   }
 
   public Batch<JobRef> extractNextJobs(final Duration maximumTime) {
-    if (this.queue.isEmpty()) return new Batch<>(maximumTime, Collections.emptySet());
+    if (this.size == 0) return new Batch<>(maximumTime, Collections.emptySet());
 
-    final var time = this.queue.peek().getKey();
+    final var time = this.times[0];
     if (time.project().longerThan(maximumTime)) {
       return new Batch<>(maximumTime, Collections.emptySet());
     }
 
     // Ready all tasks at the soonest task time.
     final var readyJobs = new HashSet<JobRef>();
-    while (true) {
-      final var entry = this.queue.peek();
-      if (entry == null) break;
-      if (entry.getLeft().compareTo(time) > 0) break;
+    while (this.size > 0 && this.times[0].compareTo(time) <= 0) {
+      final var job = this.jobAt(0);
 
-      this.scheduledJobs.remove(entry.getRight());
-      this.queue.remove();
+      this.positions.removeInt(job);
+      this.removeAt(0);
 
-      readyJobs.add(entry.getRight());
+      readyJobs.add(job);
     }
 
     return new Batch<>(time.project(), readyJobs);
   }
 
   public void clear() {
-    this.scheduledJobs.clear();
-    this.queue.clear();
+    this.positions.clear();
+    Arrays.fill(this.jobs, 0, this.size, null);
+    Arrays.fill(this.times, 0, this.size, null);
+    this.size = 0;
+  }
+
+  // The caller is responsible for having already removed the job at this position from `positions`.
+  private void removeAt(final int position) {
+    this.size -= 1;
+
+    if (position != this.size) {
+      this.place(position, this.jobAt(this.size), this.times[this.size]);
+      this.jobs[this.size] = null;
+      this.times[this.size] = null;
+
+      // The displaced job may need to move in either direction, but it will only move in one.
+      this.siftDown(position);
+      this.siftUp(position);
+    } else {
+      this.jobs[this.size] = null;
+      this.times[this.size] = null;
+    }
+  }
+
+  private void siftUp(int position) {
+    final var job = this.jobAt(position);
+    final var time = this.times[position];
+
+    while (position > 0) {
+      final var parent = (position - 1) >>> 1;
+      if (time.compareTo(this.times[parent]) >= 0) break;
+
+      this.place(position, this.jobAt(parent), this.times[parent]);
+      position = parent;
+    }
+
+    this.place(position, job, time);
+  }
+
+  private void siftDown(int position) {
+    final var job = this.jobAt(position);
+    final var time = this.times[position];
+
+    while (true) {
+      var child = 2 * position + 1;
+      if (child >= this.size) break;
+      if (child + 1 < this.size && this.times[child + 1].compareTo(this.times[child]) < 0) child += 1;
+      if (time.compareTo(this.times[child]) <= 0) break;
+
+      this.place(position, this.jobAt(child), this.times[child]);
+      position = child;
+    }
+
+    this.place(position, job, time);
+  }
+
+  private void place(final int position, final JobRef job, final SchedulingInstant time) {
+    this.jobs[position] = job;
+    this.times[position] = time;
+    this.positions.put(job, position);
+  }
+
+  @SuppressWarnings("unchecked")
+  private JobRef jobAt(final int position) {
+    // SAFETY: Only `JobRef`s are ever placed into `jobs`.
+    return (JobRef) this.jobs[position];
   }
 
   public record Batch<JobRef>(Duration offsetFromStart, Set<JobRef> jobs) {}
@@ -3,6 +3,7 @@ package gov.nasa.jpl.aerie.merlin.driver.engine;
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
 
 import java.util.Iterator;
+import java.util.Optional;
 
 /*package-local*/ record Profile<Dynamics>(SlabList<Segment<Dynamics>> segments)
 implements Iterable<Profile.Segment<Dynamics>> {
@@ -16,6 +17,10 @@ implements Iterable<Profile.Segment<Dynamics>> {
     this.segments.append(new Segment<>(currentTime, dynamics));
   }
 
+  public Optional<Segment<Dynamics>> lastSegment() {
+    return this.segments.last();
+  }
+
   @Override
   public Iterator<Segment<Dynamics>> iterator() {
     return this.segments.iterator();
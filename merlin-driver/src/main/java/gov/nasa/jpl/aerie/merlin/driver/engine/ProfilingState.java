@@ -3,15 +3,107 @@ package gov.nasa.jpl.aerie.merlin.driver.engine;
 import gov.nasa.jpl.aerie.merlin.protocol.driver.Querier;
 import gov.nasa.jpl.aerie.merlin.protocol.model.Resource;
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.RealDynamics;
+
+import java.util.Objects;
 
 /*package-local*/
-record ProfilingState<Dynamics> (Resource<Dynamics> resource, Profile<Dynamics> profile) {
-  public static <DynamicsType>
+sealed interface ProfilingState<Dynamics> {
+  Resource<Dynamics> resource();
+
+  /**
+   * Sample the resource's current dynamics, extending the profile only if they differ from the previous segment's.
+   *
+   * @return Whether a new segment was added to the profile.
+   */
+  boolean append(Duration currentTime, Querier querier);
+
+  /** Forget every segment of the profile but the last, whose extent is not yet known. */
+  ProfilingState<Dynamics> retainLastSegment();
+
+  /** Copy this profile, so that the copy can be extended independently of this one. */
+  ProfilingState<Dynamics> duplicate();
+
+  static <DynamicsType>
   ProfilingState<DynamicsType> create(final Resource<DynamicsType> resource) {
-    return new ProfilingState<>(resource, new Profile<>());
+    return switch (resource.getType()) {
+      case "real" -> new Real<>(resource, new RealProfile());
+      default -> new Generic<>(resource, new Profile<>());
+    };
+  }
+
+  /** The profile of a resource whose dynamics are kept exactly as the resource provided them. */
+  record Generic<Dynamics> (Resource<Dynamics> resource, Profile<Dynamics> profile) implements ProfilingState<Dynamics> {
+    @Override
+    public boolean append(final Duration currentTime, final Querier querier) {
+      final var dynamics = this.resource.getDynamics(querier);
+
+      // A discrete resource continues its previous segment if its value is unchanged.
+      final var last = this.profile.lastSegment();
+      if (last.isPresent() && this.resource.getType().equals("discrete") && Objects.equals(last.get().dynamics(), dynamics)) {
+        return false;
+      }
+
+      this.profile.append(currentTime, dynamics);
+      return true;
+    }
+
+    @Override
+    public Generic<Dynamics> retainLastSegment() {
+      final var retained = new Profile<Dynamics>();
+      this.profile.lastSegment().ifPresent($ -> retained.append($.startOffset(), $.dynamics()));
+
+      return new Generic<>(this.resource, retained);
+    }
+
+    @Override
+    public Generic<Dynamics> duplicate() {
+      final var copy = new Profile<Dynamics>();
+      for (final var segment : this.profile) copy.append(segment.startOffset(), segment.dynamics());
+
+      return new Generic<>(this.resource, copy);
+    }
   }
 
-  public void append(final Duration currentTime, final Querier querier) {
-    this.profile.append(currentTime, this.resource.getDynamics(querier));
+  /**
+   * The profile of a real-valued resource, whose dynamics are reduced to an initial value and a rate when sampled.
+   *
+   * <p>
+   * Dynamics given as {@link RealDynamics} are read directly. Any others are serialized by the resource's output type,
+   * which must produce an <code>{initial, rate}</code> struct.
+   * </p>
+   */
+  record Real<Dynamics> (Resource<Dynamics> resource, RealProfile profile) implements ProfilingState<Dynamics> {
+    @Override
+    public boolean append(final Duration currentTime, final Querier querier) {
+      final var dynamics = this.resource.getDynamics(querier);
+
+      final double initial;
+      final double rate;
+      if (dynamics instanceof RealDynamics d) {
+        initial = d.initial;
+        rate = d.rate;
+      } else {
+        final var serializedSegment = this.resource.getOutputType().serialize(dynamics).asMap().orElseThrow();
+        initial = serializedSegment.get("initial").asReal().orElseThrow();
+        rate = serializedSegment.get("rate").asReal().orElseThrow();
+      }
+
+      if (this.profile.continues(initial, rate)) return false;
+
+      this.profile.append(currentTime, initial, rate);
+      return true;
+    }
+
+    @Override
+    public Real<Dynamics> retainLastSegment() {
+      this.profile.retainLastSegment();
+      return this;
+    }
+
+    @Override
+    public Real<Dynamics> duplicate() {
+      return new Real<>(this.resource, this.profile.duplicate());
+    }
   }
 }
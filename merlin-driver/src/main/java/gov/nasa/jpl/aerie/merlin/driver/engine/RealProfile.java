@@ -0,0 +1,119 @@
+package gov.nasa.jpl.aerie.merlin.driver.engine;
+
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.RealDynamics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A profile of linear dynamics, stored column-wise in primitive arrays.
+ *
+ * <p>
+ * A {@link Profile} of {@link RealDynamics} costs a segment record, a boxed start time, and a dynamics object
+ * per sample. Real-valued resources are often sampled far more than discrete ones, so their profiles instead keep
+ * each segment's start offset (in microseconds), initial value, and rate in parallel arrays, at 24 bytes a segment.
+ * </p>
+ */
+/*package-local*/ final class RealProfile {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private long[] startOffsets = new long[INITIAL_CAPACITY];
+  private double[] initials = new double[INITIAL_CAPACITY];
+  private double[] rates = new double[INITIAL_CAPACITY];
+  private int size = 0;
+
+  public void append(final Duration startOffset, final double initial, final double rate) {
+    if (this.size == this.startOffsets.length) {
+      this.startOffsets = Arrays.copyOf(this.startOffsets, 2 * this.size);
+      this.initials = Arrays.copyOf(this.initials, 2 * this.size);
+      this.rates = Arrays.copyOf(this.rates, 2 * this.size);
+    }
+
+    this.startOffsets[this.size] = startOffset.in(Duration.MICROSECOND);
+    this.initials[this.size] = initial;
+    this.rates[this.size] = rate;
+    this.size += 1;
+  }
+
+  /** Determine whether the given dynamics would merely continue the last segment of this profile. */
+  public boolean continues(final double initial, final double rate) {
+    if (this.size == 0) return false;
+
+    // Linear dynamics restart from their initial value at the start of each segment,
+    //   so only unchanging dynamics can be extended across a segment boundary.
+    final var last = this.size - 1;
+    return (rate == 0.0 && this.rates[last] == 0.0 && this.initials[last] == initial);
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public Duration startOffset(final int index) {
+    return Duration.of(this.startOffsets[index], Duration.MICROSECOND);
+  }
+
+  public double initial(final int index) {
+    return this.initials[index];
+  }
+
+  public double rate(final int index) {
+    return this.rates[index];
+  }
+
+  /**
+   * Produce the segments of this profile, each with its extent.
+   *
+   * <p> The last segment is included only if the end of the profile is known. </p>
+   */
+  public List<ProfileSegment<RealDynamics>> segments(final Optional<Duration> endTime) {
+    final var segments = new ArrayList<ProfileSegment<RealDynamics>>(this.size);
+
+    for (var i = 0; i + 1 < this.size; i += 1) {
+      segments.add(new ProfileSegment<>(
+          Duration.of(this.startOffsets[i + 1] - this.startOffsets[i], Duration.MICROSECOND),
+          RealDynamics.linear(this.initials[i], this.rates[i])));
+    }
+
+    if (this.size > 0 && endTime.isPresent()) {
+      final var last = this.size - 1;
+      segments.add(new ProfileSegment<>(
+          endTime.get().minus(this.startOffset(last)),
+          RealDynamics.linear(this.initials[last], this.rates[last])));
+    }
+
+    return segments;
+  }
+
+  /** Copy this profile, so that the copy can be extended independently of this one. */
+  public RealProfile duplicate() {
+    final var copy = new RealProfile();
+    copy.startOffsets = Arrays.copyOf(this.startOffsets, this.startOffsets.length);
+    copy.initials = Arrays.copyOf(this.initials, this.initials.length);
+    copy.rates = Arrays.copyOf(this.rates, this.rates.length);
+    copy.size = this.size;
+    return copy;
+  }
+
+  /** Forget every segment but the last, whose extent is not yet known. */
+  public void retainLastSegment() {
+    if (this.size <= 1) return;
+
+    final var last = this.size - 1;
+    final var startOffset = this.startOffsets[last];
+    final var initial = this.initials[last];
+    final var rate = this.rates[last];
+
+    this.startOffsets = new long[INITIAL_CAPACITY];
+    this.initials = new double[INITIAL_CAPACITY];
+    this.rates = new double[INITIAL_CAPACITY];
+
+    this.startOffsets[0] = startOffset;
+    this.initials[0] = initial;
+    this.rates[0] = rate;
+    this.size = 1;
+  }
+}
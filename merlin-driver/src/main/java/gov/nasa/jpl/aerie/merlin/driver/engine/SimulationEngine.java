@@ -1,14 +1,17 @@
 package gov.nasa.jpl.aerie.merlin.driver.engine;
 
 import gov.nasa.jpl.aerie.merlin.driver.ActivityDirectiveId;
+import gov.nasa.jpl.aerie.merlin.driver.InMemorySimulationResultsSink;
 import gov.nasa.jpl.aerie.merlin.driver.MissionModel.SerializableTopic;
 import gov.nasa.jpl.aerie.merlin.driver.SerializedActivity;
 import gov.nasa.jpl.aerie.merlin.driver.SimulatedActivity;
 import gov.nasa.jpl.aerie.merlin.driver.SimulatedActivityId;
 import gov.nasa.jpl.aerie.merlin.driver.SimulationResults;
+import gov.nasa.jpl.aerie.merlin.driver.SimulationResultsSink;
 import gov.nasa.jpl.aerie.merlin.driver.UnfinishedActivity;
 import gov.nasa.jpl.aerie.merlin.driver.timeline.Event;
 import gov.nasa.jpl.aerie.merlin.driver.timeline.EventGraph;
+import gov.nasa.jpl.aerie.merlin.driver.timeline.FlatEventGraph;
 import gov.nasa.jpl.aerie.merlin.driver.timeline.LiveCells;
 import gov.nasa.jpl.aerie.merlin.driver.timeline.TemporalEventSource;
 import gov.nasa.jpl.aerie.merlin.protocol.driver.CellId;
@@ -21,16 +24,17 @@ import gov.nasa.jpl.aerie.merlin.protocol.model.Resource;
 import gov.nasa.jpl.aerie.merlin.protocol.model.Task;
 import gov.nasa.jpl.aerie.merlin.protocol.model.TaskFactory;
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
-import gov.nasa.jpl.aerie.merlin.protocol.types.RealDynamics;
 import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
 import gov.nasa.jpl.aerie.merlin.protocol.types.TaskStatus;
 import gov.nasa.jpl.aerie.merlin.protocol.types.ValueSchema;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -41,9 +45,14 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
@@ -59,54 +68,172 @@ public final class SimulationEngine implements AutoCloseable {
   /** The set of queries depending on a given set of topics. */
   private final Subscriptions<Topic<?>, ResourceId> waitingResources = new Subscriptions<>();
 
-  /** The execution state for every task. */
-  private final Map<TaskId, ExecutionState<?>> tasks = new HashMap<>();
-  /** The getter for each tracked condition. */
-  private final Map<ConditionId, Condition> conditions = new HashMap<>();
+  /** The execution state for every task, keyed by task ID. */
+  private final Long2ObjectOpenHashMap<ExecutionState<?>> tasks = new Long2ObjectOpenHashMap<>();
+  /** The getter for each tracked condition, keyed by condition ID. */
+  private final Long2ObjectOpenHashMap<Condition> conditions = new Long2ObjectOpenHashMap<>();
   /** The profiling state for each tracked resource. */
   private final Map<ResourceId, ProfilingState<?>> resources = new HashMap<>();
 
-  /** The task that spawned a given task (if any). */
-  private final Map<TaskId, TaskId> taskParent = new HashMap<>();
-  /** The set of children for each task (if any). */
+  /** The task that spawned a given task (if any), keyed by task ID. */
+  private final Long2ObjectOpenHashMap<TaskId> taskParent = new Long2ObjectOpenHashMap<>();
+  /** The set of children for each task (if any), keyed by task ID. */
   @DerivedFrom("taskParent")
-  private final Map<TaskId, Set<TaskId>> taskChildren = new HashMap<>();
+  private final Long2ObjectOpenHashMap<Set<TaskId>> taskChildren = new Long2ObjectOpenHashMap<>();
+
+  /** The ID to be given to the next task created by this engine. */
+  private long nextTaskId = 0;
+  /** The ID to be given to the next condition tracked by this engine. */
+  private long nextConditionId = 0;
+
+  /** The number of profile segments accumulated since profiles were last reported to a results stream. */
+  private int unreportedSegments = 0;
+  /** The number of resource samples which extended the previous profile segment, rather than starting a new one. */
+  private long coalescedSegments = 0;
+
+  /** The number of cell reads served from a step's {@link CellStateCache}, and the number that missed. */
+  private final LongAdder cellCacheHits = new LongAdder();
+  private final LongAdder cellCacheMisses = new LongAdder();
+
+  /** Wall-clock timings for the steps each modeled task has taken, keyed by task ID. */
+  private final Long2ObjectOpenHashMap<TaskStepMetrics> taskStepMetrics = new Long2ObjectOpenHashMap<>();
+
+  /** How each task in progress was created, and what it has read since, keyed by task ID, if this engine can be duplicated. */
+  private final Optional<Long2ObjectOpenHashMap<TaskHistory>> taskHistories;
+
+  /** Virtual threads for modeled tasks, if supported. These are owned by this engine, and stopped when it closes. */
+  private final Optional<ExecutorService> virtualThreads = TaskThreads.virtualThreads();
+  /** A source of threads that modeled tasks can use to keep track of their state between steps. */
+  private final Executor taskThreads = this.virtualThreads.<Executor>map($ -> $).orElseGet(TaskThreads::sharedPool);
+  /** The number of threads taken from {@link #taskThreads} by modeled tasks and not yet given back. */
+  private final AtomicInteger threadsInUse = new AtomicInteger();
+  /** The source of threads given to modeled tasks, which counts the threads they hold. */
+  private final Executor executor = this::executeTask;
+
+  /** How the jobs in each batch are performed. */
+  private final BatchMode batchMode;
+  /** A thread pool over which independent jobs in a batch are performed, if batches are performed in parallel. */
+  private final Optional<ExecutorService> batchExecutor;
+
+  /**
+   * Guards all of the engine state above while a batch is being performed in parallel.
+   *
+   * <p>
+   * Modeled tasks, conditions, and resources are stepped without holding this lock,
+   * so that the expensive part of each job can proceed concurrently with other jobs.
+   * </p>
+   */
+  private final Object lock = new Object();
+
+  /** The turn of the job being performed on the current thread, if it belongs to a batch performed in parallel. */
+  private final ThreadLocal<BatchTurn> batchTurn = new ThreadLocal<>();
+
+  /** Create an engine which performs the jobs in each batch one after another. */
+  public SimulationEngine() {
+    this(BatchMode.Sequential);
+  }
+
+  /** Create an engine which performs the jobs in each batch according to the given mode. */
+  public SimulationEngine(final BatchMode batchMode) {
+    this(batchMode, false);
+  }
+
+  /**
+   * Create an engine which performs the jobs in each batch according to the given mode.
+   *
+   * @param duplicable Whether to keep what every task in progress has read, so that the engine can be
+   *   {@linkplain #duplicate duplicated}. This costs memory in proportion to the cell reads of those tasks.
+   */
+  public SimulationEngine(final BatchMode batchMode, final boolean duplicable) {
+    this.batchMode = batchMode;
+    this.batchExecutor = switch (batchMode) {
+      case Sequential -> Optional.empty();
+      case Parallel -> Optional.of(makeBatchExecutor());
+    };
+    this.taskHistories = (duplicable) ? Optional.of(new Long2ObjectOpenHashMap<>()) : Optional.empty();
+  }
 
-  /** A thread pool that modeled tasks can use to keep track of their state between steps. */
-  private final ExecutorService executor = getLoomOrFallback();
+  /** How the jobs in a single batch are performed. */
+  public enum BatchMode {
+    /** Perform every job on the calling thread, one after another. */
+    Sequential,
+
+    /**
+     * Perform independent jobs on a pool of worker threads.
+     *
+     * <p>
+     * The results of a simulation are identical to those of {@link #Sequential},
+     * but the mission model must tolerate its tasks, conditions, and resources being stepped from different threads
+     * at the same time.
+     * </p>
+     */
+    Parallel,
+  }
+
+  private static ExecutorService makeBatchExecutor() {
+    return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), $ -> {
+      final var t = new Thread($);
+      // These threads only ever run engine jobs, which are always joined before `performJobs` returns.
+      t.setDaemon(true);
+      return t;
+    });
+  }
 
-  private static ExecutorService getLoomOrFallback() {
-    // Try to use Loom's lightweight virtual threads, if possible. Otherwise, just use a thread pool.
-    // This approach is inspired by that of Javalin 5.
-    // https://github.com/javalin/javalin/blob/97e9e23ebe8f57aa353bc7a45feb560ad61e50a0/javalin/src/main/java/io/javalin/util/ConcurrencyUtil.kt#L48-L51
+  private void executeTask(final Runnable task) {
+    this.threadsInUse.incrementAndGet();
     try {
-      // Use reflection to avoid needing `--enable-preview` at compile-time.
-      // If the runtime JVM is run with `--enable-preview`, this should succeed.
-      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
-    } catch (final ReflectiveOperationException ex) {
-      return Executors.newCachedThreadPool($ -> {
-        final var t = new Thread($);
-        // TODO: Make threads non-daemons.
-        //  We're marking these as daemons right now solely to ensure that the JVM shuts down cleanly in lieu of
-        //  proper model lifecycle management.
-        //  In fact, daemon threads can mask bad memory leaks: a hanging thread is almost indistinguishable
-        //  from a dead thread.
-        t.setDaemon(true);
-        return t;
+      this.taskThreads.execute(() -> {
+        try {
+          task.run();
+        } finally {
+          this.threadsInUse.decrementAndGet();
+        }
       });
+    } catch (final RuntimeException ex) {
+      this.threadsInUse.decrementAndGet();
+      throw ex;
     }
   }
 
+  private TaskId generateTaskId() {
+    return new TaskId(this.nextTaskId++);
+  }
+
+  private ConditionId generateConditionId() {
+    return new ConditionId(this.nextConditionId++);
+  }
+
+  private void beginHistory(final TaskId task, final TaskFactory<?> factory) {
+    this.taskHistories.ifPresent($ -> $.put(task.id(), new TaskHistory(factory)));
+  }
+
   /** Schedule a new task to be performed at the given time. */
   public <Return> TaskId scheduleTask(final Duration startTime, final TaskFactory<Return> state) {
     if (startTime.isNegative()) throw new IllegalArgumentException("Cannot schedule a task before the start time of the simulation");
 
-    final var task = TaskId.generate();
-    this.tasks.put(task, new ExecutionState.InProgress<>(startTime, state.create(this.executor)));
+    final var task = this.generateTaskId();
+    this.tasks.put(task.id(), new ExecutionState.InProgress<>(startTime, state.create(this.executor)));
+    this.beginHistory(task, state);
     this.scheduledJobs.schedule(JobId.forTask(task), SubInstant.Tasks.at(startTime));
     return task;
   }
 
+  /**
+   * Withdraw a task which was scheduled by {@link #scheduleTask}, but which has not yet started.
+   *
+   * <p> The caller is responsible for ensuring that the task has not yet been stepped. </p>
+   */
+  public void unscheduleTask(final TaskId task) {
+    if (!(this.tasks.get(task.id()) instanceof ExecutionState.InProgress<?> state)) {
+      throw new IllegalArgumentException("Task %s is not awaiting its start".formatted(task));
+    }
+
+    this.scheduledJobs.unschedule(JobId.forTask(task));
+    this.tasks.remove(task.id());
+    this.taskHistories.ifPresent($ -> $.remove(task.id()));
+    state.state().release();
+  }
+
   /** Register a resource whose profile should be accumulated over time. */
   public <Dynamics>
   void trackResource(final String name, final Resource<Dynamics> resource, final Duration nextQueryTime) {
@@ -118,6 +245,21 @@ public final class SimulationEngine implements AutoCloseable {
 
   /** Schedules any conditions or resources dependent on the given topic to be re-checked at the given time. */
   public void invalidateTopic(final Topic<?> topic, final Duration invalidationTime) {
+    this.invalidateTopic(topic, invalidationTime, this.batchTurn.get());
+  }
+
+  private void invalidateTopic(final Topic<?> topic, final Duration invalidationTime, final BatchTurn turn) {
+    if (turn != null && !turn.isTaken()) {
+      turn.deferInvalidation(topic, invalidationTime);
+      return;
+    }
+
+    synchronized (this.lock) {
+      this.invalidateTopicHelper(topic, invalidationTime);
+    }
+  }
+
+  private void invalidateTopicHelper(final Topic<?> topic, final Duration invalidationTime) {
     final var resources = this.waitingResources.invalidateTopic(topic);
     for (final var resource : resources) {
       this.scheduledJobs.schedule(JobId.forResource(resource), SubInstant.Resources.at(invalidationTime));
@@ -144,7 +286,7 @@ public final class SimulationEngine implements AutoCloseable {
       if (!(job instanceof JobId.SignalJobId j)) continue;
       if (!(j.id() instanceof SignalId.ConditionSignalId s)) continue;
 
-      this.conditions.remove(s.id());
+      this.conditions.remove(s.id().id());
       this.waitingConditions.unsubscribeQuery(s.id());
     }
 
@@ -158,16 +300,136 @@ public final class SimulationEngine implements AutoCloseable {
       final Duration currentTime,
       final Duration maximumTime
   ) {
+    if (this.batchExecutor.isPresent() && jobs.size() > 1) {
+      return this.performJobsInParallel(this.batchExecutor.get(), jobs, context, currentTime, maximumTime);
+    }
+
+    var tip = EventGraph.<Event>empty();
+    for (final var job : jobs) {
+      tip = EventGraph.concurrently(tip, this.performJobFrame(job, context, currentTime, maximumTime));
+    }
+
+    return tip;
+  }
+
+  // Each job in a batch only updates the engine state belonging to the tasks, conditions, and resources it steps,
+  //   with one exception: a task awaiting its children checks whether they have terminated,
+  //   and a child may terminate (and signal its parent) in another job of the same batch.
+  //   Jobs which may take part in such an exchange are performed on the calling thread in the order given,
+  //   exactly as the sequential engine would; all others are handed off to the batch executor.
+  //   The resulting event graphs are then combined in the order given, so the timeline is identical either way.
+  //
+  // Jobs also change shared engine state: they number new tasks and conditions, and schedule and subscribe jobs.
+  //   The order of these changes decides the numbering, and the order in which later batches are performed,
+  //   so each job waits for its turn (see `awaitTurn`) before making any of them,
+  //   and its turn comes only once every job before it in the batch has finished.
+  //   Each job's model code runs in parallel up to its first such change, which is usually the end of its first step.
+  private EventGraph<Event> performJobsInParallel(
+      final ExecutorService executor,
+      final Collection<JobId> jobs$,
+      final LiveCells context,
+      final Duration currentTime,
+      final Duration maximumTime
+  ) {
+    final var jobs = List.copyOf(jobs$);
+
+    final var isIndependent = new boolean[jobs.size()];
+    synchronized (this.lock) {
+      for (var i = 0; i < jobs.size(); i += 1) isIndependent[i] = this.isIndependent(jobs.get(i));
+    }
+
+    final var turns = new BatchTurns(jobs.size());
+
+    final var pending = new ArrayList<Future<EventGraph<Event>>>(jobs.size());
+    for (var i = 0; i < jobs.size(); i += 1) {
+      final var job = jobs.get(i);
+      final var turn = new BatchTurn(turns, i);
+      pending.add((isIndependent[i])
+          ? executor.submit(() -> this.performJobFrameInTurn(turn, job, context, currentTime, maximumTime))
+          : null);
+    }
+
+    final var frames = new ArrayList<EventGraph<Event>>(jobs.size());
+    for (var i = 0; i < jobs.size(); i += 1) {
+      final var turn = new BatchTurn(turns, i);
+      frames.add((isIndependent[i]) ? null : this.performJobFrameInTurn(turn, jobs.get(i), context, currentTime, maximumTime));
+    }
+
     var tip = EventGraph.<Event>empty();
-    for (final var job$ : jobs) {
-      tip = EventGraph.concurrently(tip, TaskFrame.run(job$, context, (job, frame) -> {
-        this.performJob(job, frame, currentTime, maximumTime);
-      }));
+    for (var i = 0; i < jobs.size(); i += 1) {
+      final var frame = (isIndependent[i]) ? await(pending.get(i)) : frames.get(i);
+      tip = EventGraph.concurrently(tip, frame);
     }
 
     return tip;
   }
 
+  // A job is independent if nothing it does can be observed by another job in the same batch.
+  //   Signals may resume tasks awaiting their children, and such tasks may observe (or cause)
+  //   the termination of tasks stepped by other jobs, so only those two kinds of job are excluded.
+  private boolean isIndependent(final JobId job) {
+    if (job instanceof JobId.SignalJobId) return false;
+    if (job instanceof JobId.TaskJobId j) return (this.tasks.get(j.id().id()) instanceof ExecutionState.InProgress<?>);
+    return true;
+  }
+
+  private static <T> T await(final Future<T> future) {
+    try {
+      return future.get();
+    } catch (final ExecutionException ex) {
+      final var cause = ex.getCause();
+      if (cause instanceof RuntimeException e) throw e;
+      if (cause instanceof Error e) throw e;
+      throw new RuntimeException(cause);
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(ex);
+    }
+  }
+
+  private EventGraph<Event> performJobFrameInTurn(
+      final BatchTurn turn,
+      final JobId job,
+      final LiveCells context,
+      final Duration currentTime,
+      final Duration maximumTime
+  ) {
+    this.batchTurn.set(turn);
+    try {
+      final var frame = this.performJobFrame(job, context, currentTime, maximumTime);
+      this.awaitTurn();
+      return frame;
+    } finally {
+      this.batchTurn.remove();
+      turn.finish();
+    }
+  }
+
+  // Wait until every job before the current one in its batch has finished, if the current job belongs to a batch
+  //   performed in parallel, and then apply any topic invalidations the current job deferred until its turn.
+  private void awaitTurn() {
+    this.awaitTurn(this.batchTurn.get());
+  }
+
+  // Modeled tasks may run on threads of their own, so they identify their job's turn explicitly.
+  private void awaitTurn(final BatchTurn turn) {
+    if (turn == null || turn.isTaken()) return;
+
+    turn.take();
+    synchronized (this.lock) {
+      turn.forEachDeferredInvalidation(this::invalidateTopicHelper);
+    }
+  }
+
+  private EventGraph<Event> performJobFrame(
+      final JobId job,
+      final LiveCells context,
+      final Duration currentTime,
+      final Duration maximumTime
+  ) {
+    return TaskFrame.run(job, context, ($, frame) -> this.performJob($, frame, currentTime, maximumTime));
+  }
+
   /** Performs a single job. */
   public void performJob(
       final JobId job,
@@ -192,7 +454,10 @@ public final class SimulationEngine implements AutoCloseable {
   public void stepTask(final TaskId task, final TaskFrame<JobId> frame, final Duration currentTime) {
     // The handler for each individual task stage is responsible
     //   for putting an updated lifecycle back into the task set.
-    var lifecycle = this.tasks.remove(task);
+    final ExecutionState<?> lifecycle;
+    synchronized (this.lock) {
+      lifecycle = this.tasks.remove(task.id());
+    }
 
     stepTaskHelper(task, frame, currentTime, lifecycle);
   }
@@ -221,39 +486,64 @@ public final class SimulationEngine implements AutoCloseable {
       final TaskFrame<JobId> frame,
       final Duration currentTime
   ) {
+    final TaskHistory history;
+    synchronized (this.lock) {
+      history = this.taskHistories.map($ -> $.get(task.id())).orElse(null);
+    }
+
     // Step the modeling state forward.
-    final var scheduler = new EngineScheduler(currentTime, task, frame);
+    final var scheduler = new EngineScheduler(currentTime, task, frame, history);
+    final var stepStart = System.nanoTime();
     final var status = progress.state().step(scheduler);
+    final var stepNanos = System.nanoTime() - stepStart;
+    this.recordCellReads(scheduler.cache);
 
     // TODO: Report which topics this activity wrote to at this point in time. This is useful insight for any user.
     // TODO: Report which cells this activity read from at this point in time. This is useful insight for any user.
 
     // Based on the task's return status, update its execution state and schedule its resumption.
+    this.awaitTurn();
+    synchronized (this.lock) {
+      this.taskStepMetrics.merge(task.id(), TaskStepMetrics.EMPTY.plus(stepNanos), TaskStepMetrics::plus);
+      if (history != null) history.steps += 1;
+      this.resumeEffectModel(task, progress, status, frame, currentTime);
+    }
+  }
+
+  private <Return> void resumeEffectModel(
+      final TaskId task,
+      final ExecutionState.InProgress<Return> progress,
+      final TaskStatus<Return> status,
+      final TaskFrame<JobId> frame,
+      final Duration currentTime
+  ) {
     if (status instanceof TaskStatus.Completed<Return>) {
-      final var children = new LinkedList<>(this.taskChildren.getOrDefault(task, Collections.emptySet()));
+      final var children = new LinkedList<>(this.taskChildren.getOrDefault(task.id(), Collections.emptySet()));
 
-      this.tasks.put(task, progress.completedAt(currentTime, children));
+      this.tasks.put(task.id(), progress.completedAt(currentTime, children));
+      this.taskHistories.ifPresent($ -> $.remove(task.id()));
       this.scheduledJobs.schedule(JobId.forTask(task), SubInstant.Tasks.at(currentTime));
     } else if (status instanceof TaskStatus.Delayed<Return> s) {
       if (s.delay().isNegative()) throw new IllegalArgumentException("Cannot schedule a task in the past");
 
-      this.tasks.put(task, progress.continueWith(s.continuation()));
+      this.tasks.put(task.id(), progress.continueWith(s.continuation()));
       this.scheduledJobs.schedule(JobId.forTask(task), SubInstant.Tasks.at(currentTime.plus(s.delay())));
     } else if (status instanceof TaskStatus.CallingTask<Return> s) {
-      final var target = TaskId.generate();
-      SimulationEngine.this.tasks.put(target, new ExecutionState.InProgress<>(currentTime, s.child().create(this.executor)));
-      SimulationEngine.this.taskParent.put(target, task);
-      SimulationEngine.this.taskChildren.computeIfAbsent(task, $ -> new HashSet<>()).add(target);
+      final var target = this.generateTaskId();
+      this.tasks.put(target.id(), new ExecutionState.InProgress<>(currentTime, s.child().create(this.executor)));
+      this.beginHistory(target, s.child());
+      this.taskParent.put(target.id(), task);
+      this.taskChildren.computeIfAbsent(task.id(), $ -> new HashSet<>()).add(target);
       frame.signal(JobId.forTask(target));
 
-      this.tasks.put(task, progress.continueWith(s.continuation()));
+      this.tasks.put(task.id(), progress.continueWith(s.continuation()));
       this.waitingTasks.subscribeQuery(task, Set.of(SignalId.forTask(target)));
     } else if (status instanceof TaskStatus.AwaitingCondition<Return> s) {
-      final var condition = ConditionId.generate();
-      this.conditions.put(condition, s.condition());
+      final var condition = this.generateConditionId();
+      this.conditions.put(condition.id(), s.condition());
       this.scheduledJobs.schedule(JobId.forCondition(condition), SubInstant.Conditions.at(currentTime));
 
-      this.tasks.put(task, progress.continueWith(s.continuation()));
+      this.tasks.put(task.id(), progress.continueWith(s.continuation()));
       this.waitingTasks.subscribeQuery(task, Set.of(SignalId.forCondition(condition)));
     } else {
       throw new IllegalArgumentException("Unknown subclass of %s: %s".formatted(TaskStatus.class, status));
@@ -266,19 +556,31 @@ public final class SimulationEngine implements AutoCloseable {
       final ExecutionState.AwaitingChildren<Return> awaiting,
       final TaskFrame<JobId> frame,
       final Duration currentTime
+  ) {
+    this.awaitTurn();
+    synchronized (this.lock) {
+      this.stepWaitingTaskHelper(task, awaiting, frame, currentTime);
+    }
+  }
+
+  private <Return> void stepWaitingTaskHelper(
+      final TaskId task,
+      final ExecutionState.AwaitingChildren<Return> awaiting,
+      final TaskFrame<JobId> frame,
+      final Duration currentTime
   ) {
     // TERMINATION: We break when there are no remaining children,
     //   and we always remove one if we don't break for other reasons.
     while (true) {
       if (awaiting.remainingChildren().isEmpty()) {
-        this.tasks.put(task, awaiting.joinedAt(currentTime));
+        this.tasks.put(task.id(), awaiting.joinedAt(currentTime));
         frame.signal(JobId.forSignal(SignalId.forTask(task)));
         break;
       }
 
       final var nextChild = awaiting.remainingChildren().getFirst();
-      if (!(this.tasks.get(nextChild) instanceof ExecutionState.Terminated<?>)) {
-        this.tasks.put(task, awaiting);
+      if (!(this.tasks.get(nextChild.id()) instanceof ExecutionState.Terminated<?>)) {
+        this.tasks.put(task.id(), awaiting);
         this.waitingTasks.subscribeQuery(task, Set.of(SignalId.forTask(nextChild)));
         break;
       }
@@ -290,7 +592,12 @@ public final class SimulationEngine implements AutoCloseable {
 
   /** Cause any tasks waiting on the given signal to be resumed concurrently with other jobs in the current frame. */
   public void stepSignalledTasks(final SignalId signal, final TaskFrame<JobId> frame) {
-    final var tasks = this.waitingTasks.invalidateTopic(signal);
+    final Set<TaskId> tasks;
+    this.awaitTurn();
+    synchronized (this.lock) {
+      tasks = this.waitingTasks.invalidateTopic(signal);
+    }
+
     for (final var task : tasks) frame.signal(JobId.forTask(task));
   }
 
@@ -301,12 +608,30 @@ public final class SimulationEngine implements AutoCloseable {
       final Duration currentTime,
       final Duration horizonTime
   ) {
+    final Condition predicate;
+    synchronized (this.lock) {
+      predicate = this.conditions.get(condition.id());
+    }
+
     final var querier = new EngineQuerier(frame);
-    final var prediction = this.conditions
-        .get(condition)
+    final var prediction = predicate
         .nextSatisfied(querier, horizonTime.minus(currentTime))
         .map(currentTime::plus);
+    this.recordCellReads(querier.cache);
 
+    this.awaitTurn();
+    synchronized (this.lock) {
+      this.rescheduleCondition(condition, querier, prediction, currentTime, horizonTime);
+    }
+  }
+
+  private void rescheduleCondition(
+      final ConditionId condition,
+      final EngineQuerier querier,
+      final Optional<Duration> prediction,
+      final Duration currentTime,
+      final Duration horizonTime
+  ) {
     this.waitingConditions.subscribeQuery(condition, querier.referencedTopics);
 
     final var expiry = querier.expiry.map(currentTime::plus);
@@ -325,14 +650,63 @@ public final class SimulationEngine implements AutoCloseable {
       final TaskFrame<JobId> frame,
       final Duration currentTime
   ) {
+    final ProfilingState<?> state;
+    synchronized (this.lock) {
+      state = this.resources.get(resource);
+    }
+
     final var querier = new EngineQuerier(frame);
-    this.resources.get(resource).append(currentTime, querier);
+    final var appended = state.append(currentTime, querier);
+    this.recordCellReads(querier.cache);
+
+    this.awaitTurn();
+    synchronized (this.lock) {
+      if (appended) this.unreportedSegments += 1;
+      else this.coalescedSegments += 1;
+      this.waitingResources.subscribeQuery(resource, querier.referencedTopics);
+
+      final var expiry = querier.expiry.map(currentTime::plus);
+      if (expiry.isPresent()) {
+        this.scheduledJobs.schedule(JobId.forResource(resource), SubInstant.Resources.at(expiry.get()));
+      }
+    }
+  }
 
-    this.waitingResources.subscribeQuery(resource, querier.referencedTopics);
+  private void recordCellReads(final CellStateCache cache) {
+    this.cellCacheHits.add(cache.hits());
+    this.cellCacheMisses.add(cache.misses());
+  }
 
-    final var expiry = querier.expiry.map(currentTime::plus);
-    if (expiry.isPresent()) {
-      this.scheduledJobs.schedule(JobId.forResource(resource), SubInstant.Resources.at(expiry.get()));
+  /** Report how often modeled tasks, conditions, and resources re-read a cell within a single step. */
+  public CellCacheStatistics cellCacheStatistics() {
+    return new CellCacheStatistics(this.cellCacheHits.sum(), this.cellCacheMisses.sum());
+  }
+
+  /** Report wall-clock timings for the steps a modeled task has taken so far, or none if it has yet to step. */
+  public Optional<TaskStepMetrics> taskStepMetrics(final TaskId task) {
+    synchronized (this.lock) {
+      return Optional.ofNullable(this.taskStepMetrics.get(task.id()));
+    }
+  }
+
+  /** Report wall-clock timings for the steps all modeled tasks have taken so far, taken together. */
+  public TaskStepMetrics taskStepMetrics() {
+    synchronized (this.lock) {
+      var total = TaskStepMetrics.EMPTY;
+      for (final var metrics : this.taskStepMetrics.values()) total = total.plus(metrics);
+      return total;
+    }
+  }
+
+  /** Report how many threads modeled tasks are holding on to, e.g. while suspended between steps. */
+  public int threadsInUse() {
+    return this.threadsInUse.get();
+  }
+
+  /** Report how many resource samples were folded into the preceding profile segment because nothing had changed. */
+  public long coalescedProfileSegments() {
+    synchronized (this.lock) {
+      return this.coalescedSegments;
     }
   }
 
@@ -345,25 +719,140 @@ public final class SimulationEngine implements AutoCloseable {
       }
     }
 
-    this.executor.shutdownNow();
+    // Threads from the shared pool are returned to it once their tasks have been released.
+    this.virtualThreads.ifPresent(ExecutorService::shutdownNow);
+    this.batchExecutor.ifPresent(ExecutorService::shutdownNow);
+  }
+
+  /**
+   * Duplicate this engine, so that the copy can go on simulating independently of this one.
+   *
+   * <p>
+   * A task in progress can't be copied as it stands: a threaded task keeps its progress on the stack of its thread.
+   * Instead, the copy creates each one afresh from the factory it was created from, and steps it as many times as
+   * it has been stepped here, answering every read with the state the task read the first time. Whatever the task
+   * emits or spawns along the way is dropped, since its events are already on the timeline, and its children are
+   * copied in their own right. Catching up costs only the tasks' own work; no cell or resource is stepped again.
+   * </p>
+   *
+   * <p>
+   * This relies on every task created by a factory behaving the same given the same reads,
+   * as {@link TaskFactory} requires. A task that reads differently when stepped again causes an
+   * {@link IllegalStateException}.
+   * </p>
+   *
+   * <p>
+   * This engine must have been created duplicable, and must not be performing jobs. The copy is duplicable too,
+   * and has the same batch mode. The timeline and cells, and any results stream, must be copied alongside it
+   * (see {@link TemporalEventSource#duplicate} and {@link ResultsStream#duplicate}).
+   * </p>
+   */
+  public SimulationEngine duplicate() {
+    final var histories = this.taskHistories.orElseThrow(() -> new IllegalStateException(
+        "This engine was not created duplicable, so it does not know how to recreate its tasks"));
+
+    final var copy = new SimulationEngine(this.batchMode, true);
+    try {
+      synchronized (this.lock) {
+        copy.scheduledJobs.scheduleAll(this.scheduledJobs);
+        copy.waitingTasks.subscribeAll(this.waitingTasks);
+        copy.waitingConditions.subscribeAll(this.waitingConditions);
+        copy.waitingResources.subscribeAll(this.waitingResources);
+
+        for (final var entry : this.tasks.long2ObjectEntrySet()) {
+          copy.tasks.put(entry.getLongKey(), copy.duplicateState(entry.getLongKey(), entry.getValue(), histories));
+        }
+
+        copy.conditions.putAll(this.conditions);
+        this.resources.forEach((id, state) -> copy.resources.put(id, state.duplicate()));
+        copy.taskParent.putAll(this.taskParent);
+        for (final var entry : this.taskChildren.long2ObjectEntrySet()) {
+          copy.taskChildren.put(entry.getLongKey(), new HashSet<>(entry.getValue()));
+        }
+
+        copy.nextTaskId = this.nextTaskId;
+        copy.nextConditionId = this.nextConditionId;
+        copy.unreportedSegments = this.unreportedSegments;
+        copy.coalescedSegments = this.coalescedSegments;
+        copy.cellCacheHits.add(this.cellCacheHits.sum());
+        copy.cellCacheMisses.add(this.cellCacheMisses.sum());
+        copy.taskStepMetrics.putAll(this.taskStepMetrics);
+      }
+    } catch (final RuntimeException ex) {
+      copy.close();
+      throw ex;
+    }
+
+    return copy;
+  }
+
+  // Called on the copy, to recreate the execution state of a task of the engine being duplicated.
+  private <Return> ExecutionState<Return> duplicateState(
+      final long task,
+      final ExecutionState<Return> state,
+      final Long2ObjectOpenHashMap<TaskHistory> histories
+  ) {
+    if (state instanceof ExecutionState.InProgress<Return> e) {
+      final var history = histories.get(task).duplicate();
+      this.taskHistories.orElseThrow().put(task, history);
+
+      // SAFETY: A task in progress was created by the factory recorded in its history, which shares its return type.
+      @SuppressWarnings("unchecked")
+      final var factory = (TaskFactory<Return>) history.factory;
+      return e.continueWith(replay(factory, history, this.executor));
+    } else if (state instanceof ExecutionState.AwaitingChildren<Return> e) {
+      return new ExecutionState.AwaitingChildren<>(e.startOffset(), e.endOffset(), new LinkedList<>(e.remainingChildren()));
+    } else if (state instanceof ExecutionState.Terminated<Return> e) {
+      return e;
+    } else {
+      throw new IllegalArgumentException("Unexpected subtype of %s: %s".formatted(ExecutionState.class, state.getClass()));
+    }
+  }
+
+  private static <Return> Task<Return> replay(
+      final TaskFactory<Return> factory,
+      final TaskHistory history,
+      final Executor executor
+  ) {
+    final var scheduler = new ReplayingScheduler(history.reads);
+
+    var task = factory.create(executor);
+    for (var i = 0; i < history.steps; i += 1) {
+      final var status = task.step(scheduler);
+
+      if (status instanceof TaskStatus.Delayed<Return> s) {
+        task = s.continuation();
+      } else if (status instanceof TaskStatus.CallingTask<Return> s) {
+        task = s.continuation();
+      } else if (status instanceof TaskStatus.AwaitingCondition<Return> s) {
+        task = s.continuation();
+      } else {
+        throw new IllegalStateException(
+            "A task completed on step %d, though it originally took %d steps without completing, so it can't be duplicated"
+                .formatted(i + 1, history.steps));
+      }
+    }
+
+    scheduler.finish();
+    return task;
   }
 
   /** Determine if a given task has fully completed. */
   public boolean isTaskComplete(final TaskId task) {
-    return (this.tasks.get(task) instanceof ExecutionState.Terminated);
+    return (this.tasks.get(task.id()) instanceof ExecutionState.Terminated);
   }
 
   private record TaskInfo(
-      Map<String, ActivityDirectiveId> taskToPlannedDirective,
-      Map<String, SerializedActivity> input,
-      Map<String, SerializedValue> output
+      Map<TaskId, ActivityDirectiveId> taskToPlannedDirective,
+      Map<TaskId, SerializedActivity> input,
+      Map<TaskId, SerializedValue> output
   ) {
     public TaskInfo() {
       this(new HashMap<>(), new HashMap<>(), new HashMap<>());
     }
 
     public boolean isActivity(final TaskId id) {
-      return this.input.containsKey(id.id());
+      return this.input.containsKey(id);
     }
 
     public record Trait(Iterable<SerializableTopic<?>> topics, Topic<ActivityDirectiveId> activityTopic) implements EffectTrait<Consumer<TaskInfo>> {
@@ -387,7 +876,7 @@ public final class SimulationEngine implements AutoCloseable {
         return taskInfo -> {
           // Identify activities.
           ev.extract(this.activityTopic)
-            .ifPresent(directiveId -> taskInfo.taskToPlannedDirective.put(ev.provenance().id(), directiveId));
+            .ifPresent(directiveId -> taskInfo.taskToPlannedDirective.put(ev.provenance(), directiveId));
 
           for (final var topic : this.topics) {
             // Identify activity inputs.
@@ -407,7 +896,7 @@ public final class SimulationEngine implements AutoCloseable {
           final var activityType = topic.name().substring("ActivityType.Input.".length());
 
           taskInfo.input.put(
-              ev.provenance().id(),
+              ev.provenance(),
               new SerializedActivity(activityType, topic.outputType().serialize(input).asMap().orElseThrow()));
         });
       }
@@ -418,7 +907,7 @@ public final class SimulationEngine implements AutoCloseable {
 
         ev.extract(topic.topic()).ifPresent(output -> {
           taskInfo.output.put(
-              ev.provenance().id(),
+              ev.provenance(),
               topic.outputType().serialize(output));
         });
       }
@@ -440,107 +929,301 @@ public final class SimulationEngine implements AutoCloseable {
       final TemporalEventSource timeline,
       final Iterable<SerializableTopic<?>> serializableTopics
   ) {
-    // Collect per-task information from the event graph.
-    final var taskInfo = new TaskInfo();
+    final var sink = new InMemorySimulationResultsSink();
+    final var stream = engine.streamResults(activityTopic, serializableTopics, sink);
+
+    var time = Duration.ZERO;
+    for (final var point : timeline.points()) {
+      if (point instanceof TemporalEventSource.TimePoint.Delta delta) {
+        time = time.plus(delta.delta());
+      } else if (point instanceof TemporalEventSource.TimePoint.Commit commit) {
+        stream.commit(time, commit.events());
+      }
+    }
+
+    stream.finish(startTime, elapsedTime);
+    return sink.results();
+  }
+
+  /**
+   * Begin streaming the results of this simulation to a sink.
+   *
+   * <p>
+   * Every commit added to the simulation timeline must also be given to the returned stream,
+   * so that it can report events and identify activities as they occur.
+   * </p>
+   */
+  public ResultsStream streamResults(
+      final Topic<ActivityDirectiveId> activityTopic,
+      final Iterable<SerializableTopic<?>> serializableTopics,
+      final SimulationResultsSink sink
+  ) {
+    return new ResultsStream(activityTopic, serializableTopics, sink);
+  }
+
+  /** An incremental alternative to {@link #computeResults}, which hands results to a sink as they become known. */
+  public final class ResultsStream {
+    /** The number of unreported profile segments to accumulate before reporting them to the sink. */
+    private static final int PROFILE_FLUSH_THRESHOLD = 1 << 14;
+
+    private final SimulationResultsSink sink;
+
+    private final Map<SerializableTopic<?>, Integer> serializableTopicToId = new HashMap<>();
+    /** The serializable topics carrying each simulation topic, so that events needn't be offered to every one. */
+    private final Map<Topic<?>, List<SerializableTopic<?>>> serializableTopicsByTopic = new HashMap<>();
+    private final TaskInfo taskInfo = new TaskInfo();
+    private final TaskInfo.Trait trait;
+    /** The finished activities last reported by {@link #reportSoFar}, by task, so that they needn't be rebuilt. */
+    private final Map<TaskId, SimulatedActivity> finishedActivities = new HashMap<>();
+    private Instant finishedActivitiesStartTime = null;
+
+    private ResultsStream(
+        final Topic<ActivityDirectiveId> activityTopic,
+        final Iterable<SerializableTopic<?>> serializableTopics,
+        final SimulationResultsSink sink
+    ) {
+      this.sink = sink;
+      this.trait = new TaskInfo.Trait(serializableTopics, activityTopic);
+
+      final List<Triple<Integer, String, ValueSchema>> topics = new ArrayList<>();
+      for (final var serializableTopic : serializableTopics) {
+        this.serializableTopicToId.put(serializableTopic, topics.size());
+        this.serializableTopicsByTopic
+            .computeIfAbsent(serializableTopic.topic(), $ -> new ArrayList<>())
+            .add(serializableTopic);
+        topics.add(Triple.of(topics.size(), serializableTopic.name(), serializableTopic.outputType().getSchema()));
+      }
 
-    for (final var point : timeline) {
-      if (!(point instanceof TemporalEventSource.TimePoint.Commit p)) continue;
+      this.sink.topics(topics);
+    }
+
+    private ResultsStream(final ResultsStream other, final SimulationResultsSink sink) {
+      this.sink = sink;
+      this.trait = other.trait;
+      // These are never changed once built, so they can be shared.
+      this.serializableTopicToId.putAll(other.serializableTopicToId);
+      this.serializableTopicsByTopic.putAll(other.serializableTopicsByTopic);
+
+      this.taskInfo.taskToPlannedDirective.putAll(other.taskInfo.taskToPlannedDirective);
+      this.taskInfo.input.putAll(other.taskInfo.input);
+      this.taskInfo.output.putAll(other.taskInfo.output);
+      this.finishedActivities.putAll(other.finishedActivities);
+      this.finishedActivitiesStartTime = other.finishedActivitiesStartTime;
+    }
+
+    /**
+     * Copy this stream for a duplicate of its engine, to go on streaming results to the given sink.
+     *
+     * <p>
+     * The sink must already hold everything this stream has reported to its own sink,
+     * e.g. by being a {@linkplain InMemorySimulationResultsSink#duplicate duplicate} of it.
+     * </p>
+     *
+     * @see SimulationEngine#duplicate
+     */
+    public ResultsStream duplicate(final SimulationEngine engine, final SimulationResultsSink sink) {
+      return engine.new ResultsStream(this, sink);
+    }
+
+    /** Report the events committed by a batch of jobs at the given time. */
+    public void commit(final Duration time, final FlatEventGraph commit) {
+      // Collect per-task information from the event graph.
+      commit.evaluate(this.trait, this.trait::atom).accept(this.taskInfo);
+
+      final var serializedEventGraph = commit.evaluate(
+          new EventGraph.IdentityTrait<>(),
+          event -> {
+            EventGraph<Pair<Integer, SerializedValue>> output = EventGraph.empty();
+            for (final var serializableTopic : this.serializableTopicsByTopic.getOrDefault(event.topic(), List.of())) {
+              Optional<SerializedValue> serializedEvent = trySerializeEvent(event, serializableTopic);
+              if (serializedEvent.isPresent()) {
+                output = EventGraph.concurrently(output, EventGraph.atom(Pair.of(this.serializableTopicToId.get(serializableTopic), serializedEvent.get())));
+              }
+            }
+            return output;
+          });
 
-      final var trait = new TaskInfo.Trait(serializableTopics, activityTopic);
-      p.events().evaluate(trait, trait::atom).accept(taskInfo);
+      if (!(serializedEventGraph instanceof EventGraph.Empty)) {
+        this.sink.events(time, serializedEventGraph);
+      }
     }
 
-    // Extract profiles for every resource.
-    final var realProfiles = new HashMap<String, Pair<ValueSchema, List<ProfileSegment<RealDynamics>>>>();
-    final var discreteProfiles = new HashMap<String, Pair<ValueSchema, List<ProfileSegment<SerializedValue>>>>();
+    /**
+     * Report any profile segments which can no longer change, if enough of them have accumulated.
+     *
+     * <p> This should only be called between batches of jobs. </p>
+     */
+    public void flushProfiles() {
+      if (SimulationEngine.this.unreportedSegments < PROFILE_FLUSH_THRESHOLD) return;
 
-    for (final var entry : engine.resources.entrySet()) {
-      final var id = entry.getKey();
-      final var state = entry.getValue();
+      reportProfiles(this.sink, Optional.empty());
+    }
 
-      final var name = id.id();
-      final var resource = state.resource();
+    /** Report all remaining results, given that simulation has ended at the given time. */
+    public void finish(final Instant startTime, final Duration elapsedTime) {
+      reportProfiles(this.sink, Optional.of(elapsedTime));
+
+      final var simulatedActivities = new HashMap<SimulatedActivityId, SimulatedActivity>();
+      final var unfinishedActivities = new HashMap<SimulatedActivityId, UnfinishedActivity>();
+      computeActivities(
+          SimulationEngine.this,
+          startTime,
+          this.taskInfo,
+          new HashMap<>(),
+          simulatedActivities,
+          unfinishedActivities);
+
+      this.sink.finish(startTime, elapsedTime, simulatedActivities, unfinishedActivities);
+    }
 
-      switch (resource.getType()) {
-        case "real" -> realProfiles.put(
-            name,
-            Pair.of(
-                resource.getOutputType().getSchema(),
-                serializeProfile(elapsedTime, state, SimulationEngine::extractRealDynamics)));
+    /**
+     * Report the results so far, as though simulation had ended at the given time, without ending this stream.
+     *
+     * <p>
+     * Every profile segment which can no longer change is reported to this stream's sink, whatever the number.
+     * The rest of the results -- the last segment of each profile, and the activities so far -- are reported to
+     * <code>rest</code> instead, which is then finished. Simulation can go on to report more to this stream afterward.
+     * </p>
+     *
+     * @see InMemorySimulationResultsSink#resultsSoFar
+     */
+    public void reportSoFar(final Instant startTime, final Duration elapsedTime, final SimulationResultsSink rest) {
+      reportProfiles(this.sink, Optional.empty());
+      reportProfiles(rest, Optional.of(elapsedTime));
+
+      // A finished activity stays as it is unless it is renumbered, or its parent or children are,
+      //   so keep the one reported before rather than building an equal one.
+      if (!startTime.equals(this.finishedActivitiesStartTime)) this.finishedActivities.clear();
+      this.finishedActivitiesStartTime = startTime;
+
+      final var simulatedActivities = new HashMap<SimulatedActivityId, SimulatedActivity>();
+      final var unfinishedActivities = new HashMap<SimulatedActivityId, UnfinishedActivity>();
+      computeActivities(
+          SimulationEngine.this,
+          startTime,
+          this.taskInfo,
+          this.finishedActivities,
+          simulatedActivities,
+          unfinishedActivities);
+
+      rest.finish(startTime, elapsedTime, simulatedActivities, unfinishedActivities);
+    }
 
-        case "discrete" -> discreteProfiles.put(
-            name,
-            Pair.of(
-                resource.getOutputType().getSchema(),
-                serializeProfile(elapsedTime, state, SimulationEngine::extractDiscreteDynamics)));
+    // Every segment but the last has a known extent, so it can be reported and forgotten.
+    //   The last segment is reported only once the end of the simulation is known.
+    private void reportProfiles(final SimulationResultsSink sink, final Optional<Duration> endTime) {
+      for (final var entry : SimulationEngine.this.resources.entrySet()) {
+        final var name = entry.getKey().id();
+        final var state = entry.getValue();
+        final var resource = state.resource();
+
+        if (state instanceof ProfilingState.Real<?> real) {
+          final var segments = real.profile().segments(endTime);
+          if (endTime.isPresent() || !segments.isEmpty()) {
+            sink.realProfileSegments(name, resource.getOutputType().getSchema(), segments);
+          }
+        } else if (state instanceof ProfilingState.Generic<?> discrete && resource.getType().equals("discrete")) {
+          final var segments = serializeProfile(endTime, discrete, SimulationEngine::extractDiscreteDynamics);
+          if (endTime.isPresent() || !segments.isEmpty()) {
+            sink.discreteProfileSegments(name, resource.getOutputType().getSchema(), segments);
+          }
+        } else {
+          throw new IllegalArgumentException(
+              "Resource `%s` has unknown type `%s`".formatted(name, resource.getType()));
+        }
 
-        default ->
-            throw new IllegalArgumentException(
-                "Resource `%s` has unknown type `%s`".formatted(name, resource.getType()));
+        if (endTime.isEmpty()) entry.setValue(state.retainLastSegment());
       }
+
+      if (endTime.isEmpty()) SimulationEngine.this.unreportedSegments = 0;
     }
+  }
 
+  private static void computeActivities(
+      final SimulationEngine engine,
+      final Instant startTime,
+      final TaskInfo taskInfo,
+      final Map<TaskId, SimulatedActivity> finishedActivities,
+      final Map<SimulatedActivityId, SimulatedActivity> simulatedActivities,
+      final Map<SimulatedActivityId, UnfinishedActivity> unfinishedActivities
+  ) {
+    // Visit tasks in order of their IDs, rather than in whatever order they happen to be stored,
+    //   so that child activities are numbered the same way whenever their tasks are.
+    final var taskIds = engine.tasks.keySet().toLongArray();
+    Arrays.sort(taskIds);
 
     // Give every task corresponding to a child activity an ID that doesn't conflict with any root activity.
-    final var taskToSimulatedActivityId = new HashMap<String, SimulatedActivityId>(taskInfo.taskToPlannedDirective.size());
+    final var taskToSimulatedActivityId = new HashMap<TaskId, SimulatedActivityId>(taskInfo.taskToPlannedDirective.size());
     final var usedSimulatedActivityIds = new HashSet<>();
     for (final var entry : taskInfo.taskToPlannedDirective.entrySet()) {
       taskToSimulatedActivityId.put(entry.getKey(), new SimulatedActivityId(entry.getValue().id()));
       usedSimulatedActivityIds.add(entry.getValue().id());
     }
     long counter = 1L;
-    for (final var task : engine.tasks.keySet()) {
+    for (final var id : taskIds) {
+      final var task = new TaskId(id);
       if (!taskInfo.isActivity(task)) continue;
-      if (taskToSimulatedActivityId.containsKey(task.id())) continue;
+      if (taskToSimulatedActivityId.containsKey(task)) continue;
 
       while (usedSimulatedActivityIds.contains(counter)) counter++;
-      taskToSimulatedActivityId.put(task.id(), new SimulatedActivityId(counter++));
+      taskToSimulatedActivityId.put(task, new SimulatedActivityId(counter++));
     }
 
     // Identify the nearest ancestor *activity* (excluding intermediate anonymous tasks).
     final var activityParents = new HashMap<SimulatedActivityId, SimulatedActivityId>();
-    engine.tasks.forEach((task, state) -> {
-      if (!taskInfo.isActivity(task)) return;
+    for (final var id : taskIds) {
+      final var task = new TaskId(id);
+      if (!taskInfo.isActivity(task)) continue;
 
-      var parent = engine.taskParent.get(task);
+      var parent = engine.taskParent.get(task.id());
       while (parent != null && !taskInfo.isActivity(parent)) {
-        parent = engine.taskParent.get(parent);
+        parent = engine.taskParent.get(parent.id());
       }
 
       if (parent != null) {
-        activityParents.put(taskToSimulatedActivityId.get(task.id()), taskToSimulatedActivityId.get(parent.id()));
+        activityParents.put(taskToSimulatedActivityId.get(task), taskToSimulatedActivityId.get(parent));
       }
-    });
+    }
 
     final var activityChildren = new HashMap<SimulatedActivityId, List<SimulatedActivityId>>();
     activityParents.forEach((task, parent) -> {
       activityChildren.computeIfAbsent(parent, $ -> new LinkedList<>()).add(task);
     });
 
-    final var simulatedActivities = new HashMap<SimulatedActivityId, SimulatedActivity>();
-    final var unfinishedActivities = new HashMap<SimulatedActivityId, UnfinishedActivity>();
-    engine.tasks.forEach((task, state) -> {
-      if (!taskInfo.isActivity(task)) return;
+    for (final var id : taskIds) {
+      final var task = new TaskId(id);
+      final var state = engine.tasks.get(id);
+      if (!taskInfo.isActivity(task)) continue;
 
-      final var activityId = taskToSimulatedActivityId.get(task.id());
-      final var directiveId = taskInfo.taskToPlannedDirective.get(task.id()); // will be null for non-directives
+      final var activityId = taskToSimulatedActivityId.get(task);
+      final var directiveId = taskInfo.taskToPlannedDirective.get(task); // will be null for non-directives
 
       if (state instanceof ExecutionState.Terminated<?> e) {
-        final var inputAttributes = taskInfo.input().get(task.id());
-        final var outputAttributes = taskInfo.output().get(task.id());
+        final var parentId = activityParents.get(activityId);
+        final var childIds = activityChildren.getOrDefault(activityId, Collections.emptyList());
+        final var finished = finishedActivities.get(task);
+        if (finished != null && Objects.equals(finished.parentId(), parentId) && finished.childIds().equals(childIds)) {
+          simulatedActivities.put(activityId, finished);
+          continue;
+        }
 
-        simulatedActivities.put(activityId, new SimulatedActivity(
+        final var inputAttributes = taskInfo.input().get(task);
+        final var outputAttributes = taskInfo.output().get(task);
+
+        final var activity = new SimulatedActivity(
             inputAttributes.getTypeName(),
             inputAttributes.getArguments(),
             startTime.plus(e.startOffset().in(Duration.MICROSECONDS), ChronoUnit.MICROS),
             e.joinOffset().minus(e.startOffset()),
-            activityParents.get(activityId),
-            activityChildren.getOrDefault(activityId, Collections.emptyList()),
+            parentId,
+            childIds,
             (activityParents.containsKey(activityId)) ? Optional.empty() : Optional.of(directiveId),
             outputAttributes
-        ));
+        );
+        simulatedActivities.put(activityId, activity);
+        finishedActivities.put(task, activity);
       } else if (state instanceof ExecutionState.InProgress<?> e){
-        final var inputAttributes = taskInfo.input().get(task.id());
+        final var inputAttributes = taskInfo.input().get(task);
         unfinishedActivities.put(activityId, new UnfinishedActivity(
             inputAttributes.getTypeName(),
             inputAttributes.getArguments(),
@@ -550,7 +1233,7 @@ public final class SimulationEngine implements AutoCloseable {
             (activityParents.containsKey(activityId)) ? Optional.empty() : Optional.of(directiveId)
         ));
       } else if (state instanceof ExecutionState.AwaitingChildren<?> e){
-        final var inputAttributes = taskInfo.input().get(task.id());
+        final var inputAttributes = taskInfo.input().get(task);
         unfinishedActivities.put(activityId, new UnfinishedActivity(
             inputAttributes.getTypeName(),
             inputAttributes.getArguments(),
@@ -562,53 +1245,11 @@ public final class SimulationEngine implements AutoCloseable {
       } else {
         throw new Error("Unexpected subtype of %s: %s".formatted(ExecutionState.class, state.getClass()));
       }
-    });
-
-    final List<Triple<Integer, String, ValueSchema>> topics = new ArrayList<>();
-    final var serializableTopicToId = new HashMap<SerializableTopic<?>, Integer>();
-    for (final var serializableTopic : serializableTopics) {
-      serializableTopicToId.put(serializableTopic, topics.size());
-      topics.add(Triple.of(topics.size(), serializableTopic.name(), serializableTopic.outputType().getSchema()));
     }
-
-    final var serializedTimeline = new TreeMap<Duration, List<EventGraph<Pair<Integer, SerializedValue>>>>();
-    var time = Duration.ZERO;
-    for (var point : timeline.points()) {
-      if (point instanceof TemporalEventSource.TimePoint.Delta delta) {
-        time = time.plus(delta.delta());
-      } else if (point instanceof TemporalEventSource.TimePoint.Commit commit) {
-        final var serializedEventGraph = commit.events().substitute(
-            event -> {
-              EventGraph<Pair<Integer, SerializedValue>> output = EventGraph.empty();
-              for (final var serializableTopic : serializableTopics) {
-                Optional<SerializedValue> serializedEvent = trySerializeEvent(event, serializableTopic);
-                if (serializedEvent.isPresent()) {
-                  output = EventGraph.concurrently(output, EventGraph.atom(Pair.of(serializableTopicToId.get(serializableTopic), serializedEvent.get())));
-                }
-              }
-              return output;
-            }
-        ).evaluate(new EventGraph.IdentityTrait<>(), EventGraph::atom);
-        if (!(serializedEventGraph instanceof EventGraph.Empty)) {
-          serializedTimeline
-              .computeIfAbsent(time, x -> new ArrayList<>())
-              .add(serializedEventGraph);
-        }
-      }
-    }
-
-    return new SimulationResults(realProfiles,
-                                 discreteProfiles,
-                                 simulatedActivities,
-                                 unfinishedActivities,
-                                 startTime,
-                                 elapsedTime,
-                                 topics,
-                                 serializedTimeline);
   }
 
   public Optional<Duration> getTaskDuration(TaskId taskId){
-    final var state = tasks.get(taskId);
+    final var state = tasks.get(taskId.id());
     if (state instanceof ExecutionState.Terminated e) {
       return Optional.of(e.joinOffset().minus(e.startOffset()));
     }
@@ -626,8 +1267,8 @@ public final class SimulationEngine implements AutoCloseable {
 
   private static <Target, Dynamics>
   List<ProfileSegment<Target>> serializeProfile(
-      final Duration elapsedTime,
-      final ProfilingState<Dynamics> state,
+      final Optional<Duration> endTime,
+      final ProfilingState.Generic<Dynamics> state,
       final Translator<Target> translator
   ) {
     final var profile = new ArrayList<ProfileSegment<Target>>(state.profile().segments().size());
@@ -644,23 +1285,16 @@ public final class SimulationEngine implements AutoCloseable {
         segment = nextSegment;
       }
 
-      profile.add(new ProfileSegment<>(
-          elapsedTime.minus(segment.startOffset()),
-          translator.apply(state.resource(), segment.dynamics())));
+      if (endTime.isPresent()) {
+        profile.add(new ProfileSegment<>(
+            endTime.get().minus(segment.startOffset()),
+            translator.apply(state.resource(), segment.dynamics())));
+      }
     }
 
     return profile;
   }
 
-  private static <Dynamics>
-  RealDynamics extractRealDynamics(final Resource<Dynamics> resource, final Dynamics dynamics) {
-    final var serializedSegment = resource.getOutputType().serialize(dynamics).asMap().orElseThrow();
-    final var initial = serializedSegment.get("initial").asReal().orElseThrow();
-    final var rate = serializedSegment.get("rate").asReal().orElseThrow();
-
-    return RealDynamics.linear(initial, rate);
-  }
-
   private static <Dynamics>
   SerializedValue extractDiscreteDynamics(final Resource<Dynamics> resource, final Dynamics dynamics) {
     return resource.getOutputType().serialize(dynamics);
@@ -670,6 +1304,7 @@ public final class SimulationEngine implements AutoCloseable {
   private static final class EngineQuerier implements Querier {
     private final TaskFrame<JobId> frame;
     private final Set<Topic<?>> referencedTopics = new HashSet<>();
+    private final CellStateCache cache = new CellStateCache();
     private Optional<Duration> expiry = Optional.empty();
 
     public EngineQuerier(final TaskFrame<JobId> frame) {
@@ -682,14 +1317,14 @@ public final class SimulationEngine implements AutoCloseable {
       @SuppressWarnings("unchecked")
       final var query = ((EngineCellId<?, State>) token);
 
-      this.expiry = min(this.expiry, this.frame.getExpiry(query.query()));
-      this.referencedTopics.add(query.topic());
-
-      // TODO: Cache the state (until the query returns) to avoid unnecessary copies
-      //  if the same state is requested multiple times in a row.
-      final var state$ = this.frame.getState(query.query());
+      // Nothing is emitted while a query is evaluated, so a state can be reused until the query returns.
+      //   Its expiry and topic only need to be recorded the first time it is read.
+      return this.cache.get(query, $ -> {
+        this.expiry = min(this.expiry, this.frame.getExpiry($));
+        this.referencedTopics.add(query.topic());
 
-      return state$.orElseThrow(IllegalArgumentException::new);
+        return this.frame.getState($).orElseThrow(IllegalArgumentException::new);
+      });
     }
 
     private static Optional<Duration> min(final Optional<Duration> a, final Optional<Duration> b) {
@@ -704,11 +1339,21 @@ public final class SimulationEngine implements AutoCloseable {
     private final Duration currentTime;
     private final TaskId activeTask;
     private final TaskFrame<JobId> frame;
-
-    public EngineScheduler(final Duration currentTime, final TaskId activeTask, final TaskFrame<JobId> frame) {
+    private final CellStateCache cache = new CellStateCache();
+    private final BatchTurn turn = SimulationEngine.this.batchTurn.get();
+    /** The history of the active task, to which its reads are added, if the engine can be duplicated. */
+    private final TaskHistory history;
+
+    public EngineScheduler(
+        final Duration currentTime,
+        final TaskId activeTask,
+        final TaskFrame<JobId> frame,
+        final TaskHistory history
+    ) {
       this.currentTime = Objects.requireNonNull(currentTime);
       this.activeTask = Objects.requireNonNull(activeTask);
       this.frame = Objects.requireNonNull(frame);
+      this.history = history;
     }
 
     @Override
@@ -717,30 +1362,169 @@ public final class SimulationEngine implements AutoCloseable {
       @SuppressWarnings("unchecked")
       final var query = ((EngineCellId<?, State>) token);
 
-      // TODO: Cache the return value (until the next emit or until the task yields) to avoid unnecessary copies
-      //  if the same state is requested multiple times in a row.
-      final var state$ = this.frame.getState(query.query());
-      return state$.orElseThrow(IllegalArgumentException::new);
+      // A scheduler only lives until its task yields, so a cached state need only be dropped when the task emits.
+      final var state = this.cache.get(query, $ -> this.frame.getState($).orElseThrow(IllegalArgumentException::new));
+
+      if (this.history != null) this.history.reads.add(new TaskHistory.Read(token, state));
+      return state;
     }
 
     @Override
     public <EventType> void emit(final EventType event, final Topic<EventType> topic) {
       // Append this event to the timeline.
       this.frame.emit(Event.create(topic, event, this.activeTask));
+      this.cache.invalidate(topic);
 
-      SimulationEngine.this.invalidateTopic(topic, this.currentTime);
+      SimulationEngine.this.invalidateTopic(topic, this.currentTime, this.turn);
     }
 
     @Override
     public void spawn(final TaskFactory<?> state) {
-      final var task = TaskId.generate();
-      SimulationEngine.this.tasks.put(task, new ExecutionState.InProgress<>(this.currentTime, state.create(SimulationEngine.this.executor)));
-      SimulationEngine.this.taskParent.put(task, this.activeTask);
-      SimulationEngine.this.taskChildren.computeIfAbsent(this.activeTask, $ -> new HashSet<>()).add(task);
+      final TaskId task;
+      SimulationEngine.this.awaitTurn(this.turn);
+      synchronized (SimulationEngine.this.lock) {
+        task = SimulationEngine.this.generateTaskId();
+        SimulationEngine.this.tasks.put(task.id(), new ExecutionState.InProgress<>(this.currentTime, state.create(SimulationEngine.this.executor)));
+        SimulationEngine.this.beginHistory(task, state);
+        SimulationEngine.this.taskParent.put(task.id(), this.activeTask);
+        SimulationEngine.this.taskChildren.computeIfAbsent(this.activeTask.id(), $ -> new HashSet<>()).add(task);
+      }
       this.frame.signal(JobId.forTask(task));
     }
   }
 
+  /** How a task in progress was created, and the cell states it has read in the steps it has taken since. */
+  private static final class TaskHistory {
+    private final TaskFactory<?> factory;
+    private final ArrayList<Read> reads;
+    private int steps;
+
+    TaskHistory(final TaskFactory<?> factory) {
+      this(factory, new ArrayList<>(), 0);
+    }
+
+    private TaskHistory(final TaskFactory<?> factory, final ArrayList<Read> reads, final int steps) {
+      this.factory = factory;
+      this.reads = reads;
+      this.steps = steps;
+    }
+
+    TaskHistory duplicate() {
+      return new TaskHistory(this.factory, new ArrayList<>(this.reads), this.steps);
+    }
+
+    // Cell states are never mutated by their readers, so a state can be handed out again as it was read.
+    record Read(CellId<?> cell, Object state) {}
+  }
+
+  /** A handle for stepping a task through its history again, answering its reads as they were answered before. */
+  private static final class ReplayingScheduler implements Scheduler {
+    private final List<TaskHistory.Read> reads;
+    private int next = 0;
+
+    ReplayingScheduler(final List<TaskHistory.Read> reads) {
+      this.reads = reads;
+    }
+
+    @Override
+    public <State> State get(final CellId<State> token) {
+      if (this.next >= this.reads.size() || !this.reads.get(this.next).cell().equals(token)) {
+        throw new IllegalStateException(
+            "A task read a different cell on its read #%d than it did originally, so it can't be duplicated"
+                .formatted(this.next + 1));
+      }
+
+      // SAFETY: The state was read from the same cell, so it is of the same type.
+      @SuppressWarnings("unchecked")
+      final var state = (State) this.reads.get(this.next++).state();
+      return state;
+    }
+
+    @Override
+    public <EventType> void emit(final EventType event, final Topic<EventType> topic) {
+      // The events emitted originally are already on the timeline.
+    }
+
+    @Override
+    public void spawn(final TaskFactory<?> task) {
+      // The tasks spawned originally are already tracked, and are duplicated in their own right.
+    }
+
+    void finish() {
+      if (this.next < this.reads.size()) {
+        throw new IllegalStateException(
+            "A task read %d cells where it originally read %d, so it can't be duplicated"
+                .formatted(this.next, this.reads.size()));
+      }
+    }
+  }
+
+  /** Tracks which of the jobs in a batch performed in parallel have finished, in the order they were given. */
+  private static final class BatchTurns {
+    private final boolean[] finished;
+    /** The number of jobs at the front of the batch which have all finished. */
+    private int finishedPrefix = 0;
+
+    BatchTurns(final int size) {
+      this.finished = new boolean[size];
+    }
+
+    synchronized void awaitPredecessors(final int index) {
+      while (this.finishedPrefix < index) {
+        try {
+          this.wait();
+        } catch (final InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(ex);
+        }
+      }
+    }
+
+    synchronized void finish(final int index) {
+      this.finished[index] = true;
+      while (this.finishedPrefix < this.finished.length && this.finished[this.finishedPrefix]) this.finishedPrefix += 1;
+      this.notifyAll();
+    }
+  }
+
+  /** The place of a single job within a batch performed in parallel. */
+  private static final class BatchTurn {
+    private final BatchTurns turns;
+    private final int index;
+    // A job's turn may be taken by the thread of a modeled task it steps, rather than by the job's own thread.
+    private volatile boolean taken = false;
+
+    /** Topics invalidated by this job before its turn came, in the order they were invalidated. */
+    private final List<Pair<Topic<?>, Duration>> deferredInvalidations = new ArrayList<>();
+
+    BatchTurn(final BatchTurns turns, final int index) {
+      this.turns = turns;
+      this.index = index;
+    }
+
+    boolean isTaken() {
+      return this.taken;
+    }
+
+    void take() {
+      this.turns.awaitPredecessors(this.index);
+      this.taken = true;
+    }
+
+    void finish() {
+      this.turns.finish(this.index);
+    }
+
+    synchronized void deferInvalidation(final Topic<?> topic, final Duration invalidationTime) {
+      this.deferredInvalidations.add(Pair.of(topic, invalidationTime));
+    }
+
+    synchronized void forEachDeferredInvalidation(final BiConsumer<Topic<?>, Duration> action) {
+      for (final var invalidation : this.deferredInvalidations) action.accept(invalidation.getLeft(), invalidation.getRight());
+      this.deferredInvalidations.clear();
+    }
+  }
+
   /** A representation of a job processable by the {@link SimulationEngine}. */
   public sealed interface JobId {
     /** A job to step a task. */
@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * An append-only list comprising a chain of fixed-size slabs.
@@ -24,10 +25,13 @@ public final class SlabList<T> implements Iterable<T> {
   private Slab<T> tail = this.head;
   /*derived*/
   private int size = 0;
+  /*derived*/
+  private T last = null;
 
   public void append(final T element) {
     this.tail.elements().add(element);
     this.size += 1;
+    this.last = element;
 
     if (this.size % SLAB_SIZE == 0) {
       this.tail.next().setValue(new Slab<>());
@@ -39,6 +43,11 @@ public final class SlabList<T> implements Iterable<T> {
     return this.size;
   }
 
+  /** The most recently appended element, if any. */
+  public Optional<T> last() {
+    return Optional.ofNullable(this.last);
+  }
+
   @Override
   public boolean equals(final Object o) {
     if (!(o instanceof SlabList<?> other)) return false;
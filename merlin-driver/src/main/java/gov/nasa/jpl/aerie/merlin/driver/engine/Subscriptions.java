@@ -24,6 +24,11 @@ public final class Subscriptions<TopicRef, QueryRef> {
     }
   }
 
+  /** Subscribe every query in another set of subscriptions, to the same topics as there. */
+  public void subscribeAll(final Subscriptions<TopicRef, QueryRef> other) {
+    other.topicsByQuery.forEach((query, topics) -> this.subscribeQuery(query, new HashSet<>(topics)));
+  }
+
   public void unsubscribeQuery(final QueryRef query) {
     final var topics = this.topicsByQuery.remove(query);
 
@@ -1,10 +1,8 @@
 package gov.nasa.jpl.aerie.merlin.driver.engine;
 
-import java.util.UUID;
-
-/** A typed wrapper for task IDs. */
-public record TaskId(String id) {
-  public static TaskId generate() {
-    return new TaskId(UUID.randomUUID().toString());
-  }
-}
+/**
+ * A typed wrapper for task IDs.
+ *
+ * <p> Task IDs are allocated densely by each {@link SimulationEngine}, and are only meaningful within that engine. </p>
+ */
+public record TaskId(long id) {}
@@ -0,0 +1,44 @@
+package gov.nasa.jpl.aerie.merlin.driver.engine;
+
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+
+/**
+ * Wall-clock timings for the steps of a modeled task (or of many tasks taken together), measured by the engine.
+ *
+ * <p>
+ * A step's latency covers the time the task spent running user code until it next yielded,
+ * plus the cost of handing control to and from the task, e.g. to and from a thread of its own.
+ * </p>
+ */
+public record TaskStepMetrics(long steps, long totalNanos, long maxNanos) {
+  public static final TaskStepMetrics EMPTY = new TaskStepMetrics(0, 0, 0);
+
+  /** Add a step which took the given number of nanoseconds. */
+  public TaskStepMetrics plus(final long nanos) {
+    return new TaskStepMetrics(this.steps + 1, this.totalNanos + nanos, Math.max(this.maxNanos, nanos));
+  }
+
+  /** Combine these timings with those of other steps. */
+  public TaskStepMetrics plus(final TaskStepMetrics other) {
+    return new TaskStepMetrics(
+        this.steps + other.steps,
+        this.totalNanos + other.totalNanos,
+        Math.max(this.maxNanos, other.maxNanos));
+  }
+
+  /** The total wall-clock time spent across all steps. */
+  public Duration totalLatency() {
+    return Duration.of(this.totalNanos / 1_000, Duration.MICROSECONDS);
+  }
+
+  /** The longest wall-clock time spent in any one step. */
+  public Duration maxLatency() {
+    return Duration.of(this.maxNanos / 1_000, Duration.MICROSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    return "TaskStepMetrics { steps=%d, totalLatency=%s, maxLatency=%s }"
+        .formatted(this.steps, this.totalLatency(), this.maxLatency());
+  }
+}
@@ -0,0 +1,48 @@
+package gov.nasa.jpl.aerie.merlin.driver.engine;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** Sources of threads on which the engine's tasks can run. */
+/*package-local*/ final class TaskThreads {
+  private TaskThreads() {}
+
+  // Platform threads are expensive to start, so they are shared between engines, and reused once their task ends.
+  //   This pool cannot be bounded: a task keeps its thread for as long as it is in progress,
+  //   so a bounded pool would deadlock any simulation with more concurrent tasks than threads.
+  private static final ExecutorService SHARED_POOL = Executors.newCachedThreadPool($ -> {
+    final var t = new Thread($);
+    // TODO: Make threads non-daemons.
+    //  We're marking these as daemons right now solely to ensure that the JVM shuts down cleanly in lieu of
+    //  proper model lifecycle management.
+    //  In fact, daemon threads can mask bad memory leaks: a hanging thread is almost indistinguishable
+    //  from a dead thread.
+    t.setDaemon(true);
+    return t;
+  });
+
+  /** Get an executor creating a new virtual thread per task, if the JVM supports them. */
+  public static Optional<ExecutorService> virtualThreads() {
+    // Try to use Loom's lightweight virtual threads, if possible.
+    // This approach is inspired by that of Javalin 5.
+    // https://github.com/javalin/javalin/blob/97e9e23ebe8f57aa353bc7a45feb560ad61e50a0/javalin/src/main/java/io/javalin/util/ConcurrencyUtil.kt#L48-L51
+    try {
+      // Use reflection to avoid needing `--enable-preview` at compile-time.
+      // If the runtime JVM is run with `--enable-preview`, this should succeed.
+      return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+    } catch (final ReflectiveOperationException ex) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Get an executor over a pool of platform threads shared by every engine.
+   *
+   * <p> The pool must not be shut down, so it is exposed only as an {@link Executor}. </p>
+   */
+  public static Executor sharedPool() {
+    return SHARED_POOL::execute;
+  }
+}
@@ -1,17 +1,27 @@
 package gov.nasa.jpl.aerie.merlin.driver.timeline;
 
 import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
+import gov.nasa.jpl.aerie.merlin.protocol.model.CellBehavior;
 import gov.nasa.jpl.aerie.merlin.protocol.model.CellType;
 import gov.nasa.jpl.aerie.merlin.protocol.model.EffectTrait;
+import gov.nasa.jpl.aerie.merlin.protocol.model.PersistentCellType;
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
 
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.Set;
 
-/** Binds the state of a cell together with its dynamical behavior. */
+/**
+ * Binds the state of a cell together with its dynamical behavior.
+ *
+ * <p>
+ * The state of a cell whose type is a {@link PersistentCellType} is never modified; instead, each update
+ * replaces it with a new state. Such states are shared by reference rather than duplicated.
+ * </p>
+ */
 public final class Cell<State> {
   private final GenericCell<?, State> inner;
-  private final State state;
+  private State state;
 
   private <Effect> Cell(final GenericCell<Effect, State> inner, final State state) {
     this.inner = inner;
@@ -19,32 +29,43 @@ public final class Cell<State> {
   }
 
   public <Effect> Cell(
-      final CellType<Effect, State> cellType,
+      final CellBehavior<Effect, State> cellType,
       final Selector<Effect> selector,
       final EventGraphEvaluator evaluator,
       final State state
   ) {
-    this(new GenericCell<>(cellType, cellType.getEffectType(), selector, evaluator), state);
+    this(new GenericCell<>(
+        cellType,
+        (cellType instanceof CellType<Effect, State> m) ? m : null,
+        (cellType instanceof PersistentCellType<Effect, State> p) ? p : null,
+        cellType.getEffectType(),
+        selector,
+        Arrays.stream(selector.rows()).map(Selector.SelectorRow::topic).toArray(Topic<?>[]::new),
+        evaluator), state);
   }
 
   public Cell<State> duplicate() {
-    return new Cell<>(this.inner, this.inner.cellType.duplicate(this.state));
+    return new Cell<>(this.inner, this.inner.duplicate(this.state));
   }
 
   public void step(final Duration delta) {
-    this.inner.cellType.step(this.state, delta);
+    this.state = this.inner.step(this.state, delta);
   }
 
   public void apply(final EventGraph<Event> events) {
-    this.inner.apply(this.state, events);
+    this.state = this.inner.apply(this.state, events);
+  }
+
+  public void apply(final FlatEventGraph events) {
+    this.state = this.inner.apply(this.state, events);
   }
 
   public void apply(final Event event) {
-    this.inner.apply(this.state, event);
+    this.state = this.inner.apply(this.state, event);
   }
 
   public void apply(final Event[] events, final int from, final int to) {
-    this.inner.apply(this.state, events, from, to);
+    this.state = this.inner.apply(this.state, events, from, to);
   }
 
   public Optional<Duration> getExpiry() {
@@ -52,36 +73,76 @@ public final class Cell<State> {
   }
 
   public State getState() {
-    return this.inner.cellType.duplicate(this.state);
+    return this.inner.duplicate(this.state);
   }
 
   public boolean isInterestedIn(final Set<Topic<?>> topics) {
     return this.inner.selector.matchesAny(topics);
   }
 
+  /** Whether this cell may be stepped once over a stretch of time, rather than over each part of it in turn. */
+  public boolean isStepAdditive() {
+    return this.inner.cellType.isStepAdditive();
+  }
+
+  // The returned array must not be modified.
+  /*package-local*/ Topic<?>[] topics() {
+    return this.inner.topics;
+  }
+
   @Override
   public String toString() {
     return this.state.toString();
   }
 
   private record GenericCell<Effect, State> (
-      CellType<Effect, State> cellType,
+      CellBehavior<Effect, State> cellType,
+      // Exactly one of these is non-null, according to whether the cell's states are updated in place.
+      CellType<Effect, State> mutableType,
+      PersistentCellType<Effect, State> persistentType,
       EffectTrait<Effect> algebra,
       Selector<Effect> selector,
+      Topic<?>[] topics,
       EventGraphEvaluator evaluator
   ) {
-    public void apply(final State state, final EventGraph<Event> events) {
+    public State duplicate(final State state) {
+      if (this.persistentType != null) return state;
+
+      return this.mutableType.duplicate(state);
+    }
+
+    public State step(final State state, final Duration delta) {
+      if (this.persistentType != null) return this.persistentType.stepped(state, delta);
+
+      this.mutableType.step(state, delta);
+      return state;
+    }
+
+    public State apply(final State state, final EventGraph<Event> events) {
       final var effect$ = this.evaluator.evaluate(this.algebra, this.selector, events);
-      if (effect$.isPresent()) this.cellType.apply(state, effect$.get());
+      return (effect$.isPresent()) ? this.apply(state, effect$.get()) : state;
+    }
+
+    public State apply(final State state, final FlatEventGraph events) {
+      final var effect$ = events.select(this.algebra, this.selector);
+      return (effect$.isPresent()) ? this.apply(state, effect$.get()) : state;
     }
 
-    public void apply(final State state, final Event event) {
+    public State apply(final State state, final Event event) {
       final var effect$ = this.selector.select(this.algebra, event);
-      if (effect$.isPresent()) this.cellType.apply(state, effect$.get());
+      return (effect$.isPresent()) ? this.apply(state, effect$.get()) : state;
+    }
+
+    public State apply(State state, final Event[] events, int from, final int to) {
+      while (from < to) state = this.apply(state, events[from++]);
+      return state;
     }
 
-    public void apply(final State state, final Event[] events, int from, final int to) {
-      while (from < to) apply(state, events[from++]);
+    private State apply(final State state, final Effect effect) {
+      if (this.persistentType != null) return this.persistentType.applied(state, effect);
+
+      this.mutableType.apply(state, effect);
+      return state;
     }
   }
 }
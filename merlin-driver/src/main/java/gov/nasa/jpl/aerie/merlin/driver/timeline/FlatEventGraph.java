@@ -0,0 +1,209 @@
+package gov.nasa.jpl.aerie.merlin.driver.timeline;
+
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
+import gov.nasa.jpl.aerie.merlin.protocol.model.EffectTrait;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A compact, array-backed encoding of an {@link EventGraph} over simulation events.
+ *
+ * <p>
+ * The timeline holds on to every committed event graph for the life of a simulation, and in tree form
+ * each atomic event costs two or three small objects scattered across the heap. This encoding stores the events
+ * in left-to-right order in one array, and the shape of the graph as a postfix program in another:
+ * each {@link #ATOM} pushes the next event, and each {@link #SEQUENTIALLY} or {@link #CONCURRENTLY} combines
+ * the top two entries of the stack. The set of topics the graph touches is computed once, up front.
+ * </p>
+ *
+ * <p>
+ * Evaluation walks the program with an explicit stack, so it neither recurses nor allocates per node,
+ * and combines effects in exactly the order {@link EventGraph#evaluate} would.
+ * </p>
+ */
+public final class FlatEventGraph implements EffectExpression<Event> {
+  private static final byte ATOM = 0;
+  private static final byte SEQUENTIALLY = 1;
+  private static final byte CONCURRENTLY = 2;
+  private static final byte EMPTY = 3;
+
+  private static final FlatEventGraph EMPTY_GRAPH = new FlatEventGraph(new byte[0], new Event[0], Set.of(), 0);
+
+  private final byte[] structure;
+  private final Event[] events;
+  private final Set<Topic<?>> topics;
+  /** The greatest number of entries on the stack at any point while evaluating {@link #structure}. */
+  private final int depth;
+
+  private FlatEventGraph(final byte[] structure, final Event[] events, final Set<Topic<?>> topics, final int depth) {
+    this.structure = structure;
+    this.events = events;
+    this.topics = topics;
+    this.depth = depth;
+  }
+
+  public static FlatEventGraph empty() {
+    return EMPTY_GRAPH;
+  }
+
+  public static FlatEventGraph of(final EventGraph<Event> graph) {
+    if (graph instanceof EventGraph.Empty) return EMPTY_GRAPH;
+
+    var structure = new byte[16];
+    var length = 0;
+    final var events = new ArrayList<Event>();
+    final var topics = new ReferenceOpenHashSet<Topic<?>>();
+    var height = 0;
+    var depth = 0;
+
+    // Visit the graph in postfix order. The worklist holds either subgraphs yet to be visited,
+    //   or the opcodes of composite nodes whose children have been pushed above them.
+    final var worklist = new ArrayDeque<Object>();
+    worklist.push(graph);
+    while (!worklist.isEmpty()) {
+      final var next = worklist.pop();
+
+      if (length == structure.length) structure = Arrays.copyOf(structure, 2 * length);
+
+      if (next instanceof Byte op) {
+        structure[length++] = op;
+        height -= 1;
+      } else if (next instanceof EventGraph.Atom<?> g) {
+        final var event = (Event) g.atom();
+        structure[length++] = ATOM;
+        events.add(event);
+        topics.add(event.topic());
+        height += 1;
+      } else if (next instanceof EventGraph.Sequentially<?> g) {
+        worklist.push(SEQUENTIALLY);
+        worklist.push(g.suffix());
+        worklist.push(g.prefix());
+      } else if (next instanceof EventGraph.Concurrently<?> g) {
+        worklist.push(CONCURRENTLY);
+        worklist.push(g.right());
+        worklist.push(g.left());
+      } else if (next instanceof EventGraph.Empty) {
+        structure[length++] = EMPTY;
+        height += 1;
+      } else {
+        throw new IllegalArgumentException();
+      }
+
+      depth = Math.max(depth, height);
+    }
+
+    topics.trim();
+    return new FlatEventGraph(
+        Arrays.copyOf(structure, length),
+        events.toArray(new Event[0]),
+        Collections.unmodifiableSet(topics),
+        depth);
+  }
+
+  public boolean isEmpty() {
+    return this.events.length == 0;
+  }
+
+  /** The number of atomic events in this graph. */
+  public int size() {
+    return this.events.length;
+  }
+
+  /** The topics of all events in this graph. */
+  public Set<Topic<?>> topics() {
+    return this.topics;
+  }
+
+  @Override
+  public <Effect> Effect evaluate(final EffectTrait<Effect> trait, final Function<Event, Effect> substitution) {
+    if (this.structure.length == 0) return trait.empty();
+
+    final var stack = new Object[this.depth];
+    var top = 0;
+    var nextEvent = 0;
+
+    for (final var op : this.structure) {
+      switch (op) {
+        case ATOM -> stack[top++] = substitution.apply(this.events[nextEvent++]);
+        case EMPTY -> stack[top++] = trait.empty();
+        case SEQUENTIALLY -> {
+          top -= 1;
+          stack[top - 1] = trait.sequentially(effectAt(stack, top - 1), effectAt(stack, top));
+        }
+        case CONCURRENTLY -> {
+          top -= 1;
+          stack[top - 1] = trait.concurrently(effectAt(stack, top - 1), effectAt(stack, top));
+        }
+        default -> throw new IllegalStateException();
+      }
+    }
+
+    return effectAt(stack, 0);
+  }
+
+  /**
+   * Evaluate only the events picked out by a selector.
+   *
+   * <p>
+   * Subgraphs containing no selected events are dropped rather than evaluated to {@link EffectTrait#empty()},
+   * so that a cell interested in a few events need not combine empty effects for all the others.
+   * </p>
+   *
+   * @return The combined effect of the selected events, or nothing if no events were selected.
+   */
+  public <Effect> Optional<Effect> select(final EffectTrait<Effect> trait, final Selector<Effect> selector) {
+    if (this.structure.length == 0) return Optional.empty();
+
+    // A null entry represents a subgraph with no selected events.
+    final var stack = new Object[this.depth];
+    var top = 0;
+    var nextEvent = 0;
+
+    for (final var op : this.structure) {
+      switch (op) {
+        case ATOM -> stack[top++] = selector.select(trait, this.events[nextEvent++]).orElse(null);
+        case EMPTY -> stack[top++] = null;
+        case SEQUENTIALLY -> {
+          top -= 1;
+          final Effect prefix = effectAt(stack, top - 1);
+          final Effect suffix = effectAt(stack, top);
+          if (prefix == null) stack[top - 1] = suffix;
+          else if (suffix != null) stack[top - 1] = trait.sequentially(prefix, suffix);
+        }
+        case CONCURRENTLY -> {
+          top -= 1;
+          final Effect left = effectAt(stack, top - 1);
+          final Effect right = effectAt(stack, top);
+          if (left == null) stack[top - 1] = right;
+          else if (right != null) stack[top - 1] = trait.concurrently(left, right);
+        }
+        default -> throw new IllegalStateException();
+      }
+    }
+
+    return Optional.ofNullable(effectAt(stack, 0));
+  }
+
+  /** Rebuild the tree representation of this graph. */
+  public EventGraph<Event> toEventGraph() {
+    return this.evaluate(new EventGraph.IdentityTrait<>(), EventGraph::atom);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <Effect> Effect effectAt(final Object[] stack, final int index) {
+    // SAFETY: Only `Effect`s (or null, during selection) are ever placed onto the stack.
+    return (Effect) stack[index];
+  }
+
+  @Override
+  public String toString() {
+    return EffectExpressionDisplay.displayGraph(this);
+  }
+}
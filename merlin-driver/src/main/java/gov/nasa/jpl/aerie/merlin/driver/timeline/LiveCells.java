@@ -35,7 +35,9 @@ public final class LiveCells {
     this.cells.put(query, new LiveCell<>(cell, this.source.cursor()));
   }
 
-  private <State> Optional<Cell<State>> getCell(final Query<State> query) {
+  // Cells may be requested concurrently by jobs performed in parallel, so lookups into the shared cache are serialized.
+  //   Once a cell has been brought up to date with the (unchanging) timeline, reading it does not mutate it.
+  private synchronized <State> Optional<Cell<State>> getCell(final Query<State> query) {
     // First, check if we have this cell already.
     {
       // SAFETY: By the invariant, if there is an entry for this query, it is of type Cell<State>.
@@ -3,24 +3,81 @@ package gov.nasa.jpl.aerie.merlin.driver.timeline;
 import gov.nasa.jpl.aerie.merlin.driver.engine.SlabList;
 import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
-import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
-public record TemporalEventSource(SlabList<TimePoint> points) implements EventSource, Iterable<TemporalEventSource.TimePoint> {
-  public TemporalEventSource() {
-    this(new SlabList<>());
+/**
+ * The timeline of a simulation: a sequence of commits of events, separated by the passage of time.
+ *
+ * <p>
+ * Alongside the timeline, we index the commits that mention each topic, together with the time at which they occurred.
+ * A cell whose steps are additive (see {@link Cell#isStepAdditive()}) can then be brought up to date
+ * by visiting only the commits it is interested in, stepping it once over each stretch of time between them,
+ * rather than by replaying every point since it was last read.
+ * </p>
+ */
+public final class TemporalEventSource implements EventSource, Iterable<TemporalEventSource.TimePoint> {
+  private final SlabList<TimePoint> points = new SlabList<>();
+
+  /*derived*/
+  private final Map<Topic<?>, TopicIndex> commitsByTopic = new HashMap<>();
+  /*derived*/
+  private long elapsedMicros = 0;
+
+  public SlabList<TimePoint> points() {
+    return this.points;
   }
 
   public void add(final Duration delta) {
     if (delta.isZero()) return;
     this.points.append(new TimePoint.Delta(delta));
+    this.elapsedMicros += delta.in(Duration.MICROSECONDS);
   }
 
   public void add(final EventGraph<Event> graph) {
-    if (graph instanceof EventGraph.Empty) return;
-    this.points.append(new TimePoint.Commit(graph, extractTopics(graph)));
+    this.add(FlatEventGraph.of(graph));
+  }
+
+  public void add(final FlatEventGraph graph) {
+    if (graph.isEmpty()) return;
+
+    this.add(new TimePoint.Commit(graph, graph.topics()));
+  }
+
+  private void add(final TimePoint.Commit commit) {
+    final var position = this.points.size();
+    this.points.append(commit);
+
+    for (final var topic : commit.topics()) {
+      this.commitsByTopic
+          .computeIfAbsent(topic, $ -> new TopicIndex())
+          .add(position, this.elapsedMicros, commit);
+    }
+  }
+
+  /**
+   * Copy this timeline, so that the copy can be extended independently of this one.
+   *
+   * <p> Commits are never changed once added, so the copy shares them with this timeline. </p>
+   */
+  public TemporalEventSource duplicate() {
+    final var copy = new TemporalEventSource();
+    for (final var point : this.points) {
+      if (point instanceof TimePoint.Delta p) {
+        copy.add(p.delta());
+      } else if (point instanceof TimePoint.Commit p) {
+        copy.add(p);
+      } else {
+        throw new IllegalStateException();
+      }
+    }
+    return copy;
   }
 
   @Override
@@ -28,6 +85,11 @@ public record TemporalEventSource(SlabList<TimePoint> points) implements EventSo
     return TemporalEventSource.this.points.iterator();
   }
 
+  /**
+   * Get a cursor over this timeline.
+   *
+   * A cursor brings one cell up to date each time it is stepped up, and must not be shared between cells.
+   */
   @Override
   public TemporalCursor cursor() {
     return new TemporalCursor();
@@ -36,10 +98,22 @@ public record TemporalEventSource(SlabList<TimePoint> points) implements EventSo
   public final class TemporalCursor implements Cursor {
     private final SlabList<TimePoint>.SlabIterator iterator = TemporalEventSource.this.points.iterator();
 
+    // The number of points this cursor has skipped past using the topic index, and the time at which they end.
+    private int position = 0;
+    private long positionMicros = 0;
+
     private TemporalCursor() {}
 
     @Override
     public void stepUp(final Cell<?> cell) {
+      if (cell.isStepAdditive()) {
+        this.skipUp(cell);
+      } else {
+        this.replayUp(cell);
+      }
+    }
+
+    private void replayUp(final Cell<?> cell) {
       while (this.iterator.hasNext()) {
         final var point = this.iterator.next();
 
@@ -52,38 +126,94 @@ public record TemporalEventSource(SlabList<TimePoint> points) implements EventSo
         }
       }
     }
-  }
 
+    private void skipUp(final Cell<?> cell) {
+      final var topics = cell.topics();
+      final var indices = new TopicIndex[topics.length];
+      final var offsets = new int[topics.length];
+      for (var i = 0; i < topics.length; i += 1) {
+        indices[i] = TemporalEventSource.this.commitsByTopic.get(topics[i]);
+        if (indices[i] != null) offsets[i] = indices[i].firstAtOrAfter(this.position);
+      }
 
-  private static Set<Topic<?>> extractTopics(final EventGraph<Event> graph) {
-    final var set = new ReferenceOpenHashSet<Topic<?>>();
-    extractTopics(set, graph);
-    set.trim();
-    return set;
+      while (true) {
+        // Find the earliest commit not yet applied that mentions any of the cell's topics.
+        var next = -1;
+        for (var i = 0; i < topics.length; i += 1) {
+          if (indices[i] == null || offsets[i] >= indices[i].size()) continue;
+          if (next < 0 || indices[i].position(offsets[i]) < indices[next].position(offsets[next])) next = i;
+        }
+        if (next < 0) break;
+
+        final var index = indices[next];
+        final var offset = offsets[next];
+        this.stepTo(cell, index.time(offset));
+        cell.apply(index.commit(offset).events());
+        this.position = index.position(offset) + 1;
+
+        // A commit that mentions several of the cell's topics must be applied only once.
+        for (var i = 0; i < topics.length; i += 1) {
+          if (indices[i] != null && offsets[i] < indices[i].size() && indices[i].position(offsets[i]) < this.position) {
+            offsets[i] += 1;
+          }
+        }
+      }
+
+      this.stepTo(cell, TemporalEventSource.this.elapsedMicros);
+      this.position = TemporalEventSource.this.points.size();
+    }
+
+    private void stepTo(final Cell<?> cell, final long micros) {
+      if (micros == this.positionMicros) return;
+
+      cell.step(Duration.of(micros - this.positionMicros, Duration.MICROSECONDS));
+      this.positionMicros = micros;
+    }
   }
 
-  private static void extractTopics(final Set<Topic<?>> accumulator, EventGraph<Event> graph) {
-    while (true) {
-      if (graph instanceof EventGraph.Empty) {
-        // There are no events here!
-        return;
-      } else if (graph instanceof EventGraph.Atom<Event> g) {
-        accumulator.add(g.atom().topic());
-        return;
-      } else if (graph instanceof EventGraph.Sequentially<Event> g) {
-        extractTopics(accumulator, g.prefix());
-        graph = g.suffix();
-      } else if (graph instanceof EventGraph.Concurrently<Event> g) {
-        extractTopics(accumulator, g.left());
-        graph = g.right();
-      } else {
-        throw new IllegalArgumentException();
+  /** The commits mentioning a single topic, in timeline order. */
+  private static final class TopicIndex {
+    private final IntArrayList positions = new IntArrayList();
+    private final LongArrayList times = new LongArrayList();
+    private final ArrayList<TimePoint.Commit> commits = new ArrayList<>();
+
+    void add(final int position, final long micros, final TimePoint.Commit commit) {
+      this.positions.add(position);
+      this.times.add(micros);
+      this.commits.add(commit);
+    }
+
+    int size() {
+      return this.positions.size();
+    }
+
+    int position(final int offset) {
+      return this.positions.getInt(offset);
+    }
+
+    long time(final int offset) {
+      return this.times.getLong(offset);
+    }
+
+    TimePoint.Commit commit(final int offset) {
+      return this.commits.get(offset);
+    }
+
+    /** Get the offset of the first commit at or after the given position in the timeline. */
+    int firstAtOrAfter(final int position) {
+      var low = 0;
+      var high = this.positions.size();
+      while (low < high) {
+        final var mid = (low + high) >>> 1;
+        if (this.positions.getInt(mid) < position) low = mid + 1;
+        else high = mid;
       }
+      return low;
     }
   }
 
   public sealed interface TimePoint {
     record Delta(Duration delta) implements TimePoint {}
-    record Commit(EventGraph<Event> events, Set<Topic<?>> topics) implements TimePoint {}
+    record Commit(FlatEventGraph events, Set<Topic<?>> topics) implements TimePoint {}
   }
 }
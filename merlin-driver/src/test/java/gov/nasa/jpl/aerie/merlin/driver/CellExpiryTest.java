@@ -17,6 +17,8 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.MILLISECONDS;
 import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.duration;
@@ -26,7 +28,9 @@ public final class CellExpiryTest {
   @Test
   @DisplayName("Resource profiles are re-queried by the upstream cells' expiry time")
   public void testResourceProfilingByExpiry() {
-    final var model = makeModel("/key", "value", MILLISECONDS.times(500));
+    // Give each query a distinct value, so that every re-query is visible as a new segment.
+    final var queries = new AtomicInteger();
+    final var model = makeModel("/key", () -> "value-" + queries.getAndIncrement(), MILLISECONDS.times(500));
 
     final var now = Instant.now();
     final var results = SimulationDriver.simulate(
@@ -41,29 +45,52 @@ public final class CellExpiryTest {
     final var actual = results.discreteProfiles.get("/key").getRight();
 
     final var expected = List.of(
-        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value")),
-        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value")),
+        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value-0")),
+        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value-1")),
 
-        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value")),
-        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value")),
+        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value-2")),
+        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value-3")),
 
-        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value")),
-        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value")),
+        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value-4")),
+        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value-5")),
 
-        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value")),
-        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value")),
+        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value-6")),
+        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value-7")),
 
-        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value")),
-        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value")),
+        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value-8")),
+        new ProfileSegment<>(duration(500, MILLISECONDS), SerializedValue.of("value-9")),
 
-        new ProfileSegment<>(Duration.ZERO, SerializedValue.of("value")));
+        new ProfileSegment<>(Duration.ZERO, SerializedValue.of("value-10")));
+
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  @DisplayName("Re-querying a resource whose value has not changed extends its current profile segment")
+  public void testUnchangedResourceProfilesAreCoalesced() {
+    final var model = makeModel("/key", () -> "value", MILLISECONDS.times(500));
+
+    final var now = Instant.now();
+    final var results = SimulationDriver.simulate(
+        model,
+        Map.of(),
+        now,
+        Duration.SECONDS.times(5),
+        now,
+        Duration.SECONDS.times(5),
+        () -> false);
+
+    final var actual = results.discreteProfiles.get("/key").getRight();
+
+    final var expected = List.of(
+        new ProfileSegment<>(Duration.SECONDS.times(5), SerializedValue.of("value")));
 
     assertEquals(expected, actual);
   }
 
   private MissionModel<?> makeModel(
       final String resourceName,
-      final String resourceValue,
+      final Supplier<String> resourceValue,
       final Duration expiry
   ) {
     final var initializer = new MissionModelBuilder();
@@ -141,7 +168,7 @@ public final class CellExpiryTest {
       public String getDynamics(final Querier querier) {
         // Color this resource with the expiry of the cell.
         querier.getState(ref);
-        return resourceValue;
+        return resourceValue.get();
       }
     };
 
@@ -0,0 +1,288 @@
+package gov.nasa.jpl.aerie.merlin.driver;
+
+import gov.nasa.jpl.aerie.contrib.models.Accumulator;
+import gov.nasa.jpl.aerie.contrib.models.counters.Counter;
+import gov.nasa.jpl.aerie.contrib.serialization.mappers.IntegerValueMapper;
+import gov.nasa.jpl.aerie.merlin.framework.InitializationContext;
+import gov.nasa.jpl.aerie.merlin.framework.ModelActions;
+import gov.nasa.jpl.aerie.merlin.framework.Registrar;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
+import gov.nasa.jpl.aerie.merlin.protocol.model.DirectiveType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.InputType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.OutputType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.TaskFactory;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Unit;
+import gov.nasa.jpl.aerie.merlin.protocol.types.ValueSchema;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.delay;
+import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.emit;
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.HOURS;
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.MINUTES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class SimulationCheckpointTest {
+  private static final Instant PLAN_START = Instant.parse("2024-01-01T00:00:00Z");
+  private static final Duration PLAN_DURATION = Duration.of(12, HOURS);
+  private static final Duration CHECKPOINT_TIME = Duration.of(6, HOURS);
+
+  @Test
+  @DisplayName("Resuming a revised plan from a checkpoint gives the same results as simulating it in full")
+  public void resumedRunMatchesFullRun() {
+    final var original = new HashMap<ActivityDirectiveId, ActivityDirective>();
+    for (var i = 1; i <= 10; i += 1) original.put(new ActivityDirectiveId(i), bump(Duration.of(i, HOURS), i));
+    original.put(new ActivityDirectiveId(11), anchored(Duration.of(30, MINUTES), 3, 11));
+
+    // Move one directive, remove another, and add a third, all after the checkpoint.
+    final var revised = new HashMap<>(original);
+    revised.put(new ActivityDirectiveId(9), bump(Duration.of(9 * 60 + 30, MINUTES), 90));
+    revised.remove(new ActivityDirectiveId(8));
+    revised.put(new ActivityDirectiveId(12), bump(Duration.of(11, HOURS), 12));
+
+    final SimulationResults resumed;
+    try (final var checkpoint = checkpoint(original)) {
+      assertEquals(CHECKPOINT_TIME, checkpoint.time());
+      assertTrue(checkpoint.canResume(revised));
+
+      resumed = checkpoint.resume(revised, PLAN_DURATION, () -> false, $ -> {});
+    }
+    final var expected = simulate(revised);
+
+    assertEquals(expected.realProfiles, resumed.realProfiles);
+    assertEquals(expected.discreteProfiles, resumed.discreteProfiles);
+    assertEquals(expected.simulatedActivities, resumed.simulatedActivities);
+    assertEquals(expected.unfinishedActivities, resumed.unfinishedActivities);
+    assertEquals(expected.events, resumed.events);
+    assertEquals(expected.duration, resumed.duration);
+
+    // Make sure the revision made a difference that the checkpoint had to account for.
+    assertFalse(simulate(original).discreteProfiles.equals(resumed.discreteProfiles));
+  }
+
+  @Test
+  @DisplayName("A checkpoint refuses revisions that could have affected its past")
+  public void incompatibleRevisionsAreRejected() {
+    final var original = new HashMap<ActivityDirectiveId, ActivityDirective>();
+    original.put(new ActivityDirectiveId(1), bump(Duration.of(2, HOURS), 1));
+    original.put(new ActivityDirectiveId(2), bump(Duration.of(8, HOURS), 2));
+    original.put(new ActivityDirectiveId(3), anchored(Duration.of(1, HOURS), 2, 3));
+
+    try (final var checkpoint = checkpoint(original)) {
+      assertTrue(checkpoint.canResume(original));
+
+      // A directive that has already started.
+      assertFalse(checkpoint.canResume(with(original, 1, bump(Duration.of(2, HOURS), 10))));
+      // A directive moved from the future into the past, or added in the past.
+      assertFalse(checkpoint.canResume(with(original, 2, bump(Duration.of(5, HOURS), 2))));
+      assertFalse(checkpoint.canResume(with(original, 4, bump(Duration.of(1, HOURS), 4))));
+      // A directive starting exactly at the checkpoint has already been started there.
+      assertFalse(checkpoint.canResume(with(original, 4, bump(CHECKPOINT_TIME, 4))));
+      // A directive that other directives are anchored to, or that is itself anchored.
+      assertFalse(checkpoint.canResume(with(original, 2, bump(Duration.of(9, HOURS), 2))));
+      assertFalse(checkpoint.canResume(with(original, 3, anchored(Duration.of(2, HOURS), 2, 3))));
+
+      // An unanchored directive entirely in the future is fine.
+      assertTrue(checkpoint.canResume(with(original, 4, bump(Duration.of(10, HOURS), 4))));
+
+      final var revised = with(original, 4, bump(Duration.of(10, HOURS), 4));
+      checkpoint.resume(revised, PLAN_DURATION, () -> false, $ -> {});
+
+      // A checkpoint is consumed by resuming it.
+      assertFalse(checkpoint.canResume(revised));
+      assertThrows(IllegalStateException.class, () -> checkpoint.resume(revised, PLAN_DURATION, () -> false, $ -> {}));
+    }
+  }
+
+  @Test
+  @DisplayName("Resuming an incompatible revision is refused rather than silently misapplied")
+  public void resumingAnIncompatibleRevisionFails() {
+    final var original = Map.of(new ActivityDirectiveId(1), bump(Duration.of(2, HOURS), 1));
+
+    try (final var checkpoint = checkpoint(original)) {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> checkpoint.resume(with(original, 1, bump(Duration.of(3, HOURS), 1)), PLAN_DURATION, () -> false, $ -> {}));
+    }
+  }
+
+  @Test
+  @DisplayName("A checkpoint reports the threads held by its suspended tasks")
+  public void checkpointCountsHeldThreads() {
+    // Only the model's daemon is in progress at the checkpoint, since the bump has long since finished.
+    try (final var checkpoint = checkpoint(Map.of(new ActivityDirectiveId(1), bump(Duration.of(2, HOURS), 1)))) {
+      assertEquals(1, checkpoint.threadsInUse());
+    }
+
+    // The bump starting at the checkpoint is in progress there too.
+    try (final var checkpoint = checkpoint(Map.of(new ActivityDirectiveId(1), bump(CHECKPOINT_TIME, 1)))) {
+      assertEquals(2, checkpoint.threadsInUse());
+    }
+  }
+
+  private static SimulationCheckpoint checkpoint(final Map<ActivityDirectiveId, ActivityDirective> schedule) {
+    return SimulationCheckpoint.create(
+        makeModel(),
+        schedule,
+        PLAN_START,
+        PLAN_START,
+        PLAN_DURATION,
+        CHECKPOINT_TIME,
+        () -> false);
+  }
+
+  private static SimulationResults simulate(final Map<ActivityDirectiveId, ActivityDirective> schedule) {
+    return SimulationDriver.simulate(
+        makeModel(),
+        schedule,
+        PLAN_START,
+        PLAN_DURATION,
+        PLAN_START,
+        PLAN_DURATION,
+        () -> false);
+  }
+
+  private static Map<ActivityDirectiveId, ActivityDirective> with(
+      final Map<ActivityDirectiveId, ActivityDirective> schedule,
+      final long id,
+      final ActivityDirective directive)
+  {
+    final var revised = new HashMap<>(schedule);
+    revised.put(new ActivityDirectiveId(id), directive);
+    return revised;
+  }
+
+  private static ActivityDirective bump(final Duration startOffset, final long amount) {
+    return new ActivityDirective(
+        startOffset,
+        new SerializedActivity("Bump", Map.of("amount", SerializedValue.of(amount))),
+        null,
+        true);
+  }
+
+  private static ActivityDirective anchored(final Duration startOffset, final long anchorId, final long amount) {
+    return new ActivityDirective(
+        startOffset,
+        new SerializedActivity("Bump", Map.of("amount", SerializedValue.of(amount))),
+        new ActivityDirectiveId(anchorId),
+        true);
+  }
+
+  // Every simulation needs a model of its own, since simulating a model changes its cells.
+  private static MissionModel<?> makeModel() {
+    final var builder = new MissionModelBuilder();
+    final var registrar = new Registrar(builder);
+
+    final var model = InitializationContext.initializing(builder, () -> new Model(registrar));
+    builder.topic("ActivityType.Input.Bump", BUMP_INPUT, AMOUNT_TYPE);
+    builder.topic("ActivityType.Output.Bump", BUMP_OUTPUT, UNIT_TYPE);
+
+    return builder.build(model, new DirectiveTypeRegistry<>(Map.of("Bump", BUMP)));
+  }
+
+  private static final Topic<Long> BUMP_INPUT = new Topic<>();
+  private static final Topic<Unit> BUMP_OUTPUT = new Topic<>();
+
+  // A daemon keeps a task in progress across the checkpoint, and bumps affect both a discrete and a real resource.
+  private static final class Model {
+    private final Counter<Integer> counter = Counter.ofInteger();
+    private final Accumulator accumulator = new Accumulator();
+
+    public Model(final Registrar registrar) {
+      registrar.discrete("/counter", this.counter, new IntegerValueMapper());
+      registrar.real("/accumulator", this.accumulator);
+
+      ModelActions.spawn(() -> {
+        while (true) {
+          delay(Duration.of(25, MINUTES));
+          this.counter.add(1);
+        }
+      });
+    }
+  }
+
+  private static final DirectiveType<Model, Long, Unit> BUMP = new DirectiveType<>() {
+    @Override
+    public InputType<Long> getInputType() {
+      return AMOUNT_TYPE;
+    }
+
+    @Override
+    public OutputType<Unit> getOutputType() {
+      return UNIT_TYPE;
+    }
+
+    @Override
+    public TaskFactory<Unit> getTaskFactory(final Model model, final Long amount) {
+      return ModelActions.threaded(() -> {
+        emit(amount, BUMP_INPUT);
+        model.counter.add(amount.intValue());
+        model.accumulator.rate.add(amount.doubleValue());
+        delay(Duration.of(45, MINUTES));
+        model.accumulator.rate.add(-amount.doubleValue());
+        emit(Unit.UNIT, BUMP_OUTPUT);
+      });
+    }
+  };
+
+  private static final AmountType AMOUNT_TYPE = new AmountType();
+
+  private static final class AmountType implements InputType<Long>, OutputType<Long> {
+    @Override
+    public List<Parameter> getParameters() {
+      return List.of(new Parameter("amount", ValueSchema.INT));
+    }
+
+    @Override
+    public List<String> getRequiredParameters() {
+      return List.of("amount");
+    }
+
+    @Override
+    public Long instantiate(final Map<String, SerializedValue> arguments) {
+      return arguments.get("amount").asInt().orElseThrow();
+    }
+
+    @Override
+    public Map<String, SerializedValue> getArguments(final Long amount) {
+      return Map.of("amount", SerializedValue.of(amount));
+    }
+
+    @Override
+    public List<ValidationNotice> getValidationFailures(final Long amount) {
+      return List.of();
+    }
+
+    @Override
+    public ValueSchema getSchema() {
+      return ValueSchema.ofStruct(Map.of("amount", ValueSchema.INT));
+    }
+
+    @Override
+    public SerializedValue serialize(final Long amount) {
+      return SerializedValue.of(Map.of("amount", SerializedValue.of(amount)));
+    }
+  }
+
+  private static final OutputType<Unit> UNIT_TYPE = new OutputType<>() {
+    @Override
+    public ValueSchema getSchema() {
+      return ValueSchema.ofStruct(Map.of());
+    }
+
+    @Override
+    public SerializedValue serialize(final Unit value) {
+      return SerializedValue.of(Map.of());
+    }
+  };
+}
@@ -0,0 +1,114 @@
+package gov.nasa.jpl.aerie.merlin.driver.engine;
+
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Label;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+import net.jqwik.api.Tuple;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class JobScheduleTest {
+  @Test
+  public void reschedulingMovesJobInBothDirections() {
+    final var schedule = new JobSchedule<String, SchedulingInstant>();
+    schedule.schedule("a", SubInstant.Tasks.at(Duration.of(5, Duration.SECONDS)));
+    schedule.schedule("b", SubInstant.Tasks.at(Duration.of(10, Duration.SECONDS)));
+    schedule.schedule("c", SubInstant.Tasks.at(Duration.of(15, Duration.SECONDS)));
+
+    // Move `c` earlier than everything, and `a` later than everything.
+    schedule.schedule("c", SubInstant.Tasks.at(Duration.of(1, Duration.SECONDS)));
+    schedule.schedule("a", SubInstant.Tasks.at(Duration.of(20, Duration.SECONDS)));
+
+    assertEquals(Set.of("c"), schedule.extractNextJobs(Duration.MAX_VALUE).jobs());
+    assertEquals(Set.of("b"), schedule.extractNextJobs(Duration.MAX_VALUE).jobs());
+    assertEquals(Set.of("a"), schedule.extractNextJobs(Duration.MAX_VALUE).jobs());
+    assertEquals(Set.of(), schedule.extractNextJobs(Duration.MAX_VALUE).jobs());
+  }
+
+  @Test
+  public void batchesSeparateSubInstants() {
+    final var schedule = new JobSchedule<String, SchedulingInstant>();
+    final var time = Duration.of(1, Duration.SECONDS);
+    schedule.schedule("resource", SubInstant.Resources.at(time));
+    schedule.schedule("task1", SubInstant.Tasks.at(time));
+    schedule.schedule("condition", SubInstant.Conditions.at(time));
+    schedule.schedule("task2", SubInstant.Tasks.at(time));
+
+    assertEquals(Set.of("condition"), schedule.extractNextJobs(Duration.MAX_VALUE).jobs());
+    assertEquals(Set.of("task1", "task2"), schedule.extractNextJobs(Duration.MAX_VALUE).jobs());
+    assertEquals(Set.of("resource"), schedule.extractNextJobs(Duration.MAX_VALUE).jobs());
+  }
+
+  @Property
+  @Label("JobSchedule should extract the same batches as a naive reference schedule")
+  public void matchesReferenceSchedule(@ForAll("operations") List<Operation> operations) {
+    final var schedule = new JobSchedule<Integer, SchedulingInstant>();
+    final var reference = new HashMap<Integer, SchedulingInstant>();
+
+    for (final var operation : operations) {
+      if (operation instanceof Operation.Schedule op) {
+        final var time = SubInstant.values()[op.priority()].at(Duration.of(op.time(), Duration.SECONDS));
+        schedule.schedule(op.job(), time);
+        reference.put(op.job(), time);
+      } else if (operation instanceof Operation.Unschedule op) {
+        schedule.unschedule(op.job());
+        reference.remove(op.job());
+      } else if (operation instanceof Operation.Extract) {
+        assertEquals(extractReference(reference), schedule.extractNextJobs(Duration.MAX_VALUE).jobs());
+      }
+    }
+
+    while (!reference.isEmpty()) {
+      assertEquals(extractReference(reference), schedule.extractNextJobs(Duration.MAX_VALUE).jobs());
+    }
+    assertEquals(Set.of(), schedule.extractNextJobs(Duration.MAX_VALUE).jobs());
+  }
+
+  private static Set<Integer> extractReference(final Map<Integer, SchedulingInstant> reference) {
+    final var earliest = reference.values().stream().min(SchedulingInstant::compareTo);
+    if (earliest.isEmpty()) return Set.of();
+
+    final var jobs = new HashSet<Integer>();
+    reference.forEach((job, time) -> {
+      if (time.compareTo(earliest.get()) == 0) jobs.add(job);
+    });
+    jobs.forEach(reference::remove);
+
+    return jobs;
+  }
+
+  @Provide("operations")
+  public Arbitrary<List<Operation>> operations() {
+    final var jobs = Arbitraries.integers().between(0, 20);
+
+    final Arbitrary<Operation> schedule = jobs.flatMap(job ->
+        Arbitraries.longs().between(0, 10).flatMap(time ->
+            Arbitraries.integers().between(0, SubInstant.values().length - 1).map(priority ->
+                new Operation.Schedule(job, time, priority))));
+    final Arbitrary<Operation> unschedule = jobs.map(Operation.Unschedule::new);
+    final Arbitrary<Operation> extract = Arbitraries.just(new Operation.Extract());
+
+    return Arbitraries.frequencyOf(
+        Tuple.of(6, schedule),
+        Tuple.of(2, unschedule),
+        Tuple.of(1, extract)
+    ).list().ofMaxSize(200);
+  }
+
+  private sealed interface Operation {
+    record Schedule(int job, long time, int priority) implements Operation {}
+    record Unschedule(int job) implements Operation {}
+    record Extract() implements Operation {}
+  }
+}
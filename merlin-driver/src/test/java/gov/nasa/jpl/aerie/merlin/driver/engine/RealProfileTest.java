@@ -0,0 +1,63 @@
+package gov.nasa.jpl.aerie.merlin.driver.engine;
+
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.RealDynamics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RealProfileTest {
+  @Test
+  public void segmentsSpanUntilTheNextSegmentStarts() {
+    final var profile = new RealProfile();
+    profile.append(Duration.ZERO, 1.0, 0.0);
+    profile.append(Duration.of(2, SECONDS), 1.0, 0.5);
+    profile.append(Duration.of(5, SECONDS), 2.5, -1.0);
+
+    // Without an end time, the last segment's extent is unknown.
+    assertEquals(
+        List.of(
+            new ProfileSegment<>(Duration.of(2, SECONDS), RealDynamics.constant(1.0)),
+            new ProfileSegment<>(Duration.of(3, SECONDS), RealDynamics.linear(1.0, 0.5))),
+        profile.segments(Optional.empty()));
+
+    assertEquals(
+        List.of(
+            new ProfileSegment<>(Duration.of(2, SECONDS), RealDynamics.constant(1.0)),
+            new ProfileSegment<>(Duration.of(3, SECONDS), RealDynamics.linear(1.0, 0.5)),
+            new ProfileSegment<>(Duration.of(1, SECONDS), RealDynamics.linear(2.5, -1.0))),
+        profile.segments(Optional.of(Duration.of(6, SECONDS))));
+  }
+
+  @Test
+  public void onlyConstantDynamicsContinueAcrossSamples() {
+    final var profile = new RealProfile();
+    assertFalse(profile.continues(1.0, 0.0));
+
+    profile.append(Duration.ZERO, 1.0, 0.0);
+    assertTrue(profile.continues(1.0, 0.0));
+    assertFalse(profile.continues(2.0, 0.0));
+
+    profile.append(Duration.of(1, SECONDS), 2.0, 1.0);
+    assertFalse(profile.continues(2.0, 1.0));
+  }
+
+  @Test
+  public void retainingTheLastSegmentKeepsItsStartTime() {
+    final var profile = new RealProfile();
+    for (var i = 0; i < 100; i += 1) profile.append(Duration.of(i, SECONDS), i, 1.0);
+
+    profile.retainLastSegment();
+
+    assertEquals(1, profile.size());
+    assertEquals(
+        List.of(new ProfileSegment<>(Duration.of(1, SECONDS), RealDynamics.linear(99, 1.0))),
+        profile.segments(Optional.of(Duration.of(100, SECONDS))));
+  }
+}
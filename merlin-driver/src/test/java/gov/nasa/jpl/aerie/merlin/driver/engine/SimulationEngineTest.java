@@ -0,0 +1,456 @@
+package gov.nasa.jpl.aerie.merlin.driver.engine;
+
+import gov.nasa.jpl.aerie.contrib.models.Accumulator;
+import gov.nasa.jpl.aerie.contrib.models.counters.Counter;
+import gov.nasa.jpl.aerie.contrib.serialization.mappers.IntegerValueMapper;
+import gov.nasa.jpl.aerie.merlin.driver.ActivityDirectiveId;
+import gov.nasa.jpl.aerie.merlin.driver.DirectiveTypeRegistry;
+import gov.nasa.jpl.aerie.merlin.driver.InMemorySimulationResultsSink;
+import gov.nasa.jpl.aerie.merlin.driver.MissionModel;
+import gov.nasa.jpl.aerie.merlin.driver.MissionModelBuilder;
+import gov.nasa.jpl.aerie.merlin.driver.SimulatedActivity;
+import gov.nasa.jpl.aerie.merlin.driver.SimulationResults;
+import gov.nasa.jpl.aerie.merlin.driver.timeline.FlatEventGraph;
+import gov.nasa.jpl.aerie.merlin.driver.timeline.LiveCells;
+import gov.nasa.jpl.aerie.merlin.driver.timeline.TemporalEventSource;
+import gov.nasa.jpl.aerie.merlin.framework.InitializationContext;
+import gov.nasa.jpl.aerie.merlin.framework.ModelActions;
+import gov.nasa.jpl.aerie.merlin.framework.Registrar;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
+import gov.nasa.jpl.aerie.merlin.protocol.model.OutputType;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
+import gov.nasa.jpl.aerie.merlin.protocol.types.ValueSchema;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.call;
+import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.delay;
+import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.emit;
+import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.spawn;
+import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.waitUntil;
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class SimulationEngineTest {
+  private static final int SLOTS = 8;
+  private static final Duration HORIZON = Duration.of(10, Duration.MINUTES);
+
+  @Test
+  @DisplayName("Parallel batches produce the same results as sequential batches")
+  public void parallelBatchesMatchSequentialBatches() {
+    final var expected = simulate(makeModel(), SimulationEngine.BatchMode.Sequential);
+    assertTrue(expected.simulatedActivities.values().stream().anyMatch($ -> $.parentId() != null));
+
+    // Repeat a few times to give any ordering-dependent behavior a chance to surface.
+    for (var i = 0; i < 5; i += 1) {
+      final var actual = simulate(makeModel(), SimulationEngine.BatchMode.Parallel);
+
+      assertEquals(expected.discreteProfiles, actual.discreteProfiles);
+      assertEquals(expected.realProfiles, actual.realProfiles);
+      // Child activities are numbered after the tasks that perform them, so this also checks task numbering.
+      assertEquals(expected.simulatedActivities, actual.simulatedActivities);
+      assertEquals(expected.unfinishedActivities, actual.unfinishedActivities);
+    }
+  }
+
+  @Test
+  @DisplayName("Cached cell reads observe the reading task's own emissions")
+  public void cachedReadsObserveEmissions() {
+    final var observed = new ArrayList<Integer>();
+
+    final var builder = new MissionModelBuilder();
+    final var registrar = new Registrar(builder);
+    final var counter = InitializationContext.initializing(builder, () -> {
+      final var c = Counter.ofInteger();
+      registrar.discrete("/counter", c, new IntegerValueMapper());
+      ModelActions.spawn(() -> {
+        observed.add(c.get());
+        observed.add(c.get());
+        c.add(1);
+        observed.add(c.get());
+        delay(Duration.of(1, SECONDS));
+        observed.add(c.get());
+      });
+      return c;
+    });
+    final var model = builder.build(counter, new DirectiveTypeRegistry<>(Map.of()));
+
+    try (final var engine = new SimulationEngine()) {
+      run(engine, model);
+
+      assertEquals(List.of(0, 0, 1, 1), observed);
+      assertTrue(engine.cellCacheStatistics().hits() > 0);
+    }
+  }
+
+  @Test
+  @DisplayName("Each task's steps are timed")
+  public void taskStepsAreTimed() {
+    final var builder = new MissionModelBuilder();
+    final var model = builder.build(InitializationContext.initializing(builder, () -> {
+      ModelActions.spawn(() -> {
+        for (var i = 0; i < 3; i += 1) {
+          busyWork(10);
+          delay(Duration.of(1, SECONDS));
+        }
+      });
+      return 0;
+    }), new DirectiveTypeRegistry<>(Map.of()));
+
+    try (final var engine = new SimulationEngine()) {
+      run(engine, model);
+
+      // The spawned task steps once to start, and once more after each delay.
+      final var stepsByTask = new ArrayList<Long>();
+      for (var id = 0L; id < 4; id += 1) {
+        engine.taskStepMetrics(new TaskId(id)).ifPresent($ -> stepsByTask.add($.steps()));
+      }
+      assertTrue(stepsByTask.contains(4L));
+
+      final var total = engine.taskStepMetrics();
+      assertEquals(stepsByTask.stream().mapToLong($ -> $).sum(), total.steps());
+      assertTrue(total.maxLatency().longerThan(Duration.ZERO));
+      assertTrue(total.totalLatency().noShorterThan(total.maxLatency()));
+    }
+  }
+
+  @Test
+  @DisplayName("Results read partway through a simulation match results computed from scratch")
+  public void resultsSoFarMatchComputedResults() {
+    final var model = makeModel();
+    final var sink = new InMemorySimulationResultsSink();
+    final var soFar = new ArrayList<SimulationResults>();
+    final var checkpoints = List.of(Duration.of(90, SECONDS), Duration.of(4, Duration.MINUTES), HORIZON);
+
+    try (final var engine = new SimulationEngine()) {
+      final var stream = engine.streamResults(ACTIVITY_TOPIC, model.getTopics(), sink);
+      final var timeline = new TemporalEventSource();
+      final var cells = new LiveCells(timeline, model.getInitialCells());
+      var elapsedTime = Duration.ZERO;
+
+      for (final var entry : model.getResources().entrySet()) {
+        engine.trackResource(entry.getKey(), entry.getValue(), elapsedTime);
+      }
+      engine.scheduleTask(Duration.ZERO, model.getDaemon());
+
+      for (final var checkpoint : checkpoints) {
+        while (true) {
+          final var batch = engine.extractNextJobs(checkpoint);
+
+          final var delta = batch.offsetFromStart().minus(elapsedTime);
+          elapsedTime = batch.offsetFromStart();
+          timeline.add(delta);
+
+          if (batch.jobs().isEmpty() && batch.offsetFromStart().isEqualTo(checkpoint)) break;
+
+          final var commit = FlatEventGraph.of(engine.performJobs(batch.jobs(), cells, elapsedTime, HORIZON));
+          timeline.add(commit);
+          stream.commit(elapsedTime, commit);
+        }
+
+        soFar.add(sink.resultsSoFar(stream, Instant.EPOCH, checkpoint));
+      }
+    }
+
+    for (var i = 0; i < checkpoints.size(); i += 1) {
+      // Reading results later on must not have disturbed those read before.
+      final var expected = simulateUntil(makeModel(), checkpoints.get(i));
+      final var actual = soFar.get(i);
+
+      assertEquals(expected.duration, actual.duration);
+      assertEquals(expected.discreteProfiles, actual.discreteProfiles);
+      assertEquals(expected.realProfiles, actual.realProfiles);
+      assertEquals(expected.simulatedActivities, actual.simulatedActivities);
+      assertEquals(expected.unfinishedActivities, actual.unfinishedActivities);
+      assertEquals(expected.events, actual.events);
+    }
+
+    // Later results share the segments and finished activities of earlier ones, rather than copying them.
+    final var first = soFar.get(0);
+    final var last = soFar.get(soFar.size() - 1);
+    assertSame(
+        first.discreteProfiles.get("/counter/0").getRight().get(0),
+        last.discreteProfiles.get("/counter/0").getRight().get(0));
+    // (An activity is rebuilt if it or its relatives are renumbered, as children here are when more directives start.)
+    final var firstActivities = Collections.newSetFromMap(new IdentityHashMap<SimulatedActivity, Boolean>());
+    firstActivities.addAll(first.simulatedActivities.values());
+    assertTrue(last.simulatedActivities.values().stream().anyMatch(firstActivities::contains));
+  }
+
+  @Test
+  @DisplayName("A duplicated engine goes on to produce the same results as the original")
+  public void duplicateMatchesOriginal() {
+    final var expected = simulate(makeModel(), SimulationEngine.BatchMode.Sequential);
+    final var model = makeModel();
+
+    final SimulationResults originalResults;
+    final SimulationResults copyResults;
+    try (final var engine = new SimulationEngine(SimulationEngine.BatchMode.Sequential, true)) {
+      final var original = new StreamingRun(engine, model);
+      // Report some results before duplicating, so that the copy has to carry on from what its sink already holds.
+      original.until(Duration.of(90, SECONDS));
+      original.sink.resultsSoFar(original.stream, Instant.EPOCH, original.elapsedTime);
+      // Every daemon is partway through an activity here, and some are awaiting children or conditions.
+      original.until(Duration.of(4, Duration.MINUTES).plus(Duration.of(500, Duration.MILLISECONDS)));
+
+      try (final var copyEngine = engine.duplicate()) {
+        final var copy = original.duplicate(copyEngine, model);
+
+        // Finish the copy first, to show that it doesn't disturb the original.
+        copyResults = copy.finish();
+        originalResults = original.finish();
+
+        // The copy caught up by replaying its tasks' reads, which doesn't step them in the simulation proper.
+        assertEquals(engine.taskStepMetrics().steps(), copyEngine.taskStepMetrics().steps());
+      }
+    }
+
+    for (final var actual : List.of(originalResults, copyResults)) {
+      assertEquals(expected.discreteProfiles, actual.discreteProfiles);
+      assertEquals(expected.realProfiles, actual.realProfiles);
+      assertEquals(expected.simulatedActivities, actual.simulatedActivities);
+      assertEquals(expected.unfinishedActivities, actual.unfinishedActivities);
+      assertEquals(expected.events, actual.events);
+    }
+
+    try (final var engine = new SimulationEngine()) {
+      assertThrows(IllegalStateException.class, engine::duplicate);
+    }
+  }
+
+  private static SimulationResults simulate(final MissionModel<?> model, final SimulationEngine.BatchMode batchMode) {
+    try (final var engine = new SimulationEngine(batchMode)) {
+      return run(engine, model);
+    }
+  }
+
+  private static SimulationResults run(final SimulationEngine engine, final MissionModel<?> model) {
+    final var timeline = new TemporalEventSource();
+    final var cells = new LiveCells(timeline, model.getInitialCells());
+    var elapsedTime = Duration.ZERO;
+
+    for (final var entry : model.getResources().entrySet()) {
+      engine.trackResource(entry.getKey(), entry.getValue(), elapsedTime);
+    }
+
+    engine.scheduleTask(Duration.ZERO, model.getDaemon());
+
+    while (true) {
+      final var batch = engine.extractNextJobs(HORIZON);
+
+      final var delta = batch.offsetFromStart().minus(elapsedTime);
+      elapsedTime = batch.offsetFromStart();
+      timeline.add(delta);
+
+      if (batch.jobs().isEmpty() && batch.offsetFromStart().isEqualTo(HORIZON)) break;
+
+      final var commit = engine.performJobs(batch.jobs(), cells, elapsedTime, HORIZON);
+      timeline.add(commit);
+    }
+
+    return SimulationEngine.computeResults(
+        engine,
+        Instant.EPOCH,
+        elapsedTime,
+        ACTIVITY_TOPIC,
+        timeline,
+        model.getTopics());
+  }
+
+  private static SimulationResults simulateUntil(final MissionModel<?> model, final Duration endTime) {
+    try (final var engine = new SimulationEngine()) {
+      final var timeline = new TemporalEventSource();
+      final var cells = new LiveCells(timeline, model.getInitialCells());
+      var elapsedTime = Duration.ZERO;
+
+      for (final var entry : model.getResources().entrySet()) {
+        engine.trackResource(entry.getKey(), entry.getValue(), elapsedTime);
+      }
+
+      engine.scheduleTask(Duration.ZERO, model.getDaemon());
+
+      while (true) {
+        final var batch = engine.extractNextJobs(endTime);
+
+        final var delta = batch.offsetFromStart().minus(elapsedTime);
+        elapsedTime = batch.offsetFromStart();
+        timeline.add(delta);
+
+        if (batch.jobs().isEmpty() && batch.offsetFromStart().isEqualTo(endTime)) break;
+
+        final var commit = engine.performJobs(batch.jobs(), cells, elapsedTime, HORIZON);
+        timeline.add(commit);
+      }
+
+      return SimulationEngine.computeResults(
+          engine,
+          Instant.EPOCH,
+          elapsedTime,
+          ACTIVITY_TOPIC,
+          timeline,
+          model.getTopics());
+    }
+  }
+
+  /** A simulation streaming its results as it goes, which can be paused at any time. */
+  private static final class StreamingRun {
+    private final SimulationEngine engine;
+    private final TemporalEventSource timeline;
+    private final LiveCells cells;
+    private final InMemorySimulationResultsSink sink;
+    private final SimulationEngine.ResultsStream stream;
+    private Duration elapsedTime;
+
+    StreamingRun(final SimulationEngine engine, final MissionModel<?> model) {
+      this.engine = engine;
+      this.timeline = new TemporalEventSource();
+      this.cells = new LiveCells(this.timeline, model.getInitialCells());
+      this.sink = new InMemorySimulationResultsSink();
+      this.stream = engine.streamResults(ACTIVITY_TOPIC, model.getTopics(), this.sink);
+      this.elapsedTime = Duration.ZERO;
+
+      for (final var entry : model.getResources().entrySet()) {
+        engine.trackResource(entry.getKey(), entry.getValue(), this.elapsedTime);
+      }
+      engine.scheduleTask(Duration.ZERO, model.getDaemon());
+    }
+
+    private StreamingRun(final StreamingRun other, final SimulationEngine engine, final MissionModel<?> model) {
+      this.engine = engine;
+      this.timeline = other.timeline.duplicate();
+      this.cells = new LiveCells(this.timeline, model.getInitialCells());
+      this.sink = other.sink.duplicate();
+      this.stream = other.stream.duplicate(engine, this.sink);
+      this.elapsedTime = other.elapsedTime;
+    }
+
+    StreamingRun duplicate(final SimulationEngine engine, final MissionModel<?> model) {
+      return new StreamingRun(this, engine, model);
+    }
+
+    void until(final Duration endTime) {
+      while (true) {
+        final var batch = this.engine.extractNextJobs(endTime);
+
+        final var delta = batch.offsetFromStart().minus(this.elapsedTime);
+        this.elapsedTime = batch.offsetFromStart();
+        this.timeline.add(delta);
+
+        if (batch.jobs().isEmpty() && batch.offsetFromStart().isEqualTo(endTime)) break;
+
+        final var commit = FlatEventGraph.of(this.engine.performJobs(batch.jobs(), this.cells, this.elapsedTime, HORIZON));
+        this.timeline.add(commit);
+        this.stream.commit(this.elapsedTime, commit);
+      }
+    }
+
+    SimulationResults finish() {
+      this.until(HORIZON);
+      this.stream.finish(Instant.EPOCH, HORIZON);
+      return this.sink.results();
+    }
+  }
+
+  private static MissionModel<?> makeModel() {
+    final var builder = new MissionModelBuilder();
+    final var registrar = new Registrar(builder);
+
+    final var model = InitializationContext.initializing(builder, () -> new Model(registrar));
+    builder.topic("ActivityType.Input.Parent", PARENT_INPUT, SLOT_OUTPUT);
+    builder.topic("ActivityType.Input.Child", CHILD_INPUT, SLOT_OUTPUT);
+
+    return builder.build(model, new DirectiveTypeRegistry<>(Map.of()));
+  }
+
+  private static volatile long sink = 0;
+
+  private static void busyWork(final int units) {
+    var x = 0L;
+    for (var i = 0; i < units * 100_000; i += 1) x = x * 31 + i;
+    sink = x;
+  }
+
+  private static final Topic<ActivityDirectiveId> ACTIVITY_TOPIC = new Topic<>();
+  private static final Topic<Integer> PARENT_INPUT = new Topic<>();
+  private static final Topic<Integer> CHILD_INPUT = new Topic<>();
+
+  private static final OutputType<Integer> SLOT_OUTPUT = new OutputType<>() {
+    @Override
+    public ValueSchema getSchema() {
+      return ValueSchema.ofStruct(Map.of("slot", ValueSchema.INT));
+    }
+
+    @Override
+    public SerializedValue serialize(final Integer slot) {
+      return SerializedValue.of(Map.of("slot", SerializedValue.of(slot)));
+    }
+  };
+
+  // Every slot runs its own daemon, so most batches contain one job per slot.
+  //   The daemons call and spawn children, and wait on conditions, so that batches also contain
+  //   signals and tasks awaiting their children.
+  //   Each called child is a root activity, and each child it spawns is a child activity.
+  private static final class Model {
+    private final List<Counter<Integer>> counters = new ArrayList<>();
+    private final List<Accumulator> accumulators = new ArrayList<>();
+
+    public Model(final Registrar registrar) {
+      for (var i = 0; i < SLOTS; i += 1) {
+        final var counter = Counter.ofInteger();
+        final var accumulator = new Accumulator();
+
+        registrar.discrete("/counter/" + i, counter, new IntegerValueMapper());
+        registrar.real("/accumulator/" + i, accumulator);
+
+        this.counters.add(counter);
+        this.accumulators.add(accumulator);
+      }
+
+      for (var i = 0; i < SLOTS; i += 1) {
+        final var slot = i;
+        final var counter = this.counters.get(slot);
+        final var accumulator = this.accumulators.get(slot);
+        final var neighbor = this.counters.get((slot + 1) % SLOTS);
+
+        ModelActions.spawn(() -> {
+          accumulator.rate.add(1.0);
+
+          var threshold = 10.0;
+          for (var iteration = 0; true; iteration += 1) {
+            final var directive = new ActivityDirectiveId(1_000L * slot + iteration);
+            call(() -> {
+              emit(directive, ACTIVITY_TOPIC);
+              emit(slot, PARENT_INPUT);
+              counter.add(1);
+
+              // Every slot's parent resumes in the same batch, in a job of its own.
+              //   Make earlier slots take longer, so that those jobs tend to finish in the reverse of the order given.
+              delay(Duration.of(1, SECONDS));
+              busyWork(SLOTS - slot);
+              spawn(() -> {
+                emit(slot, CHILD_INPUT);
+                neighbor.add(1);
+              });
+              delay(Duration.of(slot + 1, SECONDS));
+              counter.add(1);
+            });
+
+            waitUntil(accumulator.isBetween(threshold, Double.POSITIVE_INFINITY));
+            threshold += 10.0;
+          }
+        });
+      }
+    }
+  }
+}
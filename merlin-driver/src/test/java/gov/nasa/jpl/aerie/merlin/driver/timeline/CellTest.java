@@ -0,0 +1,73 @@
+package gov.nasa.jpl.aerie.merlin.driver.timeline;
+
+import gov.nasa.jpl.aerie.merlin.driver.engine.TaskId;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
+import gov.nasa.jpl.aerie.merlin.protocol.model.EffectTrait;
+import gov.nasa.jpl.aerie.merlin.protocol.model.PersistentCellType;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import org.junit.jupiter.api.Test;
+
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public final class CellTest {
+  private static final Topic<String> LETTERS = new Topic<>();
+
+  @Test
+  public void persistentStatesAreSharedAndReplaced() {
+    final var initialState = new StringBuilder("a").toString();
+    final var cell = new Cell<>(
+        new TranscriptCellType(),
+        new Selector<>(LETTERS, (String $) -> $),
+        new IterativeEventGraphEvaluator(),
+        initialState);
+
+    // Neither reading nor branching a persistent cell copies its state.
+    final var branch = cell.duplicate();
+    assertSame(initialState, cell.getState());
+    assertSame(initialState, branch.getState());
+
+    // Updates replace the state, leaving other branches as they were.
+    cell.apply(Event.create(LETTERS, "b", new TaskId(0)));
+    cell.step(Duration.of(2, SECONDS));
+    cell.apply(Event.create(LETTERS, "c", new TaskId(0)));
+    assertEquals("ab..c", cell.getState());
+    assertSame(initialState, branch.getState());
+  }
+
+  /** Records each effect, and a dot for each second that passes. */
+  private static final class TranscriptCellType implements PersistentCellType<String, String> {
+    @Override
+    public EffectTrait<String> getEffectType() {
+      return new Concatenation();
+    }
+
+    @Override
+    public String applied(final String state, final String effect) {
+      return state + effect;
+    }
+
+    @Override
+    public String stepped(final String state, final Duration duration) {
+      return state + ".".repeat((int) duration.dividedBy(Duration.SECOND));
+    }
+  }
+
+  private static final class Concatenation implements EffectTrait<String> {
+    @Override
+    public String empty() {
+      return "";
+    }
+
+    @Override
+    public String sequentially(final String prefix, final String suffix) {
+      return prefix + suffix;
+    }
+
+    @Override
+    public String concurrently(final String left, final String right) {
+      return left + right;
+    }
+  }
+}
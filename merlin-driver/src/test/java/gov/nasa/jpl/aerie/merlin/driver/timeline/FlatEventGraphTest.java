@@ -0,0 +1,81 @@
+package gov.nasa.jpl.aerie.merlin.driver.timeline;
+
+import gov.nasa.jpl.aerie.merlin.driver.engine.TaskId;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
+import gov.nasa.jpl.aerie.merlin.protocol.model.EffectTrait;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class FlatEventGraphTest {
+  private static final Topic<String> LETTERS = new Topic<>();
+  private static final Topic<String> DIGITS = new Topic<>();
+
+  @Test
+  public void evaluatesInTheSameShapeAsTheTree() {
+    final var graph = EventGraph.sequentially(
+        EventGraph.concurrently(letter("a"), EventGraph.sequentially(digit("1"), letter("b"))),
+        EventGraph.sequentially(letter("c"), EventGraph.concurrently(digit("2"), digit("3"))));
+
+    final var flat = FlatEventGraph.of(graph);
+
+    assertEquals(graph.evaluate(new Display(), FlatEventGraphTest::show), flat.evaluate(new Display(), FlatEventGraphTest::show));
+    assertEquals(graph, flat.toEventGraph());
+    assertEquals(Set.of(LETTERS, DIGITS), flat.topics());
+    assertEquals(6, flat.size());
+  }
+
+  @Test
+  public void selectionDropsSubgraphsWithoutSelectedEvents() {
+    final var graph = EventGraph.sequentially(
+        EventGraph.concurrently(letter("a"), EventGraph.sequentially(digit("1"), letter("b"))),
+        EventGraph.sequentially(digit("2"), EventGraph.concurrently(digit("3"), letter("c"))));
+
+    final var flat = FlatEventGraph.of(graph);
+
+    assertEquals(Optional.of("((a | b); c)"), flat.select(new Display(), new Selector<>(LETTERS, $ -> $)));
+    assertEquals(Optional.empty(), flat.select(new Display(), new Selector<>(new Topic<String>(), $ -> $)));
+  }
+
+  @Test
+  public void emptyGraphsHaveNoEvents() {
+    final var flat = FlatEventGraph.of(EventGraph.empty());
+
+    assertEquals(0, flat.size());
+    assertEquals("", flat.evaluate(new Display(), FlatEventGraphTest::show));
+    assertEquals(Optional.empty(), flat.select(new Display(), new Selector<>(LETTERS, $ -> $)));
+  }
+
+  private static EventGraph<Event> letter(final String value) {
+    return EventGraph.atom(Event.create(LETTERS, value, new TaskId(0)));
+  }
+
+  private static EventGraph<Event> digit(final String value) {
+    return EventGraph.atom(Event.create(DIGITS, value, new TaskId(0)));
+  }
+
+  private static String show(final Event event) {
+    return event.extract(LETTERS).or(() -> event.extract(DIGITS)).orElseThrow();
+  }
+
+  // A deliberately non-associative trait, so that evaluations of differently-shaped graphs can be told apart.
+  private static final class Display implements EffectTrait<String> {
+    @Override
+    public String empty() {
+      return "";
+    }
+
+    @Override
+    public String sequentially(final String prefix, final String suffix) {
+      return "(%s; %s)".formatted(prefix, suffix);
+    }
+
+    @Override
+    public String concurrently(final String left, final String right) {
+      return "(%s | %s)".formatted(left, right);
+    }
+  }
+}
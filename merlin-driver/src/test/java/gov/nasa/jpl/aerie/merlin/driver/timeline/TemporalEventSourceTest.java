@@ -0,0 +1,109 @@
+package gov.nasa.jpl.aerie.merlin.driver.timeline;
+
+import gov.nasa.jpl.aerie.merlin.driver.engine.TaskId;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
+import gov.nasa.jpl.aerie.merlin.protocol.model.CellType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.EffectTrait;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class TemporalEventSourceTest {
+  private static final Topic<String> LETTERS = new Topic<>();
+  private static final Topic<String> DIGITS = new Topic<>();
+  private static final Topic<String> OTHER = new Topic<>();
+
+  @Test
+  public void skippingAgreesWithReplaying() {
+    final var timeline = new TemporalEventSource();
+    final var selector = new Selector<>(
+        new Selector.SelectorRow<>(LETTERS, (String $) -> $),
+        new Selector.SelectorRow<>(DIGITS, (String $) -> $));
+
+    final var replayed = new Cell<>(new LogCellType(false), selector, new IterativeEventGraphEvaluator(), new Log());
+    final var skipped = new Cell<>(new LogCellType(true), selector, new IterativeEventGraphEvaluator(), new Log());
+    final var replayCursor = timeline.cursor();
+    final var skipCursor = timeline.cursor();
+
+    for (var round = 0; round < 3; round += 1) {
+      timeline.add(Duration.of(1, SECONDS));
+      timeline.add(event(OTHER, "x"));
+      timeline.add(Duration.of(2, SECONDS));
+      timeline.add(EventGraph.concurrently(event(LETTERS, "a" + round), event(DIGITS, "1")));
+      timeline.add(event(OTHER, "y"));
+      timeline.add(Duration.of(3, SECONDS));
+      timeline.add(event(DIGITS, "2"));
+      timeline.add(Duration.of(4, SECONDS));
+
+      replayCursor.stepUp(replayed);
+      skipCursor.stepUp(skipped);
+
+      assertEquals(replayed.getState().entries, skipped.getState().entries);
+    }
+
+    // Only the stretches of time around the commits the cell is interested in are stepped over.
+    assertEquals(12, replayed.getState().steps);
+    assertEquals(9, skipped.getState().steps);
+    assertTrue(skipped.isStepAdditive());
+  }
+
+  private static EventGraph<Event> event(final Topic<String> topic, final String value) {
+    return EventGraph.atom(Event.create(topic, value, new TaskId(0)));
+  }
+
+  private static final class Log {
+    private final List<String> entries = new ArrayList<>();
+    private long elapsedSeconds = 0;
+    private int steps = 0;
+  }
+
+  private record LogCellType(boolean isStepAdditive) implements CellType<String, Log> {
+    @Override
+    public EffectTrait<String> getEffectType() {
+      return new Concatenation();
+    }
+
+    @Override
+    public Log duplicate(final Log log) {
+      final var copy = new Log();
+      copy.entries.addAll(log.entries);
+      copy.elapsedSeconds = log.elapsedSeconds;
+      copy.steps = log.steps;
+      return copy;
+    }
+
+    @Override
+    public void apply(final Log log, final String effect) {
+      log.entries.add(log.elapsedSeconds + ":" + effect);
+    }
+
+    @Override
+    public void step(final Log log, final Duration duration) {
+      log.elapsedSeconds += duration.dividedBy(Duration.SECOND);
+      log.steps += 1;
+    }
+  }
+
+  private static final class Concatenation implements EffectTrait<String> {
+    @Override
+    public String empty() {
+      return "";
+    }
+
+    @Override
+    public String sequentially(final String prefix, final String suffix) {
+      return prefix + suffix;
+    }
+
+    @Override
+    public String concurrently(final String left, final String right) {
+      return left + right;
+    }
+  }
+}
@@ -1,9 +1,12 @@
 package gov.nasa.jpl.aerie.merlin.processor;
 
+import gov.nasa.jpl.aerie.merlin.framework.ModelActions;
 import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType;
 import gov.nasa.jpl.aerie.merlin.framework.annotations.AutoValueMapper;
 import gov.nasa.jpl.aerie.merlin.framework.annotations.MissionModel;
 import gov.nasa.jpl.aerie.merlin.processor.generator.MissionModelGenerator;
+import gov.nasa.jpl.aerie.merlin.processor.generator.ResumableEffectModelGenerator;
+import gov.nasa.jpl.aerie.merlin.processor.metamodel.ActivityTypeRecord;
 import gov.nasa.jpl.aerie.merlin.processor.metamodel.MissionModelRecord;
 
 import javax.annotation.processing.Completion;
@@ -26,6 +29,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -43,6 +47,7 @@ public final class MissionModelProcessor implements Processor {
   private Filer filer = null;
   private Elements elementUtils = null;
   private Types typeUtils = null;
+  private ResumableEffectModelGenerator resumableEffectModelGen = null;
 
   @Override
   public Set<String> getSupportedOptions() {
@@ -69,6 +74,7 @@ public final class MissionModelProcessor implements Processor {
     this.filer = processingEnv.getFiler();
     this.elementUtils = processingEnv.getElementUtils();
     this.typeUtils = processingEnv.getTypeUtils();
+    this.resumableEffectModelGen = new ResumableEffectModelGenerator(processingEnv);
   }
 
   @Override
@@ -137,7 +143,9 @@ public final class MissionModelProcessor implements Processor {
         for (final var activityRecord : missionModelRecord.activityTypes()) {
           this.ownedActivityTypes.add(activityRecord.inputType().declaration());
           if (!activityRecord.inputType().mapper().isCustom) {
-            missionModelGen.generateActivityMapper(missionModelRecord, activityRecord).ifPresent(generatedFiles::add);
+            missionModelGen
+                .generateActivityMapper(missionModelRecord, generateContinuation(missionModelRecord, activityRecord))
+                .ifPresent(generatedFiles::add);
           }
         }
 
@@ -190,6 +198,28 @@ public final class MissionModelProcessor implements Processor {
     return false;
   }
 
+  /**
+   * Generate the continuation of a resumable effect model, falling back to a threaded effect model
+   * if it can't be generated.
+   */
+  private ActivityTypeRecord generateContinuation(final MissionModelRecord missionModel, final ActivityTypeRecord activityType) {
+    final var effectModel = activityType.effectModel();
+    if (effectModel.isEmpty() || effectModel.get().executor() != ActivityType.Executor.Resumable) return activityType;
+
+    final var yieldingClasses = Set.of(
+        ModelActions.class.getCanonicalName(),
+        missionModel.getActivityActionsName().canonicalName());
+    if (this.resumableEffectModelGen.generate(activityType.inputType().declaration(), effectModel.get(), yieldingClasses)) {
+      return activityType;
+    }
+
+    return new ActivityTypeRecord(
+        activityType.fullyQualifiedClass(),
+        activityType.name(),
+        activityType.inputType(),
+        Optional.of(effectModel.get().withExecutor(ActivityType.Executor.Threaded)));
+  }
+
   @Override
   public Iterable<? extends Completion> getCompletions(
       final Element element,
@@ -805,31 +805,7 @@ public record MissionModelGenerator(Elements elementUtils, Types typeUtils, Mess
                     Modifier.FINAL)
                 .addCode(
                     activityType.effectModel()
-                        .map(effectModel -> CodeBlock
-                            .builder()
-                            .add(
-                                "return $T.$L(() -> {$>\n$L$<});\n",
-                                ModelActions.class,
-                                switch (effectModel.executor()) {
-                                  case Threaded -> "threaded";
-                                  case Replaying -> "replaying";
-                                },
-                                effectModel.returnType()
-                                    .map(returnType -> CodeBlock
-                                        .builder()
-                                        .addStatement("$T.emit($L, this.$L)", ModelActions.class, "activity", "inputTopic")
-                                        .addStatement("final var result = $L.$L($L)", "activity", effectModel.methodName(), "model")
-                                        .addStatement("$T.emit(result, this.$L)", ModelActions.class, "outputTopic")
-                                        .addStatement("return result")
-                                        .build())
-                                    .orElseGet(() -> CodeBlock
-                                        .builder()
-                                        .addStatement("$T.emit($L, this.$L)", ModelActions.class, "activity", "inputTopic")
-                                        .addStatement("$L.$L($L)", "activity", effectModel.methodName(), "model")
-                                        .addStatement("$T.emit($T.UNIT, this.$L)", ModelActions.class, Unit.class, "outputTopic")
-                                        .addStatement("return $T.UNIT", Unit.class)
-                                        .build()))
-                            .build())
+                        .map(effectModel -> makeEffectModelBlock(activityType, effectModel))
                         .orElseGet(() -> CodeBlock
                             .builder()
                             .add(
@@ -858,6 +834,55 @@ public record MissionModelGenerator(Elements elementUtils, Types typeUtils, Mess
                      .build();
   }
 
+  private CodeBlock makeEffectModelBlock(final ActivityTypeRecord activityType, final EffectModelRecord effectModel) {
+    final String executor;
+    switch (effectModel.executor()) {
+      case Threaded -> executor = "threaded";
+      case Replaying -> executor = "replaying";
+      case Resumable -> {
+        final var declaration = activityType.inputType().declaration();
+        final var continuation = ClassName.get(
+            this.elementUtils.getPackageOf(declaration).getQualifiedName().toString(),
+            ResumableEffectModelGenerator.continuationName(declaration));
+        return CodeBlock
+            .builder()
+            .addStatement(
+                "return $T.resumable(() -> new $T($L, $L, this.$L, this.$L))",
+                ModelActions.class,
+                continuation,
+                "activity",
+                "model",
+                "inputTopic",
+                "outputTopic")
+            .build();
+      }
+      default -> throw new Error("Unexpected executor " + effectModel.executor());
+    }
+
+    return CodeBlock
+        .builder()
+        .add(
+            "return $T.$L(() -> {$>\n$L$<});\n",
+            ModelActions.class,
+            executor,
+            effectModel.returnType()
+                .map(returnType -> CodeBlock
+                    .builder()
+                    .addStatement("$T.emit($L, this.$L)", ModelActions.class, "activity", "inputTopic")
+                    .addStatement("final var result = $L.$L($L)", "activity", effectModel.methodName(), "model")
+                    .addStatement("$T.emit(result, this.$L)", ModelActions.class, "outputTopic")
+                    .addStatement("return result")
+                    .build())
+                .orElseGet(() -> CodeBlock
+                    .builder()
+                    .addStatement("$T.emit($L, this.$L)", ModelActions.class, "activity", "inputTopic")
+                    .addStatement("$L.$L($L)", "activity", effectModel.methodName(), "model")
+                    .addStatement("$T.emit($T.UNIT, this.$L)", ModelActions.class, Unit.class, "outputTopic")
+                    .addStatement("return $T.UNIT", Unit.class)
+                    .build()))
+        .build();
+  }
+
   private static MethodSpec makeSerializeReturnValueMethod(final ActivityTypeRecord activityType) {
     return MethodSpec.methodBuilder("serialize")
                      .addModifiers(Modifier.PUBLIC)
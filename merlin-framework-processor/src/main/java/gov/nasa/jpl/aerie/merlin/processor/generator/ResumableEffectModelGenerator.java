@@ -0,0 +1,1114 @@
+package gov.nasa.jpl.aerie.merlin.processor.generator;
+
+import com.sun.source.tree.AssignmentTree;
+import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.CaseTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.CompoundAssignmentTree;
+import com.sun.source.tree.ExpressionStatementTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.ParameterizedTypeTree;
+import com.sun.source.tree.ParenthesizedTree;
+import com.sun.source.tree.PrimitiveTypeTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.tree.ThrowTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TypeCastTree;
+import com.sun.source.tree.UnaryTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType;
+import gov.nasa.jpl.aerie.merlin.processor.MissionModelProcessor;
+import gov.nasa.jpl.aerie.merlin.processor.metamodel.EffectModelRecord;
+
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles effect models marked {@link ActivityType.Executor#Resumable} into
+ * {@link gov.nasa.jpl.aerie.merlin.framework.Resumable} state machines.
+ *
+ * <p>
+ * Only effect models written in a restricted style can be compiled:
+ * every {@code delay}, {@code waitUntil}, or {@code call} is a statement of its own at the top level of the method body,
+ * and every local variable used after such a yield is declared at the top level, initialized, and never reassigned.
+ * Each stretch of statements between yields becomes one step of the state machine,
+ * and the locals that live across yields become fields of it.
+ * Yields anywhere else -- within a loop, a branch, or a method of the activity the effect model calls --
+ * cannot be resumed from, nor can calls to the activity's methods whose source isn't available to check,
+ * so any other effect model runs on a thread instead, as if it were {@link ActivityType.Executor#Threaded}.
+ * The reason is reported as a warning on the activity type.
+ * </p>
+ *
+ * <p>
+ * Yields are recognized by name, as calls to {@code ModelActions} or to the mission model's generated {@code ActivityActions}.
+ * A yield this generator can't see, such as one within a method of another object the effect model calls,
+ * fails the simulation with an {@link IllegalStateException} explaining as much when the effect model next acts.
+ * Lambdas may yield, as long as they run as tasks of their own (by {@code spawn} or {@code call}, for instance).
+ * </p>
+ *
+ * <p>
+ * The generated source is assembled from the effect model's own source text, since annotation processors
+ * can't see the attributed trees of method bodies. Members of the activity type that the method body refers to
+ * implicitly are qualified explicitly, and the types of hoisted {@code var} locals are inferred from their
+ * initializers where that can be done without overload resolution.
+ * </p>
+ */
+public final class ResumableEffectModelGenerator {
+  private static final Set<String> YIELDS = Set.of("delay", "waitUntil", "call");
+  private static final Set<String> RESERVED_NAMES = Set.of("$activity", "$step", "$inputTopic", "$outputTopic", "$result");
+
+  private static final String MODEL_ACTIONS = "gov.nasa.jpl.aerie.merlin.framework.ModelActions";
+  private static final String RESUMABLE = "gov.nasa.jpl.aerie.merlin.framework.Resumable";
+  private static final String TOPIC = "gov.nasa.jpl.aerie.merlin.protocol.driver.Topic";
+  private static final String UNIT = "gov.nasa.jpl.aerie.merlin.protocol.types.Unit";
+
+  private final Elements elementUtils;
+  private final Types typeUtils;
+  private final Filer filer;
+  private final Messager messager;
+  private final Optional<Trees> trees;
+
+  public ResumableEffectModelGenerator(final ProcessingEnvironment processingEnv) {
+    this.elementUtils = processingEnv.getElementUtils();
+    this.typeUtils = processingEnv.getTypeUtils();
+    this.filer = processingEnv.getFiler();
+    this.messager = processingEnv.getMessager();
+    this.trees = getTrees(processingEnv);
+  }
+
+  /** The simple name of the continuation generated for an activity type, in the activity type's own package. */
+  public static String continuationName(final TypeElement activityType) {
+    return activityType.getSimpleName() + "Continuation";
+  }
+
+  /**
+   * Generate a continuation for the effect model of the given activity type, if its effect model is written in the
+   * restricted style. Otherwise, warn that it will run on a thread instead.
+   *
+   * @param yieldingClasses The qualified names of the classes whose {@code delay}, {@code waitUntil}, and {@code call}
+   *   methods yield.
+   * @return Whether the continuation was generated.
+   */
+  public boolean generate(
+      final TypeElement activityType,
+      final EffectModelRecord effectModel,
+      final Set<String> yieldingClasses)
+  {
+    final String source;
+    try {
+      source = new Compilation(activityType, effectModel, yieldingClasses).compile();
+    } catch (final NotResumableException ex) {
+      this.messager.printMessage(
+          Diagnostic.Kind.WARNING,
+          "The effect model of %s will run on a thread, because %s"
+              .formatted(activityType.getSimpleName(), ex.getMessage()),
+          activityType);
+      return false;
+    }
+
+    final var qualifiedName =
+        this.elementUtils.getPackageOf(activityType).getQualifiedName() + "." + continuationName(activityType);
+    this.messager.printMessage(Diagnostic.Kind.NOTE, "Generating " + qualifiedName);
+    try (final var writer = this.filer.createSourceFile(qualifiedName, activityType).openWriter()) {
+      writer.write(source);
+    } catch (final IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return true;
+  }
+
+  private static Optional<Trees> getTrees(final ProcessingEnvironment processingEnv) {
+    try {
+      return Optional.of(Trees.instance(processingEnv));
+    } catch (final IllegalArgumentException ex) {
+      // The syntax trees are only available from the compiler's own environment, not one wrapped by a build tool.
+      //   (Gradle wraps the environment of processors it runs incrementally, which is why this one isn't declared so.)
+      return Optional.empty();
+    }
+  }
+
+  private static final class NotResumableException extends Exception {
+    NotResumableException(final String message) {
+      super(message);
+    }
+  }
+
+  private record Replacement(long start, long end, String text) {}
+
+  /** The compilation of one effect model, and everything learned about it along the way. */
+  private final class Compilation {
+    private static final Pattern DECLARATOR = Pattern.compile("\\s*([\\w$]+)\\s*=\\s*$");
+
+    private final TypeElement activityType;
+    private final EffectModelRecord effectModel;
+    private final Set<String> yieldingClasses;
+    private final String activityName;
+    private final String packageName;
+
+    private Trees trees;
+    private CompilationUnitTree unit;
+    private SourcePositions positions;
+    private CharSequence source;
+    private ExecutableElement method;
+    private String parameterName;
+
+    private final Map<String, VariableElement> fields = new HashMap<>();
+    private final Map<String, List<ExecutableElement>> methods = new HashMap<>();
+    private final Map<String, TypeElement> memberTypes = new HashMap<>();
+    private final Set<String> localNames = new HashSet<>();
+    private final Set<String> reassigned = new HashSet<>();
+    private final List<Replacement> replacements = new ArrayList<>();
+
+    Compilation(final TypeElement activityType, final EffectModelRecord effectModel, final Set<String> yieldingClasses) {
+      this.activityType = activityType;
+      this.effectModel = effectModel;
+      this.yieldingClasses = yieldingClasses;
+      this.activityName = activityType.getSimpleName().toString();
+      this.packageName = elementUtils.getPackageOf(activityType).getQualifiedName().toString();
+    }
+
+    String compile() throws NotResumableException {
+      this.trees = ResumableEffectModelGenerator.this.trees
+          .orElseThrow(() -> new NotResumableException(
+              "the compiler's syntax trees are not available (is the processor being run by a build tool as incremental?)"));
+
+      if (this.activityType.getNestingKind() != NestingKind.TOP_LEVEL) {
+        throw new NotResumableException("it is not a top-level class");
+      }
+      if (!this.activityType.getTypeParameters().isEmpty()) {
+        throw new NotResumableException("it is generic");
+      }
+
+      this.method = this.activityType.getEnclosedElements().stream()
+          .filter(e -> e.getKind() == ElementKind.METHOD)
+          .filter(e -> e.getSimpleName().contentEquals(this.effectModel.methodName()))
+          .filter(e -> e.getAnnotation(ActivityType.EffectModel.class) != null)
+          .map(ExecutableElement.class::cast)
+          .findFirst()
+          .orElseThrow(() -> new NotResumableException("its effect model could not be found"));
+      if (!this.method.getTypeParameters().isEmpty()) throw new NotResumableException("its effect model is generic");
+      if (!this.method.getThrownTypes().isEmpty()) throw new NotResumableException("its effect model throws checked exceptions");
+      if (this.method.getParameters().size() != 1) throw new NotResumableException("its effect model does not take exactly one parameter");
+      this.parameterName = this.method.getParameters().get(0).getSimpleName().toString();
+
+      final var path = this.trees.getPath(this.method);
+      if (path == null) throw new NotResumableException("the source of its effect model is not available");
+      this.unit = path.getCompilationUnit();
+      this.positions = this.trees.getSourcePositions();
+      try {
+        this.source = this.unit.getSourceFile().getCharContent(true);
+      } catch (final IOException ex) {
+        throw new NotResumableException("the source of its effect model could not be read");
+      }
+
+      final var body = ((MethodTree) path.getLeaf()).getBody();
+      if (body == null) throw new NotResumableException("its effect model has no body");
+
+      for (final var member : elementUtils.getAllMembers(this.activityType)) {
+        final var name = member.getSimpleName().toString();
+        switch (member.getKind()) {
+          case FIELD, ENUM_CONSTANT -> this.fields.put(name, (VariableElement) member);
+          case METHOD -> this.methods.computeIfAbsent(name, $ -> new ArrayList<>()).add((ExecutableElement) member);
+          case CLASS, INTERFACE, ENUM, RECORD, ANNOTATION_TYPE -> this.memberTypes.put(name, (TypeElement) member);
+          default -> {}
+        }
+      }
+
+      return generate(body);
+    }
+
+    private String generate(final BlockTree body) throws NotResumableException {
+      final var statements = body.getStatements();
+      final var returnsValue = this.effectModel.returnType().isPresent();
+
+      // Classify the top-level statements, and split them into steps at each yield.
+      final var steps = new ArrayList<List<StatementTree>>();
+      var step = new ArrayList<StatementTree>();
+      ReturnTree finalReturn = null;
+      for (var i = 0; i < statements.size(); i += 1) {
+        final var statement = statements.get(i);
+        if (statement instanceof ReturnTree r) {
+          if (!returnsValue || i != statements.size() - 1) {
+            throw new NotResumableException("its effect model returns before its last statement");
+          }
+          finalReturn = r;
+          continue;
+        }
+        if (statement instanceof ThrowTree) {
+          throw new NotResumableException("its effect model throws at the top level of its body");
+        }
+        step.add(statement);
+        if (isYieldStatement(statement)) {
+          steps.add(step);
+          step = new ArrayList<>();
+        }
+      }
+      steps.add(step);
+
+      // Check the body, and collect the rewrites it needs.
+      final var checker = new Checker(new HashSet<>(statements), finalReturn);
+      checker.scan(body, null);
+      if (checker.failure != null) throw checker.failure;
+
+      for (final var name : this.localNames) {
+        if (RESERVED_NAMES.contains(name)) throw new NotResumableException("its effect model declares `%s`".formatted(name));
+      }
+
+      // The names each step refers to, to tell which locals live across yields.
+      final var referencedLater = new HashSet<String>();
+      final var hoisted = new HashSet<VariableTree>();
+      for (var i = steps.size() - 1; i >= 0; i -= 1) {
+        for (final var statement : steps.get(i)) {
+          if (statement instanceof VariableTree v && referencedLater.contains(v.getName().toString())) hoisted.add(v);
+        }
+        for (final var statement : steps.get(i)) referencedLater.addAll(namesIn(statement));
+        // The result is computed in the last step.
+        if (i == steps.size() - 1 && finalReturn != null) referencedLater.addAll(namesIn(finalReturn));
+      }
+
+      // Hoist the locals that live across yields into fields.
+      final var scope = new HashMap<String, TypeMirror>();
+      scope.put(this.parameterName, this.method.getParameters().get(0).asType());
+      final var hoistedFields = new ArrayList<String>();
+      for (var i = 0; i < statements.size(); i += 1) {
+        if (!(statements.get(i) instanceof VariableTree v)) continue;
+        final var name = v.getName().toString();
+
+        final var declaredType = explicitType(v);
+        final var type = declaredType.isPresent() ? resolveType(v.getType()) : typeOf(v.getInitializer(), scope);
+        if (type != null) scope.put(name, type);
+
+        if (!hoisted.contains(v)) continue;
+        if (v.getInitializer() == null) {
+          throw new NotResumableException("`%s` is used after a yield, but is not initialized where it is declared".formatted(name));
+        }
+        if (this.reassigned.contains(name)) {
+          throw new NotResumableException("`%s` is used after a yield, but is reassigned".formatted(name));
+        }
+        if (i > 0 && start(statements.get(i - 1)) == start(v)
+            || i + 1 < statements.size() && start(statements.get(i + 1)) == start(v)) {
+          throw new NotResumableException("`%s` is used after a yield, but is declared alongside other variables".formatted(name));
+        }
+
+        final String typeText;
+        if (declaredType.isPresent()) {
+          typeText = declaredType.get();
+        } else if (type != null) {
+          typeText = typeText(type).orElseThrow(() -> new NotResumableException(
+              "`%s` is used after a yield, but its type is not accessible".formatted(name)));
+        } else {
+          throw new NotResumableException(
+              "`%s` is used after a yield, but its type can't be inferred; declare its type explicitly".formatted(name));
+        }
+        hoistedFields.add("  private %s %s;\n".formatted(typeText, name));
+      }
+
+      final var parameterType = typeText(this.method.getParameters().get(0).asType())
+          .orElseThrow(() -> new NotResumableException("the type of its effect model's parameter is not accessible"));
+      final var returnType = this.effectModel.returnType().isPresent()
+          ? typeText(boxed(this.method.getReturnType()))
+              .orElseThrow(() -> new NotResumableException("the type of its effect model's result is not accessible"))
+          : UNIT;
+
+      // Emit the continuation.
+      final var closingBrace = closingBrace(start(body));
+      final var ends = new HashMap<StatementTree, Long>();
+      for (var i = 0; i < statements.size(); i += 1) {
+        ends.put(statements.get(i), (i + 1 < statements.size()) ? start(statements.get(i + 1)) : closingBrace);
+      }
+
+      final var name = continuationName(this.activityType);
+      final var out = new StringBuilder();
+      out.append("package ").append(this.packageName).append(";\n\n");
+      for (final var importTree : this.unit.getImports()) out.append(importTree.toString().strip()).append("\n");
+      out.append("\n");
+      out.append("@javax.annotation.processing.Generated(\"%s\")\n".formatted(MissionModelProcessor.class.getCanonicalName()));
+      out.append("public final class %s implements %s<%s> {\n".formatted(name, RESUMABLE, returnType));
+      out.append("  private final %s $activity;\n".formatted(this.activityName));
+      out.append("  private final %s %s;\n".formatted(parameterType, this.parameterName));
+      out.append("  private final %s<%s> $inputTopic;\n".formatted(TOPIC, this.activityName));
+      out.append("  private final %s<%s> $outputTopic;\n".formatted(TOPIC, returnType));
+      out.append("  private int $step = 0;\n");
+      hoistedFields.forEach(out::append);
+      out.append("\n");
+      out.append("  public %s(final %s $activity, final %s %s, final %s<%s> $inputTopic, final %s<%s> $outputTopic) {\n"
+          .formatted(name, this.activityName, parameterType, this.parameterName, TOPIC, this.activityName, TOPIC, returnType));
+      out.append("    this.$activity = $activity;\n");
+      out.append("    this.%1$s = %1$s;\n".formatted(this.parameterName));
+      out.append("    this.$inputTopic = $inputTopic;\n");
+      out.append("    this.$outputTopic = $outputTopic;\n");
+      out.append("  }\n\n");
+      out.append("  @Override\n");
+      out.append("  public %s resume() {\n".formatted(returnType));
+      out.append("    switch (this.$step) {\n");
+      for (var i = 0; i < steps.size(); i += 1) {
+        out.append("      case %d: {\n".formatted(i));
+        out.append("        this.$step = %d;\n".formatted(i + 1));
+        if (i == 0) out.append("        %s.emit(this.$activity, this.$inputTopic);\n".formatted(MODEL_ACTIONS));
+        for (final var statement : steps.get(i)) {
+          final var end = ends.get(statement);
+          if (statement instanceof VariableTree v && hoisted.contains(v)) {
+            out.append("        this.%s = %s\n".formatted(v.getName(), indented(statement, text(start(v.getInitializer()), end))));
+          } else {
+            out.append("        ").append(indented(statement, text(start(statement), end))).append("\n");
+          }
+        }
+        if (i < steps.size() - 1) {
+          out.append("        return null;\n");
+        } else {
+          final var result = (finalReturn != null)
+              ? text(start(finalReturn.getExpression()), closingBrace).strip().replaceFirst(";$", "")
+              : UNIT + ".UNIT";
+          out.append("        final %s $result = %s;\n".formatted(returnType, result));
+          out.append("        %s.emit($result, this.$outputTopic);\n".formatted(MODEL_ACTIONS));
+          out.append("        return $result;\n");
+        }
+        out.append("      }\n");
+      }
+      out.append("      default:\n");
+      out.append("        throw new IllegalStateException(\"%s was resumed after it finished\");\n".formatted(this.activityName));
+      out.append("    }\n");
+      out.append("  }\n");
+      out.append("}\n");
+      return out.toString();
+    }
+
+    /** Walks the whole method body, rejecting what can't be compiled and recording what must be rewritten. */
+    private final class Checker extends TreeScanner<Void, Void> {
+      private final Set<? extends StatementTree> topLevel;
+      private final ReturnTree finalReturn;
+      private int lambdaDepth = 0;
+      private NotResumableException failure = null;
+
+      Checker(final Set<? extends StatementTree> topLevel, final ReturnTree finalReturn) {
+        this.topLevel = topLevel;
+        this.finalReturn = finalReturn;
+      }
+
+      @Override
+      public Void scan(final Tree tree, final Void unused) {
+        if (this.failure != null) return null;
+        try {
+          return super.scan(tree, unused);
+        } catch (final Failure ex) {
+          this.failure = ex.reason;
+          return null;
+        }
+      }
+
+      void fail(final String message) {
+        throw new Failure(new NotResumableException(message));
+      }
+
+      @Override
+      public Void visitExpressionStatement(final ExpressionStatementTree node, final Void unused) {
+        if (this.topLevel.contains(node) && node.getExpression() instanceof MethodInvocationTree invocation && isYield(invocation)) {
+          // The yield itself is allowed here, but not within its arguments.
+          scanInvocation(invocation);
+          return null;
+        }
+        return super.visitExpressionStatement(node, unused);
+      }
+
+      @Override
+      public Void visitMethodInvocation(final MethodInvocationTree node, final Void unused) {
+        if (this.lambdaDepth == 0 && isYield(node)) fail("its effect model yields within a compound statement or expression");
+        scanInvocation(node);
+        return null;
+      }
+
+      private void scanInvocation(final MethodInvocationTree node) {
+        scan(node.getTypeArguments(), null);
+        if (node.getMethodSelect() instanceof IdentifierTree identifier) {
+          rewriteMethodName(identifier);
+        } else if (node.getMethodSelect() instanceof MemberSelectTree select
+                   && select.getExpression() instanceof IdentifierTree receiver
+                   && receiver.getName().contentEquals("this")) {
+          final var candidates = methods.getOrDefault(select.getIdentifier().toString(), List.of());
+          if (candidates.stream().anyMatch($ -> !isAccessible($))) {
+            fail("its effect model calls `%s`, which is not accessible from the activity's package".formatted(select.getIdentifier()));
+          }
+          checkYieldFree(select.getIdentifier().toString(), candidates, new HashSet<>());
+          rewriteThis(receiver);
+        } else {
+          scan(node.getMethodSelect(), null);
+        }
+        scan(node.getArguments(), null);
+      }
+
+      @Override
+      public Void visitReturn(final ReturnTree node, final Void unused) {
+        if (this.lambdaDepth == 0 && node != this.finalReturn) fail("its effect model returns before its last statement");
+        return super.visitReturn(node, unused);
+      }
+
+      @Override
+      public Void visitLambdaExpression(final LambdaExpressionTree node, final Void unused) {
+        this.lambdaDepth += 1;
+        try {
+          return super.visitLambdaExpression(node, unused);
+        } finally {
+          this.lambdaDepth -= 1;
+        }
+      }
+
+      @Override
+      public Void visitClass(final ClassTree node, final Void unused) {
+        fail("its effect model declares a class");
+        return null;
+      }
+
+      @Override
+      public Void visitNewClass(final NewClassTree node, final Void unused) {
+        if (node.getClassBody() != null) fail("its effect model declares an anonymous class");
+        return super.visitNewClass(node, unused);
+      }
+
+      @Override
+      public Void visitVariable(final VariableTree node, final Void unused) {
+        final var name = node.getName().toString();
+        if (fields.containsKey(name)) fail("its effect model declares `%s`, which hides a field of the activity".formatted(name));
+        localNames.add(name);
+        return super.visitVariable(node, unused);
+      }
+
+      @Override
+      public Void visitAssignment(final AssignmentTree node, final Void unused) {
+        if (node.getVariable() instanceof IdentifierTree identifier) reassigned.add(identifier.getName().toString());
+        return super.visitAssignment(node, unused);
+      }
+
+      @Override
+      public Void visitCompoundAssignment(final CompoundAssignmentTree node, final Void unused) {
+        if (node.getVariable() instanceof IdentifierTree identifier) reassigned.add(identifier.getName().toString());
+        return super.visitCompoundAssignment(node, unused);
+      }
+
+      @Override
+      public Void visitUnary(final UnaryTree node, final Void unused) {
+        if (node.getExpression() instanceof IdentifierTree identifier) reassigned.add(identifier.getName().toString());
+        return super.visitUnary(node, unused);
+      }
+
+      @Override
+      public Void visitCase(final CaseTree node, final Void unused) {
+        // Enum constants in case labels are never qualified.
+        for (final var expression : node.getExpressions()) {
+          if (!(expression instanceof IdentifierTree)) scan(expression, null);
+        }
+        if (node.getCaseKind() == CaseTree.CaseKind.RULE) {
+          scan(node.getBody(), null);
+        } else {
+          scan(node.getStatements(), null);
+        }
+        return null;
+      }
+
+      @Override
+      public Void visitMemberSelect(final MemberSelectTree node, final Void unused) {
+        if (node.getExpression() instanceof IdentifierTree receiver && receiver.getName().contentEquals("this")) {
+          final var name = node.getIdentifier().toString();
+          final var field = fields.get(name);
+          if (field != null && !isAccessible(field)) {
+            final var accessor = recordAccessor(field)
+                .orElseThrow(() -> new Failure(new NotResumableException(
+                    "its effect model refers to `%s`, which is not accessible from the activity's package".formatted(name))));
+            replacements.add(new Replacement(start(receiver), endOfSelection(receiver, name), "this.$activity." + accessor + "()"));
+          } else {
+            rewriteThis(receiver);
+          }
+          return null;
+        }
+        return super.visitMemberSelect(node, unused);
+      }
+
+      @Override
+      public Void visitIdentifier(final IdentifierTree node, final Void unused) {
+        final var name = node.getName().toString();
+        if (name.equals("this")) {
+          rewriteThis(node);
+        } else if (name.equals("super")) {
+          fail("its effect model refers to `super`");
+        } else if (!localNames.contains(name) && !name.equals(parameterName)) {
+          final var field = fields.get(name);
+          final var memberType = memberTypes.get(name);
+          if (field != null && memberType != null) {
+            fail("`%s` names both a field and a member type of the activity".formatted(name));
+          } else if (field != null) {
+            rewriteField(node, field);
+          } else if (memberType != null) {
+            if (!isAccessible(memberType)) {
+              fail("its effect model refers to `%s`, which is not accessible from the activity's package".formatted(name));
+            }
+            if (memberType.getKind() == ElementKind.CLASS && !memberType.getModifiers().contains(Modifier.STATIC)) {
+              fail("its effect model refers to the inner class `%s`".formatted(name));
+            }
+            replace(node, qualifiedMemberName(memberType));
+          }
+        }
+        return null;
+      }
+
+      private void rewriteThis(final IdentifierTree node) {
+        replace(node, "this.$activity");
+      }
+
+      private void rewriteField(final IdentifierTree node, final VariableElement field) {
+        final var name = node.getName().toString();
+        if (!isAccessible(field)) {
+          final var accessor = recordAccessor(field)
+              .orElseThrow(() -> new Failure(new NotResumableException(
+                  "its effect model refers to `%s`, which is not accessible from the activity's package".formatted(name))));
+          replace(node, "this.$activity." + accessor + "()");
+        } else if (field.getModifiers().contains(Modifier.STATIC)) {
+          replace(node, qualifiedMemberName(field));
+        } else {
+          replace(node, "this.$activity." + name);
+        }
+      }
+
+      private void rewriteMethodName(final IdentifierTree node) {
+        final var name = node.getName().toString();
+        final var candidates = methods.getOrDefault(name, List.of());
+        if (candidates.isEmpty()) return;
+        if (candidates.stream().anyMatch($ -> !isAccessible($))) {
+          fail("its effect model calls `%s`, which is not accessible from the activity's package".formatted(name));
+        }
+        checkYieldFree(name, candidates, new HashSet<>());
+        if (candidates.stream().allMatch($ -> $.getModifiers().contains(Modifier.STATIC))) {
+          replace(node, qualifiedMemberName(candidates.get(0)));
+        } else {
+          replace(node, "this.$activity." + name);
+        }
+      }
+
+      private void replace(final IdentifierTree node, final String text) {
+        final var start = start(node);
+        replacements.add(new Replacement(start, start + node.getName().length(), text));
+      }
+
+      private long endOfSelection(final IdentifierTree receiver, final String name) {
+        var i = (int) start(receiver) + receiver.getName().length();
+        while (Character.isWhitespace(source.charAt(i)) || source.charAt(i) == '.') i += 1;
+        if (!source.subSequence(i, i + name.length()).toString().equals(name)) {
+          throw new Failure(new NotResumableException("its effect model selects `%s` in an unusual way".formatted(name)));
+        }
+        return i + name.length();
+      }
+    }
+
+    /**
+     * Check that none of the activity's methods by the given name can yield, nor any of its methods they call in turn,
+     * since a yield within a method the effect model calls can't be resumed from.
+     * A method whose source can't be checked -- one inherited from outside the Java platform, for instance -- may yield.
+     */
+    private void checkYieldFree(final String name, final List<ExecutableElement> candidates, final Set<ExecutableElement> checked) {
+      for (final var candidate : candidates) {
+        if (!checked.add(candidate)) continue;
+
+        final var owner = (TypeElement) candidate.getEnclosingElement();
+        final var ownerName = owner.getQualifiedName().toString();
+        if (ownerName.startsWith("java.") || this.yieldingClasses.contains(ownerName)) continue;
+        if (isImplicitAccessor(candidate)) continue;
+
+        // Only the activity's own methods are written against the imports that `isYield` consults.
+        final var tree = (owner == this.activityType) ? this.trees.getTree(candidate) : null;
+        if (tree == null || tree.getBody() == null) {
+          throw new Failure(new NotResumableException(
+              "its effect model calls `%s`, which can't be checked for yields".formatted(name)));
+        }
+
+        new TreeScanner<Void, Void>() {
+          @Override
+          public Void visitMethodInvocation(final MethodInvocationTree node, final Void unused) {
+            if (isYield(node)) {
+              throw new Failure(new NotResumableException(
+                  "its effect model calls `%s`, which yields somewhere other than the top level of the effect model"
+                      .formatted(name)));
+            }
+            if (node.getMethodSelect() instanceof IdentifierTree identifier) {
+              checkYieldFree(name, methods.getOrDefault(identifier.getName().toString(), List.of()), checked);
+            } else if (node.getMethodSelect() instanceof MemberSelectTree select
+                       && select.getExpression() instanceof IdentifierTree receiver
+                       && receiver.getName().contentEquals("this")) {
+              checkYieldFree(name, methods.getOrDefault(select.getIdentifier().toString(), List.of()), checked);
+            }
+            return super.visitMethodInvocation(node, unused);
+          }
+
+          @Override
+          public Void visitLambdaExpression(final LambdaExpressionTree node, final Void unused) {
+            // As in the effect model itself, a lambda may yield if it runs as a task of its own.
+            return null;
+          }
+        }.scan(tree.getBody(), null);
+      }
+    }
+
+    private boolean isImplicitAccessor(final ExecutableElement method) {
+      return this.activityType.getRecordComponents().stream().anyMatch($ -> method.equals($.getAccessor()))
+             && this.trees.getTree(method) == null;
+    }
+
+    /** Carries a {@link NotResumableException} out of a tree visitor, which can't throw checked exceptions. */
+    private static final class Failure extends RuntimeException {
+      final NotResumableException reason;
+
+      Failure(final NotResumableException reason) {
+        super(null, null, false, false);
+        this.reason = reason;
+      }
+    }
+
+    private boolean isYieldStatement(final StatementTree statement) {
+      return statement instanceof ExpressionStatementTree s
+             && s.getExpression() instanceof MethodInvocationTree invocation
+             && isYield(invocation);
+    }
+
+    private boolean isYield(final MethodInvocationTree invocation) {
+      if (invocation.getMethodSelect() instanceof IdentifierTree identifier) {
+        final var name = identifier.getName().toString();
+        if (!YIELDS.contains(name)) return false;
+
+        // Methods of the activity (including inherited ones) hide static imports.
+        final var candidates = this.methods.getOrDefault(name, List.of());
+        if (!candidates.isEmpty()) {
+          return candidates.stream().anyMatch($ -> this.yieldingClasses.contains(
+              ((TypeElement) $.getEnclosingElement()).getQualifiedName().toString()));
+        }
+
+        // Single static imports hide on-demand ones.
+        final var singleImport = staticImports().stream()
+            .filter($ -> $.endsWith("." + name))
+            .findFirst();
+        if (singleImport.isPresent()) {
+          return this.yieldingClasses.contains(singleImport.get().substring(0, singleImport.get().length() - name.length() - 1));
+        }
+        return staticImports().stream()
+            .filter($ -> $.endsWith(".*"))
+            .anyMatch($ -> this.yieldingClasses.contains($.substring(0, $.length() - 2)));
+      } else if (invocation.getMethodSelect() instanceof MemberSelectTree select) {
+        if (!YIELDS.contains(select.getIdentifier().toString())) return false;
+        return this.yieldingClasses.contains(qualifiedTypeName(select.getExpression().toString()));
+      } else {
+        return false;
+      }
+    }
+
+    private List<String> staticImports() {
+      return this.unit.getImports().stream()
+          .filter(ImportTree::isStatic)
+          .map($ -> $.getQualifiedIdentifier().toString())
+          .toList();
+    }
+
+    /** The qualified name a type name in the activity's source refers to, as far as its imports tell. */
+    private String qualifiedTypeName(final String name) {
+      final var first = name.contains(".") ? name.substring(0, name.indexOf('.')) : name;
+      final var rest = name.substring(first.length());
+      for (final var importTree : this.unit.getImports()) {
+        if (importTree.isStatic()) continue;
+        final var imported = importTree.getQualifiedIdentifier().toString();
+        if (imported.endsWith("." + first)) return imported + rest;
+      }
+      return resolveTypeElement(name).map($ -> $.getQualifiedName().toString()).orElse(name);
+    }
+
+    private Optional<TypeElement> resolveTypeElement(final String name) {
+      final var first = name.contains(".") ? name.substring(0, name.indexOf('.')) : name;
+      final var rest = name.substring(first.length());
+
+      final var candidates = new ArrayList<String>();
+      if (this.memberTypes.containsKey(first)) candidates.add(this.memberTypes.get(first).getQualifiedName() + rest);
+      for (final var importTree : this.unit.getImports()) {
+        if (importTree.isStatic()) continue;
+        final var imported = importTree.getQualifiedIdentifier().toString();
+        if (imported.endsWith("." + first)) candidates.add(imported + rest);
+      }
+      candidates.add(this.packageName + "." + name);
+      for (final var importTree : this.unit.getImports()) {
+        if (importTree.isStatic()) continue;
+        final var imported = importTree.getQualifiedIdentifier().toString();
+        if (imported.endsWith(".*")) candidates.add(imported.substring(0, imported.length() - 1) + name);
+      }
+      candidates.add("java.lang." + name);
+      candidates.add(name);
+
+      for (final var candidate : candidates) {
+        final var element = elementUtils.getTypeElement(candidate);
+        if (element != null) return Optional.of(element);
+      }
+      return Optional.empty();
+    }
+
+    /** The source text of a local's declared type, unless it is declared with `var`. */
+    private Optional<String> explicitType(final VariableTree variable) throws NotResumableException {
+      if (variable.getType() == null || variable.getType().toString().equals("var")) return Optional.empty();
+      if (variable.getInitializer() == null) return Optional.of(variable.getType().toString());
+
+      final var text = text(start(variable.getType()), start(variable.getInitializer()));
+      final var matcher = DECLARATOR.matcher(text);
+      if (!matcher.find() || !matcher.group(1).equals(variable.getName().toString())) {
+        throw new NotResumableException("`%s` is declared in an unusual way".formatted(variable.getName()));
+      }
+      return Optional.of(text.substring(0, matcher.start()).strip());
+    }
+
+    /** The type a type tree names, if it is a primitive or a non-generic class. */
+    private TypeMirror resolveType(final Tree type) {
+      if (type instanceof PrimitiveTypeTree primitive) return typeUtils.getPrimitiveType(primitive.getPrimitiveTypeKind());
+      if (!(type instanceof IdentifierTree || type instanceof MemberSelectTree)) return null;
+      return resolveTypeElement(type.toString())
+          .filter($ -> $.getTypeParameters().isEmpty())
+          .map(TypeElement::asType)
+          .orElse(null);
+    }
+
+    /**
+     * The type of an expression, where it follows from the declared types of the fields and methods it uses.
+     * Overloaded methods, generic methods, and diamonds are not resolved.
+     */
+    private TypeMirror typeOf(final ExpressionTree expression, final Map<String, TypeMirror> scope) {
+      if (expression instanceof ParenthesizedTree parenthesized) {
+        return typeOf(parenthesized.getExpression(), scope);
+      } else if (expression instanceof LiteralTree literal) {
+        return switch (literal.getKind()) {
+          case INT_LITERAL -> typeUtils.getPrimitiveType(TypeKind.INT);
+          case LONG_LITERAL -> typeUtils.getPrimitiveType(TypeKind.LONG);
+          case FLOAT_LITERAL -> typeUtils.getPrimitiveType(TypeKind.FLOAT);
+          case DOUBLE_LITERAL -> typeUtils.getPrimitiveType(TypeKind.DOUBLE);
+          case BOOLEAN_LITERAL -> typeUtils.getPrimitiveType(TypeKind.BOOLEAN);
+          case CHAR_LITERAL -> typeUtils.getPrimitiveType(TypeKind.CHAR);
+          case STRING_LITERAL -> elementUtils.getTypeElement("java.lang.String").asType();
+          default -> null;
+        };
+      } else if (expression instanceof IdentifierTree identifier) {
+        final var name = identifier.getName().toString();
+        if (scope.containsKey(name)) return scope.get(name);
+        if (name.equals("this")) return this.activityType.asType();
+        if (this.localNames.contains(name)) return null;
+        final var field = this.fields.get(name);
+        return (field != null) ? memberType(this.activityType.asType(), field) : null;
+      } else if (expression instanceof MemberSelectTree select) {
+        final var name = select.getIdentifier().toString();
+        final var receiver = typeOf(select.getExpression(), scope);
+        if (receiver != null) return fieldType(receiver, name, false);
+        return staticType(select.getExpression())
+            .map($ -> fieldType($.asType(), name, true))
+            .orElse(null);
+      } else if (expression instanceof MethodInvocationTree invocation) {
+        if (!invocation.getTypeArguments().isEmpty()) return null;
+        final var arity = invocation.getArguments().size();
+        if (invocation.getMethodSelect() instanceof IdentifierTree identifier) {
+          return methodType(this.activityType.asType(), identifier.getName().toString(), arity, false);
+        } else if (invocation.getMethodSelect() instanceof MemberSelectTree select) {
+          final var name = select.getIdentifier().toString();
+          final var receiver = typeOf(select.getExpression(), scope);
+          if (receiver != null) return methodType(receiver, name, arity, false);
+          return staticType(select.getExpression())
+              .map($ -> methodType($.asType(), name, arity, true))
+              .orElse(null);
+        } else {
+          return null;
+        }
+      } else if (expression instanceof TypeCastTree cast) {
+        return resolveType(cast.getType());
+      } else if (expression instanceof BinaryTree binary) {
+        return binaryType(binary, scope);
+      } else if (expression instanceof NewClassTree newClass) {
+        if (newClass.getEnclosingExpression() != null || newClass.getClassBody() != null) return null;
+        if (newClass.getIdentifier() instanceof ParameterizedTypeTree) return null;
+        return resolveType(newClass.getIdentifier());
+      } else {
+        return null;
+      }
+    }
+
+    private TypeMirror binaryType(final BinaryTree binary, final Map<String, TypeMirror> scope) {
+      switch (binary.getKind()) {
+        case LESS_THAN, GREATER_THAN, LESS_THAN_EQUAL, GREATER_THAN_EQUAL, EQUAL_TO, NOT_EQUAL_TO,
+            CONDITIONAL_AND, CONDITIONAL_OR -> {
+          return typeUtils.getPrimitiveType(TypeKind.BOOLEAN);
+        }
+        case PLUS, MINUS, MULTIPLY, DIVIDE, REMAINDER -> {
+          final var left = typeOf(binary.getLeftOperand(), scope);
+          final var right = typeOf(binary.getRightOperand(), scope);
+          if (left == null || right == null) return null;
+
+          final var string = elementUtils.getTypeElement("java.lang.String").asType();
+          if (binary.getKind() == Tree.Kind.PLUS && (typeUtils.isSameType(left, string) || typeUtils.isSameType(right, string))) {
+            return string;
+          }
+
+          // Binary numeric promotion.
+          final var unboxedLeft = unboxed(left);
+          final var unboxedRight = unboxed(right);
+          if (unboxedLeft == null || unboxedRight == null) return null;
+          for (final var kind : List.of(TypeKind.DOUBLE, TypeKind.FLOAT, TypeKind.LONG)) {
+            if (unboxedLeft.getKind() == kind || unboxedRight.getKind() == kind) return typeUtils.getPrimitiveType(kind);
+          }
+          return typeUtils.getPrimitiveType(TypeKind.INT);
+        }
+        default -> {
+          return null;
+        }
+      }
+    }
+
+    private TypeMirror unboxed(final TypeMirror type) {
+      if (type.getKind().isPrimitive()) return (type.getKind() == TypeKind.BOOLEAN) ? null : type;
+      try {
+        return unboxed(typeUtils.unboxedType(type));
+      } catch (final IllegalArgumentException ex) {
+        return null;
+      }
+    }
+
+    private Optional<TypeElement> staticType(final ExpressionTree expression) {
+      if (!(expression instanceof IdentifierTree || expression instanceof MemberSelectTree)) return Optional.empty();
+      final var name = expression.toString();
+      final var first = name.contains(".") ? name.substring(0, name.indexOf('.')) : name;
+      if (this.localNames.contains(first) || first.equals(this.parameterName) || this.fields.containsKey(first)) {
+        return Optional.empty();
+      }
+      return resolveTypeElement(name);
+    }
+
+    private TypeMirror fieldType(final TypeMirror receiver, final String name, final boolean isStatic) {
+      if (!(receiver instanceof DeclaredType declared)) return null;
+      for (final var member : elementUtils.getAllMembers((TypeElement) declared.asElement())) {
+        if (!(member.getKind() == ElementKind.FIELD || member.getKind() == ElementKind.ENUM_CONSTANT)) continue;
+        if (!member.getSimpleName().contentEquals(name)) continue;
+        if (isStatic && !member.getModifiers().contains(Modifier.STATIC)) return null;
+        return memberType(receiver, member);
+      }
+      return null;
+    }
+
+    private TypeMirror methodType(final TypeMirror receiver, final String name, final int arity, final boolean isStatic) {
+      if (!(receiver instanceof DeclaredType declared)) return null;
+      final var candidates = elementUtils.getAllMembers((TypeElement) declared.asElement()).stream()
+          .filter($ -> $.getKind() == ElementKind.METHOD && $.getSimpleName().contentEquals(name))
+          .map(ExecutableElement.class::cast)
+          .filter($ -> $.getParameters().size() == arity || $.isVarArgs())
+          .toList();
+      if (candidates.size() != 1) return null;
+
+      final var method = candidates.get(0);
+      if (method.isVarArgs() || !method.getTypeParameters().isEmpty()) return null;
+      if (isStatic && !method.getModifiers().contains(Modifier.STATIC)) return null;
+      if (!(memberType(receiver, method) instanceof ExecutableType executable)) return null;
+      return (executable.getReturnType().getKind() == TypeKind.VOID) ? null : executable.getReturnType();
+    }
+
+    private TypeMirror memberType(final TypeMirror receiver, final Element member) {
+      try {
+        return typeUtils.asMemberOf((DeclaredType) receiver, member);
+      } catch (final IllegalArgumentException ex) {
+        return null;
+      }
+    }
+
+    private TypeMirror boxed(final TypeMirror type) {
+      return type.getKind().isPrimitive() ? typeUtils.boxedClass(typeUtils.getPrimitiveType(type.getKind())).asType() : type;
+    }
+
+    /** Source text naming a type, as long as it can be named from the activity's package. */
+    private Optional<String> typeText(final TypeMirror type) {
+      if (type.getKind().isPrimitive()) return Optional.of(type.toString());
+      if (type instanceof ArrayType array) return typeText(array.getComponentType()).map($ -> $ + "[]");
+      if (type instanceof WildcardType wildcard) {
+        if (wildcard.getExtendsBound() != null) return typeText(wildcard.getExtendsBound()).map($ -> "? extends " + $);
+        if (wildcard.getSuperBound() != null) return typeText(wildcard.getSuperBound()).map($ -> "? super " + $);
+        return Optional.of("?");
+      }
+      if (!(type instanceof DeclaredType declared) || type.getKind() != TypeKind.DECLARED) return Optional.empty();
+
+      final var element = (TypeElement) declared.asElement();
+      for (Element e = element; e instanceof TypeElement t; e = e.getEnclosingElement()) {
+        if (!isAccessible(t)) return Optional.empty();
+      }
+      final var text = new StringBuilder(element.getQualifiedName());
+      if (!declared.getTypeArguments().isEmpty()) {
+        final var arguments = new ArrayList<String>();
+        for (final var argument : declared.getTypeArguments()) {
+          final var argumentText = typeText(argument);
+          if (argumentText.isEmpty()) return Optional.empty();
+          arguments.add(argumentText.get());
+        }
+        text.append("<").append(String.join(", ", arguments)).append(">");
+      }
+      return Optional.of(text.toString());
+    }
+
+    private boolean isAccessible(final Element element) {
+      final var modifiers = element.getModifiers();
+      if (modifiers.contains(Modifier.PRIVATE)) return false;
+      if (modifiers.contains(Modifier.PUBLIC)) return true;
+      return elementUtils.getPackageOf(element).getQualifiedName().contentEquals(this.packageName);
+    }
+
+    /**
+     * The implicit accessor of a record component field, which the continuation may call in place of the field.
+     * An explicit accessor may return something else.
+     */
+    private Optional<String> recordAccessor(final VariableElement field) {
+      if (field.getEnclosingElement() != this.activityType || this.activityType.getKind() != ElementKind.RECORD) {
+        return Optional.empty();
+      }
+
+      final var name = field.getSimpleName().toString();
+      final var classTree = this.trees.getTree(this.activityType);
+      if (classTree == null) return Optional.empty();
+      for (final var member : classTree.getMembers()) {
+        if (!(member instanceof MethodTree method)) continue;
+        if (!method.getName().contentEquals(name) || !method.getParameters().isEmpty()) continue;
+        // The compiler declares implicit accessors at the position of their record component, body and all.
+        if (method.getBody() == null || start(method.getBody()) > start(method)) return Optional.empty();
+      }
+      return Optional.of(name);
+    }
+
+    private String qualifiedMemberName(final Element member) {
+      final var owner = (TypeElement) member.getEnclosingElement();
+      return owner.getQualifiedName() + "." + member.getSimpleName();
+    }
+
+    private Set<String> namesIn(final Tree tree) {
+      final var names = new HashSet<String>();
+      new TreeScanner<Void, Void>() {
+        @Override
+        public Void visitIdentifier(final IdentifierTree node, final Void unused) {
+          names.add(node.getName().toString());
+          return null;
+        }
+
+        @Override
+        public Void visitMethodInvocation(final MethodInvocationTree node, final Void unused) {
+          if (!(node.getMethodSelect() instanceof IdentifierTree)) scan(node.getMethodSelect(), null);
+          scan(node.getTypeArguments(), null);
+          scan(node.getArguments(), null);
+          return null;
+        }
+      }.scan(tree, null);
+      return names;
+    }
+
+    private long start(final Tree tree) {
+      return this.positions.getStartPosition(this.unit, tree);
+    }
+
+    /** The source text between two positions, with the recorded rewrites applied. */
+    private String text(final long start, final long end) {
+      final var text = new StringBuilder();
+      var position = start;
+      final var applicable = this.replacements.stream()
+          .filter($ -> $.start() >= start && $.end() <= end)
+          .sorted(Comparator.comparingLong(Replacement::start))
+          .toList();
+      for (final var replacement : applicable) {
+        if (replacement.start() < position) continue;
+        text.append(this.source, (int) position, (int) replacement.start());
+        text.append(replacement.text());
+        position = replacement.end();
+      }
+      text.append(this.source, (int) position, (int) end);
+      return text.toString().stripTrailing();
+    }
+
+    /** Re-indent the text of a top-level statement to the depth of the steps it is emitted into. */
+    private String indented(final StatementTree statement, final String text) {
+      final var start = (int) start(statement);
+      var lineStart = start;
+      while (lineStart > 0 && this.source.charAt(lineStart - 1) != '\n') lineStart -= 1;
+      final var indentation = this.source.subSequence(lineStart, start).toString();
+      if (!indentation.isBlank()) return text;
+      return text.replace("\n" + indentation, "\n        ");
+    }
+
+    /** The position of the brace closing the block opened at the given position, skipping comments and literals. */
+    private long closingBrace(final long open) throws NotResumableException {
+      var depth = 0;
+      var i = (int) open;
+      while (i < this.source.length()) {
+        final var c = this.source.charAt(i);
+        if (c == '/' && i + 1 < this.source.length() && this.source.charAt(i + 1) == '/') {
+          while (i < this.source.length() && this.source.charAt(i) != '\n') i += 1;
+        } else if (c == '/' && i + 1 < this.source.length() && this.source.charAt(i + 1) == '*') {
+          i = indexOf("*/", i + 2) + 2;
+        } else if (c == '"' && this.source.subSequence(i, Math.min(i + 3, this.source.length())).toString().equals("\"\"\"")) {
+          i = indexOf("\"\"\"", i + 3, true) + 3;
+        } else if (c == '"' || c == '\'') {
+          i += 1;
+          while (this.source.charAt(i) != c) i += (this.source.charAt(i) == '\\') ? 2 : 1;
+          i += 1;
+        } else {
+          if (c == '{') depth += 1;
+          if (c == '}' && --depth == 0) return i;
+          i += 1;
+        }
+      }
+      throw new NotResumableException("the end of its effect model could not be found");
+    }
+
+    private int indexOf(final String target, final int from) {
+      return indexOf(target, from, false);
+    }
+
+    private int indexOf(final String target, final int from, final boolean escapable) {
+      var i = from;
+      while (i + target.length() <= this.source.length()) {
+        if (escapable && this.source.charAt(i) == '\\') {
+          i += 2;
+          continue;
+        }
+        if (this.source.subSequence(i, i + target.length()).toString().equals(target)) return i;
+        i += 1;
+      }
+      return this.source.length();
+    }
+  }
+}
@@ -13,4 +13,13 @@ public record EffectModelRecord(
     Optional<String> fixedDurationExpr,
     Optional<String> parametricDuration
 ) {
+  public EffectModelRecord withExecutor(final ActivityType.Executor executor) {
+    return new EffectModelRecord(
+        this.methodName,
+        executor,
+        this.returnType,
+        this.durationParameter,
+        this.fixedDurationExpr,
+        this.parametricDuration);
+  }
 }
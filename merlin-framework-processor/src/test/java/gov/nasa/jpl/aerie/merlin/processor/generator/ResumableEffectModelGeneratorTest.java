@@ -0,0 +1,395 @@
+package gov.nasa.jpl.aerie.merlin.processor.generator;
+
+import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType;
+import gov.nasa.jpl.aerie.merlin.processor.metamodel.EffectModelRecord;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class ResumableEffectModelGeneratorTest {
+  private static final String MODEL = """
+      package test;
+
+      public final class Model {
+        public final java.util.List<String> log = new java.util.ArrayList<>();
+      }
+      """;
+
+  @Test
+  public void testCompilesStepsBetweenTopLevelYields() {
+    final var result = compile("Imaging", """
+        package test;
+
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType;
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.EffectModel;
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.Executor;
+        import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+
+        import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.delay;
+
+        @ActivityType("Imaging")
+        public final class Imaging {
+          public int count = 3;
+
+          String describe() { return "count=" + count; }
+
+          @EffectModel(Executor.Resumable)
+          public int run(final Model model) {
+            final var label = describe();
+            delay(Duration.SECOND);
+            model.log.add(label);
+            count += 1;
+            delay(Duration.SECOND);
+            return count;
+          }
+        }
+        """);
+
+    assertEquals(List.of(), result.warnings());
+    final var continuation = result.generated("ImagingContinuation").orElseThrow();
+    assertTrue(continuation.contains("implements gov.nasa.jpl.aerie.merlin.framework.Resumable<java.lang.Integer>"), continuation);
+    assertTrue(continuation.contains("private java.lang.String label;"), continuation);
+    assertTrue(continuation.contains("this.label = this.$activity.describe();"), continuation);
+    assertTrue(continuation.contains("this.$activity.count += 1;"), continuation);
+    assertTrue(continuation.contains("case 2: {"), continuation);
+    assertFalse(continuation.contains("case 3: {"), continuation);
+  }
+
+  @Test
+  public void testSingleStaticImportShadowsYield() {
+    final var result = compile("Shadowed", """
+        package test;
+
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType;
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.EffectModel;
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.Executor;
+        import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+
+        import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.*;
+        import static test.Clock.delay;
+
+        final class Clock {
+          static void delay(final Duration duration) {}
+        }
+
+        @ActivityType("Shadowed")
+        public final class Shadowed {
+          @EffectModel(Executor.Resumable)
+          public void run(final Model model) {
+            delay(Duration.SECOND);
+            model.log.add("done");
+          }
+        }
+        """);
+
+    assertEquals(List.of(), result.warnings());
+    final var continuation = result.generated("ShadowedContinuation").orElseThrow();
+    assertFalse(continuation.contains("case 1: {"), continuation);
+  }
+
+  @Test
+  public void testYieldInLoopRunsOnThread() {
+    assertFallsBack("Looping", "its effect model yields within a compound statement or expression", """
+        for (var i = 0; i < 3; i++) delay(Duration.SECOND);
+        """);
+  }
+
+  @Test
+  public void testYieldInBranchRunsOnThread() {
+    assertFallsBack("Branchy", "its effect model yields within a compound statement or expression", """
+        if (model.log.isEmpty()) delay(Duration.SECOND);
+        """);
+  }
+
+  @Test
+  public void testReassignedLocalRunsOnThread() {
+    assertFallsBack("Reassigned", "`n` is used after a yield, but is reassigned", """
+        var n = 1;
+        delay(Duration.SECOND);
+        n = 2;
+        model.log.add("" + n);
+        """);
+  }
+
+  @Test
+  public void testUninferableLocalRunsOnThread() {
+    assertFallsBack("Uninferable", "`s` is used after a yield, but its type can't be inferred", """
+        final var s = String.valueOf(3);
+        delay(Duration.SECOND);
+        model.log.add(s);
+        """);
+  }
+
+  @Test
+  public void testPrivateHelperRunsOnThread() {
+    final var result = compile("Private", activity("Private", """
+          private void helper() {}
+        """, """
+        helper();
+        delay(Duration.SECOND);
+        """));
+
+    assertFellBack(result, "Private", "its effect model calls `helper`, which is not accessible from the activity's package");
+  }
+
+  @Test
+  public void testYieldingHelperRunsOnThread() {
+    final var result = compile("Helper", activity("Helper", """
+          void pause() { delay(Duration.SECOND); }
+          void pauses() { model(); pause(); }
+          void model() {}
+        """, """
+        pauses();
+        delay(Duration.SECOND);
+        """));
+
+    assertFellBack(result, "Helper", "its effect model calls `pauses`, which yields");
+  }
+
+  @Test
+  public void testInheritedHelperRunsOnThread() {
+    final var result = compile("Inheriting", """
+        package test;
+
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType;
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.EffectModel;
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.Executor;
+        import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+
+        import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.delay;
+
+        class Base {
+          public void pause() { delay(Duration.SECOND); }
+        }
+
+        @ActivityType("Inheriting")
+        public final class Inheriting extends Base {
+          @EffectModel(Executor.Resumable)
+          public void run(final Model model) {
+            pause();
+            delay(Duration.SECOND);
+          }
+        }
+        """);
+
+    assertFellBack(result, "Inheriting", "its effect model calls `pause`, which can't be checked for yields");
+  }
+
+  @Test
+  public void testExplicitRecordAccessorRunsOnThread() {
+    final var result = compile("Explicit", """
+        package test;
+
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType;
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.EffectModel;
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.Executor;
+        import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+
+        import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.delay;
+
+        @ActivityType("Explicit")
+        public record Explicit(int count) {
+          public int count() { return count + 1; }
+
+          @EffectModel(Executor.Resumable)
+          public void run(final Model model) {
+            model.log.add("" + count);
+            delay(Duration.SECOND);
+          }
+        }
+        """);
+
+    assertFellBack(result, "Explicit", "its effect model refers to `count`, which is not accessible from the activity's package");
+  }
+
+  @Test
+  public void testImplicitRecordAccessorIsResumable() {
+    final var result = compile("Implicit", """
+        package test;
+
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType;
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.EffectModel;
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.Executor;
+        import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+
+        import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.delay;
+
+        @ActivityType("Implicit")
+        public record Implicit(int count, Duration step) {
+          @EffectModel(Executor.Resumable)
+          public void run(final Model model) {
+            delay(step());
+            model.log.add("" + count);
+          }
+        }
+        """);
+
+    assertEquals(List.of(), result.warnings());
+    final var continuation = result.generated("ImplicitContinuation").orElseThrow();
+    assertTrue(continuation.contains("delay(this.$activity.step());"), continuation);
+    assertTrue(continuation.contains("model.log.add(\"\" + this.$activity.count());"), continuation);
+  }
+
+  private static void assertFallsBack(final String name, final String reason, final String body) {
+    assertFellBack(compile(name, activity(name, "", body)), name, reason);
+  }
+
+  private static void assertFellBack(final Result result, final String name, final String reason) {
+    final var expected = "The effect model of %s will run on a thread, because %s".formatted(name, reason);
+    assertEquals(1, result.warnings().size(), result.warnings().toString());
+    assertTrue(result.warnings().get(0).startsWith(expected), result.warnings().get(0));
+    assertEquals(Optional.empty(), result.generated(name + "Continuation"));
+  }
+
+  private static String activity(final String name, final String members, final String body) {
+    return """
+        package test;
+
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType;
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.EffectModel;
+        import gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.Executor;
+        import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+
+        import static gov.nasa.jpl.aerie.merlin.framework.ModelActions.delay;
+
+        @ActivityType("%1$s")
+        public final class %1$s {
+        %2$s
+          @EffectModel(Executor.Resumable)
+          public void run(final Model model) {
+        %3$s
+          }
+        }
+        """.formatted(name, members, body.indent(4));
+  }
+
+  private record Result(List<String> warnings, Path generatedSources) {
+    Optional<String> generated(final String simpleName) {
+      final var path = this.generatedSources.resolve("test").resolve(simpleName + ".java");
+      if (!Files.exists(path)) return Optional.empty();
+      try {
+        return Optional.of(Files.readString(path));
+      } catch (final IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+  }
+
+  /** Compile an activity type alongside a mission model, generating a continuation for its resumable effect model. */
+  private static Result compile(final String name, final String source) {
+    final Path generatedSources, classes;
+    try {
+      generatedSources = Files.createTempDirectory("generated-sources");
+      classes = Files.createTempDirectory("classes");
+    } catch (final IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+
+    final var compiler = ToolProvider.getSystemJavaCompiler();
+    final var diagnostics = new DiagnosticCollector<JavaFileObject>();
+    final var task = compiler.getTask(
+        null,
+        null,
+        diagnostics,
+        List.of(
+            "-classpath", System.getProperty("java.class.path"),
+            "-s", generatedSources.toString(),
+            "-d", classes.toString()),
+        null,
+        List.of(new Source("test/Model.java", MODEL), new Source("test/" + name + ".java", source)));
+    task.setProcessors(List.of(new GeneratingProcessor()));
+
+    final var succeeded = task.call();
+
+    final var errors = new ArrayList<String>();
+    final var warnings = new ArrayList<String>();
+    for (final var diagnostic : diagnostics.getDiagnostics()) {
+      final var message = diagnostic.getMessage(Locale.ROOT);
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) errors.add(message);
+      if (diagnostic.getKind() == Diagnostic.Kind.WARNING) warnings.add(message);
+    }
+    // The generated continuation is compiled along with the activity, so it must be valid Java.
+    assertTrue(succeeded, String.join("\n", errors));
+
+    return new Result(warnings, generatedSources);
+  }
+
+  private static final class Source extends SimpleJavaFileObject {
+    private final String content;
+
+    Source(final String path, final String content) {
+      super(URI.create("string:///" + path), Kind.SOURCE);
+      this.content = content;
+    }
+
+    @Override
+    public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+      return this.content;
+    }
+  }
+
+  /** Generates continuations the way the mission model processor does, without the rest of the mission model. */
+  private static final class GeneratingProcessor extends AbstractProcessor {
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+      return Set.of(ActivityType.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+      final var generator = new ResumableEffectModelGenerator(this.processingEnv);
+      for (final var element : roundEnv.getElementsAnnotatedWith(ActivityType.class)) {
+        for (final var member : element.getEnclosedElements()) {
+          final var annotation = member.getAnnotation(ActivityType.EffectModel.class);
+          if (annotation == null) continue;
+
+          final var method = (ExecutableElement) member;
+          final var returnType = (method.getReturnType().getKind() == TypeKind.VOID)
+              ? Optional.<TypeMirror>empty()
+              : Optional.of(method.getReturnType());
+          generator.generate(
+              (TypeElement) element,
+              new EffectModelRecord(
+                  method.getSimpleName().toString(),
+                  annotation.value(),
+                  returnType,
+                  Optional.empty(),
+                  Optional.empty(),
+                  Optional.empty()),
+              Set.of("gov.nasa.jpl.aerie.merlin.framework.ModelActions", "test.generated.ActivityActions"));
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -2,7 +2,7 @@ package gov.nasa.jpl.aerie.merlin.framework;
 
 import gov.nasa.jpl.aerie.merlin.protocol.driver.CellId;
 import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
-import gov.nasa.jpl.aerie.merlin.protocol.model.CellType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.CellBehavior;
 
 import java.util.function.Function;
 
@@ -18,7 +18,7 @@ public final class CellRef<Event, State> {
   public static <Event, Effect, State>
   CellRef<Event, State> allocate(
       final State initialState,
-      final CellType<Effect, State> cellType,
+      final CellBehavior<Effect, State> cellType,
       final Function<Event, Effect> eventToEffect,
       final Topic<Event> topic
   ) {
@@ -30,17 +30,23 @@ public final class CellRef<Event, State> {
   public static <Event, Effect, State>
   CellRef<Event, State> allocate(
       final State initialState,
-      final CellType<Effect, State> cellType,
+      final CellBehavior<Effect, State> cellType,
       final Function<Event, Effect> eventToEffect
   ) {
     return CellRef.allocate(initialState, cellType, eventToEffect, new Topic<>());
   }
 
   public static <Effect, State>
-  CellRef<Effect, State> allocate(final State initialState, final CellType<Effect, State> applicator) {
+  CellRef<Effect, State> allocate(final State initialState, final CellBehavior<Effect, State> applicator) {
     return allocate(initialState, applicator, $ -> $);
   }
 
+  /**
+   * Get the current state of this cell.
+   *
+   * <p> The state is shared with the driver and with other reads in the same step, so it must not be mutated;
+   * {@linkplain #emit emit} an event to change it instead. </p>
+   */
   public State get() {
     return ModelActions.context.get().ask(this.cellId);
   }
@@ -2,7 +2,7 @@ package gov.nasa.jpl.aerie.merlin.framework;
 
 import gov.nasa.jpl.aerie.merlin.protocol.driver.CellId;
 import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
-import gov.nasa.jpl.aerie.merlin.protocol.model.CellType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.CellBehavior;
 import gov.nasa.jpl.aerie.merlin.protocol.model.TaskFactory;
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
 
@@ -22,7 +22,7 @@ public interface Context {
   CellId<State>
   allocate(
       State initialState,
-      CellType<Effect, State> cellType,
+      CellBehavior<Effect, State> cellType,
       Function<Event, Effect> interpretation,
       Topic<Event> topic);
 
@@ -0,0 +1,55 @@
+package gov.nasa.jpl.aerie.merlin.framework;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single-slot rendezvous between one producing thread and one consuming thread.
+ *
+ * <p>
+ * A task thread and its host strictly alternate: each hands a value to the other, then waits for a value in return.
+ * The slot is therefore never contended, and a full blocking queue (with its lock and condition variables)
+ * is more machinery than is needed. This parks and unparks the waiting thread directly.
+ * </p>
+ */
+/*package-local*/ final class Handoff<T> {
+  // The other side usually responds quickly, so it's worth checking again a few times before parking.
+  private static final int SPINS = 64;
+
+  private final AtomicReference<T> slot = new AtomicReference<>();
+  private volatile Thread waiter = null;
+
+  /** Hand a value to the consumer. The previous value must already have been taken. */
+  public void put(final T value) {
+    if (!this.slot.compareAndSet(null, value)) {
+      throw new IllegalStateException("Handoff slot is already occupied");
+    }
+
+    // SAFETY: The consumer publishes itself as the waiter before checking the slot one last time,
+    //   so either it will see our value, or we will see it waiting.
+    final var waiter = this.waiter;
+    if (waiter != null) LockSupport.unpark(waiter);
+  }
+
+  /** Wait for a value from the producer. */
+  public T take() throws InterruptedException {
+    for (var i = 0; i < SPINS; i += 1) {
+      final var value = this.slot.getAndSet(null);
+      if (value != null) return value;
+      Thread.onSpinWait();
+    }
+
+    this.waiter = Thread.currentThread();
+    try {
+      while (true) {
+        final var value = this.slot.getAndSet(null);
+        if (value != null) return value;
+
+        LockSupport.park(this);
+        if (Thread.interrupted()) throw new InterruptedException();
+      }
+    } finally {
+      this.waiter = null;
+    }
+  }
+}
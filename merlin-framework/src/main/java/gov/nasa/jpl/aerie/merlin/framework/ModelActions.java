@@ -36,6 +36,10 @@ public /*non-final*/ class ModelActions {
     });
   }
 
+  public static <T> TaskFactory<T> resumable(final Supplier<Resumable<T>> body) {
+    return executor -> new ResumableTask<>(ModelActions.context, body.get());
+  }
+
 
   public static <T> void emit(final T event, final Topic<T> topic) {
     context.get().emit(event, topic);
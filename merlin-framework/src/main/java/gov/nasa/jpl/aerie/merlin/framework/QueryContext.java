@@ -3,7 +3,7 @@ package gov.nasa.jpl.aerie.merlin.framework;
 import gov.nasa.jpl.aerie.merlin.protocol.driver.CellId;
 import gov.nasa.jpl.aerie.merlin.protocol.driver.Querier;
 import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
-import gov.nasa.jpl.aerie.merlin.protocol.model.CellType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.CellBehavior;
 import gov.nasa.jpl.aerie.merlin.protocol.model.TaskFactory;
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
 
@@ -30,7 +30,7 @@ public final class QueryContext implements Context {
   public <Event, Effect, State>
   CellId<State> allocate(
       final State initialState,
-      final CellType<Effect, State> cellType,
+      final CellBehavior<Effect, State> cellType,
       final Function<Event, Effect> interpretation,
       final Topic<Event> topic)
   {
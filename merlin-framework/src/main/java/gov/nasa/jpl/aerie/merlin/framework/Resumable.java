@@ -0,0 +1,41 @@
+package gov.nasa.jpl.aerie.merlin.framework;
+
+/**
+ * The body of a task written as an explicit state machine, to be run by a {@link ResumableTask}.
+ *
+ * <p>
+ * Each call to {@link #resume()} runs the task from where it last left off up to its next yield --
+ * a {@link ModelActions#delay}, {@link ModelActions#call}, or {@link ModelActions#waitUntil} --
+ * and then returns, keeping in its own fields whatever it needs to continue from there.
+ * Unlike a replaying task, a resumable task never re-runs the steps it has already taken;
+ * unlike a threaded task, it does not need a thread of its own between steps.
+ * </p>
+ *
+ * <p>
+ * The annotation processor compiles effect models marked
+ * {@link gov.nasa.jpl.aerie.merlin.framework.annotations.ActivityType.Executor#Resumable} into resumables like this one.
+ * </p>
+ *
+ * <pre>{@code
+ * spawn(resumable(() -> new Resumable<Unit>() {
+ *   private int step = 0;
+ *
+ *   public Unit resume() {
+ *     switch (this.step++) {
+ *       case 0 -> { power.set(ON); delay(1, MINUTE); }
+ *       case 1 -> { power.set(OFF); }
+ *     }
+ *     return Unit.UNIT;
+ *   }
+ * }));
+ * }</pre>
+ */
+@FunctionalInterface
+public interface Resumable<Return> {
+  /**
+   * Run the task up to its next yield, which must be the last simulation action it performs before returning.
+   *
+   * @return The result of the task, if it has finished without yielding. Ignored if the task yielded.
+   */
+  Return resume();
+}
@@ -0,0 +1,92 @@
+package gov.nasa.jpl.aerie.merlin.framework;
+
+import gov.nasa.jpl.aerie.merlin.protocol.driver.CellId;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Scheduler;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
+import gov.nasa.jpl.aerie.merlin.protocol.model.Task;
+import gov.nasa.jpl.aerie.merlin.protocol.model.TaskFactory;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.TaskStatus;
+
+import java.util.Objects;
+
+/** Runs a {@link Resumable} task body, one state transition per step. */
+public final class ResumableTask<Return> implements Task<Return> {
+  private final Scoped<Context> rootContext;
+  private final Resumable<Return> body;
+
+  public ResumableTask(final Scoped<Context> rootContext, final Resumable<Return> body) {
+    this.rootContext = Objects.requireNonNull(rootContext);
+    this.body = Objects.requireNonNull(body);
+  }
+
+  @Override
+  public TaskStatus<Return> step(final Scheduler scheduler) {
+    final var handle = new ResumableTaskHandle();
+    final var context = new ThreadedReactionContext(this.rootContext, scheduler, handle);
+
+    final Return returnValue;
+    try (final var restore = this.rootContext.set(context)) {
+      returnValue = this.body.resume();
+    }
+
+    // If the body yielded, it has suspended; otherwise, it has completed normally.
+    return (handle.status != null) ? handle.status : TaskStatus.completed(returnValue);
+  }
+
+  private final class ResumableTaskHandle implements TaskHandle {
+    public TaskStatus<Return> status = null;
+
+    private Scheduler yield(final TaskStatus<Return> status) {
+      if (this.status != null) throw yieldedMidStep();
+
+      // The body keeps running until it returns, so rather than suspending here, remember how to resume it.
+      this.status = status;
+      return suspended;
+    }
+
+    @Override
+    public Scheduler delay(final Duration delay) {
+      return this.yield(TaskStatus.delayed(delay, ResumableTask.this));
+    }
+
+    @Override
+    public Scheduler call(final TaskFactory<?> child) {
+      return this.yield(TaskStatus.calling(child, ResumableTask.this));
+    }
+
+    @Override
+    public Scheduler await(final gov.nasa.jpl.aerie.merlin.protocol.model.Condition condition) {
+      return this.yield(TaskStatus.awaiting(condition, ResumableTask.this));
+    }
+  }
+
+  // Stands in for the scheduler between a yield and the end of the step, when the task must not act on the simulation.
+  private final Scheduler suspended = new Scheduler() {
+    @Override
+    public <State> State get(final CellId<State> cellId) {
+      throw yieldedMidStep();
+    }
+
+    @Override
+    public <Event> void emit(final Event event, final Topic<Event> topic) {
+      throw yieldedMidStep();
+    }
+
+    @Override
+    public void spawn(final TaskFactory<?> task) {
+      throw yieldedMidStep();
+    }
+  };
+
+  // The generated state machine only yields as the last thing in a step,
+  //   so anything more must come from a yield it couldn't see, within some method the effect model calls.
+  private IllegalStateException yieldedMidStep() {
+    return new IllegalStateException((
+        "The resumable effect model %s kept running after it yielded, "
+        + "most likely because a method it calls yields (e.g. by `delay`, `waitUntil`, or `call`). "
+        + "A resumable effect model can only yield at the top level of its body; "
+        + "consider running this activity with `Executor.Threaded` instead.")
+        .formatted(this.body.getClass().getName()));
+  }
+}
@@ -7,7 +7,6 @@ import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
 import gov.nasa.jpl.aerie.merlin.protocol.types.TaskStatus;
 
 import java.util.Objects;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
@@ -16,8 +15,8 @@ public final class ThreadedTask<Return> implements Task<Return> {
   private final Supplier<Return> task;
   private final Executor executor;
 
-  private final ArrayBlockingQueue<TaskRequest> hostToTask = new ArrayBlockingQueue<>(1);
-  private final ArrayBlockingQueue<TaskResponse<Return>> taskToHost = new ArrayBlockingQueue<>(1);
+  private final Handoff<TaskRequest> hostToTask = new Handoff<>();
+  private final Handoff<TaskResponse<Return>> taskToHost = new Handoff<>();
 
   private Lifecycle lifecycle = Lifecycle.Inactive;
   private Return returnValue;
@@ -42,8 +41,8 @@ public final class ThreadedTask<Return> implements Task<Return> {
       //   It should be sufficiently long as to allow the user-defined task to do its job.
       //   The `put()` call is fine -- we know the thread will immediately wait
       //   for a new request as soon as it puts a response to the last request.
-      // TODO: Track metrics for how long a task runs before responding.
-      //   This will help to tune the timeout.
+      // The engine times every step, handoffs included (see `SimulationEngine#taskStepMetrics`),
+      //   which will help to tune the timeout.
       this.hostToTask.put(new TaskRequest.Resume(scheduler));
       final var response = this.taskToHost.take();
 
@@ -102,11 +101,7 @@ public final class ThreadedTask<Return> implements Task<Return> {
         response = new TaskResponse.Failure<>(ex);
       }
 
-      try {
-        ThreadedTask.this.taskToHost.put(response);
-      } catch (final InterruptedException ex) {
-        throw new Error("Merlin task unexpectedly interrupted", ex);
-      }
+      ThreadedTask.this.taskToHost.put(response);
     });
   }
 
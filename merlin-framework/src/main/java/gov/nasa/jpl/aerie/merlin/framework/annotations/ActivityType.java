@@ -19,7 +19,33 @@ public @interface ActivityType {
     Class<? extends ActivityMapper<?, ?, ?>> value();
   }
 
-  enum Executor { Threaded, Replaying }
+  enum Executor {
+    Threaded,
+    Replaying,
+    /**
+     * Compile the effect model into a {@link gov.nasa.jpl.aerie.merlin.framework.Resumable} state machine,
+     * which resumes where it left off at each step instead of holding a thread or replaying its history.
+     *
+     * <p>
+     * The effect model must keep to a restricted style: every {@code delay}, {@code waitUntil}, or {@code call}
+     * is a statement of its own at the top level of the method body, and every local variable used after one of them
+     * is declared at the top level, initialized, and never reassigned. A yield within a helper method the effect model
+     * calls can't be seen, and fails the simulation when the effect model next acts.
+     * Effect models that don't keep to this style run as if {@link #Threaded}, with a warning saying why.
+     * </p>
+     *
+     * <pre>{@code
+     * @EffectModel(Executor.Resumable)
+     * public void run(final Mission mission) {
+     *   final var power = mission.power;
+     *   power.set(ON);
+     *   delay(duration);
+     *   power.set(OFF);
+     * }
+     * }</pre>
+     */
+    Resumable
+  }
 
   @Retention(RetentionPolicy.CLASS)
   @Target(ElementType.METHOD)
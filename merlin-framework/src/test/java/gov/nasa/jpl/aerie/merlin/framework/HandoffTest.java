@@ -0,0 +1,204 @@
+package gov.nasa.jpl.aerie.merlin.framework;
+
+import gov.nasa.jpl.aerie.merlin.protocol.driver.CellId;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Scheduler;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
+import gov.nasa.jpl.aerie.merlin.protocol.model.TaskFactory;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.TaskStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class HandoffTest {
+  @Test
+  @DisplayName("Values handed back and forth between threads arrive once each, in order")
+  public void pingPong() throws InterruptedException {
+    final var rounds = 200_000;
+    final var there = new Handoff<Integer>();
+    final var back = new Handoff<Integer>();
+    final var failure = new AtomicReference<Throwable>();
+
+    final var echo = new Thread(() -> {
+      try {
+        for (var i = 0; i < rounds; i += 1) back.put(there.take() + 1);
+      } catch (final Throwable ex) {
+        failure.set(ex);
+      }
+    });
+    echo.start();
+
+    for (var i = 0; i < rounds; i += 1) {
+      there.put(i);
+      assertEquals(i + 1, back.take());
+    }
+
+    echo.join();
+    assertNull(failure.get());
+  }
+
+  @Test
+  @DisplayName("A value cannot be handed off before the previous one is taken")
+  public void occupiedSlotIsRejected() throws InterruptedException {
+    final var handoff = new Handoff<String>();
+    handoff.put("first");
+
+    assertThrows(IllegalStateException.class, () -> handoff.put("second"));
+    assertEquals("first", handoff.take());
+
+    handoff.put("third");
+    assertEquals("third", handoff.take());
+  }
+
+  @Test
+  @DisplayName("Interrupting a waiting consumer neither loses nor duplicates values")
+  public void interruptsLoseNothing() throws InterruptedException {
+    final var rounds = 20_000;
+    final var values = new Handoff<Integer>();
+    final var acks = new Handoff<Integer>();
+    final var failure = new AtomicReference<Throwable>();
+    final var interruptions = new AtomicInteger();
+
+    final var consumer = new Thread(() -> {
+      try {
+        var expected = 0;
+        while (expected < rounds) {
+          final int value;
+          try {
+            value = values.take();
+          } catch (final InterruptedException ex) {
+            interruptions.incrementAndGet();
+            continue;
+          }
+
+          assertEquals(expected, value);
+          acks.put(value);
+          expected += 1;
+        }
+      } catch (final Throwable ex) {
+        failure.set(ex);
+        acks.put(-1);
+      }
+    });
+    consumer.start();
+
+    // Interrupt at varying points: before the consumer waits, while it waits, and after it has taken the value.
+    final var random = new Random(0);
+    for (var i = 0; i < rounds; i += 1) {
+      if (random.nextInt(4) == 0) consumer.interrupt();
+      values.put(i);
+      if (random.nextInt(4) == 0) consumer.interrupt();
+
+      final var ack = acks.take();
+      if (ack == -1) break;
+      assertEquals(i, ack);
+    }
+
+    consumer.join();
+    assertNull(failure.get());
+    assertTrue(interruptions.get() > 0);
+  }
+
+  @Test
+  @DisplayName("Threaded tasks can be stepped from many threads and released mid-step")
+  public void threadedTasksUnderLoad() throws InterruptedException, ExecutionException {
+    final var taskCount = 64;
+    final var maxSteps = 200;
+    final var random = new Random(0);
+
+    final var taskPool = Executors.newCachedThreadPool();
+    final var hostPool = Executors.newFixedThreadPool(4);
+    try {
+      final var exited = new CountDownLatch(taskCount);
+      final var tasks = new ArrayList<ThreadedTask<Integer>>();
+      final var releaseAt = new ArrayList<Integer>();
+      for (var i = 0; i < taskCount; i += 1) {
+        tasks.add(new ThreadedTask<>(taskPool, ModelActions.context, () -> {
+          try {
+            for (var step = 0; step < maxSteps; step += 1) ModelActions.delay(Duration.EPSILON);
+            return maxSteps;
+          } finally {
+            exited.countDown();
+          }
+        }));
+        // Release about half of the tasks after they've started, but before they finish.
+        releaseAt.add((random.nextBoolean()) ? 1 + random.nextInt(maxSteps) : -1);
+      }
+
+      // Step every live task once per round, each on whichever host thread picks it up.
+      final var stepsTaken = new int[taskCount];
+      final var finished = new boolean[taskCount];
+      for (var round = 0; round <= maxSteps; round += 1) {
+        final var jobs = new ArrayList<Callable<Void>>();
+        for (var i = 0; i < taskCount; i += 1) {
+          if (finished[i]) continue;
+
+          final var index = i;
+          final var task = tasks.get(i);
+          jobs.add(() -> {
+            if (stepsTaken[index] == releaseAt.get(index)) {
+              task.release();
+              finished[index] = true;
+              return null;
+            }
+
+            final var status = task.step(MOCK_SCHEDULER);
+            stepsTaken[index] += 1;
+            if (status instanceof TaskStatus.Completed<Integer> completed) {
+              assertEquals(maxSteps, completed.returnValue());
+              finished[index] = true;
+            } else {
+              assertInstanceOf(TaskStatus.Delayed.class, status);
+            }
+            return null;
+          });
+        }
+
+        for (final var result : hostPool.invokeAll(jobs)) result.get();
+      }
+
+      for (var i = 0; i < taskCount; i += 1) {
+        assertTrue(finished[i]);
+        if (releaseAt.get(i) == -1) assertEquals(maxSteps + 1, stepsTaken[i]);
+      }
+
+      // Every task's thread must have unwound, whether it finished or was released.
+      assertTrue(exited.await(10, TimeUnit.SECONDS));
+    } finally {
+      hostPool.shutdown();
+      taskPool.shutdown();
+    }
+  }
+
+  private static final Scheduler MOCK_SCHEDULER = new Scheduler() {
+    @Override
+    public <State> State get(final CellId<State> query) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <Event> void emit(final Event event, final Topic<Event> topic) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void spawn(final TaskFactory<?> task) {
+      throw new UnsupportedOperationException();
+    }
+  };
+}
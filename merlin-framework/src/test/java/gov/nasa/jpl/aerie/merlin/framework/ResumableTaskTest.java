@@ -0,0 +1,96 @@
+package gov.nasa.jpl.aerie.merlin.framework;
+
+import gov.nasa.jpl.aerie.merlin.protocol.driver.CellId;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Scheduler;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
+import gov.nasa.jpl.aerie.merlin.protocol.model.TaskFactory;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.TaskStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class ResumableTaskTest {
+  private static final Topic<String> TOPIC = new Topic<>();
+
+  @Test
+  @DisplayName("Each step resumes the task where the last one left off")
+  public void testStepsResume() {
+    final var scheduler = new RecordingScheduler();
+    final var context = Scoped.<Context>create();
+
+    final var task = new ResumableTask<>(context, new Resumable<Integer>() {
+      private int step = 0;
+
+      @Override
+      public Integer resume() {
+        context.get().emit("step " + this.step, TOPIC);
+        if (this.step++ < 2) context.get().delay(Duration.SECOND);
+        return this.step;
+      }
+    });
+
+    assertEquals(TaskStatus.delayed(Duration.SECOND, task), task.step(scheduler));
+    assertEquals(TaskStatus.delayed(Duration.SECOND, task), task.step(scheduler));
+    assertEquals(TaskStatus.completed(3), task.step(scheduler));
+    assertEquals(List.of("step 0", "step 1", "step 2"), scheduler.events);
+  }
+
+  @Test
+  @DisplayName("A task may not act on the simulation after yielding in the same step")
+  public void testNoActionsAfterYield() {
+    final var scheduler = new RecordingScheduler();
+    final var context = Scoped.<Context>create();
+
+    final var task = new ResumableTask<>(context, () -> {
+      context.get().delay(Duration.SECOND);
+      context.get().emit("too late", TOPIC);
+      return 0;
+    });
+
+    assertThrows(IllegalStateException.class, () -> task.step(scheduler));
+    assertEquals(List.of(), scheduler.events);
+  }
+
+  @Test
+  @DisplayName("A task yielding twice in one step fails with an explanation")
+  public void testYieldInHelper() {
+    final var scheduler = new RecordingScheduler();
+    final var context = Scoped.<Context>create();
+
+    final Runnable helper = () -> context.get().delay(Duration.SECOND);
+    final var task = new ResumableTask<>(context, () -> {
+      helper.run();
+      context.get().delay(Duration.SECOND);
+      return 0;
+    });
+
+    final var ex = assertThrows(IllegalStateException.class, () -> task.step(scheduler));
+    assertTrue(ex.getMessage().contains("a method it calls yields"), ex.getMessage());
+  }
+
+  private static final class RecordingScheduler implements Scheduler {
+    private final List<Object> events = new ArrayList<>();
+
+    @Override
+    public <State> State get(final CellId<State> query) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <Event> void emit(final Event event, final Topic<Event> topic) {
+      this.events.add(event);
+    }
+
+    @Override
+    public void spawn(final TaskFactory<?> task) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package gov.nasa.jpl.aerie.merlin.protocol.driver;
 
+import gov.nasa.jpl.aerie.merlin.protocol.model.CellBehavior;
 import gov.nasa.jpl.aerie.merlin.protocol.model.CellType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.PersistentCellType;
 import gov.nasa.jpl.aerie.merlin.protocol.model.OutputType;
 import gov.nasa.jpl.aerie.merlin.protocol.model.Resource;
 import gov.nasa.jpl.aerie.merlin.protocol.model.Task;
@@ -11,7 +13,7 @@ import java.util.function.Function;
 /**
  * An interface to the driver during model instantiation.
  *
- * <p> An {@code Initializer} allows models to {@linkplain #allocate(Object, CellType, Function, Topic) allocate}
+ * <p> An {@code Initializer} allows models to {@linkplain #allocate(Object, CellBehavior, Function, Topic) allocate}
  * storage for simulation-aware state, which is the only mutable state that can safely be shared among
  * stateful cells that can be read and updated from {@link Task}s. The model must not interact with an {@code Initializer}
  * beyond the scope in which it was received. </p>
@@ -29,7 +31,7 @@ public interface Initializer {
    * Gets the current state of the cell with the given ID.
    *
    * <p> Since cells cannot be mutated during initialization, this method always returns the initial state provided to
-   * {@link #allocate(Object, CellType, Function, Topic)} for the given cell ID. </p>
+   * {@link #allocate(Object, CellBehavior, Function, Topic)} for the given cell ID. </p>
    *
    * @param <State>
    *   The type of state held by the cell.
@@ -51,8 +53,9 @@ public interface Initializer {
    * state, to resolve any concurrent effects on state in a coherent way, and to identify which resources need to be
    * recomputed based on when the cells they are computed from are updated. </p>
    *
-   * <p> The given {@link CellType} describes how concurrent effects resolve into coherent updates to the cell's state,
-   * and how time causes the state to evolve autonomously. The given {@link Topic} and associated interpretation
+   * <p> The given {@link CellBehavior}, either a {@link CellType} or a {@link PersistentCellType}, describes how
+   * concurrent effects resolve into coherent updates to the cell's state, and how time causes the state to evolve
+   * autonomously. The given {@link Topic} and associated interpretation
    * function describe how a particular class of events influences this cell. In the future, it may become possible to
    * subscribe a cell to zero or multiple topics, in which case this method will likely factor into separate actions
    * for allocation and subscription. </p>
@@ -77,7 +80,7 @@ public interface Initializer {
   <Event, Effect, State>
   CellId<State> allocate(
       State initialState,
-      CellType<Effect, State> cellType,
+      CellBehavior<Effect, State> cellType,
       Function<Event, Effect> interpretation,
       Topic<Event> topic);
 
@@ -1,5 +1,18 @@
 package gov.nasa.jpl.aerie.merlin.protocol.driver;
 
 public interface Querier {
+  /**
+   * Gets the current state of the cell with the given ID.
+   *
+   * <p> The returned state belongs to the driver, and must be treated as read-only. Repeated reads of a cell
+   * within a single query may return the same instance. </p>
+   *
+   * @param <State>
+   *   The type of state held by the cell.
+   * @param cellId
+   *   The ID of the cell to query.
+   * @return
+   *   The current state of the cell, which must not be mutated.
+   */
   <State> State getState(CellId<State> cellId);
 }
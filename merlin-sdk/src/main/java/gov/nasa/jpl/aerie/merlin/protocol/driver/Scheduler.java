@@ -3,6 +3,21 @@ package gov.nasa.jpl.aerie.merlin.protocol.driver;
 import gov.nasa.jpl.aerie.merlin.protocol.model.TaskFactory;
 
 public interface Scheduler {
+  /**
+   * Gets the current state of the cell with the given ID, as seen by the task being stepped.
+   *
+   * <p> The returned state belongs to the driver, and must be treated as read-only. Within a single step,
+   * repeated reads of a cell may return the same instance, so a state mutated by its reader would be observed by
+   * later reads in that step and could diverge from the cell's true state. To change a cell, {@linkplain #emit emit}
+   * an event that the cell is subscribed to. </p>
+   *
+   * @param <State>
+   *   The type of state held by the cell.
+   * @param cellId
+   *   The ID of the cell to query.
+   * @return
+   *   The current state of the cell, which must not be mutated.
+   */
   <State> State get(CellId<State> cellId);
 
   <Event> void emit(Event event, Topic<Event> topic);
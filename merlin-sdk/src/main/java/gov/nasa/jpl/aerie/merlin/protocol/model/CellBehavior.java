@@ -0,0 +1,33 @@
+package gov.nasa.jpl.aerie.merlin.protocol.model;
+
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+
+import java.util.Optional;
+
+/**
+ * How the state of a cell evolves over time and under effects.
+ *
+ * <p>
+ * A cell's states are either updated in place, as described by a {@link CellType},
+ * or replaced by new immutable states, as described by a {@link PersistentCellType}.
+ * </p>
+ */
+public sealed interface CellBehavior<Effect, State> permits CellType, PersistentCellType {
+  EffectTrait<Effect> getEffectType();
+
+  /**
+   * Whether stepping a state by two durations in turn always has the same effect as stepping it once by their sum.
+   *
+   * If so, a cell that has fallen behind the simulation may be brought up to date in fewer, larger steps.
+   * Cells that accumulate floating-point quantities over time are generally not additive,
+   * since the rounding error depends on how the time is divided.
+   */
+  default boolean isStepAdditive() {
+    return false;
+  }
+
+  /** Get the (positive) amount of time that this cell is valid for, or empty if it's valid forever. */
+  default Optional<Duration> getExpiry(final State state) {
+    return Optional.empty();
+  }
+}
@@ -58,6 +58,9 @@ public interface ModelType<Config, Model> {
    * effects on state in a coherent way, and to identify which resources need to be recomputed based on when the cells
    * they are computed from are updated. </p>
    *
+   * <p> For the same reason, mutable state must not be kept in static fields. A host may instantiate the same loaded
+   * model type many times, including for simulations running at the same time, and every instance sees its statics. </p>
+   *
    * <p> The state of the resulting model instance can be evolved by either instantiating directives and running their
    * associated tasks, or by progressing time on the simulation-aware state allocated by the model instance. </p>
    *
@@ -0,0 +1,28 @@
+package gov.nasa.jpl.aerie.merlin.protocol.model;
+
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+
+/**
+ * A cell type whose states are immutable values.
+ *
+ * <p>
+ * Instead of updating a state in place, a persistent cell type produces a new state from an old one.
+ * Since no state is ever modified after it is created, the simulation engine shares states by reference
+ * wherever a mutable cell would need a copy: when a cell's state is read, and when a cell is branched
+ * for a concurrent task. Cells whose state is small or cheap to rebuild should prefer this interface.
+ * </p>
+ *
+ * <p>
+ * States of a persistent cell type must not be mutated by anyone, including the models that read them.
+ * </p>
+ */
+public non-sealed interface PersistentCellType<Effect, State> extends CellBehavior<Effect, State> {
+  /** Get the state resulting from applying the given effect to the given state. */
+  State applied(State state, Effect effect);
+
+  /** Get the state resulting from the passage of the given amount of time from the given state. */
+  default State stepped(final State state, final Duration duration) {
+    // Unless specified, a cell is unaffected by the passage of time.
+    return state;
+  }
+}
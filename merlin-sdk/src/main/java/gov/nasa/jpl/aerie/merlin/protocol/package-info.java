@@ -32,8 +32,8 @@
  *     to construct a model instance, providing a {@link gov.nasa.jpl.aerie.merlin.protocol.driver.Initializer}.
  *
  *     <ul>
- *       <li> Model calls {@link gov.nasa.jpl.aerie.merlin.protocol.driver.Initializer#allocate(java.lang.Object, gov.nasa.jpl.aerie.merlin.protocol.model.CellType, java.util.function.Function, gov.nasa.jpl.aerie.merlin.protocol.driver.Topic)}
- *       any number of times to allocate mutable internal state described by a {@link gov.nasa.jpl.aerie.merlin.protocol.model.CellType}
+ *       <li> Model calls {@link gov.nasa.jpl.aerie.merlin.protocol.driver.Initializer#allocate(java.lang.Object, gov.nasa.jpl.aerie.merlin.protocol.model.CellBehavior, java.util.function.Function, gov.nasa.jpl.aerie.merlin.protocol.driver.Topic)}
+ *       any number of times to allocate mutable internal state described by a {@link gov.nasa.jpl.aerie.merlin.protocol.model.CellBehavior}
  *       and subscribe it to an internal stream of events. </li>
  *
  *       <li> Model calls {@link gov.nasa.jpl.aerie.merlin.protocol.driver.Initializer#daemon(gov.nasa.jpl.aerie.merlin.protocol.driver.Initializer.TaskFactory)}
@@ -72,11 +72,12 @@
  *           <li> Driver converts all events not yet consumed by the cell to per-cell effects by using the topic and projection
  *           registered with the cell. </li>
  *
- *           <li> Driver calls {@link gov.nasa.jpl.aerie.merlin.protocol.model.CellType#getEffectType()} and uses the
+ *           <li> Driver calls {@link gov.nasa.jpl.aerie.merlin.protocol.model.CellBehavior#getEffectType()} and uses the
  *           returned {@link gov.nasa.jpl.aerie.merlin.protocol.model.EffectTrait} to combine concurrent effects. </li>
  *
  *           <li> Driver calls {@link gov.nasa.jpl.aerie.merlin.protocol.model.CellType#step(java.lang.Object, gov.nasa.jpl.aerie.merlin.protocol.types.Duration)}
  *           and {@link gov.nasa.jpl.aerie.merlin.protocol.model.CellType#apply(java.lang.Object, java.lang.Object)}
+ *           (or, for a {@link gov.nasa.jpl.aerie.merlin.protocol.model.PersistentCellType}, its {@code stepped} and {@code applied})
  *           to bring the cell's state up to the time at the Model's request. </li>
  *
  *           <li> Driver returns the current state of the cell. </li>
@@ -53,7 +53,8 @@ public final class AerieAppDriver {
     final var missionModelController = new LocalMissionModelService(
         configuration.merlinFileStore(),
         stores.missionModels(),
-        configuration.untruePlanStart());
+        configuration.untruePlanStart(),
+        configuration.missionModelCacheSize());
 
     if (configuration.enableContinuousValidationThread()) {
       final var validationWorker = new ValidationWorker(
@@ -70,7 +71,10 @@ public final class AerieAppDriver {
 
     final ConstraintsDSLCompilationService constraintsDSLCompilationService;
     try {
-      constraintsDSLCompilationService = new ConstraintsDSLCompilationService(typescriptCodeGenerationService);
+      constraintsDSLCompilationService = new ConstraintsDSLCompilationService(
+          typescriptCodeGenerationService,
+          configuration.constraintsDslCompilerPoolSize(),
+          configuration.constraintsDslCompilationCacheSize());
     } catch (IOException e) {
       throw new Error("Failed to start ConstraintsDSLCompilationService", e);
     }
@@ -182,7 +186,10 @@ public final class AerieAppDriver {
         URI.create(getEnv("HASURA_GRAPHQL_URL", "http://localhost:8080/v1/graphql")),
         getEnv("HASURA_GRAPHQL_ADMIN_SECRET", ""),
         Boolean.parseBoolean(getEnv("ENABLE_CONTINUOUS_VALIDATION_THREAD", "false")),
-        Integer.parseInt(getEnv("VALIDATION_THREAD_POLLING_PERIOD", "500"))
+        Integer.parseInt(getEnv("VALIDATION_THREAD_POLLING_PERIOD", "500")),
+        Integer.parseInt(getEnv("CONSTRAINTS_DSL_COMPILER_POOL_SIZE", "1")),
+        Integer.parseInt(getEnv("CONSTRAINTS_DSL_COMPILATION_CACHE_SIZE", "256")),
+        Integer.parseInt(getEnv("MISSION_MODEL_CACHE_SIZE", "8"))
     );
   }
 }
@@ -2,10 +2,14 @@ package gov.nasa.jpl.aerie.merlin.server;
 
 import gov.nasa.jpl.aerie.merlin.driver.SimulationFailure;
 import gov.nasa.jpl.aerie.merlin.driver.SimulationResults;
+import gov.nasa.jpl.aerie.merlin.driver.SimulationResultsSink;
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
 import gov.nasa.jpl.aerie.merlin.server.models.SimulationResultsHandle;
 
+import java.time.Instant;
+import java.util.Optional;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public final class ResultsProtocol {
   private ResultsProtocol() {}
@@ -51,6 +55,19 @@ public final class ResultsProtocol {
     void reportIncompleteResults(SimulationResults results);
 
     void reportSimulationExtent(Duration extent);
+
+    /**
+     * Get a sink which writes results into this cell while simulation is still running,
+     * if this cell supports receiving results incrementally.
+     *
+     * <p>
+     * Finishing the sink completes this cell, as by {@link #succeedWith} or,
+     * if the simulation was canceled, by {@link #reportIncompleteResults}.
+     * </p>
+     */
+    default Optional<SimulationResultsSink> streamResults(Instant simulationStartTime, Supplier<Boolean> canceled) {
+      return Optional.empty();
+    }
   }
 
   public interface OwnerRole extends ReaderRole, WriterRole {}
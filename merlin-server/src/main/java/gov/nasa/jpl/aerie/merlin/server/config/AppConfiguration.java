@@ -14,7 +14,10 @@ public record AppConfiguration (
     URI hasuraGraphqlURI,
     String hasuraGraphQlAdminSecret,
     boolean enableContinuousValidationThread,
-    int validationThreadPollingPeriod
+    int validationThreadPollingPeriod,
+    int constraintsDslCompilerPoolSize,
+    int constraintsDslCompilationCacheSize,
+    int missionModelCacheSize
 ) {
   public AppConfiguration {
     Objects.requireNonNull(merlinFileStore);
@@ -18,7 +18,16 @@ public interface SimulationResultsHandle {
 
   SimulationResults getSimulationResults();
 
+  /** All profiles of these results, without their activities or events. */
+  ProfileSet getProfiles();
+
   ProfileSet getProfiles(final List<String> profileNames);
 
+  /**
+   * The named profiles, which need only be exact between the given offsets from simulation start.
+   * Outside of that window, they may be reported as gaps.
+   */
+  ProfileSet getProfiles(final List<String> profileNames, final Duration windowStart, final Duration windowEnd);
+
   Map<SimulatedActivityId, SimulatedActivity> getSimulatedActivities();
 }
@@ -180,6 +180,11 @@ public final class InMemoryResultsCellRepository implements ResultsCellRepositor
       return this.simulationResults;
     }
 
+    @Override
+    public ProfileSet getProfiles() {
+      return ProfileSet.of(this.simulationResults.realProfiles, this.simulationResults.discreteProfiles);
+    }
+
     @Override
     public ProfileSet getProfiles(final List<String> profileNames) {
       final var realProfiles = new HashMap<String, Pair<ValueSchema, List<ProfileSegment<RealDynamics>>>>();
@@ -194,6 +199,12 @@ public final class InMemoryResultsCellRepository implements ResultsCellRepositor
       return ProfileSet.of(realProfiles, discreteProfiles);
     }
 
+    @Override
+    public ProfileSet getProfiles(final List<String> profileNames, final Duration windowStart, final Duration windowEnd) {
+      // The profiles are already in memory, so there is nothing to gain from trimming them to the window.
+      return this.getProfiles(profileNames);
+    }
+
     @Override
     public Map<SimulatedActivityId, SimulatedActivity> getSimulatedActivities() {
       return this.simulationResults.simulatedActivities;
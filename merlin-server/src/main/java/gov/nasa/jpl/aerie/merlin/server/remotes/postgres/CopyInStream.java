@@ -0,0 +1,108 @@
+package gov.nasa.jpl.aerie.merlin.server.remotes.postgres;
+
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import org.intellij.lang.annotations.Language;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A stream of rows written to a table through Postgres's <code>COPY ... FROM STDIN</code> protocol.
+ *
+ * <p>
+ * Rows are written in Postgres's text format, and flushed to the server in chunks as they are produced,
+ * so that no more than one chunk of rows is ever held in memory.
+ * </p>
+ */
+/*package-local*/ final class CopyInStream implements AutoCloseable {
+  private static final int CHUNK_SIZE = 1 << 16;
+
+  private final CopyIn copyIn;
+  private final StringBuilder buffer = new StringBuilder(CHUNK_SIZE);
+  private boolean atStartOfRow = true;
+
+  /*package-local*/ CopyInStream(final CopyIn copyIn) {
+    this.copyIn = copyIn;
+  }
+
+  /** Determine whether a connection is able to stream rows with <code>COPY</code>. */
+  public static boolean isSupported(final Connection connection) throws SQLException {
+    return connection.isWrapperFor(PGConnection.class);
+  }
+
+  public static CopyInStream open(final Connection connection, final @Language("SQL") String sql) throws SQLException {
+    return new CopyInStream(connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql));
+  }
+
+  public CopyInStream field(final long value) {
+    this.beginField();
+    this.buffer.append(value);
+    return this;
+  }
+
+  public CopyInStream field(final boolean value) {
+    this.beginField();
+    this.buffer.append(value ? 't' : 'f');
+    return this;
+  }
+
+  public CopyInStream field(final String value) {
+    this.beginField();
+
+    for (var i = 0; i < value.length(); i += 1) {
+      final var c = value.charAt(i);
+      switch (c) {
+        case '\\' -> this.buffer.append("\\\\");
+        case '\n' -> this.buffer.append("\\n");
+        case '\r' -> this.buffer.append("\\r");
+        case '\t' -> this.buffer.append("\\t");
+        default -> this.buffer.append(c);
+      }
+    }
+    return this;
+  }
+
+  /** Write a duration as an ISO 8601 interval, in the same form as {@link PreparedStatements#setDuration}. */
+  public CopyInStream field(final Duration value) {
+    final var micros = value.in(Duration.MICROSECONDS);
+
+    this.beginField();
+    this.buffer.append("PT%d.%06dS".formatted(micros / 1_000_000, micros % 1_000_000));
+    return this;
+  }
+
+  public void endRow() throws SQLException {
+    this.buffer.append('\n');
+    this.atStartOfRow = true;
+
+    if (this.buffer.length() >= CHUNK_SIZE) this.flush();
+  }
+
+  /** Complete the copy, returning the number of rows written. */
+  public long finish() throws SQLException {
+    this.flush();
+    return this.copyIn.endCopy();
+  }
+
+  private void beginField() {
+    if (!this.atStartOfRow) this.buffer.append('\t');
+    this.atStartOfRow = false;
+  }
+
+  private void flush() throws SQLException {
+    if (this.buffer.isEmpty()) return;
+
+    final var bytes = this.buffer.toString().getBytes(StandardCharsets.UTF_8);
+    this.copyIn.writeToCopy(bytes, 0, bytes.length);
+    this.buffer.setLength(0);
+  }
+
+  @Override
+  public void close() throws SQLException {
+    // A copy that was never finished must be cancelled, or the connection will be left unusable.
+    if (this.copyIn.isActive()) this.copyIn.cancelCopy();
+  }
+}
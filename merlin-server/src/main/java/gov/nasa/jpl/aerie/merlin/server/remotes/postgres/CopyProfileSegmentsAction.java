@@ -0,0 +1,131 @@
+package gov.nasa.jpl.aerie.merlin.server.remotes.postgres;
+
+import gov.nasa.jpl.aerie.json.JsonParser;
+import gov.nasa.jpl.aerie.merlin.driver.engine.ProfileSegment;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.RealDynamics;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
+import gov.nasa.jpl.aerie.merlin.protocol.types.ValueSchema;
+import org.apache.commons.lang3.tuple.Pair;
+import org.intellij.lang.annotations.Language;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static gov.nasa.jpl.aerie.merlin.driver.json.SerializedValueJsonParser.serializedValueP;
+import static gov.nasa.jpl.aerie.merlin.server.http.ProfileParsers.realDynamicsP;
+
+/**
+ * A bulk alternative to {@link PostProfileSegmentsAction} and {@link AppendProfileSegmentsAction},
+ * which streams the segments of every profile through a single <code>COPY</code> rather than inserting them row-by-row.
+ */
+/*package-local*/ final class CopyProfileSegmentsAction {
+  private final @Language("SQL") String sql = """
+      copy profile_segment (dataset_id, profile_id, start_offset, dynamics, is_gap) from stdin
+    """;
+  private final Connection connection;
+
+  public CopyProfileSegmentsAction(final Connection connection) {
+    this.connection = connection;
+  }
+
+  /** Write the segments of complete profiles, each starting from the beginning of its profile. */
+  public void apply(
+      final long datasetId,
+      final Map<String, ProfileRecord> profileRecords,
+      final Map<String, Pair<ValueSchema, List<ProfileSegment<RealDynamics>>>> realProfiles,
+      final Map<String, Pair<ValueSchema, List<ProfileSegment<SerializedValue>>>> discreteProfiles
+  ) throws SQLException {
+    this.apply(datasetId, profileRecords, Map.of(), realProfiles, discreteProfiles);
+  }
+
+  /**
+   * Write segments following on from those already stored for each profile.
+   *
+   * @param startOffsets the offset at which each profile's new segments begin; a profile not given here begins at zero
+   * @return the offset at which each profile's new segments end
+   */
+  public Map<String, Duration> apply(
+      final long datasetId,
+      final Map<String, ProfileRecord> profileRecords,
+      final Map<String, Duration> startOffsets,
+      final Map<String, Pair<ValueSchema, List<ProfileSegment<RealDynamics>>>> realProfiles,
+      final Map<String, Pair<ValueSchema, List<ProfileSegment<SerializedValue>>>> discreteProfiles
+  ) throws SQLException {
+    try (final var stream = CopyInStream.open(this.connection, sql)) {
+      final var endOffsets = write(stream, datasetId, profileRecords, startOffsets, realProfiles, discreteProfiles);
+      stream.finish();
+      return endOffsets;
+    }
+  }
+
+  /*package-local*/ static void write(
+      final CopyInStream stream,
+      final long datasetId,
+      final Map<String, ProfileRecord> profileRecords,
+      final Map<String, Pair<ValueSchema, List<ProfileSegment<RealDynamics>>>> realProfiles,
+      final Map<String, Pair<ValueSchema, List<ProfileSegment<SerializedValue>>>> discreteProfiles
+  ) throws SQLException {
+    write(stream, datasetId, profileRecords, Map.of(), realProfiles, discreteProfiles);
+  }
+
+  /*package-local*/ static Map<String, Duration> write(
+      final CopyInStream stream,
+      final long datasetId,
+      final Map<String, ProfileRecord> profileRecords,
+      final Map<String, Duration> startOffsets,
+      final Map<String, Pair<ValueSchema, List<ProfileSegment<RealDynamics>>>> realProfiles,
+      final Map<String, Pair<ValueSchema, List<ProfileSegment<SerializedValue>>>> discreteProfiles
+  ) throws SQLException {
+    final var endOffsets = new HashMap<String, Duration>(realProfiles.size() + discreteProfiles.size());
+    for (final var entry : realProfiles.entrySet()) {
+      final var name = entry.getKey();
+      endOffsets.put(name, copySegments(
+          stream,
+          datasetId,
+          profileRecords.get(name),
+          startOffsets.getOrDefault(name, Duration.ZERO),
+          entry.getValue().getRight(),
+          realDynamicsP));
+    }
+    for (final var entry : discreteProfiles.entrySet()) {
+      final var name = entry.getKey();
+      endOffsets.put(name, copySegments(
+          stream,
+          datasetId,
+          profileRecords.get(name),
+          startOffsets.getOrDefault(name, Duration.ZERO),
+          entry.getValue().getRight(),
+          serializedValueP));
+    }
+    return endOffsets;
+  }
+
+  private static <Dynamics> Duration copySegments(
+      final CopyInStream stream,
+      final long datasetId,
+      final ProfileRecord profileRecord,
+      final Duration startOffset,
+      final List<ProfileSegment<Dynamics>> segments,
+      final JsonParser<Dynamics> dynamicsP
+  ) throws SQLException {
+    // As in `PostProfileSegmentsAction`, segments are stored by their offset from the start of the profile,
+    // so that their order can be recovered.
+    var accumulatedOffset = startOffset;
+    for (final var segment : segments) {
+      stream
+          .field(datasetId)
+          .field(profileRecord.id())
+          .field(accumulatedOffset)
+          .field(dynamicsP.unparse(segment.dynamics()).toString())
+          .field(false)
+          .endRow();
+
+      accumulatedOffset = Duration.add(accumulatedOffset, segment.extent());
+    }
+    return accumulatedOffset;
+  }
+}
@@ -0,0 +1,79 @@
+package gov.nasa.jpl.aerie.merlin.server.remotes.postgres;
+
+import gov.nasa.jpl.aerie.merlin.driver.timeline.EventGraph;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
+import org.apache.commons.lang3.tuple.Pair;
+import org.intellij.lang.annotations.Language;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static gov.nasa.jpl.aerie.merlin.driver.json.SerializedValueJsonParser.serializedValueP;
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.MICROSECONDS;
+
+/**
+ * A bulk alternative to {@link InsertSimulationEventsAction}, which streams events through a <code>COPY</code>
+ * rather than inserting them row-by-row.
+ */
+/*package-local*/ final class CopySimulationEventsAction {
+  private static final long MICROS_PER_DAY = 24L * 60 * 60 * 1_000_000;
+
+  private final @Language("SQL") String sql = """
+      copy event (dataset_id, real_time, transaction_index, causal_time, topic_index, value) from stdin
+    """;
+  private final Connection connection;
+
+  public CopySimulationEventsAction(final Connection connection) {
+    this.connection = connection;
+  }
+
+  public void apply(
+      final long datasetId,
+      final Map<Duration, List<EventGraph<Pair<Integer, SerializedValue>>>> eventPoints
+  ) throws SQLException {
+    try (final var stream = CopyInStream.open(this.connection, sql)) {
+      write(stream, datasetId, eventPoints);
+      stream.finish();
+    }
+  }
+
+  /*package-local*/ static void write(
+      final CopyInStream stream,
+      final long datasetId,
+      final Map<Duration, List<EventGraph<Pair<Integer, SerializedValue>>>> eventPoints
+  ) throws SQLException {
+    for (final var eventPoint : eventPoints.entrySet()) {
+      final var realTime = formatRealTime(eventPoint.getKey());
+      final var transactions = eventPoint.getValue();
+
+      for (int transactionIndex = 0; transactionIndex < transactions.size(); transactionIndex++) {
+        for (final var entry : EventGraphFlattener.flatten(transactions.get(transactionIndex))) {
+          final var causalTime = entry.getLeft();
+          final var event = entry.getRight();
+
+          stream
+              .field(datasetId)
+              .field(realTime)
+              .field(transactionIndex)
+              .field(causalTime)
+              .field(event.getLeft())
+              .field(serializedValueP.unparse(event.getRight()).toString())
+              .endRow();
+        }
+      }
+    }
+  }
+
+  // `InsertSimulationEventsAction` computes the real time as a difference of timestamps,
+  //   which Postgres normalizes into whole days plus a remainder. Produce the same interval here.
+  private static String formatRealTime(final Duration time) {
+    final var micros = time.in(MICROSECONDS);
+    final var days = micros / MICROS_PER_DAY;
+    final var remainder = micros % MICROS_PER_DAY;
+
+    return "P%dDT%d.%06dS".formatted(days, remainder / 1_000_000, remainder % 1_000_000);
+  }
+}
@@ -3,83 +3,209 @@ package gov.nasa.jpl.aerie.merlin.server.remotes.postgres;
 import gov.nasa.jpl.aerie.json.JsonParser;
 import gov.nasa.jpl.aerie.merlin.driver.engine.ProfileSegment;
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.RealDynamics;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
 import org.intellij.lang.annotations.Language;
 
+import javax.json.Json;
+import java.io.StringReader;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
-import static gov.nasa.jpl.aerie.merlin.server.remotes.postgres.PostgresParsers.getJsonColumn;
+import static gov.nasa.jpl.aerie.merlin.driver.json.SerializedValueJsonParser.serializedValueP;
+import static gov.nasa.jpl.aerie.merlin.server.http.ProfileParsers.realDynamicsP;
 
+/**
+ * Reads the segments of many profiles of a dataset in a single query, restricted to a window of time.
+ *
+ * <p>
+ * Rows are read through a cursor, {@link #FETCH_SIZE} at a time, and each segment is handed to its profile's sink
+ * as soon as the row after it has been read, so the raw result set is never held in memory all at once.
+ * </p>
+ *
+ * <p>
+ * Each profile still covers its whole duration: the part before the window (if any) is reported as a single gap,
+ * the segment in effect at the start of the window is reported from the window start,
+ * and the part after the window (if any) is reported as a single gap.
+ * </p>
+ */
 /*package-local*/ final class GetProfileSegmentsAction implements AutoCloseable {
+  private static final int FETCH_SIZE = 10_000;
+
   private final @Language("SQL") String sql = """
       select
+        seg.profile_id,
         seg.start_offset,
         seg.dynamics,
         seg.is_gap
-      from profile_segment as seg
+      from unnest(?::integer[]) as requested(profile_id)
+      cross join lateral (
+        select max(prior.start_offset) as start_offset
+        from profile_segment as prior
+        where
+          prior.dataset_id = ? and
+          prior.profile_id = requested.profile_id and
+          prior.start_offset <= ?::interval
+      ) as window_start
+      join profile_segment as seg
+        on seg.dataset_id = ? and
+           seg.profile_id = requested.profile_id
       where
-        seg.dataset_id = ? and
-        seg.profile_id = ?
-      order by seg.start_offset asc
+        seg.start_offset >= coalesce(window_start.start_offset, ?::interval) and
+        (seg.start_offset < ?::interval or seg.start_offset = window_start.start_offset)
+      order by seg.profile_id, seg.start_offset asc
     """;
   private final PreparedStatement statement;
 
+  public interface Sink {
+    Consumer<ProfileSegment<Optional<RealDynamics>>> realProfile(ProfileRecord profile);
+    Consumer<ProfileSegment<Optional<SerializedValue>>> discreteProfile(ProfileRecord profile);
+  }
+
   public GetProfileSegmentsAction(final Connection connection) throws SQLException {
     this.statement = connection.prepareStatement(sql);
+    this.statement.setFetchSize(FETCH_SIZE);
   }
 
-  public <Dynamics> List<ProfileSegment<Optional<Dynamics>>> get(
+  public void apply(
       final long datasetId,
-      final long profileId,
-      final Duration profileDuration,
-      final JsonParser<Dynamics> dynamicsP
+      final List<ProfileRecord> profiles,
+      final Duration windowStart,
+      final Duration windowEnd,
+      final Sink sink
   ) throws SQLException {
-    final var segments = new ArrayList<ProfileSegment<Optional<Dynamics>>>();
-    PreparedStatements.setIntervalStyle(statement.getConnection(), PreparedStatements.PGIntervalStyle.ISO8601);
-    this.statement.setLong(1, datasetId);
-    this.statement.setLong(2, profileId);
-    final var resultSet = statement.executeQuery();
-
-    // Profile segments are stored with their start offset relative to simulation start
-    // We must convert these to durations describing how long each segment lasts
-    if (resultSet.next()) {
-      var offset = PostgresParsers.parseDurationISO8601(resultSet.getString(1));
-      Optional<Dynamics> dynamics;
-      var isGap = resultSet.getBoolean("is_gap");
-      if (!isGap) {
-        dynamics = Optional.of(getJsonColumn(resultSet, "dynamics", dynamicsP)
-            .getSuccessOrThrow(failureReason -> new Error("Corrupt profile dynamics: " + failureReason.reason())));
-      } else {
-        dynamics = Optional.empty();
+    if (profiles.isEmpty()) return;
+
+    final var cursors = new HashMap<Long, ProfileCursor<?>>(profiles.size());
+    for (final var profile : profiles) {
+      cursors.put(profile.id(), switch (profile.type().getLeft()) {
+        case "real" -> new ProfileCursor<>(profile, realDynamicsP, sink.realProfile(profile), windowStart, windowEnd);
+        case "discrete" -> new ProfileCursor<>(profile, serializedValueP, sink.discreteProfile(profile), windowStart, windowEnd);
+        default -> throw new Error("Unrecognized profile type " + profile.type().getLeft());
+      });
+    }
+
+    final var connection = this.statement.getConnection();
+    PreparedStatements.setIntervalStyle(connection, PreparedStatements.PGIntervalStyle.ISO8601);
+    this.statement.setArray(1, connection.createArrayOf("integer", cursors.keySet().toArray()));
+    this.statement.setLong(2, datasetId);
+    PreparedStatements.setDuration(this.statement, 3, windowStart);
+    this.statement.setLong(4, datasetId);
+    PreparedStatements.setDuration(this.statement, 5, windowStart);
+    PreparedStatements.setDuration(this.statement, 6, windowEnd);
+
+    // The driver only reads through a cursor within a transaction; otherwise it fetches every row up front.
+    if (connection.getAutoCommit()) {
+      try (final var ignored = new TransactionContext(connection)) {
+        this.read(cursors);
       }
+    } else {
+      this.read(cursors);
+    }
+
+    for (final var cursor : cursors.values()) {
+      if (!cursor.isStarted()) {
+        throw new Error("No profile segments found for `dataset_id` (%d) and `profile_id` (%d)"
+            .formatted(datasetId, cursor.profile.id()));
+      }
+    }
+  }
 
+  private void read(final HashMap<Long, ProfileCursor<?>> cursors) throws SQLException {
+    try (final var resultSet = this.statement.executeQuery()) {
+      ProfileCursor<?> current = null;
       while (resultSet.next()) {
-        final var nextOffset = PostgresParsers.parseDurationISO8601(resultSet.getString(1));
-        final var duration = nextOffset.minus(offset);
-        segments.add(new ProfileSegment<>(duration, dynamics));
-        offset = nextOffset;
-
-        isGap = resultSet.getBoolean("is_gap");
-        if (!isGap) {
-          dynamics = Optional.of(getJsonColumn(resultSet, "dynamics", dynamicsP)
-              .getSuccessOrThrow(
-                  failureReason -> new Error("Corrupt profile dynamics: " + failureReason.reason())));
-        } else {
-          dynamics = Optional.empty();
+        final var profileId = resultSet.getLong(1);
+        if (current == null || current.profile.id() != profileId) {
+          if (current != null) current.finish();
+          current = cursors.get(profileId);
         }
+
+        current.acceptRow(resultSet.getString(2), resultSet.getString(3), resultSet.getBoolean(4));
       }
+      if (current != null) current.finish();
+    }
+  }
 
-      final var duration = profileDuration.minus(offset);
-      segments.add(new ProfileSegment<>(duration, dynamics));
-    } else {
-      throw new Error("No profile segments found for `dataset_id` (%d) and `profile_id` (%d)".formatted(datasetId, profileId));
+  /**
+   * Converts one profile's rows, which are stored with their start offset relative to simulation start,
+   * into segments describing how long each lasts.
+   *
+   * <p>
+   * Rows must be given in order of start offset, beginning with the last row at or before the window start, if any,
+   * and ending with the last row before the window end. (A row starting at the window end would only describe
+   * an empty segment.)
+   * </p>
+   */
+  /*package-local*/ static final class ProfileCursor<Dynamics> {
+    private final ProfileRecord profile;
+    private final JsonParser<Dynamics> dynamicsP;
+    private final Consumer<ProfileSegment<Optional<Dynamics>>> sink;
+    private final Duration windowStart;
+    private final Duration windowEnd;
+
+    private Duration offset = null;
+    private Optional<Dynamics> dynamics = Optional.empty();
+
+    ProfileCursor(
+        final ProfileRecord profile,
+        final JsonParser<Dynamics> dynamicsP,
+        final Consumer<ProfileSegment<Optional<Dynamics>>> sink,
+        final Duration windowStart,
+        final Duration windowEnd
+    ) {
+      this.profile = profile;
+      this.dynamicsP = dynamicsP;
+      this.sink = sink;
+      this.windowStart = windowStart;
+      this.windowEnd = Duration.min(windowEnd, profile.duration());
+    }
+
+    boolean isStarted() {
+      return this.offset != null;
+    }
+
+    /** Accept a row with the given ISO 8601 start offset and JSON-encoded dynamics, which are ignored for gaps. */
+    void acceptRow(final String startOffset, final String dynamics, final boolean isGap) {
+      final var nextOffset = PostgresParsers.parseDurationISO8601(startOffset);
+      if (this.offset == null) {
+        // The first segment may have begun before the window; report everything before the window as a gap.
+        final var start = Duration.max(nextOffset, this.windowStart);
+        if (start.longerThan(Duration.ZERO)) this.sink.accept(new ProfileSegment<>(start, Optional.empty()));
+        this.offset = start;
+      } else {
+        this.sink.accept(new ProfileSegment<>(nextOffset.minus(this.offset), this.dynamics));
+        this.offset = nextOffset;
+      }
+
+      if (!isGap) {
+        this.dynamics = Optional.of(parseDynamics(dynamics));
+      } else {
+        this.dynamics = Optional.empty();
+      }
     }
 
-    return segments;
+    void finish() {
+      this.sink.accept(new ProfileSegment<>(this.windowEnd.minus(this.offset), this.dynamics));
+
+      final var profileDuration = this.profile.duration();
+      if (this.windowEnd.shorterThan(profileDuration)) {
+        this.sink.accept(new ProfileSegment<>(profileDuration.minus(this.windowEnd), Optional.empty()));
+      }
+    }
+
+    private Dynamics parseDynamics(final String dynamics) {
+      try (final var reader = Json.createReader(new StringReader(dynamics))) {
+        return this.dynamicsP
+            .parse(reader.readValue())
+            .getSuccessOrThrow(failureReason -> new Error("Corrupt profile dynamics: " + failureReason.reason()));
+      }
+    }
   }
 
   @Override
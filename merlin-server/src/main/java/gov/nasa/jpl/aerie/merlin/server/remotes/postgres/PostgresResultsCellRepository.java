@@ -6,9 +6,12 @@ import gov.nasa.jpl.aerie.merlin.driver.SimulatedActivityId;
 import gov.nasa.jpl.aerie.merlin.driver.SimulationException;
 import gov.nasa.jpl.aerie.merlin.driver.SimulationFailure;
 import gov.nasa.jpl.aerie.merlin.driver.SimulationResults;
+import gov.nasa.jpl.aerie.merlin.driver.SimulationResultsSink;
 import gov.nasa.jpl.aerie.merlin.driver.UnfinishedActivity;
+import gov.nasa.jpl.aerie.merlin.driver.engine.ProfileSegment;
 import gov.nasa.jpl.aerie.merlin.driver.timeline.EventGraph;
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.RealDynamics;
 import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
 import gov.nasa.jpl.aerie.merlin.protocol.types.ValueSchema;
 import gov.nasa.jpl.aerie.merlin.server.ResultsProtocol;
@@ -30,11 +33,14 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public final class PostgresResultsCellRepository implements ResultsCellRepository {
@@ -348,8 +354,12 @@ public final class PostgresResultsCellRepository implements ResultsCellRepositor
   ) throws SQLException, NoSuchSimulationDatasetException
   {
     final var simulationStart = new Timestamp(results.startTime);
-    final var profileSet = ProfileSet.of(results.realProfiles, results.discreteProfiles);
-    ProfileRepository.postResourceProfiles(connection, datasetId, profileSet);
+    if (CopyInStream.isSupported(connection)) {
+      ProfileRepository.copyResourceProfiles(connection, datasetId, results.realProfiles, results.discreteProfiles);
+    } else {
+      final var profileSet = ProfileSet.of(results.realProfiles, results.discreteProfiles);
+      ProfileRepository.postResourceProfiles(connection, datasetId, profileSet);
+    }
     postActivities(connection, datasetId, results.simulatedActivities, results.unfinishedActivities, simulationStart);
     insertSimulationTopics(connection, datasetId, results.topics);
     insertSimulationEvents(connection, datasetId, results.events, simulationStart);
@@ -377,6 +387,11 @@ public final class PostgresResultsCellRepository implements ResultsCellRepositor
       Map<Duration, List<EventGraph<Pair<Integer, SerializedValue>>>> events,
       Timestamp simulationStart) throws SQLException
   {
+    if (CopyInStream.isSupported(connection)) {
+      new CopySimulationEventsAction(connection).apply(datasetId, events);
+      return;
+    }
+
     try (
         final var insertSimulationEventsAction = new InsertSimulationEventsAction(connection)
     ) {
@@ -570,6 +585,14 @@ public final class PostgresResultsCellRepository implements ResultsCellRepositor
       }
     }
 
+    @Override
+    public Optional<SimulationResultsSink> streamResults(
+        final Instant simulationStartTime,
+        final Supplier<Boolean> canceled
+    ) {
+      return Optional.of(new PostgresResultsSink(this.dataSource, this.datasetId, simulationStartTime, canceled));
+    }
+
     @Override
     public void reportSimulationExtent(final Duration extent) {
       try (final var connection = dataSource.getConnection()) {
@@ -584,6 +607,167 @@ public final class PostgresResultsCellRepository implements ResultsCellRepositor
     }
   }
 
+  /**
+   * A {@link SimulationResultsSink} which writes results to a simulation dataset while simulation is still running.
+   *
+   * <p>
+   * Profile segments and events are buffered only until enough have accumulated to be worth a round-trip,
+   * so the memory held by the worker is bounded by the buffer rather than by the length of the simulation.
+   * Events at a single time are never split across writes, since their transaction indices are assigned per-write.
+   * </p>
+   */
+  private static final class PostgresResultsSink implements SimulationResultsSink {
+    /** The number of buffered profile segments or events to accumulate before writing them to the database. */
+    private static final int BUFFER_SIZE = 10_000;
+
+    private final DataSource dataSource;
+    private final long datasetId;
+    private final Timestamp simulationStart;
+    private final Supplier<Boolean> canceled;
+
+    private final Map<String, Pair<ValueSchema, List<ProfileSegment<RealDynamics>>>> realProfiles = new HashMap<>();
+    private final Map<String, Pair<ValueSchema, List<ProfileSegment<SerializedValue>>>> discreteProfiles = new HashMap<>();
+    private int bufferedSegments = 0;
+
+    private final TreeMap<Duration, List<EventGraph<Pair<Integer, SerializedValue>>>> events = new TreeMap<>();
+    private int bufferedEvents = 0;
+
+    public PostgresResultsSink(
+        final DataSource dataSource,
+        final long datasetId,
+        final Instant simulationStart,
+        final Supplier<Boolean> canceled
+    ) {
+      this.dataSource = dataSource;
+      this.datasetId = datasetId;
+      this.simulationStart = new Timestamp(simulationStart);
+      this.canceled = canceled;
+    }
+
+    @Override
+    public void topics(final List<Triple<Integer, String, ValueSchema>> topics) {
+      try (final var connection = this.dataSource.getConnection()) {
+        insertSimulationTopics(connection, this.datasetId, topics);
+      } catch (final SQLException ex) {
+        throw new DatabaseException("Failed to store simulation topics", ex);
+      }
+    }
+
+    @Override
+    public void realProfileSegments(
+        final String resource,
+        final ValueSchema schema,
+        final List<ProfileSegment<RealDynamics>> segments
+    ) {
+      this.realProfiles.computeIfAbsent(resource, $ -> Pair.of(schema, new ArrayList<>())).getRight().addAll(segments);
+      this.bufferedSegments += segments.size();
+
+      if (this.bufferedSegments >= BUFFER_SIZE) this.flushProfiles();
+    }
+
+    @Override
+    public void discreteProfileSegments(
+        final String resource,
+        final ValueSchema schema,
+        final List<ProfileSegment<SerializedValue>> segments
+    ) {
+      this.discreteProfiles.computeIfAbsent(resource, $ -> Pair.of(schema, new ArrayList<>())).getRight().addAll(segments);
+      this.bufferedSegments += segments.size();
+
+      if (this.bufferedSegments >= BUFFER_SIZE) this.flushProfiles();
+    }
+
+    @Override
+    public void events(final Duration time, final EventGraph<Pair<Integer, SerializedValue>> events) {
+      // Only flush on a change of time, so that every transaction at one time is indexed within the same write.
+      if (this.bufferedEvents >= BUFFER_SIZE && !this.events.isEmpty() && this.events.lastKey().shorterThan(time)) {
+        this.flushEvents();
+      }
+
+      this.events.computeIfAbsent(time, $ -> new ArrayList<>()).add(events);
+      this.bufferedEvents += 1;
+    }
+
+    @Override
+    public void finish(
+        final Instant startTime,
+        final Duration duration,
+        final Map<SimulatedActivityId, SimulatedActivity> simulatedActivities,
+        final Map<SimulatedActivityId, UnfinishedActivity> unfinishedActivities
+    ) {
+      this.flushProfiles();
+      this.flushEvents();
+
+      final SimulationStateRecord state;
+      if (this.canceled.get()) {
+        state = SimulationStateRecord.incomplete(new SimulationFailure.Builder()
+            .type("SIMULATION_CANCELED")
+            .data(Json.createObjectBuilder()
+                    .add("elapsedTime", SimulationException.formatDuration(duration))
+                    .add("utcTimeDoy", SimulationException.formatInstant(Duration.addToInstant(startTime, duration)))
+                    .build())
+            .message("Simulation run was canceled")
+            .build());
+      } else {
+        state = SimulationStateRecord.success();
+      }
+
+      try (final var connection = this.dataSource.getConnection();
+           final var transactionContext = new TransactionContext(connection)) {
+        postActivities(connection, this.datasetId, simulatedActivities, unfinishedActivities, this.simulationStart);
+
+        try (final var setSimulationStateAction = new SetSimulationStateAction(connection)) {
+          setSimulationStateAction.apply(this.datasetId, state);
+        }
+
+        deleteSimulationExtent(connection, this.datasetId);
+        transactionContext.commit();
+      } catch (final SQLException ex) {
+        throw new DatabaseException("Failed to store simulation results", ex);
+      } catch (final NoSuchSimulationDatasetException ex) {
+        // A cell should only be created for a valid, existing dataset
+        // A dataset should only be deleted by its cell
+        throw new Error("Cell references nonexistent simulation dataset");
+      }
+    }
+
+    private void flushProfiles() {
+      if (this.realProfiles.isEmpty() && this.discreteProfiles.isEmpty()) return;
+
+      try (final var connection = this.dataSource.getConnection();
+           final var transactionContext = new TransactionContext(connection)) {
+        if (CopyInStream.isSupported(connection)) {
+          ProfileRepository.copyAppendedResourceProfiles(connection, this.datasetId, this.realProfiles, this.discreteProfiles);
+        } else {
+          ProfileRepository.appendResourceProfiles(
+              connection,
+              this.datasetId,
+              ProfileSet.of(this.realProfiles, this.discreteProfiles));
+        }
+        transactionContext.commit();
+      } catch (final SQLException ex) {
+        throw new DatabaseException("Failed to store simulation profiles", ex);
+      }
+
+      this.realProfiles.clear();
+      this.discreteProfiles.clear();
+      this.bufferedSegments = 0;
+    }
+
+    private void flushEvents() {
+      if (this.events.isEmpty()) return;
+
+      try (final var connection = this.dataSource.getConnection()) {
+        insertSimulationEvents(connection, this.datasetId, this.events, this.simulationStart);
+      } catch (final SQLException ex) {
+        throw new DatabaseException("Failed to store simulation events", ex);
+      }
+
+      this.events.clear();
+      this.bufferedEvents = 0;
+    }
+  }
+
   public static class PostgresSimulationResultsHandle implements SimulationResultsHandle {
 
     SimulationDatasetRecord record;
@@ -628,6 +812,15 @@ public final class PostgresResultsCellRepository implements ResultsCellRepositor
       }
     }
 
+    @Override
+    public ProfileSet getProfiles() {
+      try (final var connection = this.dataSource.getConnection()) {
+        return ProfileRepository.getProfiles(connection, record.datasetId());
+      } catch (SQLException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
     @Override
     public ProfileSet getProfiles(final List<String> profileNames) {
       try (final var connection = this.dataSource.getConnection()) {
@@ -637,6 +830,15 @@ public final class PostgresResultsCellRepository implements ResultsCellRepositor
       }
     }
 
+    @Override
+    public ProfileSet getProfiles(final List<String> profileNames, final Duration windowStart, final Duration windowEnd) {
+      try (final var connection = this.dataSource.getConnection()) {
+        return ProfileRepository.getProfiles(connection, record.datasetId(), profileNames, windowStart, windowEnd);
+      } catch (SQLException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
     @Override
     public Map<SimulatedActivityId, SimulatedActivity> getSimulatedActivities() {
       try (final var connection = this.dataSource.getConnection()) {
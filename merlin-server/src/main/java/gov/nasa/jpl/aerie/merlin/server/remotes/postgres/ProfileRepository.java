@@ -12,10 +12,12 @@ import org.apache.commons.lang3.tuple.Pair;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static gov.nasa.jpl.aerie.merlin.driver.json.SerializedValueJsonParser.serializedValueP;
@@ -26,31 +28,8 @@ import static gov.nasa.jpl.aerie.merlin.server.http.ProfileParsers.realDynamicsP
       final Connection connection,
       final long datasetId
   ) throws SQLException {
-    final var realProfiles = new HashMap<String, Pair<ValueSchema, List<ProfileSegment<Optional<RealDynamics>>>>>();
-    final var discreteProfiles = new HashMap<String, Pair<ValueSchema, List<ProfileSegment<Optional<SerializedValue>>>>>();
-
     final var profileRecords = getProfileRecords(connection, datasetId);
-    for (final var record : profileRecords) {
-      switch (record.type().getLeft()) {
-        case "real" -> realProfiles.put(
-          record.name(),
-          Pair.of(
-              record.type().getRight(),
-              getRealProfileSegments(connection, record.datasetId(), record.id(), record.duration())
-          )
-        );
-        case "discrete" -> discreteProfiles.put(
-            record.name(),
-            Pair.of(
-                record.type().getRight(),
-                getDiscreteProfileSegments(connection, record.datasetId(), record.id(), record.duration())
-            )
-        );
-        default -> throw new Error("Unrecognized profile type");
-      }
-    }
-
-    return new ProfileSet(realProfiles, discreteProfiles);
+    return getProfileSegments(connection, datasetId, profileRecords, Duration.ZERO, maxDuration(profileRecords));
   }
 
   static ProfileSet getProfiles(
@@ -58,31 +37,23 @@ import static gov.nasa.jpl.aerie.merlin.server.http.ProfileParsers.realDynamicsP
       final long datasetId,
       final List<String> names
   ) throws SQLException {
-    final var realProfiles = new HashMap<String, Pair<ValueSchema, List<ProfileSegment<Optional<RealDynamics>>>>>();
-    final var discreteProfiles = new HashMap<String, Pair<ValueSchema, List<ProfileSegment<Optional<SerializedValue>>>>>();
-
     final var profileRecords = getProfileRecords(connection, datasetId, names);
-    for (final var record : profileRecords) {
-      switch (record.type().getLeft()) {
-        case "real" -> realProfiles.put(
-            record.name(),
-            Pair.of(
-                record.type().getRight(),
-                getRealProfileSegments(connection, record.datasetId(), record.id(), record.duration())
-            )
-        );
-        case "discrete" -> discreteProfiles.put(
-            record.name(),
-            Pair.of(
-                record.type().getRight(),
-                getDiscreteProfileSegments(connection, record.datasetId(), record.id(), record.duration())
-            )
-        );
-        default -> throw new Error("Unrecognized profile type");
-      }
-    }
+    return getProfileSegments(connection, datasetId, profileRecords, Duration.ZERO, maxDuration(profileRecords));
+  }
 
-    return new ProfileSet(realProfiles, discreteProfiles);
+  /**
+   * Get the named profiles, reading only the segments that overlap the window from <code>windowStart</code>
+   * to <code>windowEnd</code>. The profiles are exact within the window, and are gaps outside of it.
+   */
+  static ProfileSet getProfiles(
+      final Connection connection,
+      final long datasetId,
+      final List<String> names,
+      final Duration windowStart,
+      final Duration windowEnd
+  ) throws SQLException {
+    final var profileRecords = getProfileRecords(connection, datasetId, names);
+    return getProfileSegments(connection, datasetId, profileRecords, windowStart, windowEnd);
   }
 
   static Map<String, ValueSchema> getProfileSchemas(
@@ -127,26 +98,41 @@ import static gov.nasa.jpl.aerie.merlin.server.http.ProfileParsers.realDynamicsP
     }
   }
 
-  static List<ProfileSegment<Optional<RealDynamics>>> getRealProfileSegments(
+  private static ProfileSet getProfileSegments(
       final Connection connection,
       final long datasetId,
-      final long profileId,
-      final Duration profileDuration
+      final List<ProfileRecord> profileRecords,
+      final Duration windowStart,
+      final Duration windowEnd
   ) throws SQLException {
+    final var realProfiles = new HashMap<String, Pair<ValueSchema, List<ProfileSegment<Optional<RealDynamics>>>>>();
+    final var discreteProfiles = new HashMap<String, Pair<ValueSchema, List<ProfileSegment<Optional<SerializedValue>>>>>();
+
     try (final var getProfileSegmentsAction = new GetProfileSegmentsAction(connection)) {
-      return getProfileSegmentsAction.get(datasetId, profileId, profileDuration, realDynamicsP);
+      getProfileSegmentsAction.apply(datasetId, profileRecords, windowStart, windowEnd, new GetProfileSegmentsAction.Sink() {
+        @Override
+        public Consumer<ProfileSegment<Optional<RealDynamics>>> realProfile(final ProfileRecord profile) {
+          final var segments = new ArrayList<ProfileSegment<Optional<RealDynamics>>>();
+          realProfiles.put(profile.name(), Pair.of(profile.type().getRight(), segments));
+          return segments::add;
+        }
+
+        @Override
+        public Consumer<ProfileSegment<Optional<SerializedValue>>> discreteProfile(final ProfileRecord profile) {
+          final var segments = new ArrayList<ProfileSegment<Optional<SerializedValue>>>();
+          discreteProfiles.put(profile.name(), Pair.of(profile.type().getRight(), segments));
+          return segments::add;
+        }
+      });
     }
+
+    return new ProfileSet(realProfiles, discreteProfiles);
   }
 
-  static List<ProfileSegment<Optional<SerializedValue>>> getDiscreteProfileSegments(
-      final Connection connection,
-      final long datasetId,
-      final long profileId,
-      final Duration profileDuration
-  ) throws SQLException {
-    try (final var getProfileSegmentsAction = new GetProfileSegmentsAction(connection)) {
-      return getProfileSegmentsAction.get(datasetId, profileId, profileDuration, serializedValueP);
-    }
+  private static Duration maxDuration(final List<ProfileRecord> profileRecords) {
+    var max = Duration.ZERO;
+    for (final var record : profileRecords) max = Duration.max(max, record.duration());
+    return max;
   }
 
   static void postResourceProfiles(
@@ -168,6 +154,71 @@ import static gov.nasa.jpl.aerie.merlin.server.http.ProfileParsers.realDynamicsP
     }
   }
 
+  /**
+   * Post complete resource profiles, as with {@link #postResourceProfiles},
+   * but streaming their segments in bulk through a <code>COPY</code>.
+   */
+  static void copyResourceProfiles(
+      final Connection connection,
+      final long datasetId,
+      final Map<String, Pair<ValueSchema, List<ProfileSegment<RealDynamics>>>> realProfiles,
+      final Map<String, Pair<ValueSchema, List<ProfileSegment<SerializedValue>>>> discreteProfiles
+  ) throws SQLException
+  {
+    try (final var postProfilesAction = new PostProfilesAction(connection)) {
+      final var profileRecords = postProfilesAction.apply(datasetId, realProfiles, discreteProfiles);
+      new CopyProfileSegmentsAction(connection).apply(datasetId, profileRecords, realProfiles, discreteProfiles);
+    }
+  }
+
+  /**
+   * Append segments to resource profiles, as with {@link #appendResourceProfiles},
+   * but streaming them in bulk through a <code>COPY</code>.
+   * Profiles not yet stored are created, and the segments of those already stored follow on from their last segment.
+   */
+  static void copyAppendedResourceProfiles(
+      final Connection connection,
+      final long datasetId,
+      final Map<String, Pair<ValueSchema, List<ProfileSegment<RealDynamics>>>> realProfiles,
+      final Map<String, Pair<ValueSchema, List<ProfileSegment<SerializedValue>>>> discreteProfiles
+  ) throws SQLException
+  {
+    final Map<String, ProfileRecord> storedRecords;
+    try (final var getProfilesAction = new GetProfilesAction(connection)) {
+      storedRecords = getProfilesAction.get(datasetId)
+                                       .stream()
+                                       .collect(Collectors.toMap(ProfileRecord::name, $ -> $));
+    }
+
+    final var newRealProfiles = new HashMap<String, Pair<ValueSchema, List<ProfileSegment<RealDynamics>>>>();
+    for (final var entry : realProfiles.entrySet()) {
+      if (!storedRecords.containsKey(entry.getKey())) newRealProfiles.put(entry.getKey(), entry.getValue());
+    }
+    final var newDiscreteProfiles = new HashMap<String, Pair<ValueSchema, List<ProfileSegment<SerializedValue>>>>();
+    for (final var entry : discreteProfiles.entrySet()) {
+      if (!storedRecords.containsKey(entry.getKey())) newDiscreteProfiles.put(entry.getKey(), entry.getValue());
+    }
+
+    final var profileRecords = new HashMap<>(storedRecords);
+    try (final var postProfilesAction = new PostProfilesAction(connection)) {
+      profileRecords.putAll(postProfilesAction.apply(datasetId, newRealProfiles, newDiscreteProfiles));
+    }
+
+    final var startOffsets = new HashMap<String, Duration>(storedRecords.size());
+    for (final var record : storedRecords.values()) startOffsets.put(record.name(), record.duration());
+
+    final var endOffsets = new CopyProfileSegmentsAction(connection)
+        .apply(datasetId, profileRecords, startOffsets, realProfiles, discreteProfiles);
+
+    // New profiles were created with their full duration; stored profiles have grown.
+    try (final var updateProfileDurationAction = new UpdateProfileDurationAction(connection)) {
+      for (final var entry : endOffsets.entrySet()) {
+        final var record = storedRecords.get(entry.getKey());
+        if (record != null) updateProfileDurationAction.apply(datasetId, record.id(), entry.getValue());
+      }
+    }
+  }
+
   static void appendResourceProfiles(
       final Connection connection,
       final long datasetId,
@@ -14,6 +14,9 @@ import gov.nasa.jpl.aerie.merlin.server.remotes.postgres.ConstraintRunRecord;
 
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class ConstraintAction {
@@ -23,6 +26,18 @@ public class ConstraintAction {
   private final MissionModelService missionModelService;
   private final SimulationService simulationService;
 
+  /** The number of plans to remember the last constraint results of. */
+  public static final int PREVIOUS_RUN_PLAN_CAPACITY = 64;
+
+  /** The last result of each constraint on each of the most recently checked plans. */
+  private final Map<PlanId, Map<Long, PreviousRun>> previousRuns = Collections.synchronizedMap(
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<PlanId, Map<Long, PreviousRun>> eldest) {
+          return this.size() > PREVIOUS_RUN_PLAN_CAPACITY;
+        }
+      });
+
   public ConstraintAction(
       final ConstraintsDSLCompilationService constraintsDSLCompilationService,
       final ConstraintService constraintService,
@@ -69,7 +84,7 @@ public class ConstraintAction {
     } catch (final MissionModelService.NoSuchMissionModelException ex) {
       throw new RuntimeException("Assumption falsified -- mission model for existing plan does not exist");
     }
-
+    final var constraintIds = Set.copyOf(constraintCode.keySet());
 
     final var validConstraintRuns = this.constraintService.getValidConstraintRuns(constraintCode
                                                                                       .values()
@@ -142,6 +157,10 @@ public class ConstraintAction {
 
       final var realProfiles = new HashMap<String, LinearProfile>();
       final var discreteProfiles = new HashMap<String, DiscreteProfile>();
+      final var compiledConstraints = new ArrayList<CompiledConstraint>();
+
+      // Constraints are only evaluated within these bounds, so profiles need not be read beyond them.
+      final Interval bounds = Interval.betweenClosedOpen(Duration.ZERO, simDuration);
 
       // try to compile and run the constraint that were not
       // successful and cached in the past
@@ -149,7 +168,7 @@ public class ConstraintAction {
         final var constraint = entry.getValue();
         final Expression<ConstraintResult> expression;
 
-        // TODO: cache these results, @JoelCourtney is this in reference to caching the output of the DSL compilation?
+        // The compilation service reuses its previous result when neither the constraint nor the model's types have changed.
         final ConstraintsDSLCompilationService.ConstraintsDSLCompilationResult constraintCompilationResult;
         try {
           constraintCompilationResult = constraintsDSLCompilationService.compileConstraintsDSL(
@@ -204,21 +223,24 @@ public class ConstraintAction {
         if (!newNames.isEmpty()) {
           try {
             final var newProfiles = resultsHandle$
-                .map($ -> $.getProfiles(new ArrayList<>(newNames)))
+                .map($ -> $.getProfiles(new ArrayList<>(newNames), bounds.start, bounds.end))
                 .orElseThrow(() -> new InputMismatchException("no simulation results found for plan id "
                                                               + planId.id()));
 
-            for (final var _entry : ProfileSet.unwrapOptional(newProfiles.realProfiles()).entrySet()) {
+            // Parts of a profile outside the bounds may have been left out as gaps.
+            for (final var _entry : newProfiles.realProfiles().entrySet()) {
               if (!realProfiles.containsKey(_entry.getKey())) {
-                realProfiles.put(_entry.getKey(), LinearProfile.fromSimulatedProfile(_entry.getValue().getRight()));
+                realProfiles.put(
+                    _entry.getKey(),
+                    LinearProfile.fromExternalProfile(Duration.ZERO, _entry.getValue().getRight()));
               }
             }
 
-            for (final var _entry : ProfileSet.unwrapOptional(newProfiles.discreteProfiles()).entrySet()) {
+            for (final var _entry : newProfiles.discreteProfiles().entrySet()) {
               if (!discreteProfiles.containsKey(_entry.getKey())) {
                 discreteProfiles.put(
                     _entry.getKey(),
-                    DiscreteProfile.fromSimulatedProfile(_entry.getValue().getRight()));
+                    DiscreteProfile.fromExternalProfile(Duration.ZERO, _entry.getValue().getRight()));
               }
             }
           } catch (InputMismatchException ex) {
@@ -227,24 +249,50 @@ public class ConstraintAction {
           }
         }
 
-        final Interval bounds = Interval.betweenClosedOpen(Duration.ZERO, simDuration);
-        final var preparedResults = new gov.nasa.jpl.aerie.constraints.model.SimulationResults(
-            simStartTime,
-            bounds,
-            activities,
-            realProfiles,
-            discreteProfiles);
-
-        ConstraintResult constraintResult = expression.evaluate(preparedResults, environment);
-
-        constraintResult.constraintName = entry.getValue().name();
-        constraintResult.constraintId = entry.getKey();
-        constraintResult.constraintType = entry.getValue().type();
-        constraintResult.resourceIds = List.copyOf(names);
-
-        constraintResultMap.put(constraint, Failable.of(constraintResult));
+        compiledConstraints.add(new CompiledConstraint(entry.getKey(), constraint, expression, List.copyOf(names)));
+      }
 
+      // Every profile any constraint needs has now been loaded, so the constraints can be evaluated independently.
+      final var preparedResults = new gov.nasa.jpl.aerie.constraints.model.SimulationResults(
+          simStartTime,
+          bounds,
+          Collections.unmodifiableList(activities),
+          Collections.unmodifiableMap(realProfiles),
+          Collections.unmodifiableMap(discreteProfiles));
+
+      // A constraint whose definition and inputs are unchanged since it was last checked on this plan
+      // has the same result as before, even if the plan has been resimulated since.
+      final var inputDigests = new ConstraintInputDigests(preparedResults, environment);
+      final var previousRuns = this.previousRuns.computeIfAbsent(planId, $ -> new ConcurrentHashMap<>());
+      previousRuns.keySet().retainAll(constraintIds);
+      final var constraintResults = evaluateAll(compiledConstraints, compiledConstraint -> {
+        final var inputDigest = inputDigests.of(compiledConstraint.expression());
+        final var previousRun = previousRuns.get(compiledConstraint.constraintId());
+        final ConstraintResult result;
+        if (previousRun != null
+            && previousRun.definition().equals(compiledConstraint.constraint().definition())
+            && previousRun.inputDigest().matches(inputDigest))
+        {
+          result = inputDigest.carryOver(previousRun.result(), previousRun.inputDigest());
+        } else {
+          result = compiledConstraint.expression().evaluate(preparedResults, environment);
+        }
 
+        previousRuns.put(
+            compiledConstraint.constraintId(),
+            new PreviousRun(compiledConstraint.constraint().definition(), inputDigest, result));
+        return result;
+      });
+      for (var i = 0; i < compiledConstraints.size(); i += 1) {
+        final var compiledConstraint = compiledConstraints.get(i);
+        final var constraintResult = constraintResults.get(i);
+
+        constraintResult.constraintName = compiledConstraint.constraint().name();
+        constraintResult.constraintId = compiledConstraint.constraintId();
+        constraintResult.constraintType = compiledConstraint.constraint().type();
+        constraintResult.resourceIds = compiledConstraint.resourceIds();
+
+        constraintResultMap.put(compiledConstraint.constraint(), Failable.of(constraintResult));
       }
       // Filter for constraints that were compiled and ran with results
       // convert these successful failables to ConstraintResults
@@ -280,4 +328,34 @@ public class ConstraintAction {
 
     return constraintResultMap;
   }
+
+  private record CompiledConstraint(
+      long constraintId,
+      Constraint constraint,
+      Expression<ConstraintResult> expression,
+      List<String> resourceIds
+  ) {}
+
+  /** The result of the last check of a constraint on a plan, and a digest of the inputs it was checked against. */
+  private record PreviousRun(String definition, ConstraintInputDigests.InputDigest inputDigest, ConstraintResult result) {}
+
+  /**
+   * Evaluate constraints on the shared fork-join pool, returning their results in the order given.
+   *
+   * <p>
+   * Besides evaluating independent constraints concurrently, running on the pool lets each constraint
+   * split its per-activity sub-evaluations across the same workers.
+   * </p>
+   */
+  private static List<ConstraintResult> evaluateAll(
+      final List<CompiledConstraint> constraints,
+      final Function<CompiledConstraint, ConstraintResult> evaluate
+  ) {
+    return ForkJoinPool.commonPool()
+        .submit(() -> constraints
+            .parallelStream()
+            .map(evaluate)
+            .toList())
+        .join();
+  }
 }
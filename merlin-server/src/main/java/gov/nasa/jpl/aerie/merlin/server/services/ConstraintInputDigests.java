@@ -0,0 +1,210 @@
+package gov.nasa.jpl.aerie.merlin.server.services;
+
+import gov.nasa.jpl.aerie.constraints.model.ActivityInstance;
+import gov.nasa.jpl.aerie.constraints.model.ConstraintResult;
+import gov.nasa.jpl.aerie.constraints.model.DiscreteProfile;
+import gov.nasa.jpl.aerie.constraints.model.EvaluationEnvironment;
+import gov.nasa.jpl.aerie.constraints.model.LinearProfile;
+import gov.nasa.jpl.aerie.constraints.model.SimulationResults;
+import gov.nasa.jpl.aerie.constraints.model.Violation;
+import gov.nasa.jpl.aerie.constraints.time.Interval;
+import gov.nasa.jpl.aerie.constraints.tree.Expression;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static gov.nasa.jpl.aerie.merlin.driver.json.SerializedValueJsonParser.serializedValueP;
+
+/**
+ * Content digests of the inputs a constraint reads from a set of simulation results,
+ * used to tell whether a constraint's result carries over unchanged from one simulation dataset to another.
+ *
+ * <p>
+ * A constraint's digest covers the plan start, the evaluation bounds, every profile named by {@link Expression#extractResources},
+ * and every activity of each type named by {@link Expression#extractActivityTypes}.
+ * Per-profile and per-type digests are computed at most once and shared between constraints.
+ * </p>
+ *
+ * <p>
+ * Activity ids are left out of the digests, since resimulating a plan renumbers its simulated activities.
+ * Instead, each digest lists the ids of the activities it covers, in the order they were digested,
+ * so that the ids in a carried-over result can be renamed to those of the new dataset.
+ * </p>
+ */
+/*package-local*/ final class ConstraintInputDigests {
+  /** A digest of a constraint's inputs, and the ids of the activities among them in the order they were digested. */
+  public record InputDigest(String value, List<Long> activityIds) {
+    public boolean matches(final InputDigest other) {
+      return this.value.equals(other.value);
+    }
+
+    /** Carry a result over from other inputs that this digest matches, renaming their activity ids to these ones. */
+    public ConstraintResult carryOver(final ConstraintResult result, final InputDigest from) {
+      if (!this.matches(from)) throw new IllegalArgumentException("Cannot carry a result over between different inputs");
+
+      final var renamed = new HashMap<Long, Long>(from.activityIds.size());
+      for (var i = 0; i < from.activityIds.size(); i += 1) {
+        renamed.put(from.activityIds.get(i), this.activityIds.get(i));
+      }
+
+      final var violations = new ArrayList<Violation>(result.violations.size());
+      for (final var violation : result.violations) {
+        violations.add(new Violation(
+            violation.windows(),
+            violation.activityInstanceIds().stream().map($ -> renamed.getOrDefault($, $)).toList()));
+      }
+      return new ConstraintResult(violations, result.gaps);
+    }
+  }
+
+  private record ActivitiesDigest(String value, List<Long> ids) {}
+
+  private final SimulationResults results;
+  private final EvaluationEnvironment environment;
+
+  private final Map<String, String> profileDigests = new ConcurrentHashMap<>();
+  private final Map<String, ActivitiesDigest> activityTypeDigests = new ConcurrentHashMap<>();
+
+  public ConstraintInputDigests(final SimulationResults results, final EvaluationEnvironment environment) {
+    this.results = results;
+    this.environment = environment;
+  }
+
+  public InputDigest of(final Expression<?> expression) {
+    final var names = new TreeSet<String>();
+    expression.extractResources(names);
+    final var types = new TreeSet<String>();
+    expression.extractActivityTypes(types);
+
+    final var digest = newDigest();
+    update(digest, this.results.planStart.getEpochSecond());
+    update(digest, this.results.planStart.getNano());
+    update(digest, this.results.bounds);
+    for (final var name : names) {
+      update(digest, name);
+      update(digest, this.profileDigests.computeIfAbsent(name, this::digestProfile));
+    }
+    final var activityIds = new ArrayList<Long>();
+    for (final var type : types) {
+      final var activities = this.activityTypeDigests.computeIfAbsent(type, this::digestActivities);
+      update(digest, type);
+      update(digest, activities.value());
+      activityIds.addAll(activities.ids());
+    }
+    return new InputDigest(HexFormat.of().formatHex(digest.digest()), activityIds);
+  }
+
+  private String digestProfile(final String name) {
+    // Digest every profile the name could resolve to, so the result doesn't depend on how resources shadow each other.
+    final var digest = newDigest();
+    update(digest, this.results.realProfiles.get(name));
+    update(digest, this.results.discreteProfiles.get(name));
+    update(digest, this.environment.realExternalProfiles().get(name));
+    update(digest, this.environment.discreteExternalProfiles().get(name));
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private ActivitiesDigest digestActivities(final String type) {
+    final List<ActivityInstance> activities = (type.equals(Expression.ANY_ACTIVITY_TYPE))
+        ? this.results.activities
+        : this.results.activityIndex().ofType(type);
+
+    // Digest the activities in an order that depends only on their contents, not on their ids.
+    final var digested = new ArrayList<Pair<String, Long>>(activities.size());
+    for (final var activity : activities) {
+      final var digest = newDigest();
+      update(digest, activity.interval);
+      update(digest, activity.type);
+      for (final var parameter : new TreeMap<>(activity.parameters).entrySet()) {
+        update(digest, parameter.getKey());
+        update(digest, parameter.getValue());
+      }
+      digested.add(Pair.of(HexFormat.of().formatHex(digest.digest()), activity.id));
+    }
+    digested.sort(Comparator.comparing(Pair::getLeft));
+
+    final var digest = newDigest();
+    final var ids = new ArrayList<Long>(digested.size());
+    update(digest, digested.size());
+    for (final var activity : digested) {
+      update(digest, activity.getLeft());
+      ids.add(activity.getRight());
+    }
+    return new ActivitiesDigest(HexFormat.of().formatHex(digest.digest()), ids);
+  }
+
+  private static void update(final MessageDigest digest, final LinearProfile profile) {
+    if (profile == null) {
+      update(digest, -1L);
+      return;
+    }
+
+    update(digest, profile.profilePieces.size());
+    for (final var segment : profile.profilePieces) {
+      update(digest, segment.interval());
+      update(digest, segment.value().initialTime);
+      update(digest, Double.doubleToLongBits(segment.value().initialValue));
+      update(digest, Double.doubleToLongBits(segment.value().rate));
+    }
+  }
+
+  private static void update(final MessageDigest digest, final DiscreteProfile profile) {
+    if (profile == null) {
+      update(digest, -1L);
+      return;
+    }
+
+    update(digest, profile.profilePieces.size());
+    for (final var segment : profile.profilePieces) {
+      update(digest, segment.interval());
+      update(digest, segment.value());
+    }
+  }
+
+  private static void update(final MessageDigest digest, final Interval interval) {
+    update(digest, interval.start);
+    update(digest, interval.end);
+    update(digest, (interval.includesStart() ? 1L : 0L) | (interval.includesEnd() ? 2L : 0L));
+  }
+
+  private static void update(final MessageDigest digest, final Duration duration) {
+    update(digest, duration.in(Duration.MICROSECONDS));
+  }
+
+  private static void update(final MessageDigest digest, final SerializedValue value) {
+    update(digest, serializedValueP.unparse(value).toString());
+  }
+
+  private static void update(final MessageDigest digest, final String value) {
+    final var bytes = value.getBytes(StandardCharsets.UTF_8);
+    update(digest, bytes.length);
+    digest.update(bytes);
+  }
+
+  private static void update(final MessageDigest digest, final long value) {
+    digest.update(ByteBuffer.allocate(Long.BYTES).putLong(value).array());
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException ex) {
+      // Every Java platform is required to support SHA-256.
+      throw new Error(ex);
+    }
+  }
+}
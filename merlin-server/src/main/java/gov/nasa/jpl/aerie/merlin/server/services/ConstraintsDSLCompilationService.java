@@ -17,43 +17,131 @@ import javax.json.stream.JsonParsingException;
 import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 public class ConstraintsDSLCompilationService {
+  public static final int DEFAULT_POOL_SIZE = 1;
+  public static final int DEFAULT_CACHE_SIZE = 256;
 
-  private final Process nodeProcess;
   private final TypescriptCodeGenerationServiceAdapter typescriptCodeGenerationService;
 
+  /** Starts a compiler subprocess that is ready to accept requests. */
+  interface CompilerProcessFactory {
+    Process start() throws IOException;
+  }
+
+  private final CompilerProcessFactory compilerProcesses;
+
+  /**
+   * Idle slots of the compiler pool. Each slot runs one subprocess, which handles one compilation at a time.
+   *
+   * <p>
+   * A slot always goes back to this queue once its compilation is over, even if its subprocess was lost,
+   * so that the pool never shrinks. A slot without a working subprocess starts a new one when it is next used.
+   * </p>
+   */
+  private final BlockingQueue<Slot> idleSlots;
+  private final List<Slot> allSlots = new ArrayList<>();
+
+  /**
+   * Recent compilation results, keyed by a digest of everything sent to the compiler.
+   *
+   * <p>
+   * Compilation is a pure function of the constraint source, the generated mission model types,
+   * and the expected return type, so a result can be reused for as long as all three are unchanged.
+   * </p>
+   */
+  private final Map<String, ConstraintsDSLCompilationResult> cache;
+
   public ConstraintsDSLCompilationService(final TypescriptCodeGenerationServiceAdapter typescriptCodeGenerationService)
   throws IOException
   {
+    this(typescriptCodeGenerationService, DEFAULT_POOL_SIZE, DEFAULT_CACHE_SIZE);
+  }
+
+  public ConstraintsDSLCompilationService(
+      final TypescriptCodeGenerationServiceAdapter typescriptCodeGenerationService,
+      final int poolSize,
+      final int cacheSize
+  ) throws IOException
+  {
+    this(typescriptCodeGenerationService, poolSize, cacheSize, ConstraintsDSLCompilationService::startNodeProcess);
+  }
+
+  ConstraintsDSLCompilationService(
+      final TypescriptCodeGenerationServiceAdapter typescriptCodeGenerationService,
+      final int poolSize,
+      final int cacheSize,
+      final CompilerProcessFactory compilerProcesses
+  ) throws IOException
+  {
+    if (poolSize < 1) throw new IllegalArgumentException("The compiler pool must contain at least one subprocess");
+
     this.typescriptCodeGenerationService = typescriptCodeGenerationService;
+    this.compilerProcesses = compilerProcesses;
+    this.idleSlots = new ArrayBlockingQueue<>(poolSize);
+    this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, ConstraintsDSLCompilationResult> eldest) {
+        return this.size() > cacheSize;
+      }
+    });
+
+    try {
+      for (var i = 0; i < poolSize; i += 1) {
+        final var slot = new Slot();
+        this.allSlots.add(slot);
+        slot.get(this.compilerProcesses);
+        this.idleSlots.add(slot);
+      }
+    } catch (final IOException | Error ex) {
+      this.close();
+      throw ex;
+    }
+  }
+
+  static Process startNodeProcess() throws IOException {
     final var constraintsDslCompilerRoot = System.getenv("CONSTRAINTS_DSL_COMPILER_ROOT");
     final var constraintsDslCompilerCommand = System.getenv("CONSTRAINTS_DSL_COMPILER_COMMAND");
     final var nodePath = System.getenv("NODE_PATH");
-    this.nodeProcess = new ProcessBuilder(nodePath, "--experimental-vm-modules", constraintsDslCompilerCommand)
+    final var nodeProcess = new ProcessBuilder(nodePath, "--experimental-vm-modules", constraintsDslCompilerCommand)
         .redirectError(ProcessBuilder.Redirect.INHERIT)
         .directory(new File(constraintsDslCompilerRoot))
         .start();
 
-    final var inputStream = this.nodeProcess.outputWriter();
+    final var inputStream = nodeProcess.outputWriter();
     inputStream.write("ping\n");
     inputStream.flush();
-    if (!Objects.equals(this.nodeProcess.inputReader().readLine(), "pong")) {
+    if (!Objects.equals(nodeProcess.inputReader().readLine(), "pong")) {
+      nodeProcess.destroy();
       throw new Error("Could not create node subprocess");
     }
+
+    return nodeProcess;
   }
 
   public void close() {
-    this.nodeProcess.destroy();
+    for (final var slot : this.allSlots) slot.close();
   }
 
   /**
-   * NOTE: This method is not re-entrant (assumes only one call to this method is running at any given time)
+   * Compile a constraint, or reuse a previous compilation of the same constraint against the same mission model types.
+   *
+   * <p> Up to as many compilations as there are compiler subprocesses may run concurrently. </p>
    */
-  synchronized public ConstraintsDSLCompilationResult compileConstraintsDSL(
+  public ConstraintsDSLCompilationResult compileConstraintsDSL(
       final String missionModelId,
       final Optional<PlanId> planId,
       final Optional<SimulationDatasetId> simulationDatasetId,
@@ -66,6 +154,89 @@ public class ConstraintsDSLCompilationService {
         .add("missionModelGeneratedCode", missionModelGeneratedCode)
         .add("expectedReturnType", "Constraint")
         .build();
+
+    final var key = digest(messageJson.toString());
+    final var cached = this.cache.get(key);
+    if (cached != null) return cached;
+
+    final Slot slot;
+    try {
+      slot = this.idleSlots.take();
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new Error("Interrupted while waiting for a constraints DSL compiler", ex);
+    }
+
+    var healthy = false;
+    try {
+      final Process nodeProcess;
+      try {
+        nodeProcess = slot.get(this.compilerProcesses);
+      } catch (final IOException ex) {
+        throw new Error("Could not start a constraints DSL compiler", ex);
+      }
+
+      final ConstraintsDSLCompilationResult result;
+      try {
+        result = compile(nodeProcess, messageJson);
+      } catch (final IOException ex) {
+        throw new Error(ex);
+      }
+
+      healthy = true;
+      this.cache.put(key, result);
+      return result;
+    } finally {
+      // After a crash, a panic, or a response we couldn't make sense of, the subprocess is no longer
+      // in a known state, so put a fresh one in its place.
+      if (!healthy) slot.replace(this.compilerProcesses);
+      this.idleSlots.add(slot);
+    }
+  }
+
+  /** A place in the compiler pool, holding a subprocess unless the last attempt to start one failed. */
+  private static final class Slot {
+    private Process process = null;
+    private boolean closed = false;
+
+    /** Get this slot's subprocess, starting a new one if there is none or it has exited. */
+    public synchronized Process get(final CompilerProcessFactory compilerProcesses) throws IOException {
+      if (this.closed) throw new IllegalStateException("The constraints DSL compilation service has been closed");
+
+      if (this.process != null && !this.process.isAlive()) this.discard();
+      if (this.process == null) this.process = compilerProcesses.start();
+      return this.process;
+    }
+
+    /**
+     * Destroy this slot's subprocess and try to start another.
+     * If that fails too, the slot is left empty, and tries again when it is next used.
+     */
+    public synchronized void replace(final CompilerProcessFactory compilerProcesses) {
+      this.discard();
+      if (this.closed) return;
+
+      try {
+        this.process = compilerProcesses.start();
+      } catch (final IOException | RuntimeException | Error ex) {
+        this.process = null;
+      }
+    }
+
+    public synchronized void close() {
+      this.closed = true;
+      this.discard();
+    }
+
+    private void discard() {
+      if (this.process != null) this.process.destroy();
+      this.process = null;
+    }
+  }
+
+  private static ConstraintsDSLCompilationResult compile(final Process nodeProcess, final JsonObject messageJson)
+  throws IOException
+  {
     /*
      * PROTOCOL:
      *   denote this java program as JAVA, and the node subprocess as NODE
@@ -74,34 +245,41 @@ public class ConstraintsDSLCompilationService {
      *   NODE -- stdout --> JAVA: one of "success\n", "error\n", or "panic\n"
      *   NODE -- stdout --> JAVA: payload associated with success, error, or panic, must be exactly one line terminated with \n
      * */
-    final var inputWriter = this.nodeProcess.outputWriter();
-    final var outputReader = this.nodeProcess.inputReader();
-    try {
-      inputWriter.write(messageJson +"\n");
-      inputWriter.flush();
-      final var status = outputReader.readLine();
-      return switch (status) {
-        case "panic" -> throw new Error(outputReader.readLine());
-        case "error" -> {
-          final var output = outputReader.readLine();
-          try {
-            yield new ConstraintsDSLCompilationResult.Error(parseJson(output, ConstraintsCompilationError.constraintsErrorJsonP));
-          } catch (InvalidJsonException | InvalidEntityException e) {
-            throw new Error("Could not parse error JSON returned from typescript: " + output, e);
-          }
+    final var inputWriter = nodeProcess.outputWriter();
+    final var outputReader = nodeProcess.inputReader();
+    inputWriter.write(messageJson +"\n");
+    inputWriter.flush();
+    final var status = outputReader.readLine();
+    if (status == null) throw new IOException("constraints dsl compiler exited unexpectedly");
+    return switch (status) {
+      case "panic" -> throw new Error(outputReader.readLine());
+      case "error" -> {
+        final var output = outputReader.readLine();
+        try {
+          yield new ConstraintsDSLCompilationResult.Error(parseJson(output, ConstraintsCompilationError.constraintsErrorJsonP));
+        } catch (InvalidJsonException | InvalidEntityException e) {
+          throw new Error("Could not parse error JSON returned from typescript: " + output, e);
         }
-        case "success" -> {
-          final var output = outputReader.readLine();
-          try {
-            yield new ConstraintsDSLCompilationResult.Success(parseJson(output, ConstraintParsers.constraintP));
-          } catch (InvalidJsonException | InvalidEntityException e) {
-            throw new Error("Could not parse success JSON returned from typescript: " + output, e);
-          }
+      }
+      case "success" -> {
+        final var output = outputReader.readLine();
+        try {
+          yield new ConstraintsDSLCompilationResult.Success(parseJson(output, ConstraintParsers.constraintP));
+        } catch (InvalidJsonException | InvalidEntityException e) {
+          throw new Error("Could not parse success JSON returned from typescript: " + output, e);
         }
-        default -> throw new Error("constraints dsl compiler returned unexpected status: " + status);
-      };
-    } catch (IOException e) {
-      throw new Error(e);
+      }
+      default -> throw new Error("constraints dsl compiler returned unexpected status: " + status);
+    };
+  }
+
+  private static String digest(final String message) {
+    try {
+      final var digest = MessageDigest.getInstance("SHA-256").digest(message.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (final NoSuchAlgorithmException ex) {
+      // Every Java platform is required to support SHA-256.
+      throw new Error(ex);
     }
   }
 
@@ -7,6 +7,7 @@ import gov.nasa.jpl.aerie.merlin.server.ResultsProtocol;
 import gov.nasa.jpl.aerie.merlin.server.exceptions.NoSuchPlanException;
 import gov.nasa.jpl.aerie.merlin.server.models.HasuraAction;
 import gov.nasa.jpl.aerie.merlin.server.models.PlanId;
+import gov.nasa.jpl.aerie.merlin.server.models.ProfileSet;
 import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.ArrayList;
@@ -60,11 +61,12 @@ public final class GetSimulationResultsAction {
     final var revisionData = this.planService.getPlanRevisionData(planId);
     final var simulationResultsHandle$ = this.simulationService.get(planId, revisionData);
     if (simulationResultsHandle$.isEmpty()) return Collections.emptyMap();
-    final var simulationResults = simulationResultsHandle$.get().getSimulationResults();
+    // Only the profiles are sampled, so don't load the activities and events of the full results.
+    final var profiles = simulationResultsHandle$.get().getProfiles();
 
     final var samples = new HashMap<String, List<Pair<Duration, SerializedValue>>>();
 
-    simulationResults.realProfiles.forEach((name, p) -> {
+    ProfileSet.unwrapOptional(profiles.realProfiles()).forEach((name, p) -> {
       var elapsed = Duration.ZERO;
       var profile = p.getRight();
 
@@ -82,7 +84,7 @@ public final class GetSimulationResultsAction {
 
       samples.put(name, timeline);
     });
-    simulationResults.discreteProfiles.forEach((name, p) -> {
+    ProfileSet.unwrapOptional(profiles.discreteProfiles()).forEach((name, p) -> {
       var elapsed = Duration.ZERO;
       var profile = p.getRight();
 
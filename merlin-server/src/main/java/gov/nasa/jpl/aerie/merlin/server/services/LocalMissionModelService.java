@@ -1,12 +1,14 @@
 package gov.nasa.jpl.aerie.merlin.server.services;
 
 import gov.nasa.jpl.aerie.merlin.driver.ActivityDirectiveId;
-import gov.nasa.jpl.aerie.merlin.driver.DirectiveTypeRegistry;
+import gov.nasa.jpl.aerie.merlin.driver.InMemorySimulationResultsSink;
 import gov.nasa.jpl.aerie.merlin.driver.MissionModel;
 import gov.nasa.jpl.aerie.merlin.driver.MissionModelLoader;
 import gov.nasa.jpl.aerie.merlin.driver.SerializedActivity;
 import gov.nasa.jpl.aerie.merlin.driver.SimulationDriver;
 import gov.nasa.jpl.aerie.merlin.driver.SimulationResults;
+import gov.nasa.jpl.aerie.merlin.driver.SimulationResultsSink;
+import gov.nasa.jpl.aerie.merlin.driver.engine.SimulationEngine;
 import gov.nasa.jpl.aerie.merlin.protocol.model.InputType.Parameter;
 import gov.nasa.jpl.aerie.merlin.protocol.model.InputType.ValidationNotice;
 import gov.nasa.jpl.aerie.merlin.protocol.model.ModelType;
@@ -48,15 +50,79 @@ public final class LocalMissionModelService implements MissionModelService {
   private final Path missionModelDataPath;
   private final MissionModelRepository missionModelRepository;
   private final Instant untruePlanStart;
+  private final MissionModelTypeCache modelTypeCache;
+  private final SimulationEngine.BatchMode simulationBatchMode;
+  private final SimulationCheckpointCache simulationCheckpoints;
 
   public LocalMissionModelService(
       final Path missionModelDataPath,
       final MissionModelRepository missionModelRepository,
       final Instant untruePlanStart
+  ) {
+    this(missionModelDataPath, missionModelRepository, untruePlanStart, MissionModelTypeCache.DEFAULT_CAPACITY);
+  }
+
+  public LocalMissionModelService(
+      final Path missionModelDataPath,
+      final MissionModelRepository missionModelRepository,
+      final Instant untruePlanStart,
+      final int modelTypeCacheCapacity
+  ) {
+    this(
+        missionModelDataPath,
+        missionModelRepository,
+        untruePlanStart,
+        modelTypeCacheCapacity,
+        SimulationEngine.BatchMode.Sequential);
+  }
+
+  public LocalMissionModelService(
+      final Path missionModelDataPath,
+      final MissionModelRepository missionModelRepository,
+      final Instant untruePlanStart,
+      final int modelTypeCacheCapacity,
+      final SimulationEngine.BatchMode simulationBatchMode
+  ) {
+    this(
+        missionModelDataPath,
+        missionModelRepository,
+        untruePlanStart,
+        modelTypeCacheCapacity,
+        simulationBatchMode,
+        SimulationCheckpointCache.disabled());
+  }
+
+  public LocalMissionModelService(
+      final Path missionModelDataPath,
+      final MissionModelRepository missionModelRepository,
+      final Instant untruePlanStart,
+      final int modelTypeCacheCapacity,
+      final SimulationEngine.BatchMode simulationBatchMode,
+      final SimulationCheckpointCache simulationCheckpoints
+  ) {
+    this(
+        missionModelDataPath,
+        missionModelRepository,
+        untruePlanStart,
+        new MissionModelTypeCache(modelTypeCacheCapacity),
+        simulationBatchMode,
+        simulationCheckpoints);
+  }
+
+  LocalMissionModelService(
+      final Path missionModelDataPath,
+      final MissionModelRepository missionModelRepository,
+      final Instant untruePlanStart,
+      final MissionModelTypeCache modelTypeCache,
+      final SimulationEngine.BatchMode simulationBatchMode,
+      final SimulationCheckpointCache simulationCheckpoints
   ) {
     this.missionModelDataPath = missionModelDataPath;
     this.missionModelRepository = missionModelRepository;
     this.untruePlanStart = untruePlanStart;
+    this.modelTypeCache = modelTypeCache;
+    this.simulationBatchMode = simulationBatchMode;
+    this.simulationCheckpoints = simulationCheckpoints;
   }
 
   @Override
@@ -133,8 +199,7 @@ public final class LocalMissionModelService implements MissionModelService {
   throws NoSuchMissionModelException, MissionModelLoadException, InstantiationException
   {
     // TODO: [AERIE-1516] Teardown the missionModel after use to release any system resources (e.g. threads).
-    final var modelType = this.loadMissionModelType(missionModelId);
-    final var registry = DirectiveTypeRegistry.extract(modelType);
+    final var registry = this.loadModelType(missionModelId).registry();
     final var directiveType = registry.directiveTypes().get(activity.getTypeName());
     if (directiveType == null) return List.of(new ValidationNotice(List.of(), "unknown activity type"));
     return directiveType.getInputType().validateArguments(activity.getArguments());
@@ -145,8 +210,7 @@ public final class LocalMissionModelService implements MissionModelService {
       final List<ActivityDirectiveForValidation> activities
   ) throws NoSuchMissionModelException, MissionModelLoadException {
     // load mission model once for all activities
-    final var modelType = this.loadMissionModelType(modelId.toString());
-    final var registry = DirectiveTypeRegistry.extract(modelType);
+    final var registry = this.loadModelType(modelId.toString()).registry();
 
     // map all directives to validation response
     return activities.stream().map((directive) -> {
@@ -190,8 +254,7 @@ public final class LocalMissionModelService implements MissionModelService {
                                  final Map<ActivityDirectiveId, SerializedActivity> activities)
   throws NoSuchMissionModelException, MissionModelLoadException
   {
-    final var factory = this.loadMissionModelType(missionModelId);
-    final var registry = DirectiveTypeRegistry.extract(factory);
+    final var registry = this.loadModelType(missionModelId).registry();
 
     final var failures = new HashMap<ActivityDirectiveId, ActivityInstantiationFailure>();
 
@@ -219,8 +282,7 @@ public final class LocalMissionModelService implements MissionModelService {
       final String missionModelId,
       final List<SerializedActivity> serializedActivities)
   throws NoSuchMissionModelException, MissionModelLoadException {
-      final var modelType = this.loadMissionModelType(missionModelId);
-      final var registry = DirectiveTypeRegistry.extract(modelType);
+      final var registry = this.loadModelType(missionModelId).registry();
       final var response = new ArrayList<BulkEffectiveArgumentResponse>();
 
       for (final var activity : serializedActivities) {
@@ -288,6 +350,19 @@ public final class LocalMissionModelService implements MissionModelService {
       final Consumer<Duration> simulationExtentConsumer,
       final Supplier<Boolean> canceledListener)
   throws NoSuchMissionModelException
+  {
+    final var results = new InMemorySimulationResultsSink();
+    this.runSimulation(message, simulationExtentConsumer, canceledListener, results);
+    return results.results();
+  }
+
+  @Override
+  public void runSimulation(
+      final CreateSimulationMessage message,
+      final Consumer<Duration> simulationExtentConsumer,
+      final Supplier<Boolean> canceledListener,
+      final SimulationResultsSink resultsSink)
+  throws NoSuchMissionModelException
   {
     final var config = message.configuration();
     if (config.isEmpty()) {
@@ -295,8 +370,13 @@ public final class LocalMissionModelService implements MissionModelService {
           "No mission model configuration defined for mission model. Simulations will receive an empty set of configuration arguments.");
     }
 
+    if (this.simulationCheckpoints.isEnabled()) {
+      this.runSimulationFromCheckpoint(message, simulationExtentConsumer, canceledListener, resultsSink);
+      return;
+    }
+
     // TODO: [AERIE-1516] Teardown the mission model after use to release any system resources (e.g. threads).
-    return SimulationDriver.simulate(
+    SimulationDriver.simulate(
         loadAndInstantiateMissionModel(
             message.missionModelId(),
             message.simulationStartTime(),
@@ -307,13 +387,70 @@ public final class LocalMissionModelService implements MissionModelService {
         message.planStartTime(),
         message.planDuration(),
         canceledListener,
-        simulationExtentConsumer);
+        simulationExtentConsumer,
+        resultsSink,
+        this.simulationBatchMode);
+  }
+
+  // Resume from the latest compatible checkpoint of an earlier simulation, if there is one,
+  //   and afterward take checkpoints of this plan in the background for its next revision to resume from.
+  private void runSimulationFromCheckpoint(
+      final CreateSimulationMessage message,
+      final Consumer<Duration> simulationExtentConsumer,
+      final Supplier<Boolean> canceledListener,
+      final SimulationResultsSink resultsSink)
+  throws NoSuchMissionModelException
+  {
+    final var key = new SimulationCheckpointCache.Key(
+        message.missionModelId(),
+        this.loadModelType(message.missionModelId()),
+        message.simulationStartTime(),
+        message.simulationDuration(),
+        message.planStartTime(),
+        message.planDuration(),
+        Map.copyOf(message.configuration()));
+    final Supplier<MissionModel<?>> missionModel = () -> instantiate(
+        key.modelType(),
+        message.simulationStartTime(),
+        SerializedValue.of(message.configuration()));
+
+    final var checkpoint = this.simulationCheckpoints.take(key, message.activityDirectives());
+    if (checkpoint.isPresent()) {
+      try (final var resumable = checkpoint.get()) {
+        log.info("Resuming simulation from a checkpoint at {}", resumable.time());
+        resumable.resume(
+            message.activityDirectives(),
+            message.simulationDuration(),
+            canceledListener,
+            simulationExtentConsumer,
+            resultsSink);
+      }
+    } else {
+      SimulationDriver.simulate(
+          missionModel.get(),
+          message.activityDirectives(),
+          message.simulationStartTime(),
+          message.simulationDuration(),
+          message.planStartTime(),
+          message.planDuration(),
+          canceledListener,
+          simulationExtentConsumer,
+          resultsSink,
+          this.simulationBatchMode);
+    }
+
+    if (canceledListener.get()) return;
+    this.simulationCheckpoints.refresh(key, message.activityDirectives(), missionModel, this.simulationBatchMode);
   }
 
   @Override
   public void refreshModelParameters(final String missionModelId)
   throws NoSuchMissionModelException
   {
+    // Parameters are refreshed whenever a mission model is uploaded or changed, so don't trust anything loaded before.
+    this.modelTypeCache.unload(missionModelId);
+    this.simulationCheckpoints.invalidate(missionModelId);
+
     try {
       this.missionModelRepository.updateModelParameters(missionModelId, getModelParameters(missionModelId));
     } catch (final MissionModelRepository.NoSuchMissionModelException ex) {
@@ -326,8 +463,7 @@ public final class LocalMissionModelService implements MissionModelService {
   throws NoSuchMissionModelException
   {
     try {
-      final var modelType = this.loadMissionModelType(missionModelId);
-      final var registry = DirectiveTypeRegistry.extract(modelType);
+      final var registry = this.loadModelType(missionModelId).registry();
       final var activityTypes = new HashMap<String, ActivityType>();
       registry.directiveTypes().forEach((name, directiveType) -> {
         final var inputType = directiveType.getInputType();
@@ -357,10 +493,20 @@ public final class LocalMissionModelService implements MissionModelService {
 
   private ModelType<?, ?> loadMissionModelType(final String missionModelId)
   throws NoSuchMissionModelException, MissionModelLoadException
+  {
+    return this.loadModelType(missionModelId).modelType();
+  }
+
+  private MissionModelTypeCache.LoadedModelType<?> loadModelType(final String missionModelId)
+  throws NoSuchMissionModelException, MissionModelLoadException
   {
     try {
       final var missionModelJar = this.missionModelRepository.getMissionModel(missionModelId);
-      return MissionModelLoader.loadModelType(missionModelDataPath.resolve(missionModelJar.path), missionModelJar.name, missionModelJar.version);
+      return this.modelTypeCache.get(
+          missionModelId,
+          missionModelDataPath.resolve(missionModelJar.path),
+          missionModelJar.name,
+          missionModelJar.version);
     } catch (final MissionModelRepository.NoSuchMissionModelException ex) {
       throw new NoSuchMissionModelException(missionModelId, ex);
     } catch (final MissionModelLoader.MissionModelLoadException ex) {
@@ -399,19 +545,16 @@ public final class LocalMissionModelService implements MissionModelService {
       final SerializedValue configuration)
   throws NoSuchMissionModelException, MissionModelLoadException
   {
-    try {
-      final var missionModelJar = this.missionModelRepository.getMissionModel(missionModelId);
-      return MissionModelLoader.loadMissionModel(
-          planStart,
-          configuration,
-          missionModelDataPath.resolve(missionModelJar.path),
-          missionModelJar.name,
-          missionModelJar.version);
-    } catch (final MissionModelRepository.NoSuchMissionModelException ex) {
-      throw new NoSuchMissionModelException(missionModelId, ex);
-    } catch (final MissionModelLoader.MissionModelLoadException ex) {
-      throw new MissionModelLoadException(ex);
-    }
+    // Each simulation gets its own model instance, but the model's classes are shared through the cache.
+    return instantiate(this.loadModelType(missionModelId), planStart, configuration);
+  }
+
+  private static <Model> MissionModel<Model> instantiate(
+      final MissionModelTypeCache.LoadedModelType<Model> loaded,
+      final Instant planStart,
+      final SerializedValue configuration)
+  {
+    return MissionModelLoader.loadMissionModel(planStart, configuration, loaded.modelType(), loaded.registry());
   }
 
   public static class MissionModelLoadException extends RuntimeException {
@@ -4,6 +4,7 @@ import gov.nasa.jpl.aerie.merlin.driver.ActivityDirectiveId;
 import gov.nasa.jpl.aerie.merlin.driver.MissionModelLoader;
 import gov.nasa.jpl.aerie.merlin.driver.SerializedActivity;
 import gov.nasa.jpl.aerie.merlin.driver.SimulationResults;
+import gov.nasa.jpl.aerie.merlin.driver.SimulationResultsSink;
 import gov.nasa.jpl.aerie.merlin.protocol.model.InputType.Parameter;
 import gov.nasa.jpl.aerie.merlin.protocol.model.InputType.ValidationNotice;
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
@@ -68,6 +69,17 @@ public interface MissionModelService {
   SimulationResults runSimulation(CreateSimulationMessage message, Consumer<Duration> writer, Supplier<Boolean> canceledListener)
           throws NoSuchMissionModelException, MissionModelService.NoSuchActivityTypeException;
 
+  /** Run a simulation, handing its results to the given sink as they are produced. */
+  default void runSimulation(
+      final CreateSimulationMessage message,
+      final Consumer<Duration> writer,
+      final Supplier<Boolean> canceledListener,
+      final SimulationResultsSink resultsSink
+  ) throws NoSuchMissionModelException, MissionModelService.NoSuchActivityTypeException
+  {
+    SimulationResultsSink.replay(this.runSimulation(message, writer, canceledListener), resultsSink);
+  }
+
   void refreshModelParameters(String missionModelId) throws NoSuchMissionModelException;
   void refreshActivityTypes(String missionModelId) throws NoSuchMissionModelException;
   void refreshResourceTypes(String missionModelId) throws NoSuchMissionModelException;
@@ -0,0 +1,114 @@
+package gov.nasa.jpl.aerie.merlin.server.services;
+
+import gov.nasa.jpl.aerie.merlin.driver.DirectiveTypeRegistry;
+import gov.nasa.jpl.aerie.merlin.driver.MissionModelLoader;
+import gov.nasa.jpl.aerie.merlin.protocol.model.ModelType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of loaded mission model types, so that repeated requests against the same mission model
+ * reuse its already-loaded (and JIT-compiled) classes instead of opening a new class loader over its JAR each time.
+ *
+ * <p>
+ * Entries are keyed by mission model ID, and remember the size and modification time of the JAR they were loaded from;
+ * a JAR that has changed since it was loaded is loaded afresh. When the cache is full, the least recently used
+ * mission model is evicted. Evicted and unloaded class loaders are not closed, since a simulation may still be using
+ * them; they are reclaimed once nothing refers to their classes.
+ * </p>
+ *
+ * <p>
+ * Every simulation of a cached mission model, including simulations running at the same time, shares its classes,
+ * and so shares any static fields they have. Mission models must therefore keep all of their mutable state in cells
+ * allocated when they are instantiated (as {@link ModelType#instantiate} requires), never in static fields.
+ * A mission model that doesn't can be run with a capacity of zero, which loads it in a new class loader every time.
+ * </p>
+ */
+public final class MissionModelTypeCache {
+  public static final int DEFAULT_CAPACITY = 8;
+
+  public record LoadedModelType<Model>(ModelType<?, Model> modelType, DirectiveTypeRegistry<Model> registry) {
+    private static <Model> LoadedModelType<Model> of(final ModelType<?, Model> modelType) {
+      return new LoadedModelType<>(modelType, DirectiveTypeRegistry.extract(modelType));
+    }
+  }
+
+  private record JarStamp(Path path, long size, FileTime lastModified) {}
+
+  private record Entry(JarStamp stamp, LoadedModelType<?> loaded) {}
+
+  /** Loads a mission model's type from its JAR, in a class loader of its own. */
+  interface Loader {
+    ModelType<?, ?> load(Path path, String name, String version) throws MissionModelLoader.MissionModelLoadException;
+  }
+
+  private final Loader loader;
+  private final Map<String, Entry> entries;
+
+  public MissionModelTypeCache(final int capacity) {
+    this(capacity, MissionModelLoader::loadModelType);
+  }
+
+  MissionModelTypeCache(final int capacity, final Loader loader) {
+    if (capacity < 0) throw new IllegalArgumentException("capacity must be non-negative, but was " + capacity);
+
+    this.loader = loader;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+        return this.size() > capacity;
+      }
+    };
+  }
+
+  public LoadedModelType<?> get(final String missionModelId, final Path path, final String name, final String version)
+  throws MissionModelLoader.MissionModelLoadException
+  {
+    final var stamp = stamp(path);
+
+    // A JAR that can't be inspected can't be loaded either; let the loader report the failure.
+    if (stamp == null) return LoadedModelType.of(this.loader.load(path, name, version));
+
+    synchronized (this.entries) {
+      final var entry = this.entries.get(missionModelId);
+      if (entry != null && entry.stamp().equals(stamp)) return entry.loaded();
+    }
+
+    // Load outside the lock, so one slow mission model doesn't hold up requests for the others.
+    // Concurrent misses on the same mission model may each load it; the last to finish is kept.
+    final var loaded = LoadedModelType.of(this.loader.load(path, name, version));
+
+    synchronized (this.entries) {
+      this.entries.put(missionModelId, new Entry(stamp, loaded));
+    }
+    return loaded;
+  }
+
+  /** Forget the given mission model, so that it is loaded afresh the next time it is needed. */
+  public void unload(final String missionModelId) {
+    synchronized (this.entries) {
+      this.entries.remove(missionModelId);
+    }
+  }
+
+  public void clear() {
+    synchronized (this.entries) {
+      this.entries.clear();
+    }
+  }
+
+  private static JarStamp stamp(final Path path) {
+    try {
+      final var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      return new JarStamp(path, attributes.size(), attributes.lastModifiedTime());
+    } catch (final IOException ex) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,269 @@
+package gov.nasa.jpl.aerie.merlin.server.services;
+
+import gov.nasa.jpl.aerie.merlin.driver.ActivityDirective;
+import gov.nasa.jpl.aerie.merlin.driver.ActivityDirectiveId;
+import gov.nasa.jpl.aerie.merlin.driver.MissionModel;
+import gov.nasa.jpl.aerie.merlin.driver.SimulationCheckpoint;
+import gov.nasa.jpl.aerie.merlin.driver.engine.SimulationEngine;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of simulations paused part-way through recently simulated plans, so that a simulation of
+ * a revised plan can resume from the latest checkpoint it is compatible with instead of starting over.
+ *
+ * <p>
+ * Checkpoints are taken at fixed fractions of each simulation's duration. Since a checkpoint can only be resumed once
+ * (see {@link SimulationCheckpoint}), each one that is used or that no longer matches the latest plan
+ * must be recreated afterward by simulating that plan again up to the checkpoint's time.
+ * (A simulation in progress can't be copied, so the simulation whose results were delivered can't leave one behind.)
+ * That work happens in the background, on a single thread of the cache's own, so that it holds up no simulation.
+ * It is abandoned as soon as it is superseded: when another simulation of the same plan begins,
+ * or when the plan is refreshed again.
+ * </p>
+ *
+ * <p>
+ * A checkpoint's suspended tasks may each hold on to a thread until it is resumed or closed,
+ * so a checkpoint holding more than a configured number of threads is discarded rather than kept.
+ * </p>
+ *
+ * <p>
+ * Entries are keyed by the mission model and everything but the plan's directives that a simulation depends on.
+ * When the cache is full, the checkpoints of the least recently used entry are closed, releasing their tasks.
+ * </p>
+ */
+public final class SimulationCheckpointCache {
+  private static final Logger log = LoggerFactory.getLogger(SimulationCheckpointCache.class);
+
+  /** Everything but the directives that two simulations must share for one to resume from the other's checkpoint. */
+  public record Key(
+      String missionModelId,
+      MissionModelTypeCache.LoadedModelType<?> modelType,
+      Instant simulationStartTime,
+      Duration simulationDuration,
+      Instant planStartTime,
+      Duration planDuration,
+      Map<String, SerializedValue> configuration
+  ) {}
+
+  private final List<Double> checkpointFractions;
+  private final int maximumThreadsPerCheckpoint;
+  private final Map<Key, List<SimulationCheckpoint>> entries;
+
+  /** The latest refresh of each plan that hasn't yet finished or been superseded, guarded by {@link #entries}. */
+  private final Map<Key, Object> pendingRefreshes = new HashMap<>();
+  /** Takes checkpoints in the background, one at a time. */
+  private final Optional<ExecutorService> refreshExecutor;
+
+  /**
+   * @param checkpointFractions The fractions of each simulation's duration at which to take checkpoints,
+   *   each strictly between zero and one.
+   * @param capacity The number of recently simulated plans to keep checkpoints for.
+   * @param maximumThreadsPerCheckpoint The number of threads a checkpoint's suspended tasks may hold on to,
+   *   beyond which the checkpoint is discarded.
+   */
+  public SimulationCheckpointCache(
+      final List<Double> checkpointFractions,
+      final int capacity,
+      final int maximumThreadsPerCheckpoint)
+  {
+    if (capacity < 0) throw new IllegalArgumentException("capacity must be non-negative, but was " + capacity);
+    if (maximumThreadsPerCheckpoint < 0) {
+      throw new IllegalArgumentException(
+          "maximumThreadsPerCheckpoint must be non-negative, but was " + maximumThreadsPerCheckpoint);
+    }
+    if (capacity == 0 && !checkpointFractions.isEmpty()) {
+      throw new IllegalArgumentException("capacity must be positive when checkpoints are taken");
+    }
+    for (final var fraction : checkpointFractions) {
+      if (!(0 < fraction && fraction < 1)) {
+        throw new IllegalArgumentException("checkpoint fractions must be between 0 and 1, but got " + fraction);
+      }
+    }
+
+    this.checkpointFractions = List.copyOf(checkpointFractions);
+    this.maximumThreadsPerCheckpoint = maximumThreadsPerCheckpoint;
+    this.refreshExecutor = checkpointFractions.isEmpty()
+        ? Optional.empty()
+        : Optional.of(Executors.newSingleThreadExecutor($ -> {
+            final var t = new Thread($, "simulation-checkpoints");
+            // Checkpoints only serve later simulations, so there's no reason to keep the JVM alive for them.
+            t.setDaemon(true);
+            return t;
+          }));
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Key, List<SimulationCheckpoint>> eldest) {
+        if (this.size() <= capacity) return false;
+
+        eldest.getValue().forEach(SimulationCheckpoint::close);
+        return true;
+      }
+    };
+  }
+
+  /** A cache that never takes checkpoints. */
+  public static SimulationCheckpointCache disabled() {
+    return new SimulationCheckpointCache(List.of(), 0, 0);
+  }
+
+  public boolean isEnabled() {
+    return !this.checkpointFractions.isEmpty();
+  }
+
+  /**
+   * Remove and return the latest checkpoint from which the given plan can be resumed, if any.
+   *
+   * <p>
+   * The caller takes ownership of the checkpoint, and must close it.
+   * Since the caller is about to simulate the plan, any checkpoints still being taken of it are abandoned.
+   * </p>
+   */
+  public Optional<SimulationCheckpoint> take(final Key key, final Map<ActivityDirectiveId, ActivityDirective> schedule) {
+    synchronized (this.entries) {
+      this.pendingRefreshes.remove(key);
+
+      final var checkpoints = this.entries.get(key);
+      if (checkpoints == null) return Optional.empty();
+
+      final var latest = checkpoints
+          .stream()
+          .filter($ -> $.canResume(schedule))
+          .max(Comparator.comparing(SimulationCheckpoint::time));
+      latest.ifPresent(checkpoints::remove);
+      return latest;
+    }
+  }
+
+  /**
+   * Begin ensuring that there is a checkpoint of the given plan at each configured time, in the background.
+   *
+   * <p>
+   * Checkpoints that the plan could already be resumed from are kept; the rest are replaced.
+   * Each new checkpoint simulates a fresh mission model, obtained from the given supplier,
+   * performing the jobs in each batch according to the given mode.
+   * </p>
+   */
+  public void refresh(
+      final Key key,
+      final Map<ActivityDirectiveId, ActivityDirective> schedule,
+      final Supplier<MissionModel<?>> missionModels,
+      final SimulationEngine.BatchMode batchMode)
+  {
+    if (this.refreshExecutor.isEmpty()) return;
+
+    final var refresh = new Object();
+    synchronized (this.entries) {
+      this.pendingRefreshes.put(key, refresh);
+    }
+
+    final Supplier<Boolean> superseded = () -> {
+      synchronized (this.entries) {
+        return this.pendingRefreshes.get(key) != refresh;
+      }
+    };
+
+    this.refreshExecutor.get().execute(() -> {
+      try {
+        this.takeCheckpoints(key, schedule, missionModels, batchMode, superseded);
+      } catch (final RuntimeException ex) {
+        // Checkpoints only serve later simulations, so failing to take them is no error.
+        log.warn("Failed to take simulation checkpoints", ex);
+      } finally {
+        synchronized (this.entries) {
+          this.pendingRefreshes.remove(key, refresh);
+        }
+      }
+    });
+  }
+
+  private void takeCheckpoints(
+      final Key key,
+      final Map<ActivityDirectiveId, ActivityDirective> schedule,
+      final Supplier<MissionModel<?>> missionModels,
+      final SimulationEngine.BatchMode batchMode,
+      final Supplier<Boolean> superseded)
+  {
+    for (final var fraction : this.checkpointFractions) {
+      if (superseded.get()) return;
+
+      final var time = Duration.roundNearest(
+          fraction * key.simulationDuration().ratioOver(Duration.MICROSECOND),
+          Duration.MICROSECOND);
+
+      synchronized (this.entries) {
+        final var checkpoints = this.entries.get(key);
+        if (checkpoints != null && checkpoints.stream().anyMatch($ -> $.time().isEqualTo(time) && $.canResume(schedule))) {
+          continue;
+        }
+      }
+
+      // Simulate outside the lock, so that other simulations can take and replace checkpoints meanwhile.
+      final var checkpoint = SimulationCheckpoint.create(
+          missionModels.get(),
+          schedule,
+          key.simulationStartTime(),
+          key.planStartTime(),
+          key.planDuration(),
+          time,
+          superseded,
+          batchMode);
+
+      if (checkpoint.threadsInUse() > this.maximumThreadsPerCheckpoint) {
+        log.info(
+            "Discarding a simulation checkpoint at {}, whose tasks hold {} threads (more than {})",
+            time,
+            checkpoint.threadsInUse(),
+            this.maximumThreadsPerCheckpoint);
+        checkpoint.close();
+        continue;
+      }
+
+      synchronized (this.entries) {
+        // A checkpoint cut short by a newer refresh (or by invalidation) is of no use to anyone.
+        if (superseded.get()) {
+          checkpoint.close();
+          return;
+        }
+
+        final var checkpoints = this.entries.computeIfAbsent(key, $ -> new ArrayList<>());
+        checkpoints.removeIf($ -> {
+          if (!$.time().isEqualTo(time)) return false;
+          $.close();
+          return true;
+        });
+        checkpoints.add(checkpoint);
+      }
+    }
+  }
+
+  /** Close and forget every checkpoint of the given mission model, abandoning any being taken. */
+  public void invalidate(final String missionModelId) {
+    synchronized (this.entries) {
+      this.pendingRefreshes.keySet().removeIf($ -> $.missionModelId().equals(missionModelId));
+
+      final var iterator = this.entries.entrySet().iterator();
+      while (iterator.hasNext()) {
+        final var entry = iterator.next();
+        if (!entry.getKey().missionModelId().equals(missionModelId)) continue;
+
+        entry.getValue().forEach(SimulationCheckpoint::close);
+        iterator.remove();
+      }
+    }
+  }
+}
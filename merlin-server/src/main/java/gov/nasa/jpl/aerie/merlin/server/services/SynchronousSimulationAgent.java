@@ -82,14 +82,24 @@ public record SynchronousSimulationAgent (
           Duration.ZERO,
           simulationProgressPollPeriod)
       ) {
-        results = this.missionModelService.runSimulation(new CreateSimulationMessage(
+        final var message = new CreateSimulationMessage(
             plan.missionModelId,
             plan.simulationStartTimestamp.toInstant(),
             simDuration,
             plan.startTimestamp.toInstant(),
             planDuration,
             plan.activityDirectives,
-            plan.configuration), extentListener::updateValue, canceledListener);
+            plan.configuration);
+
+        // Prefer to write results as they're produced, so that they needn't all be held in memory at once.
+        //   Finishing the sink completes the writer, so there is nothing left to do afterward.
+        final var sink = writer.streamResults(plan.simulationStartTimestamp.toInstant(), canceledListener);
+        if (sink.isPresent()) {
+          this.missionModelService.runSimulation(message, extentListener::updateValue, canceledListener, sink.get());
+          return;
+        }
+
+        results = this.missionModelService.runSimulation(message, extentListener::updateValue, canceledListener);
       }
     } catch (SimulationException ex) {
       writer.failWith(b -> b
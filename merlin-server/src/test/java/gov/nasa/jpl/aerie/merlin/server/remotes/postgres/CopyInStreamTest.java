@@ -0,0 +1,362 @@
+package gov.nasa.jpl.aerie.merlin.server.remotes.postgres;
+
+import gov.nasa.jpl.aerie.merlin.driver.engine.ProfileSegment;
+import gov.nasa.jpl.aerie.merlin.driver.timeline.EventGraph;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.RealDynamics;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
+import gov.nasa.jpl.aerie.merlin.protocol.types.ValueSchema;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.util.ByteStreamWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static gov.nasa.jpl.aerie.merlin.driver.json.SerializedValueJsonParser.serializedValueP;
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.MICROSECONDS;
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.SECONDS;
+import static gov.nasa.jpl.aerie.merlin.server.http.ProfileParsers.realDynamicsP;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that rows written through a {@link CopyInStream} read back as they were written,
+ * by decoding the text format the same way Postgres does.
+ */
+public final class CopyInStreamTest {
+  private static final List<String> AWKWARD_STRINGS = List.of(
+      "",
+      "plain",
+      "tab\there",
+      "line\nbreak",
+      "carriage\rreturn",
+      "back\\slash",
+      "\\N",
+      "\\\\N\\",
+      "trailing\\",
+      "unicode: é ∆ 😀");
+
+  @Test
+  public void fieldsRoundTrip() throws SQLException {
+    final var copyIn = new RecordingCopyIn();
+    final var stream = new CopyInStream(copyIn);
+
+    for (final var string : AWKWARD_STRINGS) {
+      stream
+          .field(-42)
+          .field(true)
+          .field(string)
+          .field(Duration.of(3_600_000_001L, MICROSECONDS))
+          .field(false)
+          .endRow();
+    }
+    assertEquals(AWKWARD_STRINGS.size(), stream.finish());
+
+    final var rows = copyIn.rows();
+    assertEquals(AWKWARD_STRINGS.size(), rows.size());
+    for (var i = 0; i < rows.size(); i += 1) {
+      assertEquals(List.of("-42", "t", AWKWARD_STRINGS.get(i), "PT3600.000001S", "f"), rows.get(i));
+    }
+  }
+
+  @Test
+  public void nullMarkerIsNeverWrittenForAValue() throws SQLException {
+    final var copyIn = new RecordingCopyIn();
+    final var stream = new CopyInStream(copyIn);
+
+    stream.field("\\N").endRow();
+    stream.field(serializedValueP.unparse(SerializedValue.NULL).toString()).endRow();
+    stream.finish();
+
+    // A string spelled like COPY's null marker, or a JSON null, must still arrive as a non-null value.
+    final var rows = copyIn.rows();
+    assertEquals(List.of("\\N"), rows.get(0));
+    assertEquals(List.of("null"), rows.get(1));
+  }
+
+  @Test
+  public void largeBatchesAreFlushedInWholeRows() throws SQLException {
+    final var copyIn = new RecordingCopyIn();
+    final var stream = new CopyInStream(copyIn);
+
+    final var rowCount = 50_000;
+    for (var i = 0; i < rowCount; i += 1) {
+      stream.field(i).field(AWKWARD_STRINGS.get(i % AWKWARD_STRINGS.size())).endRow();
+    }
+    assertEquals(rowCount, stream.finish());
+
+    assertTrue(copyIn.chunks.size() > 1, "expected more than one chunk, but got " + copyIn.chunks.size());
+    for (final var chunk : copyIn.chunks) {
+      // Flushing mid-row could also split a multi-byte character.
+      assertEquals('\n', chunk[chunk.length - 1]);
+    }
+
+    final var rows = copyIn.rows();
+    assertEquals(rowCount, rows.size());
+    for (var i = 0; i < rowCount; i += 1) {
+      assertEquals(List.of(Long.toString(i), AWKWARD_STRINGS.get(i % AWKWARD_STRINGS.size())), rows.get(i));
+    }
+  }
+
+  @Test
+  public void unfinishedCopyIsCancelled() throws SQLException {
+    final var copyIn = new RecordingCopyIn();
+    try (final var stream = new CopyInStream(copyIn)) {
+      stream.field("abandoned").endRow();
+    }
+
+    assertTrue(copyIn.canceled);
+    assertFalse(copyIn.isActive());
+  }
+
+  @Test
+  public void profileSegmentsRoundTrip() throws SQLException {
+    final var realSegments = new ArrayList<ProfileSegment<RealDynamics>>();
+    for (var i = 0; i < 20_000; i += 1) {
+      realSegments.add(new ProfileSegment<>(Duration.of(i % 7 + 1, SECONDS), RealDynamics.linear(i, -0.5)));
+    }
+    final var discreteSegments = new ArrayList<ProfileSegment<SerializedValue>>();
+    discreteSegments.add(new ProfileSegment<>(Duration.of(1, SECONDS), SerializedValue.NULL));
+    for (final var string : AWKWARD_STRINGS) {
+      discreteSegments.add(new ProfileSegment<>(Duration.of(1, SECONDS), SerializedValue.of(string)));
+    }
+
+    final var copyIn = new RecordingCopyIn();
+    final var stream = new CopyInStream(copyIn);
+    CopyProfileSegmentsAction.write(
+        stream,
+        7,
+        Map.of(
+            "real", new ProfileRecord(11, 7, "real", Pair.of("real", ValueSchema.REAL), Duration.ZERO),
+            "discrete", new ProfileRecord(12, 7, "discrete", Pair.of("discrete", ValueSchema.STRING), Duration.ZERO)),
+        Map.of("real", Pair.of(ValueSchema.REAL, realSegments)),
+        Map.of("discrete", Pair.of(ValueSchema.STRING, discreteSegments)));
+    assertEquals(realSegments.size() + discreteSegments.size(), stream.finish());
+
+    final var rows = copyIn.rows();
+    assertSegmentRows(rows.subList(0, realSegments.size()), 11, realSegments, d -> realDynamicsP.unparse(d).toString());
+    assertSegmentRows(rows.subList(realSegments.size(), rows.size()), 12, discreteSegments, d -> serializedValueP.unparse(d).toString());
+  }
+
+  @Test
+  public void streamedSegmentsFollowOnFromStoredOnes() throws SQLException {
+    // As the results sink flushes, each batch of segments continues its profile from where the previous one ended.
+    final var records = Map.of(
+        "real", new ProfileRecord(11, 7, "real", Pair.of("real", ValueSchema.REAL), Duration.ZERO),
+        "discrete", new ProfileRecord(12, 7, "discrete", Pair.of("discrete", ValueSchema.STRING), Duration.ZERO));
+    final var firstReal = List.of(
+        new ProfileSegment<>(Duration.of(2, SECONDS), RealDynamics.constant(1)),
+        new ProfileSegment<>(Duration.of(3, SECONDS), RealDynamics.linear(1, 2)));
+    final var firstDiscrete = List.of(
+        new ProfileSegment<>(Duration.of(5, SECONDS), SerializedValue.of("a")));
+    final var secondReal = List.of(
+        new ProfileSegment<>(Duration.of(4, SECONDS), RealDynamics.constant(7)));
+    final var secondDiscrete = List.of(
+        new ProfileSegment<>(Duration.of(1, SECONDS), SerializedValue.of("b")),
+        new ProfileSegment<>(Duration.of(3, SECONDS), SerializedValue.of("c")));
+
+    final var firstCopyIn = new RecordingCopyIn();
+    final var firstStream = new CopyInStream(firstCopyIn);
+    final var firstEnds = CopyProfileSegmentsAction.write(
+        firstStream,
+        7,
+        records,
+        Map.of(),
+        Map.of("real", Pair.of(ValueSchema.REAL, firstReal)),
+        Map.of("discrete", Pair.of(ValueSchema.STRING, firstDiscrete)));
+    firstStream.finish();
+    assertEquals(Map.of("real", Duration.of(5, SECONDS), "discrete", Duration.of(5, SECONDS)), firstEnds);
+
+    final var secondCopyIn = new RecordingCopyIn();
+    final var secondStream = new CopyInStream(secondCopyIn);
+    final var secondEnds = CopyProfileSegmentsAction.write(
+        secondStream,
+        7,
+        records,
+        firstEnds,
+        Map.of("real", Pair.of(ValueSchema.REAL, secondReal)),
+        Map.of("discrete", Pair.of(ValueSchema.STRING, secondDiscrete)));
+    secondStream.finish();
+    assertEquals(Map.of("real", Duration.of(9, SECONDS), "discrete", Duration.of(9, SECONDS)), secondEnds);
+
+    final var firstRows = firstCopyIn.rows();
+    assertSegmentRows(firstRows.subList(0, 2), 11, Duration.ZERO, firstReal, d -> realDynamicsP.unparse(d).toString());
+    assertSegmentRows(firstRows.subList(2, 3), 12, Duration.ZERO, firstDiscrete, d -> serializedValueP.unparse(d).toString());
+
+    final var secondRows = secondCopyIn.rows();
+    assertSegmentRows(secondRows.subList(0, 1), 11, Duration.of(5, SECONDS), secondReal, d -> realDynamicsP.unparse(d).toString());
+    assertSegmentRows(secondRows.subList(1, 3), 12, Duration.of(5, SECONDS), secondDiscrete, d -> serializedValueP.unparse(d).toString());
+  }
+
+  @Test
+  public void eventsRoundTrip() throws SQLException {
+    final var events = new TreeMap<Duration, List<EventGraph<Pair<Integer, SerializedValue>>>>();
+    events.put(Duration.ZERO, List.of(
+        EventGraph.sequentially(
+            EventGraph.atom(Pair.of(0, SerializedValue.of("tab\tand\nnewline"))),
+            EventGraph.atom(Pair.of(1, SerializedValue.NULL)))));
+    events.put(Duration.of(2 * 24 * 3600 + 1, SECONDS), List.of(
+        EventGraph.atom(Pair.of(2, SerializedValue.of("\\N"))),
+        EventGraph.atom(Pair.of(3, SerializedValue.of(1.5)))));
+
+    final var copyIn = new RecordingCopyIn();
+    final var stream = new CopyInStream(copyIn);
+    CopySimulationEventsAction.write(stream, 7, events);
+    assertEquals(4, stream.finish());
+
+    final var rows = copyIn.rows();
+    assertEquals(List.of("7", "P0DT0.000000S", "0", ".1", "0", serializedValueP.unparse(SerializedValue.of("tab\tand\nnewline")).toString()), rows.get(0));
+    assertEquals(List.of("7", "P0DT0.000000S", "0", ".2", "1", "null"), rows.get(1));
+    assertEquals(List.of("7", "P2DT1.000000S", "0", ".1", "2", serializedValueP.unparse(SerializedValue.of("\\N")).toString()), rows.get(2));
+    assertEquals(List.of("7", "P2DT1.000000S", "1", ".1", "3", serializedValueP.unparse(SerializedValue.of(1.5)).toString()), rows.get(3));
+  }
+
+  private static <Dynamics> void assertSegmentRows(
+      final List<List<String>> rows,
+      final long profileId,
+      final List<ProfileSegment<Dynamics>> segments,
+      final Function<Dynamics, String> unparse)
+  {
+    assertSegmentRows(rows, profileId, Duration.ZERO, segments, unparse);
+  }
+
+  private static <Dynamics> void assertSegmentRows(
+      final List<List<String>> rows,
+      final long profileId,
+      final Duration startOffset,
+      final List<ProfileSegment<Dynamics>> segments,
+      final Function<Dynamics, String> unparse)
+  {
+    assertEquals(segments.size(), rows.size());
+
+    var offset = startOffset;
+    for (var i = 0; i < segments.size(); i += 1) {
+      final var micros = offset.in(MICROSECONDS);
+      assertEquals(
+          List.of(
+              "7",
+              Long.toString(profileId),
+              "PT%d.%06dS".formatted(micros / 1_000_000, micros % 1_000_000),
+              unparse.apply(segments.get(i).dynamics()),
+              "f"),
+          rows.get(i));
+      offset = Duration.add(offset, segments.get(i).extent());
+    }
+  }
+
+  /** Records what would have been sent to the server, and decodes it as Postgres would. */
+  private static final class RecordingCopyIn implements CopyIn {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final List<byte[]> chunks = new ArrayList<>();
+    private boolean active = true;
+    private boolean canceled = false;
+
+    @Override
+    public void writeToCopy(final byte[] buf, final int off, final int siz) {
+      assertTrue(this.active);
+      this.bytes.write(buf, off, siz);
+      this.chunks.add(Arrays.copyOfRange(buf, off, off + siz));
+    }
+
+    @Override
+    public void writeToCopy(final ByteStreamWriter from) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void flushCopy() {}
+
+    @Override
+    public long endCopy() {
+      this.active = false;
+      return this.rows().size();
+    }
+
+    @Override
+    public int getFieldCount() {
+      return 0;
+    }
+
+    @Override
+    public int getFormat() {
+      return 0;
+    }
+
+    @Override
+    public int getFieldFormat(final int field) {
+      return 0;
+    }
+
+    @Override
+    public boolean isActive() {
+      return this.active;
+    }
+
+    @Override
+    public void cancelCopy() {
+      this.active = false;
+      this.canceled = true;
+    }
+
+    @Override
+    public long getHandledRowCount() {
+      return -1;
+    }
+
+    public List<List<String>> rows() {
+      final var text = this.bytes.toString(StandardCharsets.UTF_8);
+      final var rows = new ArrayList<List<String>>();
+      if (text.isEmpty()) return rows;
+
+      assertTrue(text.endsWith("\n"));
+      for (final var line : text.substring(0, text.length() - 1).split("\n", -1)) {
+        final var fields = new ArrayList<String>();
+        for (final var field : line.split("\t", -1)) {
+          final var value = unescape(field);
+          assertNotNull(value, "unexpected null in row: " + line);
+          fields.add(value);
+        }
+        rows.add(fields);
+      }
+      return rows;
+    }
+
+    // The inverse of the escaping in Postgres's text format; `\N` alone denotes SQL null.
+    private static String unescape(final String field) {
+      if (field.equals("\\N")) return null;
+
+      final var builder = new StringBuilder();
+      for (var i = 0; i < field.length(); i += 1) {
+        final var c = field.charAt(i);
+        if (c != '\\') {
+          builder.append(c);
+          continue;
+        }
+
+        i += 1;
+        assertTrue(i < field.length(), "dangling backslash in field: " + field);
+        builder.append(switch (field.charAt(i)) {
+          case 'n' -> '\n';
+          case 'r' -> '\r';
+          case 't' -> '\t';
+          case 'b' -> '\b';
+          case 'f' -> '\f';
+          case 'v' -> '\u000B';
+          default -> field.charAt(i);
+        });
+      }
+      return builder.toString();
+    }
+  }
+}
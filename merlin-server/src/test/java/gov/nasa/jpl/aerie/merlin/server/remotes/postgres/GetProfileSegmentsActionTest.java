@@ -0,0 +1,147 @@
+package gov.nasa.jpl.aerie.merlin.server.remotes.postgres;
+
+import gov.nasa.jpl.aerie.json.JsonParser;
+import gov.nasa.jpl.aerie.merlin.driver.engine.ProfileSegment;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.RealDynamics;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
+import gov.nasa.jpl.aerie.merlin.protocol.types.ValueSchema;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static gov.nasa.jpl.aerie.merlin.driver.json.SerializedValueJsonParser.serializedValueP;
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.SECONDS;
+import static gov.nasa.jpl.aerie.merlin.server.http.ProfileParsers.realDynamicsP;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks how stored profile rows are decoded into segments, both for the whole profile and for windows of it.
+ * Rows are selected the same way {@link GetProfileSegmentsAction}'s query selects them.
+ */
+public final class GetProfileSegmentsActionTest {
+  private static final ProfileRecord REAL_PROFILE =
+      new ProfileRecord(1, 7, "real", Pair.of("real", ValueSchema.REAL), seconds(20));
+
+  private static final RealDynamics RISING = RealDynamics.linear(1, 0.5);
+  private static final RealDynamics FALLING = RealDynamics.linear(4, -0.25);
+
+  // Stored with start offsets relative to simulation start: rising from 0s, a gap from 10s, and falling from 15s.
+  private static final List<Row<RealDynamics>> REAL_ROWS = List.of(
+      new Row<>(seconds(0), Optional.of(RISING)),
+      new Row<>(seconds(10), Optional.empty()),
+      new Row<>(seconds(15), Optional.of(FALLING)));
+
+  @Test
+  public void wholeProfileIsDecoded() {
+    assertEquals(
+        List.of(
+            segment(10, Optional.of(RISING)),
+            segment(5, Optional.empty()),
+            segment(5, Optional.of(FALLING))),
+        read(REAL_PROFILE, realDynamicsP, REAL_ROWS, seconds(0), seconds(20)));
+  }
+
+  @Test
+  public void windowEndingPastTheProfileIsClampedToIt() {
+    assertEquals(
+        read(REAL_PROFILE, realDynamicsP, REAL_ROWS, seconds(0), seconds(20)),
+        read(REAL_PROFILE, realDynamicsP, REAL_ROWS, seconds(0), seconds(100)));
+  }
+
+  @Test
+  public void partsOutsideTheWindowAreGaps() {
+    // The window starts within the gap and ends within the falling segment.
+    assertEquals(
+        List.of(
+            segment(12, Optional.empty()),
+            segment(3, Optional.empty()),
+            segment(2, Optional.of(FALLING)),
+            segment(3, Optional.empty())),
+        read(REAL_PROFILE, realDynamicsP, REAL_ROWS, seconds(12), seconds(17)));
+  }
+
+  @Test
+  public void windowWithinOneSegment() {
+    assertEquals(
+        List.of(
+            segment(2, Optional.empty()),
+            segment(2, Optional.of(RISING)),
+            segment(16, Optional.empty())),
+        read(REAL_PROFILE, realDynamicsP, REAL_ROWS, seconds(2), seconds(4)));
+  }
+
+  @Test
+  public void windowOnSegmentBoundaries() {
+    assertEquals(
+        List.of(
+            segment(10, Optional.empty()),
+            segment(5, Optional.empty()),
+            segment(5, Optional.empty())),
+        read(REAL_PROFILE, realDynamicsP, REAL_ROWS, seconds(10), seconds(15)));
+  }
+
+  @Test
+  public void discreteValuesAreDecoded() {
+    final var profile = new ProfileRecord(2, 7, "discrete", Pair.of("discrete", ValueSchema.STRING), seconds(6));
+    final var rows = List.of(
+        new Row<>(seconds(0), Optional.of(SerializedValue.of("tab\tand \"quotes\""))),
+        new Row<>(seconds(2), Optional.of(SerializedValue.NULL)),
+        new Row<>(seconds(4), Optional.<SerializedValue>empty()));
+
+    assertEquals(
+        List.of(
+            segment(2, Optional.of(SerializedValue.of("tab\tand \"quotes\""))),
+            segment(2, Optional.of(SerializedValue.NULL)),
+            segment(2, Optional.empty())),
+        read(profile, serializedValueP, rows, seconds(0), seconds(6)));
+  }
+
+  private record Row<Dynamics>(Duration startOffset, Optional<Dynamics> dynamics) {}
+
+  private static <Dynamics> List<ProfileSegment<Optional<Dynamics>>> read(
+      final ProfileRecord profile,
+      final JsonParser<Dynamics> dynamicsP,
+      final List<Row<Dynamics>> storedRows,
+      final Duration windowStart,
+      final Duration windowEnd)
+  {
+    // Like the query: from the last row at or before the window start (or the window start itself),
+    // to the last row before the window end.
+    var firstOffset = windowStart;
+    for (final var row : storedRows) {
+      if (row.startOffset().noLongerThan(windowStart)) firstOffset = row.startOffset();
+    }
+
+    final var segments = new ArrayList<ProfileSegment<Optional<Dynamics>>>();
+    final var cursor = new GetProfileSegmentsAction.ProfileCursor<>(profile, dynamicsP, segments::add, windowStart, windowEnd);
+    for (final var row : storedRows) {
+      if (row.startOffset().shorterThan(firstOffset)) continue;
+      if (row.startOffset().noShorterThan(windowEnd) && !row.startOffset().isEqualTo(firstOffset)) continue;
+
+      cursor.acceptRow(
+          toISO8601(row.startOffset()),
+          row.dynamics().map($ -> dynamicsP.unparse($).toString()).orElse("null"),
+          row.dynamics().isEmpty());
+    }
+    cursor.finish();
+
+    return segments;
+  }
+
+  // Postgres renders intervals this way when its interval style is ISO 8601.
+  private static String toISO8601(final Duration offset) {
+    return "PT%dS".formatted(offset.in(SECONDS));
+  }
+
+  private static <Dynamics> ProfileSegment<Optional<Dynamics>> segment(final long seconds, final Optional<Dynamics> dynamics) {
+    return new ProfileSegment<>(seconds(seconds), dynamics);
+  }
+
+  private static Duration seconds(final long seconds) {
+    return Duration.of(seconds, SECONDS);
+  }
+}
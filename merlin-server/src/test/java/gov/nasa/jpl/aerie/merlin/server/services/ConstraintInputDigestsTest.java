@@ -0,0 +1,142 @@
+package gov.nasa.jpl.aerie.merlin.server.services;
+
+import gov.nasa.jpl.aerie.constraints.model.ActivityInstance;
+import gov.nasa.jpl.aerie.constraints.model.ConstraintResult;
+import gov.nasa.jpl.aerie.constraints.model.DiscreteProfile;
+import gov.nasa.jpl.aerie.constraints.model.EvaluationEnvironment;
+import gov.nasa.jpl.aerie.constraints.model.LinearEquation;
+import gov.nasa.jpl.aerie.constraints.model.LinearProfile;
+import gov.nasa.jpl.aerie.constraints.model.SimulationResults;
+import gov.nasa.jpl.aerie.constraints.model.Violation;
+import gov.nasa.jpl.aerie.constraints.time.Interval;
+import gov.nasa.jpl.aerie.constraints.time.Segment;
+import gov.nasa.jpl.aerie.constraints.tree.ActivitySpan;
+import gov.nasa.jpl.aerie.constraints.tree.Expression;
+import gov.nasa.jpl.aerie.constraints.tree.ForEachActivitySpans;
+import gov.nasa.jpl.aerie.constraints.tree.RealResource;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class ConstraintInputDigestsTest {
+  private static final Instant PLAN_START = Instant.parse("2024-01-01T00:00:00Z");
+  private static final Interval BOUNDS = Interval.betweenClosedOpen(Duration.ZERO, Duration.of(100, SECONDS));
+
+  private static final Expression<?> EACH_BITE = new ForEachActivitySpans("Bite", "bite", new ActivitySpan("bite"));
+  private static final Expression<?> FRUIT = new RealResource("fruit");
+
+  @Test
+  public void unchangedInputsAreReused() {
+    final var before = digests(PLAN_START, activities(1, 2, 3), fruit(4.0)).of(EACH_BITE);
+    final var after = digests(PLAN_START, activities(1, 2, 3), fruit(4.0)).of(EACH_BITE);
+
+    assertTrue(after.matches(before));
+    assertEquals(before, after);
+  }
+
+  @Test
+  public void renumberedActivitiesAreReusedUnderTheirNewIds() {
+    final var before = digests(PLAN_START, activities(1, 2, 3), fruit(4.0)).of(EACH_BITE);
+    // Resimulation may number the same activities differently, and list them in another order.
+    final var renumbered = activities(30, 10, 20);
+    Collections.reverse(renumbered);
+    final var after = digests(PLAN_START, renumbered, fruit(4.0)).of(EACH_BITE);
+    assertTrue(after.matches(before));
+
+    final var previous = new ConstraintResult(
+        List.of(
+            new Violation(List.of(Interval.between(Duration.of(1, SECONDS), Duration.of(2, SECONDS))), List.of(1L)),
+            new Violation(List.of(BOUNDS), List.of(3L, 2L))),
+        List.of(Interval.at(Duration.of(50, SECONDS))));
+
+    final var carried = after.carryOver(previous, before);
+    assertEquals(List.of(30L), carried.violations.get(0).activityInstanceIds());
+    assertEquals(List.of(20L, 10L), carried.violations.get(1).activityInstanceIds());
+    assertEquals(previous.violations.get(0).windows(), carried.violations.get(0).windows());
+    assertEquals(previous.gaps, carried.gaps);
+  }
+
+  @Test
+  public void changedPlanStartIsNotReused() {
+    final var before = digests(PLAN_START, activities(1, 2, 3), fruit(4.0));
+    final var after = digests(PLAN_START.plusSeconds(1), activities(1, 2, 3), fruit(4.0));
+
+    // Whatever else a constraint reads, its result may depend on when the plan starts.
+    assertFalse(after.of(EACH_BITE).matches(before.of(EACH_BITE)));
+    assertFalse(after.of(FRUIT).matches(before.of(FRUIT)));
+  }
+
+  @Test
+  public void changedActivitiesAreNotReused() {
+    final var before = digests(PLAN_START, activities(1, 2, 3), fruit(4.0));
+
+    final var moved = activities(1, 2, 3);
+    moved.set(1, activity(2, "Bite", 20, 25, 2));
+    final var reparameterized = activities(1, 2, 3);
+    reparameterized.set(1, activity(2, "Bite", 20, 22, 7));
+    final var added = activities(1, 2, 3);
+    added.add(activity(4, "Bite", 90, 91, 4));
+
+    for (final var revised : List.of(moved, reparameterized, added)) {
+      final var after = digests(PLAN_START, revised, fruit(4.0));
+      assertFalse(after.of(EACH_BITE).matches(before.of(EACH_BITE)));
+      // A constraint that doesn't read activities is unaffected.
+      assertTrue(after.of(FRUIT).matches(before.of(FRUIT)));
+    }
+
+    // Nor is a constraint reading activities of another type.
+    final var otherType = activities(1, 2, 3);
+    otherType.add(activity(4, "Peel", 90, 91, 4));
+    assertTrue(digests(PLAN_START, otherType, fruit(4.0)).of(EACH_BITE).matches(before.of(EACH_BITE)));
+  }
+
+  @Test
+  public void changedProfilesAreNotReused() {
+    final var before = digests(PLAN_START, activities(1, 2, 3), fruit(4.0));
+    final var after = digests(PLAN_START, activities(1, 2, 3), fruit(4.5));
+
+    assertFalse(after.of(FRUIT).matches(before.of(FRUIT)));
+    assertTrue(after.of(EACH_BITE).matches(before.of(EACH_BITE)));
+  }
+
+  private static ConstraintInputDigests digests(
+      final Instant planStart,
+      final List<ActivityInstance> activities,
+      final LinearProfile fruit)
+  {
+    return new ConstraintInputDigests(
+        new SimulationResults(planStart, BOUNDS, activities, Map.of("fruit", fruit), Map.<String, DiscreteProfile>of()),
+        new EvaluationEnvironment());
+  }
+
+  private static ArrayList<ActivityInstance> activities(final long firstId, final long secondId, final long thirdId) {
+    return new ArrayList<>(List.of(
+        activity(firstId, "Bite", 1, 2, 1),
+        activity(secondId, "Bite", 20, 22, 2),
+        activity(thirdId, "Bite", 60, 70, 3)));
+  }
+
+  private static ActivityInstance activity(final long id, final String type, final long start, final long end, final long size) {
+    return new ActivityInstance(
+        id,
+        type,
+        Map.of("size", SerializedValue.of(size)),
+        Interval.between(Duration.of(start, SECONDS), Duration.of(end, SECONDS)));
+  }
+
+  private static LinearProfile fruit(final double initialValue) {
+    return new LinearProfile(
+        Segment.of(BOUNDS, new LinearEquation(Duration.ZERO, initialValue, -0.01)));
+  }
+}
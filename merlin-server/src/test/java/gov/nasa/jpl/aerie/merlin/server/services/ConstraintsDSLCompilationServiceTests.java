@@ -60,8 +60,15 @@ import org.junit.jupiter.api.TestInstance;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static gov.nasa.jpl.aerie.constraints.tree.RollingThreshold.RollingThresholdAlgorithm.DeficitHull;
 import static gov.nasa.jpl.aerie.constraints.tree.RollingThreshold.RollingThresholdAlgorithm.DeficitSpans;
@@ -69,6 +76,11 @@ import static gov.nasa.jpl.aerie.constraints.tree.RollingThreshold.RollingThresh
 import static gov.nasa.jpl.aerie.constraints.tree.RollingThreshold.RollingThresholdAlgorithm.ExcessSpans;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -1526,4 +1538,161 @@ class ConstraintsDSLCompilationServiceTests {
         )
     );
   }
+
+  @Test
+  void testConcurrentCompilationsShareThePool() throws Exception {
+    final var started = new AtomicInteger();
+    final var service = new ConstraintsDSLCompilationService(
+        new TypescriptCodeGenerationServiceAdapter(new StubMissionModelService(), new StubPlanService()),
+        3,
+        ConstraintsDSLCompilationService.DEFAULT_CACHE_SIZE,
+        () -> {
+          started.incrementAndGet();
+          return ConstraintsDSLCompilationService.startNodeProcess();
+        });
+
+    final var executor = Executors.newFixedThreadPool(8);
+    try {
+      final var compilations = new ArrayList<Callable<ConstraintsDSLCompilationService.ConstraintsDSLCompilationResult>>();
+      for (var i = 0; i < 12; i += 1) {
+        final var threshold = i;
+        compilations.add(() -> service.compileConstraintsDSL(
+            MISSION_MODEL_ID,
+            Optional.of(PLAN_ID),
+            Optional.empty(),
+            """
+              export default() => {
+                return Real.Resource("state of charge").lessThan(Real.Value(%d))
+              }
+            """.formatted(threshold)));
+      }
+
+      final var results = executor.invokeAll(compilations);
+      for (var i = 0; i < results.size(); i += 1) {
+        assertEquals(
+            new ConstraintsDSLCompilationService.ConstraintsDSLCompilationResult.Success(
+                new ViolationsOfWindows(new LessThan(new RealResource("state of charge"), new RealValue((double) i)))),
+            results.get(i).get());
+      }
+      assertEquals(3, started.get());
+    } finally {
+      executor.shutdown();
+      service.close();
+    }
+  }
+
+  @Test
+  void testCompiledConstraintsAreReused() throws Exception {
+    final var compiler = new FakeCompiler();
+    final var service = compiler.service(1);
+    try {
+      final var first = compiler.compile(service, "ok");
+      assertSame(first, compiler.compile(service, "ok"));
+
+      // A cached result doesn't need a compiler at all.
+      compiler.failToStart = true;
+      compiler.latest().destroyForcibly().waitFor();
+      assertSame(first, compiler.compile(service, "ok"));
+      assertEquals(1, compiler.started.size());
+    } finally {
+      service.close();
+    }
+  }
+
+  @Test
+  void testBrokenCompilersAreReplaced() throws Exception {
+    final var compiler = new FakeCompiler();
+    final var service = compiler.service(1);
+    try {
+      compiler.compile(service, "ok");
+
+      // Whether the compiler exits, panics, or answers with nonsense, the request fails, and the next one gets a new compiler.
+      for (final var failure : List.of("crash", "panic", "garble")) {
+        final var broken = compiler.latest();
+        assertThrows(Error.class, () -> compiler.compile(service, failure));
+        assertTrue(broken.waitFor(10, TimeUnit.SECONDS));
+
+        assertInstanceOf(
+            ConstraintsDSLCompilationService.ConstraintsDSLCompilationResult.Error.class,
+            compiler.compile(service, "ok after " + failure));
+        assertNotSame(broken, compiler.latest());
+      }
+      assertEquals(4, compiler.started.size());
+    } finally {
+      service.close();
+    }
+  }
+
+  @Test
+  void testFailedRestartsDoNotShrinkThePool() throws Exception {
+    final var compiler = new FakeCompiler();
+    final var service = compiler.service(1);
+    try {
+      compiler.compile(service, "ok");
+
+      compiler.failToStart = true;
+      assertThrows(Error.class, () -> compiler.compile(service, "crash"));
+      assertThrows(Error.class, () -> compiler.compile(service, "ok again"));
+
+      // The only slot in the pool must still be available, and start a compiler as soon as it can.
+      compiler.failToStart = false;
+      assertInstanceOf(
+          ConstraintsDSLCompilationService.ConstraintsDSLCompilationResult.Error.class,
+          compiler.compile(service, "ok again"));
+    } finally {
+      service.close();
+    }
+  }
+
+  /**
+   * Stands in for the constraints DSL compiler, following the same protocol.
+   * It answers every constraint with an empty list of errors, except for a few that make it misbehave.
+   */
+  private static final class FakeCompiler {
+    private static final String SCRIPT = """
+        const lines = require('readline').createInterface({ input: process.stdin });
+        lines.on('line', line => {
+          if (line === 'ping') return process.stdout.write('pong\\n');
+          const code = JSON.parse(line).constraintCode;
+          if (code === 'crash') process.exit(1);
+          else if (code === 'panic') process.stdout.write('panic\\nsomething went wrong\\n');
+          else if (code === 'garble') process.stdout.write('success\\n{\\n');
+          else process.stdout.write('error\\n[]\\n');
+        });
+        """;
+
+    private final List<Process> started = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean failToStart = false;
+
+    ConstraintsDSLCompilationService service(final int poolSize) throws IOException {
+      return new ConstraintsDSLCompilationService(
+          new TypescriptCodeGenerationServiceAdapter(new StubMissionModelService(), new StubPlanService()),
+          poolSize,
+          ConstraintsDSLCompilationService.DEFAULT_CACHE_SIZE,
+          this::start);
+    }
+
+    ConstraintsDSLCompilationService.ConstraintsDSLCompilationResult compile(
+        final ConstraintsDSLCompilationService service,
+        final String constraint
+    ) throws Exception
+    {
+      return service.compileConstraintsDSL(MISSION_MODEL_ID, Optional.of(PLAN_ID), Optional.empty(), constraint);
+    }
+
+    Process latest() {
+      return this.started.get(this.started.size() - 1);
+    }
+
+    private Process start() throws IOException {
+      if (this.failToStart) throw new IOException("Could not start the fake compiler");
+
+      final var process = new ProcessBuilder(System.getenv("NODE_PATH"), "-e", SCRIPT)
+          .redirectError(ProcessBuilder.Redirect.INHERIT)
+          .start();
+      this.started.add(process);
+      return process;
+    }
+  }
 }
+
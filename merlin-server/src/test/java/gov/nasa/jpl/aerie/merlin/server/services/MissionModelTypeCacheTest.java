@@ -0,0 +1,252 @@
+package gov.nasa.jpl.aerie.merlin.server.services;
+
+import gov.nasa.jpl.aerie.merlin.driver.engine.SimulationEngine;
+import gov.nasa.jpl.aerie.merlin.protocol.driver.Initializer;
+import gov.nasa.jpl.aerie.merlin.protocol.model.DirectiveType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.InputType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.ModelType;
+import gov.nasa.jpl.aerie.merlin.protocol.model.Resource;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Unit;
+import gov.nasa.jpl.aerie.merlin.protocol.types.ValueSchema;
+import gov.nasa.jpl.aerie.merlin.server.models.ActivityDirectiveForValidation;
+import gov.nasa.jpl.aerie.merlin.server.models.ActivityType;
+import gov.nasa.jpl.aerie.merlin.server.models.Constraint;
+import gov.nasa.jpl.aerie.merlin.server.models.MissionModelId;
+import gov.nasa.jpl.aerie.merlin.server.models.MissionModelJar;
+import gov.nasa.jpl.aerie.merlin.server.remotes.MissionModelRepository;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public final class MissionModelTypeCacheTest {
+  @Test
+  public void loadedTypesAreReused() throws Exception {
+    final var loader = new CountingLoader();
+    final var cache = new MissionModelTypeCache(2, loader);
+    final var jar = jar("a");
+
+    final var first = cache.get("a", jar, "a", "1");
+    assertSame(first, cache.get("a", jar, "a", "1"));
+    assertEquals(1, loader.loads);
+  }
+
+  @Test
+  public void leastRecentlyUsedTypeIsEvicted() throws Exception {
+    final var loader = new CountingLoader();
+    final var cache = new MissionModelTypeCache(2, loader);
+    final var a = jar("a");
+    final var b = jar("b");
+    final var c = jar("c");
+
+    final var loadedA = cache.get("a", a, "a", "1");
+    final var loadedB = cache.get("b", b, "b", "1");
+    // Using `a` again makes `b` the least recently used, so loading `c` evicts `b`.
+    cache.get("a", a, "a", "1");
+    cache.get("c", c, "c", "1");
+    assertEquals(3, loader.loads);
+
+    assertSame(loadedA, cache.get("a", a, "a", "1"));
+    assertEquals(3, loader.loads);
+    assertNotSame(loadedB, cache.get("b", b, "b", "1"));
+    assertEquals(4, loader.loads);
+  }
+
+  @Test
+  public void changedJarsAreReloaded() throws Exception {
+    final var loader = new CountingLoader();
+    final var cache = new MissionModelTypeCache(2, loader);
+    final var jar = jar("a");
+
+    final var original = cache.get("a", jar, "a", "1");
+
+    // A new size.
+    Files.writeString(jar, "a, revised");
+    final var resized = cache.get("a", jar, "a", "1");
+    assertNotSame(original, resized);
+    assertEquals(2, loader.loads);
+
+    // The same size, but a new modification time.
+    Files.writeString(jar, "b, revised");
+    Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 60_000));
+    final var touched = cache.get("a", jar, "a", "1");
+    assertNotSame(resized, touched);
+    assertEquals(3, loader.loads);
+
+    // A JAR at another path, even with the same contents.
+    final var moved = Files.copy(jar, jar.resolveSibling("moved.jar"));
+    Files.setLastModifiedTime(moved, Files.getLastModifiedTime(jar));
+    assertNotSame(touched, cache.get("a", moved, "a", "1"));
+    assertEquals(4, loader.loads);
+  }
+
+  @Test
+  public void zeroCapacityLoadsEveryTime() throws Exception {
+    final var loader = new CountingLoader();
+    final var cache = new MissionModelTypeCache(0, loader);
+    final var jar = jar("a");
+
+    // Each load gets classes, and so static fields, of its own.
+    assertNotSame(cache.get("a", jar, "a", "1"), cache.get("a", jar, "a", "1"));
+    assertEquals(2, loader.loads);
+  }
+
+  @Test
+  public void refreshingModelParametersReloadsTheModel() throws Exception {
+    final var loader = new CountingLoader();
+    final var jar = jar("a");
+    final var repository = new FakeMissionModelRepository(jar);
+    final var service = new LocalMissionModelService(
+        jar.getParent(),
+        repository,
+        Instant.EPOCH,
+        new MissionModelTypeCache(2, loader),
+        SimulationEngine.BatchMode.Sequential,
+        SimulationCheckpointCache.disabled());
+
+    service.getModelParameters("a");
+    service.getModelParameters("a");
+    assertEquals(1, loader.loads);
+
+    // The JAR may have been replaced in place, without its size or modification time changing.
+    service.refreshModelParameters("a");
+    assertEquals(2, loader.loads);
+    assertEquals(List.of(PARAMETER), repository.updatedParameters);
+
+    service.getModelParameters("a");
+    assertEquals(2, loader.loads);
+  }
+
+  private static Path jar(final String contents) throws IOException {
+    final var directory = Files.createTempDirectory("mission-model-type-cache");
+    directory.toFile().deleteOnExit();
+    final var jar = Files.writeString(directory.resolve(contents + ".jar"), contents);
+    jar.toFile().deleteOnExit();
+    return jar;
+  }
+
+  private static final InputType.Parameter PARAMETER = new InputType.Parameter("initialValue", ValueSchema.INT);
+
+  /** Stands in for the mission model loader, giving a new model type (as a new class loader would) each time. */
+  private static final class CountingLoader implements MissionModelTypeCache.Loader {
+    private int loads = 0;
+
+    @Override
+    public synchronized ModelType<?, ?> load(final Path path, final String name, final String version) {
+      this.loads += 1;
+      return new ModelType<Unit, Unit>() {
+        @Override
+        public Map<String, ? extends DirectiveType<Unit, ?, ?>> getDirectiveTypes() {
+          return Map.of();
+        }
+
+        @Override
+        public InputType<Unit> getConfigurationType() {
+          return new InputType<>() {
+            @Override
+            public List<Parameter> getParameters() {
+              return List.of(PARAMETER);
+            }
+
+            @Override
+            public List<String> getRequiredParameters() {
+              return List.of();
+            }
+
+            @Override
+            public Unit instantiate(final Map<String, SerializedValue> arguments) {
+              return Unit.UNIT;
+            }
+
+            @Override
+            public Map<String, SerializedValue> getArguments(final Unit value) {
+              return Map.of();
+            }
+
+            @Override
+            public List<ValidationNotice> getValidationFailures(final Unit value) {
+              return List.of();
+            }
+          };
+        }
+
+        @Override
+        public Unit instantiate(final Instant planStart, final Unit configuration, final Initializer builder) {
+          return Unit.UNIT;
+        }
+      };
+    }
+  }
+
+  private static final class FakeMissionModelRepository implements MissionModelRepository {
+    private final Path jar;
+    private final List<InputType.Parameter> updatedParameters = new ArrayList<>();
+
+    FakeMissionModelRepository(final Path jar) {
+      this.jar = jar;
+    }
+
+    @Override
+    public Map<String, MissionModelJar> getAllMissionModels() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public MissionModelJar getMissionModel(final String id) {
+      final var missionModelJar = new MissionModelJar();
+      missionModelJar.name = id;
+      missionModelJar.version = "1";
+      missionModelJar.path = this.jar.getFileName();
+      return missionModelJar;
+    }
+
+    @Override
+    public Map<Long, Constraint> getConstraints(final String missionModelId) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<String, ActivityType> getActivityTypes(final String missionModelId) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void updateModelParameters(final String missionModelId, final List<InputType.Parameter> modelParameters) {
+      this.updatedParameters.addAll(modelParameters);
+    }
+
+    @Override
+    public void updateActivityTypes(final String missionModelId, final Map<String, ActivityType> activityTypes) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void updateResourceTypes(final String missionModelId, final Map<String, Resource<?>> resourceTypes) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<MissionModelId, List<ActivityDirectiveForValidation>> getUnvalidatedDirectives() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void updateDirectiveValidations(
+        final List<Pair<ActivityDirectiveForValidation, MissionModelService.BulkArgumentValidationResponse>> updates)
+    {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -2,10 +2,9 @@ package gov.nasa.jpl.aerie.merlin.worker;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
-import gov.nasa.jpl.aerie.merlin.server.ResultsProtocol;
+import gov.nasa.jpl.aerie.merlin.driver.engine.SimulationEngine;
 import gov.nasa.jpl.aerie.merlin.server.config.PostgresStore;
 import gov.nasa.jpl.aerie.merlin.server.config.Store;
-import gov.nasa.jpl.aerie.merlin.server.models.DatasetId;
 import gov.nasa.jpl.aerie.merlin.server.models.PlanId;
 import gov.nasa.jpl.aerie.merlin.server.remotes.postgres.PostgresMissionModelRepository;
 import gov.nasa.jpl.aerie.merlin.server.remotes.postgres.PostgresPlanRepository;
@@ -13,6 +12,7 @@ import gov.nasa.jpl.aerie.merlin.server.remotes.postgres.PostgresPlanRevisionDat
 import gov.nasa.jpl.aerie.merlin.server.remotes.postgres.PostgresResultsCellRepository;
 import gov.nasa.jpl.aerie.merlin.server.services.LocalMissionModelService;
 import gov.nasa.jpl.aerie.merlin.server.services.LocalPlanService;
+import gov.nasa.jpl.aerie.merlin.server.services.SimulationCheckpointCache;
 import gov.nasa.jpl.aerie.merlin.server.services.SynchronousSimulationAgent;
 import gov.nasa.jpl.aerie.merlin.server.services.UnexpectedSubtypeError;
 import gov.nasa.jpl.aerie.merlin.worker.postgres.PostgresSimulationNotificationPayload;
@@ -20,7 +20,8 @@ import io.javalin.Javalin;
 
 import java.nio.file.Path;
 import java.time.Instant;
-import java.util.Optional;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -32,18 +33,7 @@ public final class MerlinWorkerAppDriver {
     if (!(store instanceof final PostgresStore postgresStore)) {
       throw new UnexpectedSubtypeError(Store.class, store);
     }
-    final var hikariConfig = new HikariConfig();
-    hikariConfig.setDataSourceClassName("org.postgresql.ds.PGSimpleDataSource");
-    hikariConfig.addDataSourceProperty("serverName", postgresStore.server());
-    hikariConfig.addDataSourceProperty("portNumber", postgresStore.port());
-    hikariConfig.addDataSourceProperty("databaseName", postgresStore.database());
-    hikariConfig.addDataSourceProperty("applicationName", "Merlin Server");
-    hikariConfig.setUsername(postgresStore.user());
-    hikariConfig.setPassword(postgresStore.password());
-    hikariConfig.setMaximumPoolSize(2);
-
-    hikariConfig.setConnectionInitSql("set time zone 'UTC'");
-
+    final var hikariConfig = hikariConfig(postgresStore, configuration.simulationSlots());
     final var hikariDataSource = new HikariDataSource(hikariConfig);
 
     final var stores = new Stores(
@@ -54,7 +44,17 @@ public final class MerlinWorkerAppDriver {
     final var missionModelController = new LocalMissionModelService(
         configuration.merlinFileStore(),
         stores.missionModels(),
-        configuration.untruePlanStart()
+        configuration.untruePlanStart(),
+        configuration.missionModelCacheSize(),
+        configuration.simulationBatchMode(),
+        // A checkpoint can only be resumed with the model type it was taken with, which an uncached model never is.
+        (configuration.simulationCheckpointFractions().isEmpty() || configuration.missionModelCacheSize() == 0)
+            ? SimulationCheckpointCache.disabled()
+            // Keep checkpoints for as many plans as can be simulated at once.
+            : new SimulationCheckpointCache(
+                configuration.simulationCheckpointFractions(),
+                configuration.simulationSlots(),
+                configuration.simulationCheckpointMaximumThreads())
     );
     final var planController = new LocalPlanService(stores.plans());
     final var simulationAgent = new SynchronousSimulationAgent(
@@ -64,52 +64,52 @@ public final class MerlinWorkerAppDriver {
 
     final var notificationQueue = new LinkedBlockingQueue<PostgresSimulationNotificationPayload>();
     final var listenAction = new ListenSimulationCapability(hikariDataSource, notificationQueue);
-    final var canceledListener = new SimulationCanceledListener();
-    final var listenThread = listenAction.registerListener(canceledListener);
+
+    final var slots = new SimulationSlots(
+        configuration.simulationSlots(),
+        notification -> stores.results().claim(new PlanId(notification.planId()), notification.datasetId()),
+        (notification, writer, canceledListener) -> simulationAgent.simulate(
+            new PlanId(notification.planId()),
+            new PostgresPlanRevisionData(
+                notification.modelRevision(),
+                notification.planRevision(),
+                notification.simulationRevision(),
+                notification.simulationTemplateRevision()),
+            writer,
+            canceledListener));
+    final var listenThread = listenAction.registerListener(slots.canceledListeners());
 
     try (final var app = Javalin.create().start(8080)) {
       app.get("/health", ctx -> ctx.status(200));
 
       while (listenThread.isAlive()) {
-        final var notification = notificationQueue.poll(1, TimeUnit.MINUTES);
-        if(notification == null) continue;
-        final var planId = new PlanId(notification.planId());
-        final var datasetId = notification.datasetId();
-
-        // Register as early as possible to avoid potentially missing a canceled signal
-        canceledListener.register(new DatasetId(datasetId));
-
-        final Optional<ResultsProtocol.OwnerRole> owner = stores.results().claim(planId, datasetId);
-        if (owner.isEmpty()) {
-          canceledListener.unregister();
-          continue;
-        }
-
-        final var revisionData = new PostgresPlanRevisionData(
-            notification.modelRevision(),
-            notification.planRevision(),
-            notification.simulationRevision(),
-            notification.simulationTemplateRevision());
-        final ResultsProtocol.WriterRole writer = owner.get();
-        try {
-          simulationAgent.simulate(planId, revisionData, writer, canceledListener);
-        } catch (final Throwable ex) {
-          ex.printStackTrace(System.err);
-          writer.failWith(b -> b
-              .type("UNEXPECTED_SIMULATION_EXCEPTION")
-              .message("Something went wrong while simulating")
-              .trace(ex));
-        }
-        finally {
-          canceledListener.unregister();
-        }
+        slots.dispatch(notificationQueue, 1, TimeUnit.MINUTES);
       }
     } finally {
       // Kill the listening thread
       listenThread.interrupt();
+      slots.close();
     }
   }
 
+  /* package-local */
+  static HikariConfig hikariConfig(final PostgresStore postgresStore, final int simulationSlots) {
+    final var hikariConfig = new HikariConfig();
+    hikariConfig.setDataSourceClassName("org.postgresql.ds.PGSimpleDataSource");
+    hikariConfig.addDataSourceProperty("serverName", postgresStore.server());
+    hikariConfig.addDataSourceProperty("portNumber", postgresStore.port());
+    hikariConfig.addDataSourceProperty("databaseName", postgresStore.database());
+    hikariConfig.addDataSourceProperty("applicationName", "Merlin Server");
+    hikariConfig.setUsername(postgresStore.user());
+    hikariConfig.setPassword(postgresStore.password());
+    // One connection is held by the notification listener; each simulation slot needs one more.
+    hikariConfig.setMaximumPoolSize(simulationSlots + 1);
+
+    hikariConfig.setConnectionInitSql("set time zone 'UTC'");
+
+    return hikariConfig;
+  }
+
   private static String getEnv(final String key, final String fallback){
     final var env = System.getenv(key);
     return env == null ? fallback : env;
@@ -124,7 +124,23 @@ public final class MerlinWorkerAppDriver {
                           getEnv("MERLIN_WORKER_DB_PASSWORD", ""),
                           getEnv("MERLIN_WORKER_DB", "aerie_merlin")),
         Integer.parseInt(getEnv("SIMULATION_PROGRESS_POLL_PERIOD_MILLIS", "5000")),
-        Instant.parse(getEnv("UNTRUE_PLAN_START", ""))
+        Instant.parse(getEnv("UNTRUE_PLAN_START", "")),
+        Integer.parseInt(getEnv("MISSION_MODEL_CACHE_SIZE", "8")),
+        Integer.parseInt(getEnv("MERLIN_WORKER_SIMULATION_SLOTS", "1")),
+        Boolean.parseBoolean(getEnv("MERLIN_WORKER_PARALLEL_SIMULATION_BATCHES", "false"))
+            ? SimulationEngine.BatchMode.Parallel
+            : SimulationEngine.BatchMode.Sequential,
+        parseFractions(getEnv("MERLIN_WORKER_SIMULATION_CHECKPOINTS", "")),
+        Integer.parseInt(getEnv("MERLIN_WORKER_SIMULATION_CHECKPOINT_MAX_THREADS", "256"))
     );
   }
+
+  private static List<Double> parseFractions(final String list) {
+    return Arrays
+        .stream(list.split(","))
+        .map(String::strip)
+        .filter($ -> !$.isEmpty())
+        .map(Double::parseDouble)
+        .toList();
+  }
 }
@@ -0,0 +1,116 @@
+package gov.nasa.jpl.aerie.merlin.worker;
+
+import gov.nasa.jpl.aerie.merlin.server.ResultsProtocol;
+import gov.nasa.jpl.aerie.merlin.server.models.DatasetId;
+import gov.nasa.jpl.aerie.merlin.worker.postgres.PostgresSimulationNotificationPayload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A fixed number of slots, each of which runs one simulation at a time
+ * and listens for cancellation of whichever simulation it is running.
+ */
+public final class SimulationSlots implements AutoCloseable {
+  /** Claims the simulation requested by a notification, unless another worker already has. */
+  public interface Claimant {
+    Optional<? extends ResultsProtocol.WriterRole> claim(PostgresSimulationNotificationPayload notification);
+  }
+
+  public interface Simulator {
+    void simulate(
+        PostgresSimulationNotificationPayload notification,
+        ResultsProtocol.WriterRole writer,
+        Supplier<Boolean> canceledListener);
+  }
+
+  private final Claimant claimant;
+  private final Simulator simulator;
+  private final List<SimulationCanceledListener> canceledListeners;
+  private final BlockingQueue<SimulationCanceledListener> idleSlots;
+  private final ExecutorService executor;
+
+  public SimulationSlots(final int count, final Claimant claimant, final Simulator simulator) {
+    if (count < 1) throw new IllegalArgumentException("count must be positive, but was " + count);
+
+    this.claimant = claimant;
+    this.simulator = simulator;
+
+    final var canceledListeners = new ArrayList<SimulationCanceledListener>(count);
+    for (var i = 0; i < count; i += 1) canceledListeners.add(new SimulationCanceledListener());
+    this.canceledListeners = List.copyOf(canceledListeners);
+    this.idleSlots = new ArrayBlockingQueue<>(count, false, canceledListeners);
+    this.executor = Executors.newFixedThreadPool(count);
+  }
+
+  /** The cancellation listeners of every slot, each of which ignores signals for simulations it isn't running. */
+  public List<SimulationCanceledListener> canceledListeners() {
+    return this.canceledListeners;
+  }
+
+  /**
+   * Wait for an idle slot, then for a notification, and start running the notified simulation in that slot
+   * if this worker claims it.
+   *
+   * <p>
+   * Only taking a notification once a slot is free leaves queued plans to be claimed by less busy workers.
+   * Each wait lasts at most the given timeout.
+   * </p>
+   *
+   * @return Whether a simulation was started.
+   */
+  public boolean dispatch(
+      final BlockingQueue<PostgresSimulationNotificationPayload> notifications,
+      final long timeout,
+      final TimeUnit unit
+  ) throws InterruptedException {
+    final var canceledListener = this.idleSlots.poll(timeout, unit);
+    if (canceledListener == null) return false;
+
+    final var notification = notifications.poll(timeout, unit);
+    if (notification == null) {
+      this.idleSlots.put(canceledListener);
+      return false;
+    }
+
+    // Register as early as possible to avoid potentially missing a canceled signal
+    canceledListener.register(new DatasetId(notification.datasetId()));
+
+    final Optional<? extends ResultsProtocol.WriterRole> owner = this.claimant.claim(notification);
+    if (owner.isEmpty()) {
+      canceledListener.unregister();
+      this.idleSlots.put(canceledListener);
+      return false;
+    }
+
+    final ResultsProtocol.WriterRole writer = owner.get();
+    this.executor.execute(() -> {
+      try {
+        this.simulator.simulate(notification, writer, canceledListener);
+      } catch (final Throwable ex) {
+        ex.printStackTrace(System.err);
+        writer.failWith(b -> b
+            .type("UNEXPECTED_SIMULATION_EXCEPTION")
+            .message("Something went wrong while simulating")
+            .trace(ex));
+      } finally {
+        canceledListener.unregister();
+        this.idleSlots.add(canceledListener);
+      }
+    });
+    return true;
+  }
+
+  /** Let any simulations in progress finish, but don't start any more. */
+  @Override
+  public void close() {
+    this.executor.shutdown();
+  }
+}
@@ -1,20 +1,38 @@
 package gov.nasa.jpl.aerie.merlin.worker;
 
+import gov.nasa.jpl.aerie.merlin.driver.engine.SimulationEngine;
 import gov.nasa.jpl.aerie.merlin.server.config.Store;
 
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.List;
 import java.util.Objects;
 
 public record WorkerAppConfiguration(
     Path merlinFileStore,
     Store store,
     long simulationProgressPollPeriodMillis,
-    Instant untruePlanStart
+    Instant untruePlanStart,
+    int missionModelCacheSize,
+    int simulationSlots,
+    SimulationEngine.BatchMode simulationBatchMode,
+    List<Double> simulationCheckpointFractions,
+    int simulationCheckpointMaximumThreads
 ) {
   public WorkerAppConfiguration {
+    if (simulationSlots < 1) throw new IllegalArgumentException("simulationSlots must be positive, but was " + simulationSlots);
     Objects.requireNonNull(merlinFileStore);
     Objects.requireNonNull(store);
     Objects.requireNonNull(untruePlanStart);
+    Objects.requireNonNull(simulationBatchMode);
+    if (simulationCheckpointMaximumThreads < 0) {
+      throw new IllegalArgumentException(
+          "simulationCheckpointMaximumThreads must be non-negative, but was " + simulationCheckpointMaximumThreads);
+    }
+    for (final var fraction : simulationCheckpointFractions) {
+      if (!(0 < fraction && fraction < 1)) {
+        throw new IllegalArgumentException("simulation checkpoints must be between 0 and 1, but got " + fraction);
+      }
+    }
   }
 }
@@ -0,0 +1,179 @@
+package gov.nasa.jpl.aerie.merlin.worker;
+
+import gov.nasa.jpl.aerie.merlin.driver.SimulationFailure;
+import gov.nasa.jpl.aerie.merlin.driver.SimulationResults;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.server.ResultsProtocol;
+import gov.nasa.jpl.aerie.merlin.server.config.PostgresStore;
+import gov.nasa.jpl.aerie.merlin.server.models.DatasetId;
+import gov.nasa.jpl.aerie.merlin.worker.postgres.PostgresSimulationNotificationPayload;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class SimulationSlotsTest {
+  @Test
+  public void simulationsRunInParallelAndAreCanceledSeparately() throws InterruptedException {
+    final var simulator = new BlockingSimulator(2);
+    final var writers = new ConcurrentHashMap<Long, FakeWriter>();
+    final var notifications = new LinkedBlockingQueue<PostgresSimulationNotificationPayload>();
+
+    try (final var slots = new SimulationSlots(2, claimingAll(writers), simulator)) {
+      notifications.add(notification(1));
+      notifications.add(notification(2));
+      assertTrue(slots.dispatch(notifications, 1, TimeUnit.SECONDS));
+      assertTrue(slots.dispatch(notifications, 1, TimeUnit.SECONDS));
+
+      // Neither simulation finishes until both have started.
+      assertTrue(simulator.started.await(10, TimeUnit.SECONDS));
+
+      // Cancellation signals go to every slot, as the notification listener sends them.
+      slots.canceledListeners().forEach($ -> $.receiveSignal(new DatasetId(1)));
+      assertTrue(simulator.canceled.get(1L).get());
+      assertFalse(simulator.canceled.get(2L).get());
+
+      simulator.release.countDown();
+      assertTrue(simulator.finished.await(10, TimeUnit.SECONDS));
+      assertEquals(Map.of(1L, true, 2L, false), simulator.sawCancellation);
+    }
+  }
+
+  @Test
+  public void busySlotsLeaveNotificationsQueued() throws InterruptedException {
+    final var simulator = new BlockingSimulator(1);
+    final var notifications = new LinkedBlockingQueue<PostgresSimulationNotificationPayload>();
+
+    try (final var slots = new SimulationSlots(1, claimingAll(new ConcurrentHashMap<>()), simulator)) {
+      notifications.add(notification(1));
+      notifications.add(notification(2));
+      assertTrue(slots.dispatch(notifications, 1, TimeUnit.SECONDS));
+      assertTrue(simulator.started.await(10, TimeUnit.SECONDS));
+
+      // The only slot is busy, so the second notification is left for another worker to claim.
+      assertFalse(slots.dispatch(notifications, 10, TimeUnit.MILLISECONDS));
+      assertEquals(1, notifications.size());
+
+      simulator.release.countDown();
+      assertTrue(simulator.finished.await(10, TimeUnit.SECONDS));
+      assertTrue(slots.dispatch(notifications, 1, TimeUnit.SECONDS));
+      assertTrue(notifications.isEmpty());
+    }
+  }
+
+  @Test
+  public void unclaimedAndFailedSimulationsFreeTheirSlot() throws InterruptedException {
+    final var writers = new ConcurrentHashMap<Long, FakeWriter>();
+    final var ran = new LinkedBlockingQueue<Long>();
+    final var notifications = new LinkedBlockingQueue<PostgresSimulationNotificationPayload>();
+
+    final SimulationSlots.Claimant claimant = notification -> (notification.datasetId() == 1)
+        ? Optional.empty()
+        : claimingAll(writers).claim(notification);
+    final SimulationSlots.Simulator simulator = (notification, writer, canceledListener) -> {
+      ran.add(notification.datasetId());
+      if (notification.datasetId() == 2) throw new RuntimeException("Simulation failed");
+    };
+
+    try (final var slots = new SimulationSlots(1, claimant, simulator)) {
+      // Another worker has claimed the first simulation.
+      notifications.add(notification(1));
+      assertFalse(slots.dispatch(notifications, 1, TimeUnit.SECONDS));
+
+      notifications.add(notification(2));
+      assertTrue(slots.dispatch(notifications, 1, TimeUnit.SECONDS));
+      assertEquals(Long.valueOf(2), ran.poll(10, TimeUnit.SECONDS));
+
+      notifications.add(notification(3));
+      assertTrue(slots.dispatch(notifications, 10, TimeUnit.SECONDS));
+      assertEquals(Long.valueOf(3), ran.poll(10, TimeUnit.SECONDS));
+    }
+
+    assertEquals("UNEXPECTED_SIMULATION_EXCEPTION", writers.get(2L).failure.type());
+    assertNull(writers.get(3L).failure);
+  }
+
+  @Test
+  public void databasePoolHasAConnectionPerSlotAndOneForTheListener() {
+    final var store = new PostgresStore("postgres", "aerie", 5432, "aerie", "aerie_merlin");
+
+    assertEquals(2, MerlinWorkerAppDriver.hikariConfig(store, 1).getMaximumPoolSize());
+    assertEquals(9, MerlinWorkerAppDriver.hikariConfig(store, 8).getMaximumPoolSize());
+  }
+
+  private static PostgresSimulationNotificationPayload notification(final long datasetId) {
+    return new PostgresSimulationNotificationPayload(1, 1, 1, Optional.empty(), 1, datasetId, 1);
+  }
+
+  private static SimulationSlots.Claimant claimingAll(final Map<Long, FakeWriter> writers) {
+    return notification -> {
+      final var writer = new FakeWriter();
+      writers.put(notification.datasetId(), writer);
+      return Optional.of(writer);
+    };
+  }
+
+  /** Holds each simulation until released, recording whether it was canceled by then. */
+  private static final class BlockingSimulator implements SimulationSlots.Simulator {
+    final CountDownLatch started;
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch finished;
+    final Map<Long, Supplier<Boolean>> canceled = new ConcurrentHashMap<>();
+    final Map<Long, Boolean> sawCancellation = new ConcurrentHashMap<>();
+
+    BlockingSimulator(final int simulations) {
+      this.started = new CountDownLatch(simulations);
+      this.finished = new CountDownLatch(simulations);
+    }
+
+    @Override
+    public void simulate(
+        final PostgresSimulationNotificationPayload notification,
+        final ResultsProtocol.WriterRole writer,
+        final Supplier<Boolean> canceledListener)
+    {
+      this.canceled.put(notification.datasetId(), canceledListener);
+      this.started.countDown();
+      try {
+        this.release.await();
+      } catch (final InterruptedException ex) {
+        throw new RuntimeException(ex);
+      }
+      this.sawCancellation.put(notification.datasetId(), canceledListener.get());
+      this.finished.countDown();
+    }
+  }
+
+  private static final class FakeWriter implements ResultsProtocol.WriterRole {
+    volatile SimulationFailure failure = null;
+
+    @Override
+    public boolean isCanceled() {
+      return false;
+    }
+
+    @Override
+    public void succeedWith(final SimulationResults results) {}
+
+    @Override
+    public void failWith(final SimulationFailure reason) {
+      this.failure = reason;
+    }
+
+    @Override
+    public void reportIncompleteResults(final SimulationResults results) {}
+
+    @Override
+    public void reportSimulationExtent(final Duration extent) {}
+  }
+}
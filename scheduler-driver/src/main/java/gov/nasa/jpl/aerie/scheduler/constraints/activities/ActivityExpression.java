@@ -363,10 +363,24 @@ public record ActivityExpression(
       final EvaluationEnvironment environment)
   {
     final var spans = new Spans();
-    results.activities.stream().filter(x -> matches(x, results, environment, false)).forEach(x -> spans.add(x.interval));
+    candidates(results).stream().filter(x -> matches(x, results, environment, false)).forEach(x -> spans.add(x.interval));
     return spans;
   }
 
+  /**
+   * Narrow the activities that could match this expression using the results' activity index.
+   * An activity that starts (or ends) within a range overlaps it, so the index only needs to be asked for overlaps;
+   * {@link #matches} still decides exactly which of the candidates match.
+   */
+  private List<gov.nasa.jpl.aerie.constraints.model.ActivityInstance> candidates(final SimulationResults results) {
+    if (this.type == null) return results.activities;
+
+    final var index = results.activityIndex();
+    if (this.startRange != null) return index.overlapping(this.type.getName(), this.startRange);
+    if (this.endRange != null) return index.overlapping(this.type.getName(), this.endRange);
+    return index.ofType(this.type.getName());
+  }
+
   @Override
   public String prettyPrint(final String prefix) {
     return String.format(
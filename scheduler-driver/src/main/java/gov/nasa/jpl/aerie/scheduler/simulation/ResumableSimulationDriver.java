@@ -2,6 +2,7 @@ package gov.nasa.jpl.aerie.scheduler.simulation;
 
 import gov.nasa.jpl.aerie.merlin.driver.ActivityDirective;
 import gov.nasa.jpl.aerie.merlin.driver.ActivityDirectiveId;
+import gov.nasa.jpl.aerie.merlin.driver.InMemorySimulationResultsSink;
 import gov.nasa.jpl.aerie.merlin.driver.MissionModel;
 import gov.nasa.jpl.aerie.merlin.driver.SerializedActivity;
 import gov.nasa.jpl.aerie.merlin.driver.SimulationResults;
@@ -9,6 +10,7 @@ import gov.nasa.jpl.aerie.merlin.driver.StartOffsetReducer;
 import gov.nasa.jpl.aerie.merlin.driver.engine.JobSchedule;
 import gov.nasa.jpl.aerie.merlin.driver.engine.SimulationEngine;
 import gov.nasa.jpl.aerie.merlin.driver.engine.TaskId;
+import gov.nasa.jpl.aerie.merlin.driver.timeline.FlatEventGraph;
 import gov.nasa.jpl.aerie.merlin.driver.timeline.LiveCells;
 import gov.nasa.jpl.aerie.merlin.driver.timeline.TemporalEventSource;
 import gov.nasa.jpl.aerie.merlin.protocol.driver.Topic;
@@ -24,6 +26,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -33,6 +36,17 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Supplier;
 
+/**
+ * A simulation that can be extended with activities starting after the current simulation time.
+ *
+ * <p>
+ * Inserting an activity that starts at or before the current simulation time restarts the simulation from the beginning,
+ * since the simulation may already have acted on cells the activity could have changed at that time.
+ * To try activities at some time without restarting each time, simulate until just before it, and {@linkplain #fork fork}
+ * the simulation there for each try. A fork recreates its tasks by replaying what they read
+ * (see {@link SimulationEngine#duplicate}), so only what comes after the fork is simulated again.
+ * </p>
+ */
 public class ResumableSimulationDriver<Model> implements AutoCloseable {
   private final Supplier<Boolean> canceledListener;
 
@@ -42,14 +56,17 @@ public class ResumableSimulationDriver<Model> implements AutoCloseable {
   /* The current real time. All the tasks before and at this time have been performed.
  Simulation has not started so it is set to MIN_VALUE. */
   private Duration curTime = Duration.MIN_VALUE;
-  private SimulationEngine engine = new SimulationEngine();
+  private SimulationEngine engine;
   private LiveCells cells;
   private TemporalEventSource timeline = new TemporalEventSource();
+  //results are streamed as the simulation goes, so that getting them only costs as much as what was simulated since
+  private InMemorySimulationResultsSink resultsSink;
+  private SimulationEngine.ResultsStream resultsStream;
   private final MissionModel<Model> missionModel;
   private final Duration planDuration;
   private JobSchedule.Batch<SimulationEngine.JobId> batch;
 
-  private final Topic<ActivityDirectiveId> activityTopic = new Topic<>();
+  private final Topic<ActivityDirectiveId> activityTopic;
 
   //mapping each activity name to its task id (in String form) in the simulation engine
   private final Map<ActivityDirectiveId, TaskId> plannedDirectiveToTask;
@@ -57,6 +74,9 @@ public class ResumableSimulationDriver<Model> implements AutoCloseable {
   //subset of plannedDirectiveToTask to check for scheduling dependent tasks
   private final Map<ActivityDirectiveId, TaskId> toCheckForDependencyScheduling;
 
+  //the directives anchored to each directive, with their offsets, to be scheduled once that directive has finished
+  private final HashMap<ActivityDirectiveId, List<Pair<ActivityDirectiveId, Duration>>> dependentDirectives = new HashMap<>();
+
   //simulation results so far
   private SimulationResults lastSimResults;
   //cached simulation results cover the period [Duration.ZERO, lastSimResultsEnd]
@@ -75,6 +95,7 @@ public class ResumableSimulationDriver<Model> implements AutoCloseable {
       Supplier<Boolean> canceledListener
   ){
     this.missionModel = missionModel;
+    this.activityTopic = new Topic<>();
     plannedDirectiveToTask = new HashMap<>();
     toCheckForDependencyScheduling = new HashMap<>();
     this.planDuration = planDuration;
@@ -83,6 +104,44 @@ public class ResumableSimulationDriver<Model> implements AutoCloseable {
     initSimulation();
   }
 
+  private ResumableSimulationDriver(final ResumableSimulationDriver<Model> other) {
+    this.canceledListener = other.canceledListener;
+    this.missionModel = other.missionModel;
+    this.planDuration = other.planDuration;
+    // The tasks of the fork are those of the original, which announce their directives on the original's topic.
+    this.activityTopic = other.activityTopic;
+    this.plannedDirectiveToTask = new HashMap<>(other.plannedDirectiveToTask);
+    this.toCheckForDependencyScheduling = new HashMap<>(other.toCheckForDependencyScheduling);
+    this.dependentDirectives.putAll(other.dependentDirectives);
+    this.activitiesInserted.putAll(other.activitiesInserted);
+
+    this.curTime = other.curTime;
+    this.batch = other.batch;
+    this.engine = other.engine.duplicate();
+    this.timeline = other.timeline.duplicate();
+    // Cells are brought up to date from their initial states by the copied timeline as they are read.
+    this.cells = new LiveCells(this.timeline, this.missionModel.getInitialCells());
+    this.resultsSink = other.resultsSink.duplicate();
+    this.resultsStream = other.resultsStream.duplicate(this.engine, this.resultsSink);
+    this.lastSimResults = other.lastSimResults;
+    this.lastSimResultsEnd = other.lastSimResultsEnd;
+    this.countSimulationRestarts = 0;
+  }
+
+  /**
+   * Fork this simulation as it stands, so that the fork can go on simulating independently of this one.
+   *
+   * <p>
+   * The fork hasn't restarted, so it counts no restarts of its own. Its tasks are recreated by replaying what they
+   * have read so far, which relies on the mission model's tasks depending only on the cells they read.
+   * </p>
+   *
+   * @return a new simulation at the same time as this one, with the same activities
+   */
+  public ResumableSimulationDriver<Model> fork() {
+    return new ResumableSimulationDriver<>(this);
+  }
+
 
   private void printTimeSpent(){
     final var dur = durationSinceRestart/1_000_000_000.;
@@ -101,15 +160,19 @@ public class ResumableSimulationDriver<Model> implements AutoCloseable {
     durationSinceRestart = 0;
     plannedDirectiveToTask.clear();
     toCheckForDependencyScheduling.clear();
+    dependentDirectives.clear();
     lastSimResults = null;
     lastSimResultsEnd = Duration.ZERO;
     long before = System.nanoTime();
     if (this.engine != null) this.engine.close();
-    this.engine = new SimulationEngine();
+    // Keep what tasks read, so that the simulation can be forked.
+    this.engine = new SimulationEngine(SimulationEngine.BatchMode.Sequential, true);
     batch = null;
     /* The top-level simulation timeline. */
     this.timeline = new TemporalEventSource();
     this.cells = new LiveCells(timeline, missionModel.getInitialCells());
+    this.resultsSink = new InMemorySimulationResultsSink();
+    this.resultsStream = engine.streamResults(activityTopic, missionModel.getTopics(), resultsSink);
     curTime = Duration.MIN_VALUE;
 
     // Begin tracking all resources.
@@ -145,31 +208,49 @@ public class ResumableSimulationDriver<Model> implements AutoCloseable {
     this.engine.close();
   }
 
-  private void simulateUntil(Duration endTime) throws SchedulingInterruptedException{
+  /**
+   * Simulate up to and including the given time, without inserting any activity.
+   *
+   * <p>
+   * Jobs after the given time are left where they are, rather than taken out to be performed next, so activities
+   * starting after the given time can still be inserted in their right place afterward.
+   * </p>
+   * @param endTime the time to simulate until
+   */
+  public void simulateUntil(Duration endTime) throws SchedulingInterruptedException{
     long before = System.nanoTime();
     logger.info("Simulating until "+endTime);
     assert(endTime.noShorterThan(curTime));
       if(batch == null){
-        batch = engine.extractNextJobs(Duration.MAX_VALUE);
+        batch = engine.extractNextJobs(endTime);
       }
       // Increment real time, if necessary.
-      while(!batch.offsetFromStart().longerThan(endTime) && !endTime.isEqualTo(Duration.MAX_VALUE)) {
+      while(!batch.jobs().isEmpty() && !batch.offsetFromStart().longerThan(endTime) && !endTime.isEqualTo(Duration.MAX_VALUE)) {
         if(canceledListener.get()) throw new SchedulingInterruptedException("simulating");
         //by default, curTime is negative to signal we have not started simulation yet. We set it to 0 when we start.
         final var delta = batch.offsetFromStart().minus(curTime.isNegative() ? Duration.ZERO : curTime);
         curTime = batch.offsetFromStart();
         timeline.add(delta);
         // Run the jobs in this batch.
-        final var commit = engine.performJobs(batch.jobs(), cells, curTime, Duration.MAX_VALUE);
-        timeline.add(commit);
+        performJobs();
 
-        batch = engine.extractNextJobs(Duration.MAX_VALUE);
+        scheduleActivities(getSuccessorsToSchedule(engine), activitiesInserted, missionModel, engine);
+
+        batch = engine.extractNextJobs(endTime);
       }
+      // An empty batch holds no jobs taken out of the schedule, so there's nothing to keep for later.
+      if(batch.jobs().isEmpty()) batch = null;
       lastSimResults = null;
       this.durationSinceRestart += (System.nanoTime() - before);
   }
 
 
+  private void performJobs() {
+    final var commit = FlatEventGraph.of(engine.performJobs(batch.jobs(), cells, curTime, Duration.MAX_VALUE));
+    timeline.add(commit);
+    resultsStream.commit(curTime, commit);
+  }
+
   /**
    * Simulate an activity directive.
    * @param activity the serialized type and arguments of the activity directive to be simulated
@@ -218,6 +299,28 @@ public class ResumableSimulationDriver<Model> implements AutoCloseable {
   }
 
 
+  /**
+   * Add activity directives to the simulation without simulating them yet; they are simulated as the simulation goes on.
+   * @param activitiesToAdd the activity directives to add, which must all start after the current simulation time
+   * @throws IllegalArgumentException if an activity starts at or before the current simulation time
+   */
+  public void addActivities(@NotNull Map<ActivityDirectiveId, ActivityDirective> activitiesToAdd) {
+    if(activitiesToAdd.isEmpty()) return;
+
+    final var resolved = new StartOffsetReducer(planDuration, activitiesToAdd).compute();
+    for (final var directive : resolved.get(null)) {
+      if (directive.getRight().noLongerThan(curTime)) {
+        throw new IllegalArgumentException(
+            "Activity %s starts at %s, which is not after the current simulation time %s"
+                .formatted(directive.getLeft(), directive.getRight(), curTime));
+      }
+    }
+
+    activitiesInserted.putAll(activitiesToAdd);
+    scheduleSchedule(activitiesToAdd);
+    lastSimResults = null;
+  }
+
   /**
    * Get the simulation results from the Duration.ZERO to the current simulation time point
    * @param startTimestamp the timestamp for the start of the planning horizon. Used as epoch for computing SimulationResults.
@@ -250,13 +353,7 @@ public class ResumableSimulationDriver<Model> implements AutoCloseable {
     final var before = System.nanoTime();
     if(lastSimResults == null || endTime.longerThan(lastSimResultsEnd) || startTimestamp.compareTo(lastSimResults.startTime) != 0) {
       if(canceledListener.get()) throw new SchedulingInterruptedException("computing simulation results");
-      lastSimResults = SimulationEngine.computeResults(
-          engine,
-          startTimestamp,
-          endTime,
-          activityTopic,
-          timeline,
-          missionModel.getTopics());
+      lastSimResults = resultsSink.resultsSoFar(resultsStream, startTimestamp, endTime);
       lastSimResultsEnd = endTime;
       //while sim results may not be up to date with curTime, a regeneration has taken place after the last insertion
     }
@@ -272,23 +369,7 @@ public class ResumableSimulationDriver<Model> implements AutoCloseable {
       throw new IllegalArgumentException("simulateSchedule() called with empty schedule, use simulateUntil() instead");
     }
 
-    // Get all activities as close as possible to absolute time, then schedule all activities.
-    // Using HashMap explicitly because it allows `null` as a key.
-    // `null` key means that an activity is not waiting on another activity to finish to know its start time
-    HashMap<ActivityDirectiveId, List<Pair<ActivityDirectiveId, Duration>>> resolved = new StartOffsetReducer(
-        planDuration,
-        schedule).compute();
-    // Filter out activities that are before the plan start
-    resolved = StartOffsetReducer.filterOutNegativeStartOffset(resolved);
-    final var toSchedule = new HashSet<ActivityDirectiveId>();
-    toSchedule.add(null);
-    scheduleActivities(
-        toSchedule,
-        schedule,
-        resolved,
-        missionModel,
-        engine
-    );
+    scheduleSchedule(schedule);
 
     var allTaskFinished = false;
 
@@ -308,10 +389,9 @@ public class ResumableSimulationDriver<Model> implements AutoCloseable {
       //   even if they occur at the same real time.
 
       // Run the jobs in this batch.
-      final var commit = engine.performJobs(batch.jobs(), cells, curTime, Duration.MAX_VALUE);
-      timeline.add(commit);
+      performJobs();
 
-      scheduleActivities(getSuccessorsToSchedule(engine), schedule, resolved, missionModel, engine);
+      scheduleActivities(getSuccessorsToSchedule(engine), activitiesInserted, missionModel, engine);
 
       // all tasks are complete : do not exit yet, there might be event triggered at the same time
       if (!plannedDirectiveToTask.isEmpty() && plannedDirectiveToTask
@@ -343,6 +423,34 @@ public class ResumableSimulationDriver<Model> implements AutoCloseable {
     return engine.getTaskDuration(plannedDirectiveToTask.get(activityDirectiveId));
   }
 
+  private void scheduleSchedule(final Map<ActivityDirectiveId, ActivityDirective> schedule) {
+    // Get all activities as close as possible to absolute time, then schedule all activities.
+    // Using HashMap explicitly because it allows `null` as a key.
+    // `null` key means that an activity is not waiting on another activity to finish to know its start time
+    HashMap<ActivityDirectiveId, List<Pair<ActivityDirectiveId, Duration>>> resolved = new StartOffsetReducer(
+        planDuration,
+        schedule).compute();
+    // Filter out activities that are before the plan start
+    resolved = StartOffsetReducer.filterOutNegativeStartOffset(resolved);
+    final var roots = resolved.getOrDefault(null, List.of());
+    resolved.remove(null);
+    // Keep the anchored activities, to schedule them whenever their anchor finishes, even on a later call.
+    for (final var entry : resolved.entrySet()) {
+      dependentDirectives.merge(entry.getKey(), entry.getValue(), (existing, added) -> {
+        final var merged = new ArrayList<>(existing);
+        merged.addAll(added);
+        return merged;
+      });
+    }
+    scheduleActivities(
+        roots,
+        Duration.ZERO,
+        schedule,
+        missionModel,
+        engine
+    );
+  }
+
   private Set<ActivityDirectiveId> getSuccessorsToSchedule(final SimulationEngine engine) {
     final var toSchedule = new HashSet<ActivityDirectiveId>();
     final var iterator = toCheckForDependencyScheduling.entrySet().iterator();
@@ -357,35 +465,40 @@ public class ResumableSimulationDriver<Model> implements AutoCloseable {
   }
 
   private void scheduleActivities(
-      final Set<ActivityDirectiveId> toScheduleNow,
+      final Set<ActivityDirectiveId> finishedPredecessors,
       final Map<ActivityDirectiveId, ActivityDirective> completeSchedule,
-      final HashMap<ActivityDirectiveId, List<Pair<ActivityDirectiveId, Duration>>> resolved,
       final MissionModel<Model> missionModel,
       final SimulationEngine engine){
-    for(final var predecessor: toScheduleNow) {
-      for (final var directivePair : resolved.get(predecessor)) {
-        final var offset = directivePair.getRight();
-        final var directiveIdToSchedule = directivePair.getLeft();
-        final var serializedDirective = completeSchedule.get(directiveIdToSchedule).serializedActivity();
-        final TaskFactory<?> task;
-        try {
-          task = missionModel.getTaskFactory(serializedDirective);
-        } catch (final InstantiationException ex) {
-          // All activity instantiations are assumed to be validated by this point
-          throw new Error("Unexpected state: activity instantiation %s failed with: %s"
-                              .formatted(serializedDirective.getTypeName(), ex.toString()));
-        }
-        Duration computedStartTime = offset;
-        if (predecessor != null) {
-          computedStartTime = (curTime.isEqualTo(Duration.MIN_VALUE) ? Duration.ZERO : curTime).plus(offset);
-        }
-        final var taskId = engine.scheduleTask(
-            computedStartTime,
-            makeTaskFactory(directiveIdToSchedule, task, activityTopic));
-        plannedDirectiveToTask.put(directiveIdToSchedule, taskId);
-        if (resolved.containsKey(directiveIdToSchedule)) {
-          toCheckForDependencyScheduling.put(directiveIdToSchedule, taskId);
-        }
+    final var now = curTime.isEqualTo(Duration.MIN_VALUE) ? Duration.ZERO : curTime;
+    for(final var predecessor: finishedPredecessors) {
+      scheduleActivities(dependentDirectives.getOrDefault(predecessor, List.of()), now, completeSchedule, missionModel, engine);
+    }
+  }
+
+  private void scheduleActivities(
+      final List<Pair<ActivityDirectiveId, Duration>> toScheduleNow,
+      final Duration offsetsFrom,
+      final Map<ActivityDirectiveId, ActivityDirective> completeSchedule,
+      final MissionModel<Model> missionModel,
+      final SimulationEngine engine){
+    for (final var directivePair : toScheduleNow) {
+      final var offset = directivePair.getRight();
+      final var directiveIdToSchedule = directivePair.getLeft();
+      final var serializedDirective = completeSchedule.get(directiveIdToSchedule).serializedActivity();
+      final TaskFactory<?> task;
+      try {
+        task = missionModel.getTaskFactory(serializedDirective);
+      } catch (final InstantiationException ex) {
+        // All activity instantiations are assumed to be validated by this point
+        throw new Error("Unexpected state: activity instantiation %s failed with: %s"
+                            .formatted(serializedDirective.getTypeName(), ex.toString()));
+      }
+      final var taskId = engine.scheduleTask(
+          offsetsFrom.plus(offset),
+          makeTaskFactory(directiveIdToSchedule, task, activityTopic));
+      plannedDirectiveToTask.put(directiveIdToSchedule, taskId);
+      if (dependentDirectives.containsKey(directiveIdToSchedule)) {
+        toCheckForDependencyScheduling.put(directiveIdToSchedule, taskId);
       }
     }
   }
@@ -24,7 +24,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * A facade for simulating plans and processing simulation results.
@@ -51,6 +53,23 @@ public class SimulationFacade implements AutoCloseable{
 
   public SimulationData lastSimulationData;
 
+  // converts each new set of driver results by extending the conversion of the previous set from the same simulation run
+  private final SimulationResultsConverter.Incremental resultsConverter = new SimulationResultsConverter.Incremental();
+  //the number of simulation restarts as of the last conversion, to know when it can no longer be extended
+  private int simulationRestartsConverted = 0;
+
+  //the time before which to keep a snapshot of the simulation, if any, and the snapshot once it has been taken
+  private Optional<Duration> snapshotTime = Optional.empty();
+  private Optional<Snapshot> snapshot = Optional.empty();
+
+  /**
+   * A simulation paused just before some time, with the activities it had been given so far.
+   * @param time the time the simulation was paused just before
+   * @param driver the paused simulation, only ever forked and never simulated any further itself
+   * @param activityIds the ids of the activities given to the simulation
+   */
+  private record Snapshot(Duration time, ResumableSimulationDriver<?> driver, Set<SchedulingActivityDirectiveId> activityIds) {}
+
   /**
    * state boolean stating whether the initial plan has been modified to allow initial simulation results to be used
    */
@@ -128,6 +147,32 @@ public class SimulationFacade implements AutoCloseable{
   @Override
   public void close(){
     driver.close();
+    discardSnapshot();
+  }
+
+  /**
+   * Keep a snapshot of the simulation just before the given time, so that activities can be tried one after the other
+   * at or after that time without simulating everything before it again each time.
+   *
+   * <p>
+   * The snapshot is taken the next time the simulation restarts from the beginning. From then on, removing and inserting
+   * activities at or after the given time resumes a fork of the snapshot instead of restarting, until the snapshot is
+   * {@linkplain #discardSnapshot discarded}, or until a change before that time makes it stale.
+   * </p>
+   * @param time the time before which to keep the snapshot
+   */
+  public void keepSnapshotBefore(final Duration time){
+    if (this.snapshotTime.isPresent() && this.snapshotTime.get().isEqualTo(time)) return;
+    discardSnapshot();
+    this.snapshotTime = Optional.of(time);
+  }
+
+  /**
+   * Stop keeping a snapshot of the simulation, if one was kept.
+   */
+  public void discardSnapshot(){
+    this.snapshotTime = Optional.empty();
+    discardStaleSnapshot();
   }
 
   /**
@@ -206,6 +251,15 @@ public class SimulationFacade implements AutoCloseable{
     return childActivities;
   }
 
+  /**
+   * Remove and insert activities in the simulation.
+   *
+   * The simulation is restarted if any simulated activity is removed, or if an inserted activity starts at or before
+   * the current simulation time; otherwise, the inserted activities are simulated from the current time onward.
+   * A restart resumes a fork of the kept snapshot, if any, when the activities it removes were given to the simulation
+   * after the snapshot was taken and the activities it leaves start at or after the snapshot's time. Otherwise,
+   * it starts over from the beginning.
+   */
   public void removeAndInsertActivitiesFromSimulation(
       final Collection<SchedulingActivityDirective> activitiesToRemove,
       final Collection<SchedulingActivityDirective> activitiesToAdd
@@ -215,10 +269,12 @@ public class SimulationFacade implements AutoCloseable{
     activitiesToRemove.stream().forEach(remove -> logger.debug("Removing act starting at " + remove.startOffset()));
     activitiesToAdd.stream().forEach(adding -> logger.debug("Adding act starting at " + adding.startOffset()));
     var atLeastOneActualRemoval = false;
+    final var removedIds = new ArrayList<SchedulingActivityDirectiveId>();
     for(final var act: activitiesToRemove){
       if(insertedActivities.containsKey(act)){
         atLeastOneActualRemoval = true;
         insertedActivities.remove(act);
+        removedIds.add(act.id());
       }
     }
     var allActivitiesToSimulate = new ArrayList<>(activitiesToAdd);
@@ -232,20 +288,88 @@ public class SimulationFacade implements AutoCloseable{
     if(allActivitiesToSimulate.isEmpty() && !atLeastOneActualRemoval) return;
     //reset resumable simulation
     if(atLeastOneActualRemoval || earliestActStartTime.noLongerThan(this.driver.getCurrentSimulationEndTime())){
-      allActivitiesToSimulate.addAll(insertedActivities.keySet());
-      insertedActivities.clear();
-      planActDirectiveIdToSimulationActivityDirectiveId.clear();
-      logger.info("(Re)creating simulation driver because at least one removal("+atLeastOneActualRemoval+") or insertion in the past ("+earliestActStartTime+")");
-      if (driver != null) {
-        this.pastSimulationRestarts += driver.getCountSimulationRestarts();
-        driver.close();
+      if(canResumeFromSnapshot(removedIds, allActivitiesToSimulate)){
+        final var snapshot = this.snapshot.get();
+        logger.info("Resuming simulation from its snapshot before " + snapshot.time() + " because at least one removal("+atLeastOneActualRemoval+") or insertion in the past ("+earliestActStartTime+")");
+        //the activities given since the snapshot are given again to its fork
+        insertedActivities.keySet().stream().filter(a -> !snapshot.activityIds().contains(a.id())).forEach(allActivitiesToSimulate::add);
+        insertedActivities.keySet().removeIf(a -> !snapshot.activityIds().contains(a.id()));
+        planActDirectiveIdToSimulationActivityDirectiveId.keySet().removeIf(id -> !snapshot.activityIds().contains(id));
+        //resuming from the snapshot still counts as a restart, since everything simulated after it is thrown away
+        replaceDriver(snapshot.driver().fork());
+        this.pastSimulationRestarts += 1;
+      } else {
+        discardStaleSnapshot();
+        allActivitiesToSimulate.addAll(insertedActivities.keySet());
+        insertedActivities.clear();
+        planActDirectiveIdToSimulationActivityDirectiveId.clear();
+        logger.info("(Re)creating simulation driver because at least one removal("+atLeastOneActualRemoval+") or insertion in the past ("+earliestActStartTime+")");
+        replaceDriver(new ResumableSimulationDriver<>(missionModel, planningHorizon.getAerieHorizonDuration(), canceledListener));
+        if(snapshotTime.isPresent()){
+          final var time = snapshotTime.get();
+          //the activities being tried at or after the snapshot's time are left out of it
+          final var tried = allActivitiesToSimulate.stream().filter(a -> activitiesToAdd.contains(a) && startsNoEarlierThan(a, time)).toList();
+          if(!tried.isEmpty()){
+            allActivitiesToSimulate.removeAll(tried);
+            takeSnapshot(time, allActivitiesToSimulate);
+            allActivitiesToSimulate = new ArrayList<>(tried);
+          }
+        }
       }
       logger.info("Number of simulation restarts so far: " + this.pastSimulationRestarts);
-      driver = new ResumableSimulationDriver<>(missionModel, planningHorizon.getAerieHorizonDuration(), canceledListener);
     }
     simulateActivities(allActivitiesToSimulate);
   }
 
+  private static boolean startsNoEarlierThan(final SchedulingActivityDirective activity, final Duration time){
+    return activity.anchorId() == null && activity.startOffset().noShorterThan(time);
+  }
+
+  private boolean canResumeFromSnapshot(
+      final Collection<SchedulingActivityDirectiveId> removedIds,
+      final Collection<SchedulingActivityDirective> activitiesToSimulate
+  ){
+    if(snapshot.isEmpty()) return false;
+    final var snapshot = this.snapshot.get();
+    return removedIds.stream().noneMatch(snapshot.activityIds()::contains)
+           && activitiesToSimulate.stream().allMatch(a -> startsNoEarlierThan(a, snapshot.time()))
+           && insertedActivities.keySet().stream()
+                                .filter(a -> !snapshot.activityIds().contains(a.id()))
+                                .allMatch(a -> startsNoEarlierThan(a, snapshot.time()));
+  }
+
+  private void discardStaleSnapshot(){
+    this.snapshot.ifPresent($ -> $.driver().close());
+    this.snapshot = Optional.empty();
+  }
+
+  private void takeSnapshot(final Duration time, final Collection<SchedulingActivityDirective> activities)
+  throws SimulationException, SchedulingInterruptedException {
+    final var directives = toDirectives(activities);
+    try {
+      driver.addActivities(directives);
+      if(time.isPositive()) driver.simulateUntil(time.minus(Duration.EPSILON));
+      this.snapshot = Optional.of(new Snapshot(
+          time,
+          driver.fork(),
+          insertedActivities.keySet().stream().map(SchedulingActivityDirective::id).collect(Collectors.toSet())));
+    } catch (SchedulingInterruptedException e) {
+      throw e; //pass interruption up
+    } catch (Exception e){
+      throw new SimulationException("An exception happened during simulation", e);
+    }
+    this.lastSimulationData = null;
+  }
+
+  private void replaceDriver(final ResumableSimulationDriver<?> newDriver){
+    if (driver != null) {
+      this.pastSimulationRestarts += driver.getCountSimulationRestarts();
+      driver.close();
+    }
+    driver = newDriver;
+    this.lastSimulationData = null;
+  }
+
   public void removeActivitiesFromSimulation(final Collection<SchedulingActivityDirective> activities)
   throws SimulationException, SchedulingInterruptedException
   {
@@ -253,7 +377,7 @@ public class SimulationFacade implements AutoCloseable{
   }
 
   /**
-   * Returns the total number of simulation restarts
+   * Returns the total number of simulation restarts, counting each resumption from a snapshot as one
    * @return the number of simulation restarts
    */
   public int countSimulationRestarts(){
@@ -290,10 +414,22 @@ public class SimulationFacade implements AutoCloseable{
 
   private void simulateActivities(final Collection<SchedulingActivityDirective> activities)
   throws SimulationException, SchedulingInterruptedException {
+    final var directivesToSimulate = toDirectives(activities);
+    if(directivesToSimulate.isEmpty()) return;
+    try {
+      driver.simulateActivities(directivesToSimulate);
+    } catch (SchedulingInterruptedException e) {
+      throw e; //pass interruption up
+    } catch (Exception e){
+      throw new SimulationException("An exception happened during simulation", e);
+    }
+    this.lastSimulationData = null;
+  }
+
+  private Map<ActivityDirectiveId, ActivityDirective> toDirectives(final Collection<SchedulingActivityDirective> activities) {
     final var activitiesSortedByStartTime =
         activities.stream().filter(activity -> !(insertedActivities.containsKey(activity)))
                   .sorted(Comparator.comparing(SchedulingActivityDirective::startOffset)).toList();
-    if(activitiesSortedByStartTime.isEmpty()) return;
     final Map<ActivityDirectiveId, ActivityDirective> directivesToSimulate = new HashMap<>();
 
     for(final var activity : activitiesSortedByStartTime){
@@ -308,14 +444,7 @@ public class SimulationFacade implements AutoCloseable{
           activityDirective);
       insertedActivities.put(activity, activityDirective);
     }
-    try {
-      driver.simulateActivities(directivesToSimulate);
-    } catch (SchedulingInterruptedException e) {
-      throw e; //pass interruption up
-    } catch (Exception e){
-      throw new SimulationException("An exception happened during simulation", e);
-    }
-    this.lastSimulationData = null;
+    return directivesToSimulate;
   }
 
   public static class SimulationException extends Exception {
@@ -335,8 +464,12 @@ public class SimulationFacade implements AutoCloseable{
       final var results = driver.getSimulationResultsUpTo(this.planningHorizon.getStartInstant(), endTime);
       //compare references
       if(lastSimulationData == null || results != lastSimulationData.driverResults()) {
+        if(countSimulationRestarts() != this.simulationRestartsConverted) {
+          this.resultsConverter.reset();
+          this.simulationRestartsConverted = countSimulationRestarts();
+        }
         //simulation results from the last simulation, as converted for use by the constraint evaluation engine
-        this.lastSimulationData = new SimulationData(results, SimulationResultsConverter.convertToConstraintModelResults(results));
+        this.lastSimulationData = new SimulationData(results, this.resultsConverter.convert(results));
       }
     } catch (SchedulingInterruptedException e){
       throw e; //pass interruption up
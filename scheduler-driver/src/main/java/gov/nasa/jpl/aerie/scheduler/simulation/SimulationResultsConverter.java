@@ -1,17 +1,29 @@
 package gov.nasa.jpl.aerie.scheduler.simulation;
 
-import com.google.common.collect.Maps;
+import gov.nasa.jpl.aerie.constraints.model.ActivityInstance;
 import gov.nasa.jpl.aerie.constraints.model.DiscreteProfile;
+import gov.nasa.jpl.aerie.constraints.model.LinearEquation;
 import gov.nasa.jpl.aerie.constraints.model.LinearProfile;
 import gov.nasa.jpl.aerie.constraints.time.Interval;
+import gov.nasa.jpl.aerie.constraints.time.IntervalMap;
 import gov.nasa.jpl.aerie.merlin.driver.SimulatedActivity;
+import gov.nasa.jpl.aerie.merlin.driver.SimulatedActivityId;
 import gov.nasa.jpl.aerie.merlin.driver.SimulationResults;
+import gov.nasa.jpl.aerie.merlin.driver.engine.ProfileSegment;
 import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
 
+import static gov.nasa.jpl.aerie.constraints.time.Interval.Inclusivity.Exclusive;
+import static gov.nasa.jpl.aerie.constraints.time.Interval.Inclusivity.Inclusive;
 import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.MICROSECONDS;
 
 public class SimulationResultsConverter {
@@ -23,16 +35,7 @@ public class SimulationResultsConverter {
    * @return the same results rearranged to be suitable for use by the constraint evaluation engine
    */
   public static gov.nasa.jpl.aerie.constraints.model.SimulationResults convertToConstraintModelResults(SimulationResults driverResults){
-    final var activities =  driverResults.simulatedActivities.entrySet().stream()
-                                                             .map(e -> convertToConstraintModelActivityInstance(e.getKey().id(), e.getValue(), driverResults.startTime))
-                                                             .collect(Collectors.toList());
-    return new gov.nasa.jpl.aerie.constraints.model.SimulationResults(
-        driverResults.startTime,
-        Interval.betweenClosedOpen(Duration.ZERO, driverResults.duration),
-        activities,
-        Maps.transformValues(driverResults.realProfiles, $ -> LinearProfile.fromSimulatedProfile($.getRight())),
-        Maps.transformValues(driverResults.discreteProfiles, $ -> DiscreteProfile.fromSimulatedProfile($.getRight()))
-    );
+    return new Incremental().convert(driverResults);
   }
 
   /**
@@ -52,4 +55,127 @@ public class SimulationResultsConverter {
         id, driverActivity.type(), driverActivity.arguments(),
         activityInterval);
   }
+
+  /**
+   * A converter that remembers what it has converted from one simulation run, so that converting a later set of
+   * results from the same run only does work for the profile segments and activities added since.
+   *
+   * <p>
+   * A resumed simulation only ever extends its results: every profile segment but the last has a settled extent,
+   * and an activity that has finished stays finished. So for each profile this counts the segments already converted,
+   * and converts only those after them, plus the last one, whose extent grows as the simulation goes on.
+   * The converted profiles share their settled segments rather than copying them.
+   * An activity is converted again only if it differs from the one last converted under its id,
+   * as when a child activity is renumbered because more directives have started.
+   * </p>
+   *
+   * <p>
+   * None of this holds across a restart of the simulation, which must be followed by a call to {@link #reset()}.
+   * </p>
+   */
+  public static final class Incremental {
+    private Instant startTime = null;
+    private final Map<String, ConvertedProfile<LinearEquation>> realProfiles = new HashMap<>();
+    private final Map<String, ConvertedProfile<SerializedValue>> discreteProfiles = new HashMap<>();
+    private final Map<SimulatedActivityId, ConvertedActivity> convertedActivities = new HashMap<>();
+
+    /** Forget everything converted so far, because the simulation these results come from has restarted. */
+    public void reset() {
+      this.startTime = null;
+      this.realProfiles.clear();
+      this.discreteProfiles.clear();
+      this.convertedActivities.clear();
+    }
+
+    public gov.nasa.jpl.aerie.constraints.model.SimulationResults convert(final SimulationResults driverResults) {
+      // Converted activities are relative to the start time, so they don't carry over a change to it.
+      if (!driverResults.startTime.equals(this.startTime)) this.convertedActivities.clear();
+      this.startTime = driverResults.startTime;
+
+      final var activities = new ArrayList<ActivityInstance>(driverResults.simulatedActivities.size());
+      for (final var entry : driverResults.simulatedActivities.entrySet()) {
+        final var id = entry.getKey();
+        final var activity = entry.getValue();
+
+        // The driver hands back the same object for an activity that hasn't changed, so check that first.
+        final var converted = this.convertedActivities.get(id);
+        if (converted != null && (converted.source() == activity || converted.source().equals(activity))) {
+          activities.add(converted.instance());
+        } else {
+          final var instance = convertToConstraintModelActivityInstance(id.id(), activity, driverResults.startTime);
+          this.convertedActivities.put(id, new ConvertedActivity(activity, instance));
+          activities.add(instance);
+        }
+      }
+
+      final var realProfiles = new HashMap<String, LinearProfile>(driverResults.realProfiles.size());
+      for (final var entry : driverResults.realProfiles.entrySet()) {
+        final var converted = this.realProfiles.computeIfAbsent(entry.getKey(), $ -> new ConvertedProfile<>());
+        realProfiles.put(entry.getKey(), new LinearProfile(converted.extend(
+            entry.getValue().getRight(),
+            (start, dynamics) -> new LinearEquation(start, dynamics.initial, dynamics.rate))));
+      }
+
+      final var discreteProfiles = new HashMap<String, DiscreteProfile>(driverResults.discreteProfiles.size());
+      for (final var entry : driverResults.discreteProfiles.entrySet()) {
+        final var converted = this.discreteProfiles.computeIfAbsent(entry.getKey(), $ -> new ConvertedProfile<>());
+        discreteProfiles.put(entry.getKey(), new DiscreteProfile(converted.extend(
+            entry.getValue().getRight(),
+            (start, value) -> value)));
+      }
+
+      return new gov.nasa.jpl.aerie.constraints.model.SimulationResults(
+          driverResults.startTime,
+          Interval.betweenClosedOpen(Duration.ZERO, driverResults.duration),
+          activities,
+          Collections.unmodifiableMap(realProfiles),
+          Collections.unmodifiableMap(discreteProfiles)
+      );
+    }
+  }
+
+  private record ConvertedActivity(SimulatedActivity source, ActivityInstance instance) {}
+
+  /** The settled segments of a profile converted so far, i.e. all but the last segment reported by the driver. */
+  private static final class ConvertedProfile<V> {
+    private IntervalMap.Appender<V> segments = new IntervalMap.Appender<>();
+    private int settledCount = 0;
+    private Duration settledEnd = Duration.ZERO;
+
+    /**
+     * Convert the segments of a profile which extends the one last given to this method.
+     *
+     * @param driverSegments every segment of the profile, as reported by the simulation driver
+     * @param convert converts the dynamics of a segment starting at the given time
+     * @return the converted profile, the same as if converted by {@link LinearProfile#fromSimulatedProfile}
+     *         or {@link DiscreteProfile#fromSimulatedProfile}
+     */
+    public <Dynamics> IntervalMap<V> extend(
+        final List<ProfileSegment<Dynamics>> driverSegments,
+        final BiFunction<Duration, Dynamics, V> convert
+    ) {
+      // A shorter profile can't have come from the same simulation run, so start over rather than mix up two runs.
+      if (driverSegments.size() <= this.settledCount) {
+        this.segments = new IntervalMap.Appender<>();
+        this.settledCount = 0;
+        this.settledEnd = Duration.ZERO;
+      }
+
+      for (; this.settledCount + 1 < driverSegments.size(); this.settledCount += 1) {
+        final var segment = driverSegments.get(this.settledCount);
+        final var end = this.settledEnd.plus(segment.extent());
+        this.segments.append(
+            Interval.between(this.settledEnd, Inclusive, end, Exclusive),
+            convert.apply(this.settledEnd, segment.dynamics()));
+        this.settledEnd = end;
+      }
+
+      if (this.settledCount == driverSegments.size()) return this.segments.build();
+
+      final var last = driverSegments.get(this.settledCount);
+      return this.segments.buildWith(
+          Interval.between(this.settledEnd, Inclusive, this.settledEnd.plus(last.extent()), Exclusive),
+          convert.apply(this.settledEnd, last.dynamics()));
+    }
+  }
 }
@@ -1039,7 +1039,14 @@ public class PrioritySolver implements Solver {
         }
 
       };
-      return rootFindingHelper(f, history, solved);
+      //every candidate starts at or after the earliest start, so the simulation before it is kept and forked for each
+      //candidate rather than simulated again
+      simulationFacade.keepSnapshotBefore(solved.start().start);
+      try {
+        return rootFindingHelper(f, history, solved);
+      } finally {
+        simulationFacade.discardSnapshot();
+      }
       //CASE 2: activity has a controllable duration
     } else if (activityExpression.type().getDurationType() instanceof DurationType.Controllable dt) {
       //select earliest start time, STN guarantees satisfiability
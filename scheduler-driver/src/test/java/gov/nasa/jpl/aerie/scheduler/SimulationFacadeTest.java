@@ -261,6 +261,45 @@ public class SimulationFacadeTest {
     assertEquals(expected, actual);
   }
 
+  @Test
+  public void tryingActivitiesResumesFromSnapshot()
+  throws SimulationFacade.SimulationException, SchedulingInterruptedException
+  {
+    final var plan = makeTestPlanP0B1();
+    facade.insertActivitiesIntoSimulation(plan.getActivities());
+    facade.computeSimulationResultsUntil(tEnd);
+    assertEquals(1, facade.countSimulationRestarts());
+
+    //each bite tried replaces the one tried before it, all of them after the snapshot
+    facade.keepSnapshotBefore(t1_5);
+    final var actTypeBite = problem.getActivityType("BiteBanana");
+    final var tries = List.of(t2, t1_5, t2.plus(t1));
+    SchedulingActivityDirective lastTried = null;
+    for (var i = 0; i < tries.size(); i++) {
+      final var tried = SchedulingActivityDirective.of(actTypeBite, tries.get(i), null, Map.of("biteSize", SerializedValue.of(0.5)), null, true);
+      facade.removeAndInsertActivitiesFromSimulation(lastTried == null ? List.of() : List.of(lastTried), List.of(tried));
+      lastTried = tried;
+      //resuming from the snapshot counts as a restart, like restarting from the beginning would
+      assertEquals(2 + i, facade.countSimulationRestarts());
+    }
+    facade.discardSnapshot();
+    facade.computeSimulationResultsUntil(tEnd);
+
+    final var straight = new SimulationFacade(horizon, missionModel, SimulationUtility.getBananaSchedulerModel(), ()-> false);
+    final var straightPlan = makeTestPlanP0B1();
+    straightPlan.add(lastTried);
+    straight.insertActivitiesIntoSimulation(straightPlan.getActivities());
+    straight.computeSimulationResultsUntil(tEnd);
+
+    final var results = facade.getLatestDriverSimulationResults().get();
+    final var straightResults = straight.getLatestDriverSimulationResults().get();
+    assertEquals(straightResults.realProfiles, results.realProfiles);
+    assertEquals(straightResults.discreteProfiles, results.discreteProfiles);
+    final var stateQuery = new StateQueryParam(getFruitRes().name, new TimeExpressionConstant(t2.plus(t2)));
+    assertEquals(SerializedValue.of(2.4), stateQuery.getValue(facade.getLatestConstraintSimulationResults().get(), null, horizon.getHor()));
+    straight.close();
+  }
+
   @Test
   public void testCoexistenceGoalWithResourceConstraint() throws SchedulingInterruptedException {
     problem.setInitialPlan(makeTestPlanP0B1());
@@ -1,5 +1,6 @@
 package gov.nasa.jpl.aerie.scheduler.simulation;
 
+import gov.nasa.jpl.aerie.merlin.driver.ActivityDirective;
 import gov.nasa.jpl.aerie.merlin.driver.ActivityDirectiveId;
 import gov.nasa.jpl.aerie.merlin.driver.SerializedActivity;
 import gov.nasa.jpl.aerie.merlin.driver.engine.SimulationEngine;
@@ -11,8 +12,10 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.Optional;
 
 import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.SECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -101,27 +104,73 @@ public class ResumableSimulationTest {
         new ActivityDirectiveId(1));
     final var fooMissionModel = SimulationUtility.getFooMissionModel();
     resumableSimulationDriver = new ResumableSimulationDriver<>(fooMissionModel, tenHours, ()-> false);
-    try (final var executor = unsafeGetExecutor(resumableSimulationDriver)) {
-      for (var i = 0; i < 20000; i++) {
-        resumableSimulationDriver.initSimulation();
-        resumableSimulationDriver.clearActivitiesInserted();
-        resumableSimulationDriver.simulateActivity(activity.start, activity.activity, null, true, activity.id);
-        assertTrue(
-            executor.getActiveCount() < 100,
-            "Threads are not being cleaned up properly - this test shouldn't need more than 2 threads, but it used at least 100");
+    for (var i = 0; i < 20000; i++) {
+      resumableSimulationDriver.initSimulation();
+      resumableSimulationDriver.clearActivitiesInserted();
+      resumableSimulationDriver.simulateActivity(activity.start, activity.activity, null, true, activity.id);
+      assertTrue(
+          unsafeGetEngine(resumableSimulationDriver).threadsInUse() < 100,
+          "Threads are not being cleaned up properly - this test shouldn't need more than 2 threads, but it used at least 100");
+    }
+  }
+
+  @Test
+  public void testForkSimulatesOnlyFromInsertion() throws SchedulingInterruptedException {
+    final var acts = getActivities();
+    final var fooMissionModel = SimulationUtility.getFooMissionModel();
+    final var paused = new ResumableSimulationDriver<>(fooMissionModel, tenHours, ()-> false);
+    final var planned = new HashMap<ActivityDirectiveId, ActivityDirective>();
+    for (var act : acts) {
+      planned.put(act.id, new ActivityDirective(act.start, act.activity, null, true));
+    }
+    paused.addActivities(planned);
+    paused.simulateUntil(Duration.of(19, SECONDS));
+    final var pause = paused.getCurrentSimulationEndTime();
+
+    // Try an activity at two different times, each on its own fork of the paused simulation
+    for (final var start : List.of(Duration.of(20, SECONDS), Duration.of(45, SECONDS))) {
+      final var tried = new TestSimulatedActivity(
+          start,
+          new SerializedActivity("BasicActivity", Map.of()),
+          new ActivityDirectiveId(3));
+      final var fork = paused.fork();
+      assertEquals(pause, fork.getCurrentSimulationEndTime());
+      fork.simulateActivity(tried.start, tried.activity, null, true, tried.id);
+      // The fork went on from the pause rather than restarting from the beginning
+      assertEquals(0, fork.getCountSimulationRestarts());
+
+      final var straight = new ResumableSimulationDriver<>(fooMissionModel, tenHours, ()-> false);
+      for (var act : acts) {
+        straight.simulateActivity(act.start, act.activity, null, true, act.id);
       }
+      straight.simulateActivity(tried.start, tried.activity, null, true, tried.id);
+      assertEquals(1, straight.getCountSimulationRestarts());
+
+      final var now = Instant.now();
+      final var end = start.plus(Duration.of(10, SECONDS));
+      final var forkResults = fork.getSimulationResultsUpTo(now, end);
+      final var straightResults = straight.getSimulationResultsUpTo(now, end);
+      assertEquals(straightResults.simulatedActivities, forkResults.simulatedActivities);
+      assertEquals(straightResults.realProfiles, forkResults.realProfiles);
+      assertEquals(straightResults.discreteProfiles, forkResults.discreteProfiles);
+      assertEquals(Optional.of(Duration.of(2, SECONDS)), fork.getActivityDuration(tried.id));
+
+      fork.close();
+      straight.close();
     }
+
+    // Forking left the paused simulation where it was
+    assertEquals(pause, paused.getCurrentSimulationEndTime());
+    assertEquals(1, paused.getCountSimulationRestarts());
+    paused.close();
   }
 
-  private static ThreadPoolExecutor unsafeGetExecutor(final ResumableSimulationDriver<?> driver) {
+  private static SimulationEngine unsafeGetEngine(final ResumableSimulationDriver<?> driver) {
     try {
       final var engineField = ResumableSimulationDriver.class.getDeclaredField("engine");
       engineField.setAccessible(true);
 
-      final var executorField = SimulationEngine.class.getDeclaredField("executor");
-      executorField.setAccessible(true);
-
-      return (ThreadPoolExecutor) executorField.get(engineField.get(driver));
+      return (SimulationEngine) engineField.get(driver);
     } catch (final ReflectiveOperationException ex) {
       throw new RuntimeException(ex);
     }
@@ -0,0 +1,114 @@
+package gov.nasa.jpl.aerie.scheduler.simulation;
+
+import gov.nasa.jpl.aerie.merlin.driver.ActivityDirectiveId;
+import gov.nasa.jpl.aerie.merlin.driver.SimulatedActivity;
+import gov.nasa.jpl.aerie.merlin.driver.SimulatedActivityId;
+import gov.nasa.jpl.aerie.merlin.driver.SimulationResults;
+import gov.nasa.jpl.aerie.merlin.driver.engine.ProfileSegment;
+import gov.nasa.jpl.aerie.merlin.protocol.types.Duration;
+import gov.nasa.jpl.aerie.merlin.protocol.types.RealDynamics;
+import gov.nasa.jpl.aerie.merlin.protocol.types.SerializedValue;
+import gov.nasa.jpl.aerie.merlin.protocol.types.ValueSchema;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static gov.nasa.jpl.aerie.merlin.protocol.types.Duration.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class SimulationResultsConverterTest {
+  private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+  @Test
+  public void extendsWhatWasAlreadyConverted() {
+    final var converter = new SimulationResultsConverter.Incremental();
+
+    final var first = converter.convert(results(
+        10,
+        List.of(segment(4, 1.0), segment(6, 2.0)),
+        Map.of(new SimulatedActivityId(1), activity(0, true), new SimulatedActivityId(2), activity(5, false))));
+    // The simulation resumes, extending the last segment and adding more segments and activities.
+    final var secondDriverResults = results(
+        20,
+        List.of(segment(4, 1.0), segment(8, 2.0), segment(8, 3.0)),
+        Map.of(
+            new SimulatedActivityId(1), activity(0, true),
+            new SimulatedActivityId(2), activity(5, false),
+            new SimulatedActivityId(3), activity(15, true)));
+    final var second = converter.convert(secondDriverResults);
+
+    // Settled segments and directives' activities are converted only once.
+    assertSame(
+        first.realProfiles.get("rate").profilePieces.get(0).value(),
+        second.realProfiles.get("rate").profilePieces.get(0).value());
+    assertSame(instance(first, 1), instance(second, 1));
+
+    // Extended or not, the conversion must agree with converting from scratch.
+    assertEquals(SimulationResultsConverter.convertToConstraintModelResults(secondDriverResults), second);
+  }
+
+  @Test
+  public void startsOverAfterReset() {
+    final var converter = new SimulationResultsConverter.Incremental();
+
+    converter.convert(results(
+        10,
+        List.of(segment(4, 1.0), segment(6, 2.0)),
+        Map.of(new SimulatedActivityId(1), activity(0, true))));
+    converter.reset();
+
+    // A restarted simulation may have different segments and activities from the start.
+    final var restartedDriverResults = results(
+        20,
+        List.of(segment(5, 3.0), segment(5, 4.0), segment(10, 5.0)),
+        Map.of(new SimulatedActivityId(1), activity(2, true)));
+    assertEquals(
+        SimulationResultsConverter.convertToConstraintModelResults(restartedDriverResults),
+        converter.convert(restartedDriverResults));
+  }
+
+  private static gov.nasa.jpl.aerie.constraints.model.ActivityInstance instance(
+      final gov.nasa.jpl.aerie.constraints.model.SimulationResults results,
+      final long id)
+  {
+    return results.activities.stream().filter($ -> $.id == id).findFirst().orElseThrow();
+  }
+
+  private static ProfileSegment<RealDynamics> segment(final long seconds, final double value) {
+    return new ProfileSegment<>(Duration.of(seconds, SECONDS), RealDynamics.constant(value));
+  }
+
+  private static SimulatedActivity activity(final long startSeconds, final boolean isDirective) {
+    return new SimulatedActivity(
+        "Activity",
+        Map.of(),
+        START.plusSeconds(startSeconds),
+        Duration.of(1, SECONDS),
+        null,
+        List.of(),
+        isDirective ? Optional.of(new ActivityDirectiveId(startSeconds)) : Optional.empty(),
+        SerializedValue.of(Map.of()));
+  }
+
+  private static SimulationResults results(
+      final long durationSeconds,
+      final List<ProfileSegment<RealDynamics>> rate,
+      final Map<SimulatedActivityId, SimulatedActivity> activities)
+  {
+    return new SimulationResults(
+        Map.of("rate", Pair.of(ValueSchema.REAL, rate)),
+        Map.of(),
+        activities,
+        Map.of(),
+        START,
+        Duration.of(durationSeconds, SECONDS),
+        List.of(),
+        new TreeMap<>());
+  }
+}